@@ -0,0 +1,38 @@
+package com.fas.dentistry_data_analysis.common.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 분석 원본 데이터의 버전
+ *
+ * 업로드 파일 저장, 대시보드 갱신(C:/app/dentistry, C:/app/disease_json 재작성)처럼 분석 결과가 달라질 수 있는
+ * 작업이 끝날 때마다 올린다. 분석 결과 캐시는 이 버전을 키에 넣어 이전 버전의 결과를 다시 쓰지 않는다.
+ */
+@Slf4j
+@Service
+public class DataVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 현재 데이터 버전
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * 데이터 버전 증가
+     *
+     * @param reason 변경 사유 (로그용)
+     * @return 새 버전
+     */
+    public long bump(String reason) {
+        long next = version.incrementAndGet();
+        log.info("Analysis data version {} ({})", next, reason);
+        return next;
+    }
+}
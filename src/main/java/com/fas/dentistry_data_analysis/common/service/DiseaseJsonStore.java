@@ -0,0 +1,423 @@
+package com.fas.dentistry_data_analysis.common.service;
+
+import com.fas.dentistry_data_analysis.common.util.json.JsonRecordProjection;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PASS된 라벨링 JSON 저장소 (C:/app/disease_json)
+ *
+ * 질환_기관별로 "질환_기관.jsonl" 파일 하나에 레코드를 한 줄씩(JSON Lines) 이어 쓴다.
+ * 레코드마다 파일 전체를 다시 읽고 쓰지 않으며, 파일별 writer가 버퍼에 모아 두었다가
+ * 일정 건수마다, 그리고 갱신이 끝날 때 디스크에 동기화(fsync)한다.
+ * 이전 형식(JSON 배열 .json)은 시작 시 한 번 .jsonl로 변환하며, 읽기는 두 형식 모두 지원한다.
+ */
+@Slf4j
+@Service
+public class DiseaseJsonStore {
+
+    public static final String STORE_DIR = "C:/app/disease_json";
+    public static final String RECORD_FILE_SUFFIX = ".jsonl";
+    private static final String LEGACY_FILE_SUFFIX = ".json";
+
+    // 이 건수마다 디스크에 동기화
+    private static final int SYNC_INTERVAL = 200;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, RecordWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * 이전 형식(JSON 배열) 파일을 JSON Lines 파일로 한 번 변환
+     */
+    @PostConstruct
+    public void migrateLegacyFiles() {
+        File[] legacyFiles = new File(STORE_DIR).listFiles((dir, name) -> name.endsWith(LEGACY_FILE_SUFFIX));
+        if (legacyFiles == null) {
+            return;
+        }
+        for (File legacyFile : legacyFiles) {
+            String baseName = legacyFile.getName().substring(0, legacyFile.getName().length() - LEGACY_FILE_SUFFIX.length());
+            File target = new File(legacyFile.getParentFile(), baseName + RECORD_FILE_SUFFIX);
+            try {
+                Path tempFile = Files.createTempFile(legacyFile.getParentFile().toPath(), baseName, ".tmp");
+                int count = 0;
+                try (RecordIterator records = openRecords(legacyFile);
+                     BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                    while (records.hasNext()) {
+                        writer.write(objectMapper.writeValueAsString(records.next()));
+                        writer.newLine();
+                        count++;
+                    }
+                    // 이미 .jsonl에 기록된 레코드가 있으면 뒤에 이어 붙임
+                    if (target.exists()) {
+                        try (RecordIterator existing = openRecords(target)) {
+                            while (existing.hasNext()) {
+                                writer.write(objectMapper.writeValueAsString(existing.next()));
+                                writer.newLine();
+                            }
+                        }
+                    }
+                }
+                Files.move(tempFile, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                Files.delete(legacyFile.toPath());
+                log.info("Migrated {} records from {} to {}", count, legacyFile.getName(), target.getName());
+            } catch (Exception e) {
+                log.error("기존 JSON 파일을 변환하는 중 오류가 발생했습니다: {}", legacyFile.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    /**
+     * 레코드 한 건을 질환_기관 파일 끝에 추가
+     *
+     * @param diseaseClass  질환명
+     * @param institutionId 기관명
+     * @param record        저장할 JSON 레코드
+     */
+    public void append(String diseaseClass, String institutionId, JsonNode record) {
+        String fileName = String.format("%s_%s%s", diseaseClass, institutionId, RECORD_FILE_SUFFIX);
+        try {
+            writers.computeIfAbsent(fileName, this::openWriter).append(objectMapper.writeValueAsString(record));
+        } catch (IOException | UncheckedIOException e) {
+            log.error("JSON 데이터를 로컬에 저장하는 중 오류가 발생했습니다: {}", fileName, e);
+        }
+    }
+
+    /**
+     * 버퍼에 남은 레코드를 모두 디스크에 동기화 (갱신 종료 시 호출)
+     */
+    public void sync() {
+        writers.values().forEach(RecordWriter::sync);
+    }
+
+    /**
+     * 모든 writer를 동기화 후 닫음
+     */
+    @PreDestroy
+    public void closeAll() {
+        writers.keySet().forEach(this::close);
+    }
+
+    /**
+     * 저장소 전체 삭제 (전체 갱신 시작 시)
+     */
+    public void deleteAll() {
+        closeAll();
+        File[] files = new File(STORE_DIR).listFiles((dir, name) -> isRecordFile(name));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            deleteFile(file);
+        }
+    }
+
+    /**
+     * 특정 질환_기관 파일 삭제 (증분 갱신 시 변경된 서브트리)
+     *
+     * @param diseaseClass  질환명
+     * @param institutionId 기관명
+     */
+    public void delete(String diseaseClass, String institutionId) {
+        String baseName = String.format("%s_%s", diseaseClass, institutionId);
+        close(baseName + RECORD_FILE_SUFFIX);
+        for (String suffix : new String[]{RECORD_FILE_SUFFIX, LEGACY_FILE_SUFFIX}) {
+            File file = new File(STORE_DIR, baseName + suffix);
+            if (file.exists()) {
+                deleteFile(file);
+            }
+        }
+    }
+
+    /**
+     * 저장소 파일인지 확인 (.jsonl 또는 이전 형식 .json)
+     */
+    public static boolean isRecordFile(String fileName) {
+        String lowerName = fileName.toLowerCase();
+        return lowerName.endsWith(RECORD_FILE_SUFFIX) || lowerName.endsWith(LEGACY_FILE_SUFFIX);
+    }
+
+    /**
+     * 파일명에서 확장자(.jsonl/.json) 제거
+     */
+    public static String stripExtension(String fileName) {
+        String lowerName = fileName.toLowerCase();
+        if (lowerName.endsWith(RECORD_FILE_SUFFIX)) {
+            return fileName.substring(0, fileName.length() - RECORD_FILE_SUFFIX.length());
+        }
+        if (lowerName.endsWith(LEGACY_FILE_SUFFIX)) {
+            return fileName.substring(0, fileName.length() - LEGACY_FILE_SUFFIX.length());
+        }
+        return fileName;
+    }
+
+    /**
+     * 저장소 파일의 레코드를 한 건씩 읽음 (JSON Lines, 이전 형식의 JSON 배열 모두 지원)
+     * JSON Lines 파일에서 비정상 종료 등으로 깨진 줄은 건너뛴다.
+     *
+     * @param file 저장소 파일
+     * @return 레코드 반복자 (사용 후 close 필요)
+     */
+    public RecordIterator openRecords(File file) throws IOException {
+        if (file.getName().toLowerCase().endsWith(RECORD_FILE_SUFFIX)) {
+            return new JsonLinesIterator(file, null);
+        }
+        return new JsonArrayIterator(objectMapper.readerFor(JsonNode.class).readValues(file));
+    }
+
+    /**
+     * 저장소 파일의 레코드를 필요한 키만 남겨 한 건씩 읽음
+     * 레코드 전체 트리를 만들지 않으므로 Annotation_Data 등 큰 하위 구조가 있어도 메모리 사용이 일정하다.
+     *
+     * @param file       저장소 파일
+     * @param projection 남길 키
+     * @return 레코드 반복자 (사용 후 close 필요)
+     */
+    public RecordIterator openRecords(File file, JsonRecordProjection projection) throws IOException {
+        if (file.getName().toLowerCase().endsWith(RECORD_FILE_SUFFIX)) {
+            return new JsonLinesIterator(file, projection);
+        }
+        return new ProjectedArrayIterator(objectMapper.getFactory().createParser(file), projection);
+    }
+
+    // 값 하나를 읽음 (레코드 객체는 투영, 그 밖의 값은 그대로)
+    private static JsonNode readRecord(JsonParser parser, JsonToken token, JsonRecordProjection projection) throws IOException {
+        if (token == JsonToken.START_OBJECT) {
+            return projection.read(parser);
+        }
+        return parser.readValueAsTree();
+    }
+
+    private RecordWriter openWriter(String fileName) {
+        try {
+            File dir = new File(STORE_DIR);
+            if (!dir.exists()) {
+                dir.mkdirs(); // 디렉터리가 없으면 생성
+            }
+            return new RecordWriter(new File(dir, fileName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void close(String fileName) {
+        RecordWriter writer = writers.remove(fileName);
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private void deleteFile(File file) {
+        if (file.delete()) {
+            log.info("Deleted existing file: {}", file.getName());
+        } else {
+            log.warn("Failed to delete file: {}", file.getName());
+        }
+    }
+
+    /**
+     * 레코드 반복자
+     */
+    public interface RecordIterator extends Iterator<JsonNode>, Closeable {
+    }
+
+    // 파일 하나에 대한 추가 전용 writer (여러 폴더 작업이 같은 파일에 쓰므로 동기화)
+    private static class RecordWriter {
+        private final File file;
+        private final FileOutputStream outputStream;
+        private final Writer writer;
+        private int unsyncedCount = 0;
+
+        private RecordWriter(File file) throws IOException {
+            this.file = file;
+            this.outputStream = new FileOutputStream(file, true);
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        }
+
+        private synchronized void append(String line) throws IOException {
+            writer.write(line);
+            writer.write('\n');
+            if (++unsyncedCount >= SYNC_INTERVAL) {
+                syncUnchecked();
+            }
+        }
+
+        private synchronized void sync() {
+            try {
+                syncUnchecked();
+            } catch (IOException e) {
+                log.error("JSON 파일을 동기화하는 중 오류가 발생했습니다: {}", file.getAbsolutePath(), e);
+            }
+        }
+
+        private void syncUnchecked() throws IOException {
+            writer.flush();
+            outputStream.getFD().sync();
+            unsyncedCount = 0;
+        }
+
+        private synchronized void close() {
+            sync();
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Failed to close file: {}", file.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    private class JsonLinesIterator implements RecordIterator {
+        private final File file;
+        private final BufferedReader reader;
+        private final JsonRecordProjection projection; // null이면 전체 트리
+        private JsonNode next;
+        private int lineNumber = 0;
+
+        private JsonLinesIterator(File file, JsonRecordProjection projection) throws IOException {
+            this.file = file;
+            this.reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+            this.projection = projection;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                String line;
+                while (next == null && (line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        next = parseLine(line);
+                    } catch (IOException e) {
+                        log.warn("깨진 JSON 줄을 건너뜁니다: {} ({}번째 줄)", file.getName(), lineNumber);
+                    }
+                }
+                return next != null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public JsonNode next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JsonNode record = next;
+            next = null;
+            return record;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        private JsonNode parseLine(String line) throws IOException {
+            if (projection == null) {
+                return objectMapper.readTree(line);
+            }
+            try (JsonParser parser = objectMapper.getFactory().createParser(line)) {
+                return readRecord(parser, parser.nextToken(), projection);
+            }
+        }
+    }
+
+    // 이전 형식(JSON 배열) 파일을 항목 단위로 투영하며 읽는 반복자
+    private static class ProjectedArrayIterator implements RecordIterator {
+        private final JsonParser parser;
+        private final JsonRecordProjection projection;
+        private final boolean array;
+        private boolean finished;
+        private JsonNode next;
+
+        private ProjectedArrayIterator(JsonParser parser, JsonRecordProjection projection) throws IOException {
+            this.parser = parser;
+            this.projection = projection;
+            JsonToken first = parser.nextToken();
+            this.array = first == JsonToken.START_ARRAY;
+            this.finished = first == null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (finished) {
+                return false;
+            }
+            try {
+                // 배열이면 다음 항목, 배열이 아니면 최상위 값 하나를 레코드로 취급
+                JsonToken token = array ? parser.nextToken() : parser.currentToken();
+                if (token == null || (array && token == JsonToken.END_ARRAY)) {
+                    finished = true;
+                    return false;
+                }
+                next = readRecord(parser, token, projection);
+                finished = !array;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public JsonNode next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JsonNode record = next;
+            next = null;
+            return record;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    private static class JsonArrayIterator implements RecordIterator {
+        private final MappingIterator<JsonNode> iterator;
+
+        private JsonArrayIterator(MappingIterator<JsonNode> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public JsonNode next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void close() throws IOException {
+            iterator.close();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.fas.dentistry_data_analysis.common.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * PASS된 IMAGE_ID 목록 저장소 (C:/app/id/pass_ids.dat)
+ *
+ * 대시보드 갱신이 끝날 때 한 번 저장하고, 분석/중복 검사 요청은 메모리의 읽기 전용 목록을 공유한다.
+ * 파일의 수정 시각/크기가 바뀐 경우에만 다시 읽으므로 요청마다 파일 전체를 파싱하지 않는다.
+ *
+ * 저장 형식: MAGIC, VERSION, 건수 → 정렬된 ID를 앞 ID와 겹치는 접두어 길이 + 나머지 문자열로 기록 (접두어 압축)
+ * 이전 형식(pass_ids.json, 문자열 배열)만 있으면 그 파일을 읽는다.
+ */
+@Slf4j
+@Service
+public class PassIdRegistry {
+
+    public static final String ID_DIR = "C:/app/id";
+    private static final String FILE_NAME = "pass_ids.dat";
+    private static final String LEGACY_FILE_NAME = "pass_ids.json";
+
+    private static final int MAGIC = 0x50494431; // "PID1"
+    private static final int VERSION = 1;
+
+    private final File file = new File(ID_DIR, FILE_NAME);
+    private final File legacyFile = new File(ID_DIR, LEGACY_FILE_NAME);
+
+    // 현재 읽기 목록과 그 목록을 읽은 파일 상태
+    private volatile PassIdSet passIds = PassIdSet.EMPTY;
+    private volatile long loadedModified = -1;
+    private volatile long loadedLength = -1;
+
+    /**
+     * PASS ID 목록 조회 (파일이 바뀌었을 때만 다시 읽음)
+     *
+     * @return 읽기 전용 PASS ID 목록 (파일이 없거나 읽지 못하면 빈 목록)
+     */
+    public Set<String> getPassIds() {
+        File source = file.isFile() ? file : legacyFile;
+        long modified = source.lastModified();
+        long length = source.length();
+        if (modified == loadedModified && length == loadedLength) {
+            return passIds;
+        }
+
+        synchronized (this) {
+            if (modified != loadedModified || length != loadedLength) {
+                passIds = load(source);
+                loadedModified = modified;
+                loadedLength = length;
+            }
+            return passIds;
+        }
+    }
+
+    /**
+     * PASS ID 목록 저장 (기존 목록 대체)
+     * 대시보드 갱신이 모든 폴더 결과를 경로 순서로 합친 뒤 전체 ID를 한 번에 넘긴다. 폴더 작업 중에는 호출하지 않는다.
+     *
+     * @param ids PASS ID
+     */
+    public synchronized void save(Collection<String> ids) {
+        PassIdSet sorted = PassIdSet.of(ids);
+        try {
+            File dir = file.getParentFile();
+            if (!dir.exists()) {
+                dir.mkdirs(); // 디렉터리가 없으면 생성
+            }
+            Path tempFile = Files.createTempFile(dir.toPath(), FILE_NAME, ".tmp");
+            try {
+                try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                    sorted.writeTo(outputStream);
+                }
+                try {
+                    Files.move(tempFile, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            Files.deleteIfExists(legacyFile.toPath()); // 이전 형식 파일은 더 이상 사용하지 않음
+
+            passIds = sorted;
+            loadedModified = file.lastModified();
+            loadedLength = file.length();
+            log.info("Pass된 ID {}건이 저장되었습니다: {}", sorted.size(), file.getPath());
+        } catch (IOException e) {
+            log.error("Pass된 ID를 저장하는 중 오류가 발생했습니다.", e);
+        }
+    }
+
+    private PassIdSet load(File source) {
+        if (!source.isFile()) {
+            return PassIdSet.EMPTY;
+        }
+        try {
+            if (source == legacyFile) {
+                List<String> idList = new ObjectMapper().readValue(source, new TypeReference<List<String>>() {});
+                return PassIdSet.of(idList);
+            }
+            try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(source)))) {
+                return PassIdSet.readFrom(inputStream);
+            }
+        } catch (IOException e) {
+            log.error("Pass된 ID를 읽는 중 오류가 발생했습니다: {}", source.getPath(), e);
+            return PassIdSet.EMPTY;
+        }
+    }
+
+    /**
+     * 정렬된 배열 기반 읽기 전용 ID 목록 (contains는 이진 탐색)
+     */
+    static final class PassIdSet extends AbstractSet<String> {
+
+        static final PassIdSet EMPTY = new PassIdSet(new String[0]);
+
+        private final String[] ids;
+
+        private PassIdSet(String[] ids) {
+            this.ids = ids;
+        }
+
+        static PassIdSet of(Collection<String> ids) {
+            String[] sorted = new TreeSet<>(ids).toArray(new String[0]); // 정렬 + 중복 제거
+            return new PassIdSet(sorted);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && Arrays.binarySearch(ids, o) >= 0;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return Collections.unmodifiableList(Arrays.asList(ids)).iterator();
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+
+        void writeTo(DataOutputStream outputStream) throws IOException {
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(VERSION);
+            outputStream.writeInt(ids.length);
+            String previous = "";
+            for (String id : ids) {
+                int shared = sharedPrefixLength(previous, id);
+                outputStream.writeShort(shared);
+                outputStream.writeUTF(id.substring(shared));
+                previous = id;
+            }
+        }
+
+        static PassIdSet readFrom(DataInputStream inputStream) throws IOException {
+            if (inputStream.readInt() != MAGIC || inputStream.readInt() != VERSION) {
+                throw new IOException("Unsupported pass id file format");
+            }
+            String[] ids = new String[inputStream.readInt()];
+            String previous = "";
+            for (int i = 0; i < ids.length; i++) {
+                int shared = inputStream.readUnsignedShort();
+                ids[i] = previous.substring(0, shared) + inputStream.readUTF();
+                previous = ids[i];
+            }
+            return new PassIdSet(ids);
+        }
+
+        private static int sharedPrefixLength(String a, String b) {
+            int max = Math.min(Math.min(a.length(), b.length()), 0xFFFF);
+            int i = 0;
+            while (i < max && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
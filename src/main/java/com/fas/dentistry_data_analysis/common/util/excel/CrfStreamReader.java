@@ -0,0 +1,380 @@
+package com.fas.dentistry_data_analysis.common.util.excel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * CRF 엑셀 스트리밍 리더 (XSSF SAX)
+ *
+ * 워크북 전체를 메모리에 올리지 않고 시트 XML을 순서대로 읽으며, 헤더 행에서 요청한 컬럼 위치를 찾은 뒤
+ * 데이터 행마다 요청한 컬럼 값만 전달한다. 셀 값은 기존 DOM 방식(getCellValueAsString)과 같은 문자열로 변환한다.
+ * - 숫자: 정수면 소수점 없이, 아니면 그대로 / 날짜 서식이면 Date.toString()
+ * - 수식: 캐싱된 결과값 사용 (숫자는 소수점 포함 그대로)
+ *   FormulaFormat.CELL_STRING이면 ExcelUtils.getCellValueAsString과 같이 정수는 소수점 없이, 날짜 서식은 무시
+ * - 빈 셀/오류 셀: 빈 문자열
+ */
+@Slf4j
+public class CrfStreamReader {
+
+    private CrfStreamReader() {
+    }
+
+    /**
+     * 수식 셀의 결과값 변환 규칙
+     */
+    public enum FormulaFormat {
+        /** 캐싱된 결과값 그대로 (숫자는 소수점 포함, 날짜 서식이면 날짜) */
+        CACHED_RESULT,
+        /** ExcelUtils.getCellValueAsString과 같은 규칙 (정수면 소수점 없이, 날짜 서식은 무시) */
+        CELL_STRING
+    }
+
+    /**
+     * 행 단위 콜백
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @param sheetName 시트 이름
+         * @param rowIndex  행 번호 (0부터 시작)
+         * @param values    요청한 컬럼명 -> 셀 값 (헤더에 없는 컬럼은 포함하지 않음, 셀이 없으면 빈 문자열)
+         */
+        void onRow(String sheetName, int rowIndex, Map<String, String> values);
+    }
+
+    /**
+     * 입력 스트림의 엑셀을 임시 파일로 받은 뒤 스트리밍으로 읽음 (zip 전체를 메모리에 올리지 않도록)
+     *
+     * @see #read(File, Predicate, int, int, Collection, RowHandler)
+     */
+    public static void read(InputStream inputStream, Predicate<String> sheetFilter, int headerRowIndex, int firstDataRowIndex,
+                            Collection<String> columns, RowHandler handler) throws IOException {
+        File tempFile = Files.createTempFile("crf_", ".xlsx").toFile();
+        try {
+            Files.copy(inputStream, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            read(tempFile, sheetFilter, headerRowIndex, firstDataRowIndex, columns, handler);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * 엑셀 파일에서 조건에 맞는 시트의 요청 컬럼만 행 단위로 읽음
+     *
+     * @param file              엑셀 파일 (.xlsx)
+     * @param sheetFilter       읽을 시트 이름 조건
+     * @param headerRowIndex    헤더 행 번호 (0부터 시작, CRF는 3)
+     * @param firstDataRowIndex 데이터 시작 행 번호 (0부터 시작, CRF는 8)
+     * @param columns           읽을 컬럼명 (헤더 값 기준, 앞뒤 공백 제거)
+     * @param handler           행 단위 콜백
+     * @throws IOException 파일을 열거나 XML을 읽지 못한 경우
+     */
+    public static void read(File file, Predicate<String> sheetFilter, int headerRowIndex, int firstDataRowIndex,
+                            Collection<String> columns, RowHandler handler) throws IOException {
+        read(file, sheetFilter, headerRowIndex, firstDataRowIndex, columns, FormulaFormat.CACHED_RESULT, handler);
+    }
+
+    /**
+     * 엑셀 파일에서 조건에 맞는 시트의 요청 컬럼만 행 단위로 읽음
+     *
+     * @param columns       읽을 컬럼명 (null이면 헤더 행의 모든 컬럼)
+     * @param formulaFormat 수식 셀 결과값 변환 규칙
+     * @see #read(File, Predicate, int, int, Collection, RowHandler)
+     */
+    public static void read(File file, Predicate<String> sheetFilter, int headerRowIndex, int firstDataRowIndex,
+                            Collection<String> columns, FormulaFormat formulaFormat, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+            boolean date1904;
+            try (InputStream workbookData = reader.getWorkbookData()) {
+                date1904 = isDate1904(workbookData);
+            }
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheetData = sheets.next()) {
+                    String sheetName = sheets.getSheetName();
+                    if (!sheetFilter.test(sheetName)) {
+                        continue;
+                    }
+                    log.debug("Streaming sheet: {}", sheetName);
+                    SheetHandler sheetHandler = new SheetHandler(sheetName, sharedStrings, styles, date1904, formulaFormat,
+                            headerRowIndex, firstDataRowIndex, columns != null ? new HashSet<>(columns) : null, handler);
+                    parse(sheetData, sheetHandler);
+                    if (!sheetHandler.headerFound) {
+                        log.warn("Header row is missing in sheet: {}", sheetName);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to stream Excel file: " + file.getName(), e);
+        }
+    }
+
+    private static void parse(InputStream xml, DefaultHandler handler) throws Exception {
+        XMLReader xmlReader = XMLHelper.newXMLReader();
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(new InputSource(xml));
+    }
+
+    // workbook.xml의 1904 날짜 체계 사용 여부
+    private static boolean isDate1904(InputStream workbookData) throws Exception {
+        boolean[] date1904 = {false};
+        parse(workbookData, new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("workbookPr".equals(localName)) {
+                    String value = attributes.getValue("date1904");
+                    date1904[0] = "1".equals(value) || "true".equalsIgnoreCase(value);
+                }
+            }
+        });
+        return date1904[0];
+    }
+
+    // 시트 XML 핸들러: 헤더 행에서 컬럼 위치를 찾고, 데이터 행의 해당 컬럼 값만 모아 전달
+    private static class SheetHandler extends DefaultHandler {
+        private final String sheetName;
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final FormulaFormat formulaFormat;
+        private final int headerRowIndex;
+        private final int firstDataRowIndex;
+        // null이면 모든 컬럼
+        private final Set<String> requestedColumns;
+        private final RowHandler handler;
+
+        // 컬럼 위치 -> 컬럼명 (헤더 행을 읽은 뒤 채워짐)
+        private final Map<Integer, String> columnNames = new HashMap<>();
+        private boolean headerFound = false;
+
+        private int rowIndex = -1;
+        private int columnIndex = -1;
+        private Map<String, String> rowValues;
+
+        // 현재 셀 상태
+        private String cellType;
+        private int styleIndex;
+        private boolean hasFormula;
+        private boolean hasValue;
+        private boolean inValue;
+        private boolean inInlineText;
+        private boolean inPhonetic;
+        private final StringBuilder text = new StringBuilder();
+
+        private SheetHandler(String sheetName, ReadOnlySharedStringsTable sharedStrings, StylesTable styles, boolean date1904,
+                             FormulaFormat formulaFormat, int headerRowIndex, int firstDataRowIndex, Set<String> requestedColumns,
+                             RowHandler handler) {
+            this.sheetName = sheetName;
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.formulaFormat = formulaFormat;
+            this.headerRowIndex = headerRowIndex;
+            this.firstDataRowIndex = firstDataRowIndex;
+            this.requestedColumns = requestedColumns;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    String rowRef = attributes.getValue("r");
+                    rowIndex = rowRef != null ? Integer.parseInt(rowRef) - 1 : rowIndex + 1;
+                    columnIndex = -1;
+                    rowValues = isDataRow() ? new LinkedHashMap<>() : null;
+                    break;
+                case "c":
+                    String cellRef = attributes.getValue("r");
+                    columnIndex = cellRef != null ? columnIndexOf(cellRef) : columnIndex + 1;
+                    cellType = attributes.getValue("t");
+                    String style = attributes.getValue("s");
+                    styleIndex = style != null ? Integer.parseInt(style) : 0;
+                    hasFormula = false;
+                    hasValue = false;
+                    text.setLength(0);
+                    break;
+                case "f":
+                    hasFormula = true;
+                    break;
+                case "v":
+                    inValue = true;
+                    hasValue = true;
+                    break;
+                case "rPh":
+                    inPhonetic = true;
+                    break;
+                case "t":
+                    inInlineText = "inlineStr".equals(cellType) && !inPhonetic;
+                    hasValue |= inInlineText;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                    inValue = false;
+                    break;
+                case "t":
+                    inInlineText = false;
+                    break;
+                case "rPh":
+                    inPhonetic = false;
+                    break;
+                case "c":
+                    endCell();
+                    break;
+                case "row":
+                    endRow();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue || inInlineText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private boolean isDataRow() {
+            return rowIndex >= firstDataRowIndex && headerFound;
+        }
+
+        private void endCell() {
+            if (rowIndex == headerRowIndex) {
+                String header = headerValue();
+                if (header != null) {
+                    String name = header.trim();
+                    columnNames.values().remove(name); // 같은 이름이 여러 번 나오면 마지막 위치 사용
+                    if (requestedColumns == null || requestedColumns.contains(name)) {
+                        columnNames.put(columnIndex, name);
+                    }
+                }
+            } else if (rowValues != null) {
+                String name = columnNames.get(columnIndex);
+                if (name != null) {
+                    rowValues.put(name, cellValue());
+                }
+            }
+        }
+
+        private void endRow() {
+            if (rowIndex == headerRowIndex) {
+                headerFound = true;
+            } else if (rowValues != null) {
+                // 셀이 없는 컬럼은 빈 문자열
+                for (String name : columnNames.values()) {
+                    rowValues.putIfAbsent(name, "");
+                }
+                handler.onRow(sheetName, rowIndex, rowValues);
+            }
+            rowValues = null;
+        }
+
+        // 헤더는 문자열 셀만 사용
+        private String headerValue() {
+            if ("s".equals(cellType) || "inlineStr".equals(cellType) || "str".equals(cellType)) {
+                return cellValue();
+            }
+            return null;
+        }
+
+        private String cellValue() {
+            String raw = text.toString();
+            try {
+                if (cellType == null || "n".equals(cellType)) {
+                    if (!hasValue && !hasFormula) {
+                        return ""; // 빈 셀
+                    }
+                    double numericValue = hasValue ? Double.parseDouble(raw) : 0.0;
+                    if (hasFormula && formulaFormat == FormulaFormat.CELL_STRING) {
+                        return numericValue % 1 == 0 ? String.valueOf((long) numericValue) : String.valueOf(numericValue);
+                    }
+                    if (isDateFormatted(numericValue)) {
+                        return DateUtil.getJavaDate(numericValue, date1904).toString(); // 날짜인 경우 처리
+                    }
+                    if (!hasFormula && numericValue == Math.floor(numericValue)) {
+                        return String.valueOf((long) numericValue); // 정수로 반환
+                    }
+                    return String.valueOf(numericValue);
+                }
+                switch (cellType) {
+                    case "s":
+                        return sharedStrings.getItemAt(Integer.parseInt(raw)).getString();
+                    case "inlineStr":
+                    case "str":
+                        return raw;
+                    case "b":
+                        return String.valueOf(hasValue && "1".equals(raw));
+                    default:
+                        return ""; // 오류 셀 등
+                }
+            } catch (Exception e) {
+                log.error("Error processing cell at row {} column {} in sheet {}: {}", rowIndex, columnIndex, sheetName, e.getMessage());
+                return "";
+            }
+        }
+
+        private boolean isDateFormatted(double value) {
+            if (!DateUtil.isValidExcelDate(value) || styles == null || styleIndex >= styles.getNumCellStyles()) {
+                return false;
+            }
+            XSSFCellStyle style = styles.getStyleAt(styleIndex);
+            if (style == null) {
+                return false;
+            }
+            int formatIndex = style.getDataFormat();
+            String formatString = style.getDataFormatString();
+            if (formatString == null) {
+                formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+            }
+            return formatString != null && DateUtil.isADateFormat(formatIndex, formatString);
+        }
+
+        // "AB12" -> 27
+        private static int columnIndexOf(String cellRef) {
+            int column = 0;
+            for (int i = 0; i < cellRef.length(); i++) {
+                char ch = cellRef.charAt(i);
+                if (ch < 'A' || ch > 'Z') {
+                    break;
+                }
+                column = column * 26 + (ch - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.fas.dentistry_data_analysis.common.util.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 라벨링 JSON 레코드의 키 위치 탐색기 (findValueInSections 대체)
+ *
+ * 기존 방식은 헤더마다 레코드의 모든 최상위 필드와 섹션(배열 항목 포함)을 다시 훑으며 필드명마다 공백 제거 정규식을 실행했다.
+ * 이 탐색기는 레코드를 처음 조회할 때 한 번만 훑어 "키 → 처음 나온 값" 표를 만들고, 이후 헤더 조회는 표에서 바로 찾는다.
+ * 찾는 순서는 기존과 같다: 최상위 필드 → 최상위 섹션의 필드 (섹션이 배열이면 항목 순서대로), 먼저 나온 값 우선.
+ *
+ * 레코드마다 새로 만들 필요는 없으며 파일(같은 질환 스키마) 단위로 하나를 만들어 사용한다. 스레드 간 공유하지 않는다.
+ */
+public class JsonFieldLocator {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // true면 키와 필드명의 공백을 제거하고 비교, false면 정확히 같은 필드명만
+    private final boolean ignoreWhitespace;
+    // 조회 키 → 비교용 키 (헤더 목록은 파일 안에서 반복되므로 한 번만 정리)
+    private final Map<String, String> normalizedKeys = new HashMap<>();
+
+    private JsonNode indexedRecord;
+    private final Map<String, JsonNode> topLevelValues = new HashMap<>();
+    private final Map<String, JsonNode> sectionValues = new HashMap<>();
+
+    private JsonFieldLocator(boolean ignoreWhitespace) {
+        this.ignoreWhitespace = ignoreWhitespace;
+    }
+
+    /**
+     * 공백을 무시하고 키를 비교하는 탐색기 (분석/JSON 처리 서비스의 기존 규칙)
+     */
+    public static JsonFieldLocator ignoringWhitespace() {
+        return new JsonFieldLocator(true);
+    }
+
+    /**
+     * 필드명이 정확히 같은 경우만 찾는 탐색기 (중복 검사 서비스의 기존 규칙)
+     */
+    public static JsonFieldLocator exact() {
+        return new JsonFieldLocator(false);
+    }
+
+    /**
+     * 레코드에서 키의 값을 찾음
+     *
+     * @param recordNode JSON 데이터 레코드 노드
+     * @param key        찾을 키
+     * @return 값 (없으면 null)
+     */
+    public JsonNode find(JsonNode recordNode, String key) {
+        if (recordNode != indexedRecord) {
+            index(recordNode);
+        }
+        String normalizedKey = normalizedKeys.computeIfAbsent(key, this::normalize);
+        JsonNode value = topLevelValues.get(normalizedKey);
+        return value != null ? value : sectionValues.get(normalizedKey);
+    }
+
+    /**
+     * 레코드의 모든 키와 find가 반환할 값 (키 → 값)
+     *
+     * @param recordNode JSON 데이터 레코드 노드
+     * @return 최상위 필드 값이 섹션 값보다 우선하는 키별 값
+     */
+    public Map<String, JsonNode> findAll(JsonNode recordNode) {
+        if (recordNode != indexedRecord) {
+            index(recordNode);
+        }
+        Map<String, JsonNode> values = new HashMap<>(sectionValues);
+        values.putAll(topLevelValues);
+        return values;
+    }
+
+    // 레코드를 한 번 훑어 키별로 처음 나온 값을 기록
+    private void index(JsonNode recordNode) {
+        topLevelValues.clear();
+        sectionValues.clear();
+        indexedRecord = recordNode;
+
+        Iterator<Map.Entry<String, JsonNode>> fields = recordNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            topLevelValues.putIfAbsent(normalize(field.getKey()), field.getValue());
+
+            JsonNode section = field.getValue();
+            if (section.isArray()) {
+                for (JsonNode item : section) {
+                    indexSection(item);
+                }
+            } else {
+                indexSection(section);
+            }
+        }
+    }
+
+    private void indexSection(JsonNode section) {
+        Iterator<Map.Entry<String, JsonNode>> fields = section.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            sectionValues.putIfAbsent(normalize(field.getKey()), field.getValue());
+        }
+    }
+
+    private String normalize(String name) {
+        return ignoreWhitespace ? stripWhitespace(name) : name;
+    }
+
+    /**
+     * 공백 제거 (ignoringWhitespace 탐색기의 키 비교 규칙)
+     */
+    public static String stripWhitespace(String name) {
+        // 공백이 없는 필드명(대부분)은 정규식 없이 그대로 사용
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isWhitespace(name.charAt(i))) {
+                return WHITESPACE.matcher(name).replaceAll("");
+            }
+        }
+        return name;
+    }
+}
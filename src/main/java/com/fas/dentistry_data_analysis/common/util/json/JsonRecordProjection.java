@@ -0,0 +1,146 @@
+package com.fas.dentistry_data_analysis.common.util.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 라벨링 JSON 레코드에서 필요한 키만 남기는 스트리밍 투영
+ *
+ * 레코드 전체 트리를 만들지 않고 JsonParser로 읽으면서, 분석에서 찾는 키(공백 제거 후 비교)의 값만 트리로 만들고
+ * 나머지 하위 구조(Annotation_Data의 랜드마크 좌표 배열 등)는 skipChildren()으로 건너뛴다.
+ *
+ * 결과 레코드는 JsonFieldLocator가 보는 범위(최상위 필드, 최상위 섹션의 필드, 섹션 배열 항목의 필드)를
+ * 같은 순서로 유지하므로, 원본 트리에서 찾은 것과 같은 값을 찾는다.
+ * - 최상위 필드: 찾는 키면 값 전체를 보관, 객체/배열이면 섹션으로 보고 내부를 투영, 그 밖의 값은 버림
+ * - 섹션 내부: 찾는 키(선택 시 숫자 키 포함)의 값만 보관
+ *
+ * structure()는 키를 지정하지 않고 최상위/섹션의 모든 단일 값을 남기며, 섹션 안의 객체/배열 값만 빈 값으로 대신한다.
+ */
+public class JsonRecordProjection {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NUMERIC_KEY = Pattern.compile("\\d+");
+
+    // 공백을 제거한 키 (null이면 모든 키의 단일 값)
+    private final Set<String> keys;
+    // 섹션 내부의 숫자 키(치아 번호)도 보관할지 여부
+    private final boolean numericSectionKeys;
+
+    private JsonRecordProjection(Set<String> keys, boolean numericSectionKeys) {
+        this.keys = keys;
+        this.numericSectionKeys = numericSectionKeys;
+    }
+
+    /**
+     * 찾을 키 목록으로 투영 생성
+     *
+     * @param keys 찾을 키 (공백은 무시하고 비교)
+     */
+    public static JsonRecordProjection of(Collection<String> keys) {
+        Set<String> sanitizedKeys = new HashSet<>();
+        for (String key : keys) {
+            sanitizedKeys.add(sanitize(key));
+        }
+        return new JsonRecordProjection(sanitizedKeys, false);
+    }
+
+    /**
+     * 모든 키의 단일 값을 남기는 투영 (레코드의 필드 구성을 미리 알 수 없을 때)
+     * 섹션 안의 객체/배열 값(랜드마크 좌표 등)은 내용을 읽지 않고 빈 객체/배열로 남긴다.
+     */
+    public static JsonRecordProjection structure() {
+        return new JsonRecordProjection(null, false);
+    }
+
+    /**
+     * 섹션 내부의 숫자 키(예: Annotation_Data의 "11", "12")도 보관하는 투영
+     */
+    public JsonRecordProjection withNumericSectionKeys() {
+        return new JsonRecordProjection(keys, true);
+    }
+
+    /**
+     * 레코드 객체를 투영하여 읽음
+     * parser는 ObjectMapper로 만든 것이어야 하며(값 트리 생성), 레코드의 START_OBJECT에 있어야 한다.
+     * 읽은 뒤 parser는 레코드의 END_OBJECT에 위치한다.
+     *
+     * @param parser 레코드 시작 위치의 JsonParser
+     * @return 필요한 키만 남은 레코드
+     */
+    public ObjectNode read(JsonParser parser) throws IOException {
+        ObjectNode record = JsonNodeFactory.instance.objectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (keys == null ? token.isScalarValue() : matches(name)) {
+                record.set(name, parser.readValueAsTree());
+            } else if (token == JsonToken.START_OBJECT) {
+                record.set(name, readSectionObject(parser));
+            } else if (token == JsonToken.START_ARRAY) {
+                record.set(name, readSectionArray(parser));
+            }
+        }
+        return record;
+    }
+
+    private ObjectNode readSectionObject(JsonParser parser) throws IOException {
+        ObjectNode section = JsonNodeFactory.instance.objectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (keys == null && token.isStructStart()) {
+                parser.skipChildren(); // 섹션 안의 하위 구조는 자리만 유지
+                section.set(name, token == JsonToken.START_OBJECT
+                        ? JsonNodeFactory.instance.objectNode() : JsonNodeFactory.instance.arrayNode());
+            } else if (matches(name) || (numericSectionKeys && NUMERIC_KEY.matcher(name.trim()).matches())) {
+                section.set(name, parser.readValueAsTree());
+            } else {
+                parser.skipChildren(); // 필요 없는 하위 구조는 트리로 만들지 않음
+            }
+        }
+        return section;
+    }
+
+    private ArrayNode readSectionArray(JsonParser parser) throws IOException {
+        ArrayNode section = JsonNodeFactory.instance.arrayNode();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                section.add(readSectionObject(parser));
+            } else if (token == JsonToken.START_ARRAY) {
+                parser.skipChildren(); // 배열 안의 배열은 검색 대상이 아님 (자리만 유지)
+                section.add(JsonNodeFactory.instance.arrayNode());
+            } else {
+                section.add((JsonNode) parser.readValueAsTree());
+            }
+        }
+        return section;
+    }
+
+    private boolean matches(String name) {
+        if (keys == null || keys.contains(name)) {
+            return true;
+        }
+        // 공백이 있는 필드명만 정규식으로 정리 (대부분의 필드명은 바로 판단)
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isWhitespace(name.charAt(i))) {
+                return keys.contains(sanitize(name));
+            }
+        }
+        return false;
+    }
+
+    private static String sanitize(String key) {
+        return WHITESPACE.matcher(key).replaceAll("");
+    }
+}
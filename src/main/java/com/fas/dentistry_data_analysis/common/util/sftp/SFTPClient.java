@@ -23,6 +23,14 @@ public class SFTPClient {
         return session;
     }
 
+    // keepalive 주기를 지정하여 세션 생성 (커넥션 풀에서 오래 유지되는 세션용)
+    public static Session createSession(String host, String user, String password, int port, int keepAliveIntervalMillis) throws JSchException {
+        Session session = createSession(host, user, password, port);
+        session.setServerAliveInterval(keepAliveIntervalMillis);
+        session.setServerAliveCountMax(3);
+        return session;
+    }
+
     // SFTP 채널 생성
     public static ChannelSftp createSftpChannel(Session session) throws JSchException {
         Channel channel = session.openChannel("sftp");
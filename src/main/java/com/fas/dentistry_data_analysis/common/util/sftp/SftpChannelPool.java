@@ -0,0 +1,292 @@
+package com.fas.dentistry_data_analysis.common.util.sftp;
+
+import com.fas.dentistry_data_analysis.config.SftpConfig;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 인증된 SFTP 세션/채널을 재사용하기 위한 커넥션 풀
+ *
+ * ChannelSftp는 여러 스레드에서 동시에 사용할 수 없으므로, 작업 스레드마다 채널을 빌려(borrow) 사용하고
+ * 작업이 끝나면 반납(release)한다. 채널마다 별도의 세션을 사용하므로 서로 다른 폴더의 목록 조회와
+ * 파일 읽기가 실제로 병렬 처리된다. 요청 사이에도 채널이 유지되어 매 요청마다 SSH 핸드셰이크를 하지 않는다.
+ */
+@Slf4j
+@Component
+public class SftpChannelPool {
+
+    // 유휴 채널을 기다리는 중 허가가 생겼는지 다시 확인하는 간격 (ms)
+    private static final long BORROW_POLL_MILLIS = 100;
+
+    private final SftpConfig sftpConfig;
+
+    // 유휴 채널 (가장 최근에 반납된 채널을 먼저 사용)
+    private final LinkedBlockingDeque<PooledChannel> idleChannels = new LinkedBlockingDeque<>();
+    // 현재 대여 중인 채널
+    private final Map<ChannelSftp, PooledChannel> leasedChannels = new ConcurrentHashMap<>();
+    // 최대 채널 수 제한 (유휴 채널과 대여 중인 채널 모두 허가 하나씩 차지)
+    private final Semaphore permits;
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final ScheduledExecutorService maintenanceExecutor;
+
+    private volatile boolean closed = false;
+
+    public SftpChannelPool(SftpConfig sftpConfig) {
+        this.sftpConfig = sftpConfig;
+        this.permits = new Semaphore(Math.max(1, sftpConfig.getPoolMaxTotal()), true);
+
+        this.maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sftp-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, sftpConfig.getPoolKeepaliveIntervalSeconds());
+        maintenanceExecutor.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 풀에서 SFTP 채널을 빌림. 사용 후 반드시 {@link #release(ChannelSftp)} 또는 {@link #invalidate(ChannelSftp)}를 호출해야 함
+     *
+     * @return 연결이 검증된 SFTP 채널
+     * @throws JSchException 새 세션/채널 생성에 실패한 경우
+     * @throws InterruptedException 대기 중 인터럽트된 경우
+     */
+    public ChannelSftp borrow() throws JSchException, InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("SFTP 커넥션 풀이 종료되었습니다.");
+        }
+        long maxWaitMillis = sftpConfig.getPoolMaxWaitMillis();
+        long deadline = System.currentTimeMillis() + maxWaitMillis;
+
+        while (true) {
+            // 유휴 채널은 이미 허가를 가지고 있으므로 그대로 대여
+            PooledChannel pooled = idleChannels.pollFirst();
+            if (pooled == null && permits.tryAcquire()) {
+                try {
+                    pooled = create();
+                } catch (JSchException | RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+                return lease(pooled);
+            }
+            if (pooled == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    log.warn("SFTP channel borrow timed out after {}ms (pool: {})", maxWaitMillis, getStats());
+                    throw new IllegalStateException("SFTP 채널을 가져오지 못했습니다. 대기 시간 초과 (" + maxWaitMillis + "ms)");
+                }
+                // 반납되는 채널을 기다리되, 폐기로 허가가 생긴 경우도 알 수 있도록 짧게 나눠 대기
+                pooled = idleChannels.pollFirst(Math.min(remaining, BORROW_POLL_MILLIS), TimeUnit.MILLISECONDS);
+                if (pooled == null) {
+                    continue;
+                }
+            }
+            if (validate(pooled)) {
+                return lease(pooled);
+            }
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * 빌린 채널을 풀에 반납
+     *
+     * @param channelSftp 반납할 채널
+     */
+    public void release(ChannelSftp channelSftp) {
+        if (channelSftp == null) {
+            return;
+        }
+        PooledChannel pooled = leasedChannels.remove(channelSftp);
+        if (pooled == null) {
+            log.warn("풀에서 대여되지 않은 SFTP 채널이 반납되었습니다.");
+            return;
+        }
+        pooled.lastUsedAt = System.currentTimeMillis();
+        if (closed || !isConnected(pooled)) {
+            destroy(pooled);
+        } else {
+            idleChannels.offerFirst(pooled);
+        }
+    }
+
+    /**
+     * 오류가 발생한 채널을 풀에서 제거하고 연결을 종료
+     *
+     * @param channelSftp 폐기할 채널
+     */
+    public void invalidate(ChannelSftp channelSftp) {
+        if (channelSftp == null) {
+            return;
+        }
+        PooledChannel pooled = leasedChannels.remove(channelSftp);
+        if (pooled == null) {
+            return;
+        }
+        destroy(pooled);
+    }
+
+    /**
+     * 채널을 빌려 작업을 수행하고 자동으로 반납
+     *
+     * @param callback 채널을 사용할 작업
+     * @return 작업 결과
+     * @throws Exception 작업 중 발생한 예외
+     */
+    public <T> T execute(SftpCallback<T> callback) throws Exception {
+        ChannelSftp channelSftp = borrow();
+        try {
+            T result = callback.doWithChannel(channelSftp);
+            release(channelSftp);
+            return result;
+        } catch (Exception e) {
+            // 채널 상태를 알 수 없으므로 연결이 끊어진 경우에만 폐기
+            if (channelSftp.isConnected()) {
+                release(channelSftp);
+            } else {
+                invalidate(channelSftp);
+            }
+            throw e;
+        }
+    }
+
+    // 풀 상태 조회 (모니터링용)
+    public Map<String, Integer> getStats() {
+        return Map.of(
+                "total", totalCount.get(),
+                "idle", idleChannels.size(),
+                "leased", leasedChannels.size()
+        );
+    }
+
+    private ChannelSftp lease(PooledChannel pooled) {
+        pooled.lastUsedAt = System.currentTimeMillis();
+        leasedChannels.put(pooled.channel, pooled);
+        return pooled.channel;
+    }
+
+    // 새 세션/채널 생성 (호출 전에 허가를 하나 확보해야 함)
+    private PooledChannel create() throws JSchException {
+        Session session = SFTPClient.createSession(sftpConfig.getHost(), sftpConfig.getUser(), sftpConfig.getPassword(),
+                sftpConfig.getPort(), sftpConfig.getPoolKeepaliveIntervalSeconds() * 1000);
+        try {
+            ChannelSftp channelSftp = SFTPClient.createSftpChannel(session);
+            totalCount.incrementAndGet();
+            log.info("New SFTP channel opened (total: {})", totalCount.get());
+            return new PooledChannel(session, channelSftp);
+        } catch (JSchException e) {
+            session.disconnect();
+            throw e;
+        }
+    }
+
+    // 대여 전 채널 검증: 오래 쉰 채널은 서버 왕복으로 실제 연결 여부까지 확인
+    private boolean validate(PooledChannel pooled) {
+        if (!isConnected(pooled)) {
+            return false;
+        }
+        long idleMillis = System.currentTimeMillis() - pooled.lastUsedAt;
+        if (idleMillis < sftpConfig.getPoolKeepaliveIntervalSeconds() * 1000L) {
+            return true;
+        }
+        try {
+            pooled.channel.realpath(".");
+            return true;
+        } catch (Exception e) {
+            log.warn("Stale SFTP channel discarded: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isConnected(PooledChannel pooled) {
+        return pooled.session.isConnected() && pooled.channel.isConnected() && !pooled.channel.isClosed();
+    }
+
+    // 채널 연결을 종료하고 채널이 차지하던 허가를 반환
+    private void destroy(PooledChannel pooled) {
+        try {
+            pooled.channel.disconnect();
+        } finally {
+            pooled.session.disconnect();
+            totalCount.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    // 유휴 채널 keepalive 전송, 오래된 채널 정리, 최소 유휴 채널 유지
+    private void maintain() {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long idleTimeoutMillis = sftpConfig.getPoolIdleTimeoutSeconds() * 1000L;
+
+        List<PooledChannel> snapshot = new ArrayList<>(idleChannels);
+        for (PooledChannel pooled : snapshot) {
+            boolean expired = now - pooled.lastUsedAt > idleTimeoutMillis && totalCount.get() > sftpConfig.getPoolMinIdle();
+            if (expired || !isConnected(pooled)) {
+                if (idleChannels.remove(pooled)) {
+                    destroy(pooled);
+                }
+                continue;
+            }
+            try {
+                pooled.session.sendKeepAliveMsg();
+            } catch (Exception e) {
+                if (idleChannels.remove(pooled)) {
+                    log.warn("SFTP keepalive failed, channel discarded: {}", e.getMessage());
+                    destroy(pooled);
+                }
+            }
+        }
+
+        // 미리 연 채널도 허가를 유지한 채 유휴 목록에 두어 유휴 + 대여 채널 수가 최대 채널 수를 넘지 않도록 함
+        while (!closed && idleChannels.size() < sftpConfig.getPoolMinIdle() && permits.tryAcquire()) {
+            try {
+                idleChannels.offerLast(create());
+            } catch (JSchException | RuntimeException e) {
+                permits.release();
+                log.warn("Unable to pre-open SFTP channel: {}", e.getMessage());
+                break;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        maintenanceExecutor.shutdownNow();
+        PooledChannel pooled;
+        while ((pooled = idleChannels.pollFirst()) != null) {
+            destroy(pooled);
+        }
+        log.info("SFTP connection pool closed");
+    }
+
+    @FunctionalInterface
+    public interface SftpCallback<T> {
+        T doWithChannel(ChannelSftp channelSftp) throws Exception;
+    }
+
+    private static class PooledChannel {
+        private final Session session;
+        private final ChannelSftp channel;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+
+        private PooledChannel(Session session, ChannelSftp channel) {
+            this.session = session;
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.fas.dentistry_data_analysis.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+public class AnalysisCacheConfig {
+
+    // 캐시에 보관할 최대 분석 결과 수
+    @Value("${analysis.result-cache.max-entries:200}")
+    private int maxEntries;
+
+    // 캐시에 보관할 결과 행 수 합계 상한 (메모리 사용량 제한, 이보다 큰 결과 하나는 캐시하지 않음)
+    // /api/analyze-filters 행은 헤더 수만큼 문자열을 가진 Map이라 행당 수 KB를 차지하므로,
+    // 기본값 20000행은 캐시 전체가 대략 100MB 안쪽이 되도록 잡은 값 (힙 크기에 맞춰 조정)
+    @Value("${analysis.result-cache.max-rows:20000}")
+    private long maxRows;
+}
@@ -0,0 +1,22 @@
+package com.fas.dentistry_data_analysis.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+public class AnalysisCubeConfig {
+
+    // 폴더 필터 분석에 큐브 사용 여부 (false면 항상 행을 훑어 집계)
+    @Value("${analysis.cube.enabled:true}")
+    private boolean enabled;
+
+    // 큐브 하나의 칸 수 상한 (칸마다 int 하나, 넘으면 값 종류가 많은 차원부터 큐브에서 제외)
+    @Value("${analysis.cube.max-cells:4000000}")
+    private int maxCells;
+
+    // 보관할 큐브 수 (대상 파일 범위(질환/기관 파일명 조건)마다 하나)
+    @Value("${analysis.cube.max-scopes:8}")
+    private int maxScopes;
+}
@@ -2,15 +2,68 @@ package com.fas.dentistry_data_analysis.config;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class ExecutorServiceConfig {
 
+    private final SftpConfig sftpConfig;
+    private final int scanParallelism;
+    private final int prefetchParallelism;
+
+    public ExecutorServiceConfig(SftpConfig sftpConfig,
+                                 @Value("${dashboard.scan.parallelism:4}") int scanParallelism,
+                                 @Value("${dashboard.prefetch.parallelism:4}") int prefetchParallelism) {
+        this.sftpConfig = sftpConfig;
+        this.scanParallelism = scanParallelism;
+        this.prefetchParallelism = prefetchParallelism;
+    }
+
+    /**
+     * 대시보드 스캔은 전체 탐색 동안 채널 하나를 잡고 있고, 탐색 작업과 목록 미리 조회 작업이 각자 채널을 빌리므로
+     * SFTP 풀 최대 채널 수가 (1 + 탐색 동시 처리 수 + 미리 조회 동시 처리 수)보다 작으면 대여 대기가 시간 초과될 수 있다.
+     */
+    @PostConstruct
+    public void validateSftpPoolSize() {
+        int required = 1 + Math.max(1, scanParallelism) + Math.max(1, prefetchParallelism);
+        if (sftpConfig.getPoolMaxTotal() < required) {
+            throw new IllegalStateException("sftp.pool.max-total(" + sftpConfig.getPoolMaxTotal()
+                    + ")은 1 + dashboard.scan.parallelism + dashboard.prefetch.parallelism(" + required + ") 이상이어야 합니다.");
+        }
+    }
+
     @Bean
     public ExecutorService executorService() {
         // FixedThreadPool을 사용하여 ExecutorService를 반환합니다.
         return Executors.newFixedThreadPool(10);  // 10개의 스레드 풀로 설정
     }
+
+    @Bean(name = "sftpScanExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService sftpScanExecutor() {
+        // SFTP 폴더 탐색 전용 work-stealing 풀 (FIFO 모드라 먼저 발견된 폴더부터 처리되어 너비 우선으로 진행)
+        return Executors.newWorkStealingPool(Math.max(1, scanParallelism));
+    }
+
+    @Bean(name = "sftpPrefetchExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService sftpPrefetchExecutor() {
+        // 라벨링 하위 폴더 목록 미리 조회 전용 풀 (탐색 풀과 분리해 탐색 작업이 조회 완료를 기다리며 풀을 막지 않도록)
+        return Executors.newFixedThreadPool(Math.max(1, prefetchParallelism));
+    }
+
+    @Bean(name = "analysisExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService analysisExecutor(@Value("${analysis.parallelism:0}") int parallelism) {
+        // 분석 요청(파일 읽기, 행 구간 처리) 공용 풀 (0 이하이면 CPU 코어 수, 요청마다 풀을 만들지 않도록 한 곳에서 크기 제한)
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    @Bean(name = "dashboardRefreshExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService dashboardRefreshExecutor() {
+        // 대시보드 갱신 작업은 한 번에 하나만 실행되므로 단일 스레드로 충분
+        return Executors.newSingleThreadExecutor();
+    }
 }
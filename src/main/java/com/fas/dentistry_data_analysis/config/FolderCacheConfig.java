@@ -0,0 +1,26 @@
+package com.fas.dentistry_data_analysis.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+public class FolderCacheConfig {
+
+    // 폴더 목록 캐시 유지 시간 (초)
+    @Value("${dashboard.folder-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    // 없는 폴더/권한 없는 폴더 결과 유지 시간 (초)
+    @Value("${dashboard.folder-cache.negative-ttl-seconds:60}")
+    private long negativeTtlSeconds;
+
+    // 캐시에 보관할 최대 폴더 수
+    @Value("${dashboard.folder-cache.max-entries:20000}")
+    private int maxEntries;
+
+    // 캐시에 보관할 최대 파일명 수 (메모리 사용량 제한)
+    @Value("${dashboard.folder-cache.max-names:2000000}")
+    private long maxNames;
+}
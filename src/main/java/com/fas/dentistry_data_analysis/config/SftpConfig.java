@@ -21,5 +21,25 @@ public class SftpConfig {
     @Value("${sftp.server.password}")
     private String password;
 
+    // 커넥션 풀에 항상 유지할 최소 유휴 채널 수
+    @Value("${sftp.pool.min-idle:2}")
+    private int poolMinIdle;
+
+    // 동시에 열 수 있는 최대 세션/채널 수 (유휴 채널 포함)
+    @Value("${sftp.pool.max-total:9}")
+    private int poolMaxTotal;
+
+    // 채널을 빌릴 때 최대 대기 시간 (ms)
+    @Value("${sftp.pool.max-wait-millis:30000}")
+    private long poolMaxWaitMillis;
+
+    // 이 시간 이상 사용되지 않은 유휴 채널은 정리 (초)
+    @Value("${sftp.pool.idle-timeout-seconds:300}")
+    private long poolIdleTimeoutSeconds;
+
+    // 유휴 채널 keepalive 전송 및 점검 주기 (초)
+    @Value("${sftp.pool.keepalive-interval-seconds:30}")
+    private int poolKeepaliveIntervalSeconds;
+
 
 }
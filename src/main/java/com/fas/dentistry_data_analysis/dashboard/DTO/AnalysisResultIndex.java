@@ -0,0 +1,33 @@
+package com.fas.dentistry_data_analysis.dashboard.DTO;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SFTP 폴더의 analysis_result 세그먼트 목록 (analysis_result.index.json)
+ *
+ * 기준 파일(base) 뒤에 세그먼트를 기록된 순서대로 이어 읽으면 전체 결과가 된다.
+ * 목록에 없는 세그먼트(업로드 중 실패 등)는 읽지 않는다.
+ */
+@Data
+public class AnalysisResultIndex {
+
+    // 압축된 기준 파일명 (없으면 null)
+    private String base;
+    private List<Segment> segments = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class Segment {
+        private String name;
+        private int rows;
+
+        public Segment(String name, int rows) {
+            this.name = name;
+            this.rows = rows;
+        }
+    }
+}
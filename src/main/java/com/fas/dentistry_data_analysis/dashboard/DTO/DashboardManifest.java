@@ -0,0 +1,55 @@
+package com.fas.dentistry_data_analysis.dashboard.DTO;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 대시보드 갱신 시점의 SFTP 폴더 상태 기록 (증분 갱신용)
+ *
+ * 기관-질환 단위(서브트리)로 폴더별 지문을 보관하며, 다음 증분 갱신 때 지문이 달라진 서브트리만 다시 분석한다.
+ */
+@Data
+public class DashboardManifest {
+
+    private String rootPath;
+    private long createdAt;
+    // key: 기관_질환 (예: 서울대학교_치주질환)
+    private Map<String, SubtreeManifest> subtrees = new ConcurrentHashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class SubtreeManifest {
+        private String institutionId;
+        private String diseaseClass;
+        // key: 폴더 경로
+        private Map<String, FolderFingerprint> folders = new ConcurrentHashMap<>();
+        // 이 서브트리에서 라벨링 PASS 된 IMAGE_ID
+        private List<String> passIds = new ArrayList<>();
+
+        public SubtreeManifest(String institutionId, String diseaseClass) {
+            this.institutionId = institutionId;
+            this.diseaseClass = diseaseClass;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class FolderFingerprint {
+        private long mtime;             // 폴더 자체의 수정 시각
+        private long size;              // 폴더 내 파일 크기 합계
+        private int entryCount;         // 폴더 내 항목 수 (없는 폴더는 -1)
+        private long latestEntryMtime;  // 폴더 내 항목 중 가장 최근 수정 시각 (파일 덮어쓰기 감지용)
+
+        public FolderFingerprint(long mtime, long size, int entryCount, long latestEntryMtime) {
+            this.mtime = mtime;
+            this.size = size;
+            this.entryCount = entryCount;
+            this.latestEntryMtime = latestEntryMtime;
+        }
+    }
+}
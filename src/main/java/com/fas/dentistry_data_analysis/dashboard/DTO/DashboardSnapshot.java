@@ -0,0 +1,28 @@
+package com.fas.dentistry_data_analysis.dashboard.DTO;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 대시보드 응답 스냅샷
+ *
+ * 생성 후에는 변경하지 않으며, 새 스냅샷이 준비되면 통째로 교체된다.
+ * 조회 요청은 SFTP나 그룹화 연산 없이 현재 스냅샷을 그대로 반환한다.
+ */
+@Getter
+public class DashboardSnapshot {
+
+    private final Map<String, Object> data;
+    private final LocalDateTime createdAt;
+    // 스냅샷을 만든 갱신 작업 ID (초기 로드는 null)
+    private final String refreshJobId;
+
+    public DashboardSnapshot(Map<String, Object> data, String refreshJobId) {
+        this.data = Collections.unmodifiableMap(data);
+        this.createdAt = LocalDateTime.now();
+        this.refreshJobId = refreshJobId;
+    }
+}
@@ -0,0 +1,53 @@
+package com.fas.dentistry_data_analysis.dashboard.DTO;
+
+import com.fas.dentistry_data_analysis.dashboard.enums.RefreshStatus;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 백그라운드에서 실행되는 대시보드 갱신 작업 상태
+ */
+@Getter
+public class RefreshJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final boolean incremental;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile RefreshStatus status = RefreshStatus.IN_PROGRESS;
+    private volatile LocalDateTime finishedAt;
+    private volatile String failureReason;
+
+    // 진행률 (분석 완료 폴더 수 / 지금까지 발견된 폴더 수)
+    private final AtomicInteger foldersDone = new AtomicInteger();
+    private final AtomicInteger foldersTotal = new AtomicInteger();
+
+    public RefreshJob(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isRunning() {
+        return status == RefreshStatus.IN_PROGRESS;
+    }
+
+    public void folderDiscovered() {
+        foldersTotal.incrementAndGet();
+    }
+
+    public void folderCompleted() {
+        foldersDone.incrementAndGet();
+    }
+
+    public void markCompleted() {
+        finishedAt = LocalDateTime.now();
+        status = RefreshStatus.COMPLETED;
+    }
+
+    public void markFailed(Throwable cause) {
+        finishedAt = LocalDateTime.now();
+        failureReason = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        status = RefreshStatus.FAILED;
+    }
+}
@@ -0,0 +1,304 @@
+package com.fas.dentistry_data_analysis.dashboard.Service;
+
+import com.fas.dentistry_data_analysis.common.util.sftp.SFTPClient;
+import com.fas.dentistry_data_analysis.dashboard.DTO.AnalysisResultIndex;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * SFTP 폴더별 분석 결과 저장소 (analysis_result)
+ *
+ * 폴더 분석 결과는 기존 파일을 내려받아 병합하지 않고, 새 결과만 담은 작은 세그먼트 파일로 올린 뒤
+ * 세그먼트 목록(analysis_result.index.json)에 추가한다. 세그먼트가 일정 개수 이상 쌓이거나 전체 갱신이 끝나면
+ * 기준 파일(analysis_result.json, 기존과 같은 JSON 배열 형식) 하나로 압축한다.
+ *
+ * 압축/교체 순서: 새 기준 파일을 임시 이름으로 업로드 → 목록이 임시 파일을 가리키도록 기록 → 이전 세그먼트 삭제 →
+ * analysis_result.json으로 이름 변경 → 목록 삭제. 중간에 실패해도 목록 기준으로 같은 결과를 읽는다.
+ */
+@Slf4j
+@Service
+public class AnalysisResultStore {
+
+    public static final String RESULT_FILE_NAME = "analysis_result.json";
+    public static final String INDEX_FILE_NAME = "analysis_result.index.json";
+    private static final String FILE_PREFIX = "analysis_result.";
+    private static final String SEGMENT_PREFIX = "analysis_result.seg-";
+    private static final String COMPACT_PREFIX = "analysis_result.compact-";
+
+    // 이 개수 이상 세그먼트가 쌓이면 기준 파일로 압축
+    private static final int COMPACT_SEGMENT_COUNT = 32;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader rowReader = objectMapper.readerFor(new TypeReference<Map<String, Object>>() {});
+    private final Map<String, FolderState> folders = new ConcurrentHashMap<>();
+    // 세그먼트 파일명 중복 방지 (서버 재시작 간에도 겹치지 않도록 시작 시각 포함)
+    private final long instanceId = System.currentTimeMillis();
+    private final AtomicLong segmentSequence = new AtomicLong();
+
+    /**
+     * 분석 결과 파일 여부 (기준 파일 또는 세그먼트 목록이 있으면 분석된 폴더)
+     */
+    public static boolean isResultFile(String fileName) {
+        return RESULT_FILE_NAME.equals(fileName) || INDEX_FILE_NAME.equals(fileName);
+    }
+
+    /**
+     * 새 결과를 세그먼트로 추가 (기존 결과는 다시 읽거나 쓰지 않음)
+     *
+     * @param channelSftp SFTP 채널
+     * @param folderPath  결과를 저장할 폴더 경로
+     * @param rows        추가할 결과 (비어 있어도 분석된 폴더로 표시)
+     */
+    public void append(ChannelSftp channelSftp, String folderPath, List<Map<String, Object>> rows) throws IOException, SftpException {
+        FolderState state = folders.computeIfAbsent(folderPath, k -> new FolderState());
+
+        // 세그먼트 업로드는 잠금 밖에서 (같은 폴더에 여러 작업이 동시에 올릴 수 있음)
+        String segmentName = null;
+        if (!rows.isEmpty()) {
+            segmentName = String.format("%s%d-%06d.json", SEGMENT_PREFIX, instanceId, segmentSequence.incrementAndGet());
+            upload(channelSftp, folderPath, segmentName, objectMapper.writeValueAsBytes(rows));
+        }
+
+        synchronized (state) {
+            AnalysisResultIndex index = loadIndex(channelSftp, folderPath, state);
+            if (segmentName == null && (state.indexStored || index.getBase() != null)) {
+                return; // 이미 분석된 폴더로 표시되어 있음
+            }
+            if (segmentName != null) {
+                index.getSegments().add(new AnalysisResultIndex.Segment(segmentName, rows.size()));
+            }
+            writeIndex(channelSftp, folderPath, state, index);
+
+            if (index.getSegments().size() >= COMPACT_SEGMENT_COUNT) {
+                compactLocked(channelSftp, folderPath, state);
+            }
+        }
+        log.info("Results appended to SFTP at: {} ({} rows)", folderPath, rows.size());
+    }
+
+    /**
+     * 폴더의 결과 전체를 교체 (증분 갱신에서 유지 결과 + 새 결과를 한 번에 저장)
+     */
+    public void replace(ChannelSftp channelSftp, String folderPath, List<Map<String, Object>> rows) throws IOException, SftpException {
+        FolderState state = folders.computeIfAbsent(folderPath, k -> new FolderState());
+        synchronized (state) {
+            AnalysisResultIndex previous = loadIndex(channelSftp, folderPath, state);
+            installBase(channelSftp, folderPath, state, previous, rows);
+        }
+        log.info("Results successfully saved to SFTP at: {}", folderPath + "/" + RESULT_FILE_NAME);
+    }
+
+    /**
+     * 폴더의 결과를 한 건씩 읽음 (기준 파일 → 세그먼트 순)
+     *
+     * @throws FileNotFoundException 폴더에 저장된 결과가 없는 경우
+     */
+    public void forEach(ChannelSftp channelSftp, String folderPath, Consumer<Map<String, Object>> consumer) throws IOException, SftpException {
+        FolderState state = folders.computeIfAbsent(folderPath, k -> new FolderState());
+        synchronized (state) {
+            AnalysisResultIndex index = loadIndex(channelSftp, folderPath, state);
+            if (!state.indexStored && index.getBase() == null) {
+                throw new FileNotFoundException(RESULT_FILE_NAME + " not found in " + folderPath);
+            }
+            readLocked(channelSftp, folderPath, index, consumer);
+        }
+    }
+
+    /**
+     * 폴더의 결과 전체를 목록으로 읽음
+     */
+    public List<Map<String, Object>> load(ChannelSftp channelSftp, String folderPath) throws IOException, SftpException {
+        List<Map<String, Object>> results = new ArrayList<>();
+        forEach(channelSftp, folderPath, results::add);
+        return results;
+    }
+
+    /**
+     * 폴더의 결과 파일(기준 파일, 목록, 세그먼트, 압축 임시 파일) 삭제
+     */
+    public void delete(ChannelSftp channelSftp, String folderPath) throws SftpException {
+        FolderState state = folders.computeIfAbsent(folderPath, k -> new FolderState());
+        synchronized (state) {
+            List<ChannelSftp.LsEntry> entries;
+            try {
+                entries = SFTPClient.listFiles(channelSftp, folderPath);
+            } catch (SftpException e) {
+                if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                    throw e;
+                }
+                entries = new ArrayList<>();
+            }
+            // 목록을 먼저 지워 중간에 실패해도 남은 세그먼트를 읽지 않도록 함
+            entries.sort((a, b) -> Boolean.compare(!INDEX_FILE_NAME.equals(a.getFilename()), !INDEX_FILE_NAME.equals(b.getFilename())));
+            for (ChannelSftp.LsEntry entry : entries) {
+                if (entry.getFilename().startsWith(FILE_PREFIX)) {
+                    deleteIfExists(channelSftp, folderPath + "/" + entry.getFilename());
+                    log.info("Deleted existing result file: {}/{}", folderPath, entry.getFilename());
+                }
+            }
+            state.index = new AnalysisResultIndex();
+            state.indexStored = false;
+        }
+    }
+
+    /**
+     * 세그먼트가 남아 있는 폴더를 모두 기준 파일로 압축 (전체 갱신 종료 시)
+     * 실패한 폴더는 세그먼트 상태 그대로 두며, 읽기에는 영향이 없다.
+     */
+    public void compactAll(ChannelSftp channelSftp) {
+        folders.forEach((folderPath, state) -> {
+            synchronized (state) {
+                if (state.index == null || state.index.getSegments().isEmpty()) {
+                    return;
+                }
+                try {
+                    compactLocked(channelSftp, folderPath, state);
+                } catch (Exception e) {
+                    log.warn("Failed to compact analysis results in {}: {}", folderPath, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void compactLocked(ChannelSftp channelSftp, String folderPath, FolderState state) throws IOException, SftpException {
+        AnalysisResultIndex previous = state.index;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        readLocked(channelSftp, folderPath, previous, rows::add);
+        installBase(channelSftp, folderPath, state, previous, rows);
+        log.info("Compacted {} segments into {}/{} ({} rows)", previous.getSegments().size(), folderPath, RESULT_FILE_NAME, rows.size());
+    }
+
+    // 새 기준 파일을 올리고 목록이 가리키게 한 뒤 이름 변경 및 이전 파일 정리
+    private void installBase(ChannelSftp channelSftp, String folderPath, FolderState state,
+                             AnalysisResultIndex previous, List<Map<String, Object>> rows) throws IOException, SftpException {
+        String tempName = COMPACT_PREFIX + System.currentTimeMillis() + ".json";
+        upload(channelSftp, folderPath, tempName, objectMapper.writeValueAsBytes(rows));
+
+        AnalysisResultIndex pending = new AnalysisResultIndex();
+        pending.setBase(tempName);
+        writeIndex(channelSftp, folderPath, state, pending);
+
+        // 목록이 임시 파일만 가리키므로 이전 세그먼트는 이름 변경 전에 정리 (이름 변경이 실패해도 남지 않도록)
+        for (AnalysisResultIndex.Segment segment : previous.getSegments()) {
+            deleteIfExists(channelSftp, folderPath + "/" + segment.getName());
+        }
+        if (previous.getBase() != null && !RESULT_FILE_NAME.equals(previous.getBase())) {
+            deleteIfExists(channelSftp, folderPath + "/" + previous.getBase()); // 이전 압축에서 남은 임시 파일
+        }
+
+        // SFTP rename은 대상이 있으면 실패하므로 기존 파일을 먼저 삭제
+        deleteIfExists(channelSftp, folderPath + "/" + RESULT_FILE_NAME);
+        channelSftp.rename(folderPath + "/" + tempName, folderPath + "/" + RESULT_FILE_NAME);
+
+        deleteIfExists(channelSftp, folderPath + "/" + INDEX_FILE_NAME);
+        AnalysisResultIndex installed = new AnalysisResultIndex();
+        installed.setBase(RESULT_FILE_NAME);
+        state.index = installed;
+        state.indexStored = false;
+    }
+
+    private void readLocked(ChannelSftp channelSftp, String folderPath, AnalysisResultIndex index,
+                            Consumer<Map<String, Object>> consumer) throws IOException, SftpException {
+        if (index.getBase() != null) {
+            try {
+                readRows(channelSftp, folderPath, index.getBase(), consumer);
+            } catch (SftpException e) {
+                // 압축 도중 이름 변경까지 끝난 경우 임시 파일 대신 기준 파일을 읽음
+                if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE || RESULT_FILE_NAME.equals(index.getBase())) {
+                    throw e;
+                }
+                readRows(channelSftp, folderPath, RESULT_FILE_NAME, consumer);
+            }
+        }
+        for (AnalysisResultIndex.Segment segment : index.getSegments()) {
+            readRows(channelSftp, folderPath, segment.getName(), consumer);
+        }
+    }
+
+    private void readRows(ChannelSftp channelSftp, String folderPath, String fileName,
+                          Consumer<Map<String, Object>> consumer) throws IOException, SftpException {
+        try (InputStream inputStream = SFTPClient.readFile(channelSftp, folderPath, fileName);
+             MappingIterator<Map<String, Object>> rows = rowReader.readValues(inputStream)) {
+            while (rows.hasNext()) {
+                consumer.accept(rows.next());
+            }
+        }
+    }
+
+    // 목록은 폴더별로 메모리에 보관하며, 처음 접근할 때만 SFTP에서 읽음
+    private AnalysisResultIndex loadIndex(ChannelSftp channelSftp, String folderPath, FolderState state) throws IOException, SftpException {
+        if (state.index != null) {
+            return state.index;
+        }
+        try (InputStream inputStream = SFTPClient.readFile(channelSftp, folderPath, INDEX_FILE_NAME)) {
+            state.index = objectMapper.readValue(inputStream, AnalysisResultIndex.class);
+            state.indexStored = true;
+        } catch (SftpException e) {
+            if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                throw e;
+            }
+            AnalysisResultIndex index = new AnalysisResultIndex();
+            if (exists(channelSftp, folderPath + "/" + RESULT_FILE_NAME)) {
+                index.setBase(RESULT_FILE_NAME);
+            }
+            state.index = index;
+            state.indexStored = false;
+        }
+        return state.index;
+    }
+
+    private void writeIndex(ChannelSftp channelSftp, String folderPath, FolderState state, AnalysisResultIndex index) throws IOException, SftpException {
+        upload(channelSftp, folderPath, INDEX_FILE_NAME, objectMapper.writeValueAsBytes(index));
+        state.index = index;
+        state.indexStored = true;
+    }
+
+    private void upload(ChannelSftp channelSftp, String folderPath, String fileName, byte[] content) throws SftpException {
+        SFTPClient.uploadFile(channelSftp, folderPath, fileName, new ByteArrayInputStream(content));
+    }
+
+    private boolean exists(ChannelSftp channelSftp, String path) throws SftpException {
+        try {
+            channelSftp.stat(path);
+            return true;
+        } catch (SftpException e) {
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private void deleteIfExists(ChannelSftp channelSftp, String path) throws SftpException {
+        try {
+            SFTPClient.deleteFile(channelSftp, path);
+        } catch (SftpException e) {
+            if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                throw e;
+            }
+        }
+    }
+
+    // 폴더별 잠금 겸 목록 캐시
+    private static class FolderState {
+        private AnalysisResultIndex index;     // null이면 아직 읽지 않음
+        private boolean indexStored;           // SFTP에 목록 파일이 있는지
+    }
+}
@@ -2,22 +2,38 @@ package com.fas.dentistry_data_analysis.dashboard.Service;
 
 import com.fas.dentistry_data_analysis.config.SftpConfig;
 import com.fas.dentistry_data_analysis.config.StorageConfig;
-import com.fas.dentistry_data_analysis.dashboard.enums.RefreshStatus;
+import com.fas.dentistry_data_analysis.dashboard.DTO.DashboardManifest;
+import com.fas.dentistry_data_analysis.dashboard.DTO.DashboardSnapshot;
+import com.fas.dentistry_data_analysis.dashboard.DTO.RefreshJob;
+import com.fas.dentistry_data_analysis.dashboard.util.CrfFileCache;
 import com.fas.dentistry_data_analysis.dashboard.util.FolderFileCacheManager;
+import com.fas.dentistry_data_analysis.dashboard.util.ImageIdMatcher;
+import com.fas.dentistry_data_analysis.dashboard.util.LandmarkValidator;
+import com.fas.dentistry_data_analysis.dashboard.util.SftpTreeWalker;
+import com.fas.dentistry_data_analysis.common.service.DataVersion;
+import com.fas.dentistry_data_analysis.common.service.DiseaseJsonStore;
 import com.fas.dentistry_data_analysis.common.service.JSONService;
+import com.fas.dentistry_data_analysis.common.service.PassIdRegistry;
 import com.fas.dentistry_data_analysis.common.util.sftp.SFTPClient;
+import com.fas.dentistry_data_analysis.common.util.sftp.SftpChannelPool;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.jcraft.jsch.ChannelSftp;
-import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpATTRS;
 import com.jcraft.jsch.SftpException;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -33,18 +49,41 @@ public class AnalyzeBoardServiceImpl {
     private final StorageConfig storageConfig;
     private final SftpConfig sftpConfig;
     private final DataManagementService dataManagementService;
+    private final SftpChannelPool sftpChannelPool;
+    private final SftpTreeWalker sftpTreeWalker;
+    private final DashboardManifestService dashboardManifestService;
+    private final CrfFileCache crfFileCache;
+    private final DiseaseJsonStore diseaseJsonStore;
+    private final AnalysisResultStore analysisResultStore;
+    private final PassIdRegistry passIdRegistry;
+    private final DataVersion dataVersion;
 
 
-    private final AtomicReference<RefreshStatus> refreshStatus = new AtomicReference<>(RefreshStatus.IDLE);
+    // 현재(또는 마지막) 갱신 작업
+    private final AtomicReference<RefreshJob> refreshJob = new AtomicReference<>();
+    // 조회 요청에 그대로 반환하는 대시보드 스냅샷 (새 결과가 준비되면 통째로 교체)
+    private final AtomicReference<DashboardSnapshot> snapshot = new AtomicReference<>();
+    private final Object snapshotLoadLock = new Object();
+    private final ExecutorService refreshExecutor;
+    private final ExecutorService scanExecutor;
 
 
     private static final List<String> INSTITUTION_FOLDER_NAMES = Arrays.asList("서울대", "보라매병원", "조선대","원광대","단국대","고려대","국립암센터");
+    // 분석 결과에 영향을 주는 라벨링 하위 폴더 (증분 갱신 시 변경 감지 대상)
+    private static final List<String> LABEL_SUB_FOLDERS = Arrays.asList("/Labelling", "/Labelling/meta", "/Labelling/draw", "/Labelling/alve", "/Labelling/Labelling");
     // 기관-질환별 JSON 파일 목록 관리
     private final Map<String, Set<String>> institutionDiseaseJsonFiles = new HashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
 
     public AnalyzeBoardServiceImpl(SftpService sftpService,JSONService jsonService, ExcelService excelService,
-                                   FolderFileCacheManager folderFileCacheManager, StorageConfig storageConfig, SftpConfig sftpConfig, DataManagementService dataManagementService) {
+                                   FolderFileCacheManager folderFileCacheManager, StorageConfig storageConfig, SftpConfig sftpConfig, DataManagementService dataManagementService,
+                                   SftpChannelPool sftpChannelPool, SftpTreeWalker sftpTreeWalker,
+                                   DashboardManifestService dashboardManifestService, CrfFileCache crfFileCache,
+                                   DiseaseJsonStore diseaseJsonStore, AnalysisResultStore analysisResultStore, PassIdRegistry passIdRegistry,
+                                   DataVersion dataVersion,
+                                   @Qualifier("dashboardRefreshExecutor") ExecutorService refreshExecutor,
+                                   @Qualifier("sftpScanExecutor") ExecutorService scanExecutor) {
         this.jsonService = jsonService;
         this.excelService = excelService;
         this.folderFileCacheManager = folderFileCacheManager;
@@ -52,6 +91,16 @@ public class AnalyzeBoardServiceImpl {
         this.sftpConfig = sftpConfig;
         this.sftpService = sftpService;
         this.dataManagementService = dataManagementService;
+        this.sftpChannelPool = sftpChannelPool;
+        this.sftpTreeWalker = sftpTreeWalker;
+        this.dashboardManifestService = dashboardManifestService;
+        this.crfFileCache = crfFileCache;
+        this.diseaseJsonStore = diseaseJsonStore;
+        this.analysisResultStore = analysisResultStore;
+        this.passIdRegistry = passIdRegistry;
+        this.dataVersion = dataVersion;
+        this.refreshExecutor = refreshExecutor;
+        this.scanExecutor = scanExecutor;
     }
 
     /**
@@ -60,7 +109,75 @@ public class AnalyzeBoardServiceImpl {
      * @return Refresh가 진행 중이면 true, 그렇지 않으면 false
      */
     public boolean isRefreshInProgress() {
-        return refreshStatus.get() == RefreshStatus.IN_PROGRESS;
+        RefreshJob job = refreshJob.get();
+        return job != null && job.isRunning();
+    }
+
+    /**
+     * 현재(또는 마지막으로 실행된) 갱신 작업 조회
+     *
+     * @return 갱신 작업 (한 번도 실행되지 않았으면 null)
+     */
+    public RefreshJob getRefreshJob() {
+        return refreshJob.get();
+    }
+
+    /**
+     * 메모리에 있는 대시보드 스냅샷 조회 (없으면 null, SFTP 접근 없음)
+     */
+    public DashboardSnapshot getCachedSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * 대시보드 스냅샷 조회
+     * 스냅샷이 있으면 갱신 진행 여부와 관계없이 바로 반환하고, 최초 조회 시에만 저장된 분석 결과를 읽어 스냅샷을 만든다.
+     *
+     * @return 대시보드 스냅샷 (스냅샷 없이 최초 갱신이 진행 중이면 null)
+     * @throws Exception 분석 결과 로드 중 예외 발생 시
+     */
+    public DashboardSnapshot getSnapshot() throws Exception {
+        DashboardSnapshot current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+        synchronized (snapshotLoadLock) {
+            current = snapshot.get();
+            if (current != null || isRefreshInProgress()) {
+                return current; // 갱신이 끝나면 갱신 작업이 스냅샷을 채움
+            }
+            DashboardSnapshot loaded = new DashboardSnapshot(
+                    processFilesInFolder(storageConfig.getDecodedFolderPath(), false), null);
+            // 그 사이 갱신 작업이 새 스냅샷을 만들었다면 그것을 유지
+            snapshot.compareAndSet(null, loaded);
+            return snapshot.get();
+        }
+    }
+
+    /**
+     * 백그라운드 갱신 작업 시작
+     *
+     * @param incremental 변경된 기관/질환만 다시 분석할지 여부
+     * @return 시작된 갱신 작업
+     * @throws IllegalStateException 이미 갱신이 진행 중인 경우
+     */
+    public RefreshJob startRefresh(boolean incremental) {
+        RefreshJob job = beginRefreshJob(incremental);
+        String folderPath = storageConfig.getDecodedFolderPath();
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    runRefresh(job, folderPath);
+                } catch (Exception e) {
+                    log.error("Dashboard refresh job {} failed", job.getId(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            job.markFailed(e);
+            throw e;
+        }
+        log.info("Dashboard refresh job {} started (incremental: {})", job.getId(), incremental);
+        return job;
     }
 
     /**
@@ -72,58 +189,345 @@ public class AnalyzeBoardServiceImpl {
      * @throws Exception 분석 중 예외 발생 시
      */
     public Map<String, Object> processFilesInFolder(String folderPath, boolean refresh) throws Exception {
-        log.info("{}",folderPath);
-        folderFileCacheManager.clearCache();
-        if (refresh && !refreshStatus.compareAndSet(RefreshStatus.IDLE, RefreshStatus.IN_PROGRESS)) {
+        return processFilesInFolder(folderPath, refresh, false);
+    }
+
+    /**
+     * 특정 폴더 내의 파일을 분석하여 JSON으로 변환하고 결과를 반환
+     * refresh 는 호출한 스레드에서 갱신 작업으로 실행되며, 완료되면 대시보드 스냅샷도 교체된다.
+     *
+     * @param folderPath  분석할 폴더 경로
+     * @param refresh     기존 데이터를 삭제하고 새로 분석할지 여부
+     * @param incremental refresh 시 이전 매니페스트와 비교하여 변경된 기관/질환만 다시 분석할지 여부
+     *                    (매니페스트나 기존 결과가 없으면 전체 갱신으로 동작)
+     * @return 분석 결과를 담은 Map 객체
+     * @throws Exception 분석 중 예외 발생 시
+     */
+    public Map<String, Object> processFilesInFolder(String folderPath, boolean refresh, boolean incremental) throws Exception {
+        if (refresh) {
+            return runRefresh(beginRefreshJob(incremental), folderPath);
+        }
+        return scanFolder(folderPath, false, false, null);
+    }
+
+    // 진행 중인 갱신이 없을 때만 새 갱신 작업을 등록
+    private RefreshJob beginRefreshJob(boolean incremental) {
+        RefreshJob current = refreshJob.get();
+        RefreshJob job = new RefreshJob(incremental);
+        if ((current != null && current.isRunning()) || !refreshJob.compareAndSet(current, job)) {
             throw new IllegalStateException("Refresh is already in progress.");
         }
+        return job;
+    }
+
+    // 갱신 작업 실행 후 성공하면 스냅샷 교체
+    private Map<String, Object> runRefresh(RefreshJob job, String folderPath) throws Exception {
+        // C:/app/dentistry, C:/app/disease_json을 다시 쓰므로 갱신 시작과 끝에 분석 데이터 버전 변경
+        dataVersion.bump("dashboard refresh " + job.getId() + " started");
+        try {
+            Map<String, Object> data = scanFolder(folderPath, true, job.isIncremental(), job);
+            snapshot.set(new DashboardSnapshot(data, job.getId()));
+            job.markCompleted();
+            log.info("Dashboard refresh job {} completed ({} folders)", job.getId(), job.getFoldersDone().get());
+            return data;
+        } catch (Exception e) {
+            job.markFailed(e);
+            throw e;
+        } finally {
+            dataVersion.bump("dashboard refresh " + job.getId() + " finished");
+        }
+    }
+
+    private Map<String, Object> scanFolder(String folderPath, boolean refresh, boolean incremental, RefreshJob job) throws Exception {
+        log.info("{}",folderPath);
+
+        if (refresh && incremental) {
+            List<Map<String, Object>> mergedResults = refreshIncrementally(folderPath, job);
+            if (mergedResults != null) {
+                return buildResponse(mergedResults);
+            }
+            log.info("No usable manifest or previous result. Falling back to full refresh.");
+        }
 
 
-        // 중복 JSON 파일 정보를 저장할 Map
+        // 중복 JSON 파일 정보를 저장할 Map (폴더 작업들이 동시에 접근하므로 institutionDiseaseJsonFiles 잠금 안에서 사용)
         Map<String, Map<String, List<String>>> duplicateJsonFiles = new HashMap<>();
 
-        List<String> passIds = new ArrayList<>();
-        List<Map<String, Object>> resultList = new ArrayList<>();
-        List<Map<String, Object>> errorList = new ArrayList<>();
+        // PASS 된 IMAGE_ID -> 기관_질환 (탐색이 끝난 뒤 폴더 경로 순서로 등록)
+        Map<String, String> passIds = new HashMap<>();
+        List<Map<String, Object>> resultList = Collections.synchronizedList(new ArrayList<>());
+        List<Map<String, Object>> errorList = Collections.synchronizedList(new ArrayList<>());
+        List<FolderScanResult> folderResults = Collections.synchronizedList(new ArrayList<>());
 
-        Session session = null;
         ChannelSftp channelSftp = null;
-        Set<String> processedImageIds = new HashSet<>();  // 중복 처리용 전역 Set
 
         try {
 
-            session = SFTPClient.createSession(sftpConfig.getHost(), sftpConfig.getUser(), sftpConfig.getPassword(), sftpConfig.getPort());
-            channelSftp = SFTPClient.createSftpChannel(session);
+            // 풀에서 인증된 채널을 빌려 사용 (요청마다 새 세션을 만들지 않음)
+            channelSftp = sftpChannelPool.borrow();
 
+            DashboardManifest manifest = null;
             if(refresh) {
-                jsonService.deleteExistingExcelFiles("C:/app/dentistry",".xlsx");
+                dashboardManifestService.delete();
                 jsonService.deleteExistingExcelFiles("C:/app/id",".json");
-                jsonService.deleteExistingExcelFiles("C:/app/disease_json", ".json"); // JSON 저장 폴더 초기화
+                diseaseJsonStore.deleteAll(); // JSON 저장 폴더 초기화
                 jsonService.deleteExistingExcelFiles("C:/app/error_json", ".json"); // JSON 저장 폴더 초기화
-                SFTPClient.deleteFile(channelSftp, folderPath+ "/analysis_result.json");
+                analysisResultStore.delete(channelSftp, folderPath);
+                synchronized (institutionDiseaseJsonFiles) {
+                    institutionDiseaseJsonFiles.clear(); // 이전 갱신에서 본 파일이 모두 중복으로 잡히지 않도록 초기화
+                }
+                folderFileCacheManager.clearCache(); // 전체 갱신은 최신 폴더 목록으로 분석
+
+                // 다음 증분 갱신의 기준이 될 폴더 상태 기록
+                manifest = surveyFolders(folderPath);
             }
 
-            // 폴더 내 파일을 병렬로 처리
-            processFolderRecursively(channelSftp, folderPath,folderPath, resultList, errorList, processedImageIds, refresh, passIds,duplicateJsonFiles);
+            // 폴더 트리를 공유 스캔 풀에서 병렬로 탐색 (폴더마다 풀에서 빌린 별도 채널 사용)
+            long scanStartedAt = System.currentTimeMillis();
+            SftpTreeWalker.WalkSummary summary = sftpTreeWalker.walk(folderPath,
+                    (folderChannel, path, files) -> visitFolder(folderChannel, folderPath, path, files,
+                            refresh, true, duplicateJsonFiles),
+                    collectingListener(resultList, errorList, folderResults, job));
+            log.info("Folder scan finished: {} folders", summary.getCompletedFolders());
+
+            applyFolderResults(channelSftp, folderResults, passIds);
+
+            if (refresh) {
+                crfFileCache.pruneUnused("", scanStartedAt); // 원격에서 사라진 CRF의 로컬 사본 정리
+                analysisResultStore.compactAll(channelSftp); // 폴더별로 쌓인 결과 세그먼트를 기준 파일 하나로 압축
+            }
+
+            if (manifest != null) {
+                assignPassIds(manifest, passIds);
+                dashboardManifestService.save(manifest);
+            }
 
         } finally {
+            // 이번 스캔에서 추가된 레코드를 디스크에 반영 (데이터 버전을 바꾸기 전에)
+            diseaseJsonStore.sync();
+            if (!refresh && hasRescannedFolder(folderResults)) {
+                // 저장된 결과가 없던 폴더는 CRF/JSON을 새로 받았으므로 분석 데이터 버전 변경 (저장된 결과만 읽었으면 그대로)
+                dataVersion.bump("dashboard scan");
+            }
             if (refresh) {
-                jsonService.savePassIdsToJson(passIds,"C:/app/id");
+                passIdRegistry.save(passIds.keySet());
                 // 중복 JSON 파일 정보를 저장
                 jsonService.saveDuplicateJsonInfoToLocal(duplicateJsonFiles, "C:/app/error_json");
+            }
+            sftpChannelPool.release(channelSftp);
+            log.info("SFTP channel returned to pool");
+        }
+
+        return buildResponse(resultList);
+    }
+
+    // 엑셀을 새로 분석한 폴더가 있는지 (저장된 결과를 읽기만 한 폴더와 엑셀이 없는 폴더는 제외)
+    private boolean hasRescannedFolder(List<FolderScanResult> folderResults) {
+        synchronized (folderResults) {
+            return folderResults.stream().anyMatch(FolderScanResult::isRescanned);
+        }
+    }
 
-                refreshStatus.set(RefreshStatus.IDLE);
+    // 폴더 분석 결과를 모으고 갱신 작업 진행률을 기록하는 리스너
+    private SftpTreeWalker.WalkListener<FolderScanResult> collectingListener(List<Map<String, Object>> resultList,
+                                                                            List<Map<String, Object>> errorList,
+                                                                            List<FolderScanResult> folderResults,
+                                                                            RefreshJob job) {
+        return new SftpTreeWalker.WalkListener<FolderScanResult>() {
+            @Override
+            public void onFolderDiscovered(String path) {
+                if (job != null) {
+                    job.folderDiscovered();
+                }
+            }
+
+            @Override
+            public void onFolderCompleted(String path, FolderScanResult result) {
+                // 폴더 분석이 끝나는 즉시 결과 반영
+                resultList.addAll(result.getResults());
+                errorList.addAll(result.getErrors());
+                folderResults.add(result);
+                if (job != null) {
+                    job.folderCompleted();
+                }
+            }
+
+            @Override
+            public void onFolderSkipped(String path) {
+                if (job != null) {
+                    job.folderCompleted();
+                }
+            }
+        };
+    }
+
+    /**
+     * 증분 갱신: 이전 매니페스트와 현재 폴더 상태를 비교하여 변경된 기관/질환 서브트리만 다시 분석하고,
+     * 변경되지 않은 서브트리의 기존 결과와 병합하여 analysis_result.json을 교체한다.
+     *
+     * @param folderPath 분석할 폴더 경로
+     * @param job        진행률을 기록할 갱신 작업
+     * @return 병합된 결과 (매니페스트나 기존 결과가 없어 증분 갱신을 할 수 없으면 null)
+     */
+    private List<Map<String, Object>> refreshIncrementally(String folderPath, RefreshJob job) throws Exception {
+        DashboardManifest previous = dashboardManifestService.load();
+        if (previous == null || !folderPath.equals(previous.getRootPath())) {
+            return null;
+        }
+
+        ChannelSftp channelSftp = sftpChannelPool.borrow();
+        try {
+            List<Map<String, Object>> previousResults;
+            try {
+                previousResults = analysisResultStore.load(channelSftp, folderPath);
+            } catch (Exception e) {
+                log.warn("Previous analysis_result.json could not be loaded: {}", e.getMessage());
+                return null;
             }
-            if (channelSftp != null) channelSftp.disconnect();
-            if (session != null) session.disconnect();
-            log.info("SFTP connection closed");
+
+            DashboardManifest current = surveyFolders(folderPath);
+            Set<String> changedKeys = dashboardManifestService.findChangedSubtrees(previous, current);
+            log.info("Incremental refresh: {} of {} subtrees changed {}", changedKeys.size(), current.getSubtrees().size(), changedKeys);
+
+            // 도중에 실패하면 다음 증분 갱신은 전체 갱신으로 동작
+            dashboardManifestService.delete();
+
+            // 변경된 서브트리의 로컬 파일만 정리
+            for (String key : changedKeys) {
+                DashboardManifest.SubtreeManifest subtree = current.getSubtrees().containsKey(key)
+                        ? current.getSubtrees().get(key) : previous.getSubtrees().get(key);
+                String diseaseClass = subtree.getDiseaseClass();
+                String institutionId = subtree.getInstitutionId();
+                diseaseJsonStore.delete(diseaseClass, institutionId);
+                jsonService.deleteExistingFiles("C:/app/error_json", institutionId + "_" + diseaseClass + ".json", ".json");
+                synchronized (institutionDiseaseJsonFiles) {
+                    institutionDiseaseJsonFiles.remove(key);
+                }
+                // 변경된 서브트리의 폴더 목록 캐시만 제거
+                subtree.getFolders().keySet().forEach(folderFileCacheManager::invalidatePrefix);
+                if (previous.getSubtrees().containsKey(key)) {
+                    previous.getSubtrees().get(key).getFolders().keySet().forEach(folderFileCacheManager::invalidatePrefix);
+                }
+            }
+
+            // 변경되지 않은 서브트리의 결과와 PASS ID는 그대로 유지
+            List<Map<String, Object>> resultList = Collections.synchronizedList(new ArrayList<>());
+            for (Map<String, Object> row : previousResults) {
+                if (!changedKeys.contains(row.get("INSTITUTION_ID") + "_" + row.get("DISEASE_CLASS"))) {
+                    resultList.add(row);
+                }
+            }
+            Map<String, String> passIds = new HashMap<>();
+            previous.getSubtrees().forEach((key, subtree) -> {
+                if (!changedKeys.contains(key)) {
+                    subtree.getPassIds().forEach(id -> passIds.putIfAbsent(id, key));
+                }
+            });
+
+            Map<String, Map<String, List<String>>> duplicateJsonFiles = new HashMap<>();
+            List<FolderScanResult> folderResults = Collections.synchronizedList(new ArrayList<>());
+
+            if (!changedKeys.isEmpty()) {
+                // 변경된 서브트리만 분석 (폴더별 저장 대신 마지막에 한 번에 교체)
+                long scanStartedAt = System.currentTimeMillis();
+                sftpTreeWalker.walk(folderPath,
+                        (folderChannel, path, files) -> {
+                            String key = getSubtreeKey(path);
+                            if (key != null && !changedKeys.contains(key)) {
+                                return SftpTreeWalker.FolderVisit.stop(FolderScanResult.empty());
+                            }
+                            return visitFolder(folderChannel, folderPath, path, files,
+                                    true, false, duplicateJsonFiles);
+                        },
+                        // analysis_result.json에는 결과와 오류 항목이 함께 저장됨
+                        collectingListener(resultList, resultList, folderResults, job));
+                applyFolderResults(channelSftp, folderResults, passIds);
+                analysisResultStore.replace(channelSftp, folderPath, resultList);
+
+                // 변경된 서브트리에서 이번에 사용되지 않은 CRF 사본 정리 (변경되지 않은 CRF는 다시 받지 않음)
+                for (String key : changedKeys) {
+                    DashboardManifest.SubtreeManifest subtree = current.getSubtrees().containsKey(key)
+                            ? current.getSubtrees().get(key) : previous.getSubtrees().get(key);
+                    crfFileCache.pruneUnused(subtree.getDiseaseClass() + "_" + subtree.getInstitutionId() + "_", scanStartedAt);
+                }
+            }
+
+            passIdRegistry.save(passIds.keySet());
+            jsonService.saveDuplicateJsonInfoToLocal(duplicateJsonFiles, "C:/app/error_json");
+
+            assignPassIds(current, passIds);
+            dashboardManifestService.save(current);
+            return resultList;
+        } finally {
+            diseaseJsonStore.sync(); // 이번 갱신에서 추가된 레코드를 디스크에 반영
+            sftpChannelPool.release(channelSftp);
         }
+    }
 
+    /**
+     * 분석과 같은 규칙으로 폴더 트리를 탐색하며 폴더 상태(지문)만 기록
+     * 엑셀이 있는 분석 대상 폴더는 결과에 영향을 주는 라벨링 하위 폴더까지 함께 기록한다.
+     *
+     * @param folderPath 탐색을 시작할 폴더 경로
+     * @return 현재 폴더 상태 매니페스트
+     */
+    private DashboardManifest surveyFolders(String folderPath) throws Exception {
+        DashboardManifest manifest = new DashboardManifest();
+        manifest.setRootPath(folderPath);
+        manifest.setCreatedAt(System.currentTimeMillis());
+
+        sftpTreeWalker.walk(folderPath, (channelSftp, path, files) -> {
+            boolean hasExcel = files.stream().anyMatch(entry -> entry.getFilename().endsWith(".xlsx"));
+            String key = getSubtreeKey(path);
+
+            if (key != null) {
+                DashboardManifest.SubtreeManifest subtree = manifest.getSubtrees().computeIfAbsent(key,
+                        k -> new DashboardManifest.SubtreeManifest(extractInstitutionId(path), extractDiseaseClass(path)));
+                subtree.getFolders().put(path, dashboardManifestService.createFingerprint(files));
+
+                if (hasExcel) {
+                    for (String labelFolder : LABEL_SUB_FOLDERS) {
+                        String labelPath = path + labelFolder;
+                        try {
+                            subtree.getFolders().put(labelPath, dashboardManifestService.createFingerprint(SFTPClient.listFiles(channelSftp, labelPath)));
+                        } catch (SftpException e) {
+                            subtree.getFolders().put(labelPath, dashboardManifestService.missingFingerprint());
+                        }
+                    }
+                }
+            }
+
+            // 분석 시와 동일한 하위 폴더 탐색 규칙 (엑셀이 있는 폴더에서 중단, 제외 폴더 건너뛰기)
+            if (hasExcel || isSkippedFolder(path)) {
+                return SftpTreeWalker.FolderVisit.stop(null);
+            }
+            return SftpTreeWalker.FolderVisit.descend(null);
+        }, new SftpTreeWalker.WalkListener<Object>() {});
+
+        return manifest;
+    }
+
+    // PASS ID를 서브트리별로 매니페스트에 기록
+    private void assignPassIds(DashboardManifest manifest, Map<String, String> passIds) {
+        passIds.forEach((imageId, key) -> {
+            DashboardManifest.SubtreeManifest subtree = manifest.getSubtrees().get(key);
+            if (subtree != null) {
+                subtree.getPassIds().add(imageId);
+            }
+        });
+    }
+
+    /**
+     * 분석 결과 목록으로 대시보드 응답 데이터 생성
+     *
+     * @param resultList 분석 결과 목록
+     * @return 대시보드 응답 데이터
+     */
+    private Map<String, Object> buildResponse(List<Map<String, Object>> resultList) {
         Map<String, Object> response = new HashMap<>();
 
         List<Map<String, Object>> errorData = new ArrayList<>();
-        Set<String> passIdsSet = new HashSet<>(jsonService.loadPassIdsFromJson("C:/app/id/pass_ids.json"));
-        errorData.addAll(dataManagementService.groupErrorData(resultList,passIdsSet));  // 그룹화된 데이터 추가
+        errorData.addAll(dataManagementService.groupErrorData(resultList, passIdRegistry.getPassIds()));  // 그룹화된 데이터 추가
         response.put("errorData", errorData);
 
         // 질환별 데이터 그룹화
@@ -138,18 +542,6 @@ public class AnalyzeBoardServiceImpl {
         totalInstitutionData.addAll(dataManagementService.groupDataByInstitution(resultList));  // 그룹화된 데이터 추가
         response.put("기관별", totalInstitutionData);
 
-        // 중복 체크
-        Set<String> uniqueImageIds = new HashSet<>();
-
-        for (Map<String, Object> row : resultList) {
-            String imageId = (String) row.get("IMAGE_ID");
-
-            if (imageId == null) {
-            } else {
-                uniqueImageIds.add(imageId);
-            }
-        }
-
         return response;
     }
 
@@ -185,28 +577,51 @@ public class AnalyzeBoardServiceImpl {
         return null; // 매칭되지 않는 경우
     }
 
-
-    private void processFolderRecursively(ChannelSftp channelSftp, String originalFolderPath, String folderPath,
-                                          List<Map<String, Object>> resultList,
-                                          List<Map<String, Object>> errorList,
-                                          Set<String> processedImageIds,
-                                          boolean refresh,List<String> passIds,
-                                          Map<String, Map<String, List<String>>> duplicateJsonFiles) throws Exception {
-        List<ChannelSftp.LsEntry> files;
-
-        try {
-            // 디렉토리 파일 목록 가져오기
-            files = SFTPClient.listFiles(channelSftp, folderPath);
-        } catch (SftpException e) {
-            if (e.getMessage().contains("Permission denied")) {
-                log.warn("Permission denied for folder: {}. Skipping this folder.", folderPath);
-                return; // 권한 문제가 있는 폴더는 건너뛰기
-            }
-            throw e; // 다른 예외는 재발생
+    /**
+     * 증분 갱신 단위인 기관-질환 서브트리 키를 추출
+     *
+     * @param folderPath 폴더 경로
+     * @return 기관_질환 키 (기관이나 질환을 알 수 없는 상위 폴더는 null)
+     */
+    private String getSubtreeKey(String folderPath) {
+        String institutionId = extractInstitutionId(folderPath);
+        String diseaseClass = extractDiseaseClass(folderPath);
+        if (institutionId == null || diseaseClass == null) {
+            return null;
         }
+        return institutionId + "_" + diseaseClass;
+    }
 
+    // 하위 폴더 탐색에서 제외하는 폴더
+    private boolean isSkippedFolder(String folderPath) {
+        return folderPath.endsWith("/Labelling/Labelling") || folderPath.endsWith("\\Labelling\\Labelling") || folderPath.contains("/비식별화 데이터");
+    }
 
 
+    /**
+     * 폴더 하나를 분석 (스캔 풀의 작업 스레드에서 실행)
+     *
+     * @param channelSftp        이 폴더 작업 전용 SFTP 채널
+     * @param originalFolderPath 탐색 시작 폴더 경로
+     * @param folderPath         분석할 폴더 경로
+     * @param files              폴더의 파일 목록
+     * @param persistResults     폴더 분석 결과를 analysis_result.json에 바로 병합 저장할지 여부 (증분 갱신은 마지막에 한 번에 교체)
+     * @return 폴더 분석 결과와 하위 폴더 탐색 여부
+     */
+    private SftpTreeWalker.FolderVisit<FolderScanResult> visitFolder(ChannelSftp channelSftp, String originalFolderPath, String folderPath,
+                                                                    List<ChannelSftp.LsEntry> files,
+                                                                    boolean refresh, boolean persistResults,
+                                                                    Map<String, Map<String, List<String>>> duplicateJsonFiles) throws Exception {
+        // 탐색 중 이미 조회한 목록으로 캐시 갱신 (같은 폴더를 다시 조회하지 않도록)
+        folderFileCacheManager.putListing(folderPath, files);
+
+        // 분석할 질환 폴더라면 필요한 라벨링 하위 폴더 목록을 동시에 미리 조회 (엑셀을 읽는 동안 캐시가 채워짐)
+        boolean hasExcel = files.stream().anyMatch(entry -> entry.getFilename().endsWith(".xlsx"));
+        boolean reuseExistingResult = !refresh && files.stream().anyMatch(entry -> AnalysisResultStore.isResultFile(entry.getFilename()));
+        if (hasExcel && !reuseExistingResult) {
+            sftpService.prefetchListings(getLabelListingPaths(folderPath));
+        }
+
         // 기관 및 질환 정보 추출
         String institutionId = extractInstitutionId(folderPath);
         String diseaseClass = extractDiseaseClass(folderPath);
@@ -214,28 +629,26 @@ public class AnalyzeBoardServiceImpl {
         // 기관-질환 키 생성
         String institutionDiseaseKey = institutionId + "_" + diseaseClass;
 
-        // 기관-질환별 JSON 파일 목록 초기화
-        Map<String, List<String>> diseaseData = duplicateJsonFiles.computeIfAbsent(institutionId, k -> new HashMap<>());
-        List<String> duplicates = diseaseData.computeIfAbsent(diseaseClass, k -> new ArrayList<>());
-
-        // JSON 파일 목록 추적
-        Set<String> jsonFileSet = institutionDiseaseJsonFiles.computeIfAbsent(institutionDiseaseKey, k -> new HashSet<>());
-
         // 현재 폴더의 JSON 파일 목록 가져오기
         String jsonPath = folderPath.contains("치주질환") ? folderPath + "/Labelling/meta" : folderPath + "/Labelling";
-        Set<String> jsonFiles = folderFileCacheManager.computeIfAbsent(jsonPath, path -> {
-            List<ChannelSftp.LsEntry> entries = SFTPClient.listFiles(channelSftp, path);
-            return entries.stream()
-                    .map(ChannelSftp.LsEntry::getFilename)
-                    .filter(name -> name.endsWith(".json"))
-                    .collect(Collectors.toSet());
-        });
+        Set<String> jsonFiles = sftpService.getListing(channelSftp, jsonPath).getNames().stream()
+                .filter(name -> name.endsWith(".json"))
+                .collect(Collectors.toSet());
 
-        // 중복 파일 체크 및 추가
-        for (String jsonFile : jsonFiles) {
-            if (!jsonFileSet.add(jsonFile)) { // 이미 추가된 파일이라면 중복으로 간주
-                if (!duplicates.contains(jsonFile)) {
-                    duplicates.add(jsonFile); // 중복 목록에 추가
+        synchronized (institutionDiseaseJsonFiles) {
+            // 기관-질환별 JSON 파일 목록 초기화
+            Map<String, List<String>> diseaseData = duplicateJsonFiles.computeIfAbsent(institutionId, k -> new HashMap<>());
+            List<String> duplicates = diseaseData.computeIfAbsent(diseaseClass, k -> new ArrayList<>());
+
+            // JSON 파일 목록 추적
+            Set<String> jsonFileSet = institutionDiseaseJsonFiles.computeIfAbsent(institutionDiseaseKey, k -> new HashSet<>());
+
+            // 중복 파일 체크 및 추가
+            for (String jsonFile : jsonFiles) {
+                if (!jsonFileSet.add(jsonFile)) { // 이미 추가된 파일이라면 중복으로 간주
+                    if (!duplicates.contains(jsonFile)) {
+                        duplicates.add(jsonFile); // 중복 목록에 추가
+                    }
                 }
             }
         }
@@ -243,94 +656,84 @@ public class AnalyzeBoardServiceImpl {
         String targetDiseaseFolder = getTargetInstitutionFolder(folderPath);
 
         // JSON 파일 존재 여부 확인
-        String jsonFilePath = targetDiseaseFolder != null ? targetDiseaseFolder + "/analysis_result.json"
-                : folderPath + "/analysis_result.json";
+        String jsonFolderPath = targetDiseaseFolder != null ? targetDiseaseFolder : folderPath;
 
-        if (sftpService.checkFileExistsInSFTP(channelSftp, folderPath, "analysis_result.json", "")) {
+        if (sftpService.getListing(channelSftp, folderPath).getNames().stream().anyMatch(AnalysisResultStore::isResultFile)) {
             if (refresh) {
-                folderFileCacheManager.clearCache();
-                try {
-                    SFTPClient.deleteFile(channelSftp, jsonFilePath);
-                    log.info("Existing analysis_result.json deleted for folder: {}", jsonFilePath);
-                } catch (SftpException e) {
-                    if (e.getMessage().contains("No such file")) {
-                        log.warn("No existing analysis_result.json to delete for folder: {}", jsonFilePath);
-                    } else {
-                        throw e; // 다른 예외는 재발생
-                    }
+                if (persistResults) {
+                    analysisResultStore.delete(channelSftp, jsonFolderPath);
+                    folderFileCacheManager.invalidate(jsonFolderPath);
+                    log.info("Existing analysis_result.json deleted for folder: {}", jsonFolderPath);
                 }
             } else {
-                log.info("JSON result file already exists for folder: {}", jsonFilePath);
-                List<Map<String, Object>> existingResults = jsonService.loadResultsFromJsonSftp(folderPath, channelSftp);
-                resultList.addAll(existingResults);
-                return; // 추가 처리 건너뜁니다.
+                log.info("JSON result file already exists for folder: {}", jsonFolderPath);
+                List<Map<String, Object>> existingResults = analysisResultStore.load(channelSftp, folderPath);
+                return SftpTreeWalker.FolderVisit.stop(new FolderScanResult(existingResults, Collections.emptyList())); // 추가 처리 건너뜁니다.
             }
 
         }
         // 결과를 새로 분석하는 로직
         List<Map<String, Object>> folderResultList = new ArrayList<>();
         List<Map<String, Object>> folderErrorList = new ArrayList<>();
+        ImageIdClaims claims = new ImageIdClaims(folderPath, folderResultList);
         boolean isExcelFileProcessed = false;
-
-        int availableCores = Runtime.getRuntime().availableProcessors();
-        ExecutorService executorService = Executors.newFixedThreadPool(availableCores * 2);
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
         AtomicBoolean stopSubfolderSearch = new AtomicBoolean(false);
 
         for (ChannelSftp.LsEntry entry : files) {
             String fileName = entry.getFilename();
             if (fileName.endsWith(".xlsx")) {
-                synchronized (processedImageIds) {
-                    processedImageIds.add(fileName);
+                // 폴더 작업 안에서 바로 처리 (병렬성은 폴더 단위로 확보)
+                try {
+                    processFile(channelSftp, folderPath, fileName, entry.getAttrs(), folderResultList, folderErrorList, claims, stopSubfolderSearch, duplicateJsonFiles);
+                } catch (Exception e) {
+                    log.error("Error processing file: {}", fileName, e);
                 }
 
-                futures.add(CompletableFuture.runAsync(() -> {
-                    try {
-                        processFile(channelSftp, folderPath, fileName, folderResultList, folderErrorList,processedImageIds, stopSubfolderSearch,passIds,duplicateJsonFiles);
-                    } catch (Exception e) {
-                        log.error("Error processing file: {}", fileName, e);
-                    }
-                }, executorService));
-
                 isExcelFileProcessed = true;
                 stopSubfolderSearch.set(true);
                 break; // 첫 번째 엑셀 파일만 처리
             }
         }
 
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-
-        // 특정 질환 폴더에 독립적으로 저장
-        if (isExcelFileProcessed && targetDiseaseFolder != null) {
-            log.info("Saving results independently to target disease folder: {}", targetDiseaseFolder);
-            jsonService.saveResultsToJsonSftp(originalFolderPath, folderResultList, channelSftp);
-            jsonService.saveResultsToJsonSftp(originalFolderPath, folderErrorList, channelSftp);// **독립된 리스트 저장**
-        } else if (isExcelFileProcessed) {
-            jsonService.saveResultsToJsonSftp(folderPath, folderResultList, channelSftp);
-            jsonService.saveResultsToJsonSftp(folderPath, folderErrorList, channelSftp);
+        // 특정 질환 폴더에 독립적으로 저장 (증분 갱신은 호출한 쪽에서 한 번에 저장)
+        // 임상/PASS 건수가 확정된 뒤 저장하므로 저장 위치만 정하고 저장은 탐색이 끝난 뒤 applyFolderResults에서
+        String persistPath = null;
+        if (persistResults && isExcelFileProcessed) {
+            persistPath = targetDiseaseFolder != null ? originalFolderPath : folderPath;
         }
-        resultList.addAll(folderResultList);
-        errorList.addAll(folderErrorList);
 
-        // 하위 폴더 탐색 진행
-        if (!stopSubfolderSearch.get()) {
-            for (ChannelSftp.LsEntry entry : files) {
-                if (entry.getAttrs().isDir() && !entry.getFilename().equals(".") && !entry.getFilename().equals("..")) {
-                    if (folderPath.endsWith("/Labelling/Labelling") || folderPath.endsWith("\\Labelling\\Labelling") || folderPath.contains("/비식별화 데이터" )) {
-                        log.info("Skipping folder: {}", folderPath);
-                        continue;
-                    }
+        FolderScanResult folderScanResult = new FolderScanResult(folderResultList, folderErrorList, claims, persistPath);
 
-                    String subFolderPath = folderPath + "/" + entry.getFilename();
-                    processFolderRecursively(channelSftp, originalFolderPath,subFolderPath, resultList, errorList,processedImageIds, refresh,passIds,duplicateJsonFiles);
-                }
-            }
+        // 하위 폴더 탐색 여부 결정
+        if (stopSubfolderSearch.get()) {
+            return SftpTreeWalker.FolderVisit.stop(folderScanResult);
         }
-
-        executorService.shutdown();
+        if (isSkippedFolder(folderPath)) {
+            log.info("Skipping folder: {}", folderPath);
+            return SftpTreeWalker.FolderVisit.stop(folderScanResult);
+        }
+        return SftpTreeWalker.FolderVisit.descend(folderScanResult);
     }
 
 
+    /**
+     * 질환 폴더 분석 시 조회하는 라벨링 하위 폴더 경로 (processFile의 질환별 분기와 같은 순서로 판단)
+     *
+     * @param folderPath 질환 폴더 경로
+     * @return 미리 조회할 폴더 경로 목록
+     */
+    private List<String> getLabelListingPaths(String folderPath) {
+        List<String> subFolders;
+        if (folderPath.contains("치주질환")) {
+            subFolders = Arrays.asList("/Labelling/meta", "/Labelling/draw", "/Labelling/alve");
+        } else if (folderPath.contains("두개안면") || folderPath.contains("대조군")) {
+            subFolders = Collections.singletonList("/Labelling");
+        } else {
+            subFolders = Arrays.asList("/Labelling", "/Labelling/draw", "/Labelling/Labelling");
+        }
+        return subFolders.stream().map(subFolder -> folderPath + subFolder).collect(Collectors.toList());
+    }
+
     private String getTargetInstitutionFolder(String folderPath) {
         for (String institution : INSTITUTION_FOLDER_NAMES) {
             if (folderPath.contains(institution)) {
@@ -341,42 +744,10 @@ public class AnalyzeBoardServiceImpl {
     }
 
 
-    private Boolean processJsonInputStream(InputStream jsonInputStream) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode rootNode = objectMapper.readTree(jsonInputStream);
-
-        // Annotation_Data 확인 로직
-        JsonNode annotationData = rootNode.get("Annotation_Data");
-        boolean allKeysExist = false;
-
-        if (annotationData != null && annotationData.isArray() && annotationData.size() > 0) {
-            JsonNode firstAnnotation = annotationData.get(0); // 첫 번째 Annotation_Data만 검사
-            List<String> requiredKeys = Arrays.asList(
-                    "LM_S", "LM_N", "LM_POR", "LM_POL", "LM_ORR", "LM_ORL",
-                    "LM_ARR", "LM_ARL", "LM_ANS", "LM_PNS", "LM_A", "LM_SPR",
-                    "LM_ID", "LM_B", "LM_POG", "LM_GN", "LM_ME", "LM_GOR",
-                    "LM_GOL", "LM_COR", "LM_COL", "LM_U1R", "LM_U1L", "LM_U1AR",
-                    "LM_U1AL", "LM_L1R", "LM_L1L", "LM_L1AR", "LM_L1AL", "LM_U3R",
-                    "LM_U3L", "LM_L3R", "LM_L3L", "LM_U6R", "LM_U6L", "LM_UA6R",
-                    "LM_UA6L", "LM_L6R", "LM_L6L", "LM_LA6R", "LM_LA6L", "LM_FZPR",
-                    "LM_FZPL", "LM_MR", "LM_ML"
-            );
-
-            // 모든 키가 존재하는지 확인
-            allKeysExist = requiredKeys.stream().allMatch(firstAnnotation::has);
-        }
-
-        // 상태 업데이트
-        if (allKeysExist) {
-            return true;
-        }
-        return false;
-    }
-
     // 질환별 폴더 확인 로직
-    private void processFile(ChannelSftp channelSftp, String folderPath, String fileName,
-                             List<Map<String, Object>> resultList, List<Map<String, Object>> errorList, Set<String> processedImageIds,
-                             AtomicBoolean stopSubfolderSearch, List<String> passIds, Map<String, Map<String, List<String>>> duplicateJsonFiles) throws Exception {
+    private void processFile(ChannelSftp channelSftp, String folderPath, String fileName, SftpATTRS excelAttrs,
+                             List<Map<String, Object>> resultList, List<Map<String, Object>> errorList, ImageIdClaims claims,
+                             AtomicBoolean stopSubfolderSearch, Map<String, Map<String, List<String>>> duplicateJsonFiles) throws Exception {
 
         //  폴더경로 에서 DISEASE_CLASS와 INSTITUTION_ID 추출
         String institutionId = extractInstitutionId(folderPath);
@@ -388,22 +759,35 @@ public class AnalyzeBoardServiceImpl {
             return; // 필수 데이터가 없으면 중단
         }
 
-        String storagePath = storageConfig.getStoragePath();
-        String uuid = UUID.randomUUID().toString();
-        String newFileName = String.format("%s_%s_%s_%s_%s", diseaseClass, institutionId, fileName, uuid, ".xlsx");
-        jsonService.saveExcelToLocal(channelSftp, folderPath, fileName, newFileName);
-
-        InputStream inputStream = SFTPClient.readFile(channelSftp, folderPath, fileName);
-        List<Map<String, Object>> filteredData = excelService.processExcelFile(inputStream, diseaseClass);
+        // CRF를 한 번만 받아 로컬 사본으로 저장하고 분석에도 같은 사본을 사용 (변경되지 않았으면 받지 않음)
+        String newFileName;
+        List<Map<String, Object>> filteredData;
+        try {
+            try {
+                File localExcelFile = crfFileCache.fetch(channelSftp, folderPath, fileName, excelAttrs, diseaseClass, institutionId);
+                newFileName = localExcelFile.getName();
+                filteredData = excelService.processExcelFile(localExcelFile, diseaseClass);
+            } catch (IOException e) {
+                // 캐시 사본을 쓰지 못하면 새 이름으로 다시 받아 그 파일을 분석 (레코드의 excelFileName이 실제 파일을 가리키도록)
+                log.error("Error saving Excel file locally: {}", fileName, e);
+                newFileName = String.format("%s_%s_%s_%s_%s", diseaseClass, institutionId, fileName, UUID.randomUUID(), ".xlsx");
+                File fallbackFile = new File(CrfFileCache.CACHE_DIR, newFileName);
+                fallbackFile.getParentFile().mkdirs();
+                try (InputStream inputStream = SFTPClient.readFile(channelSftp, folderPath, fileName)) {
+                    Files.copy(inputStream, fallbackFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                log.info("Excel file saved to: {}", fallbackFile.getAbsolutePath());
+                filteredData = excelService.processExcelFile(fallbackFile, diseaseClass);
+            }
+        } catch (SftpException e) {
+            log.error("Unable to read Excel file from SFTP, skipping: {}/{}", folderPath, fileName, e);
+            return;
+        }
 
         String jsonPath = folderPath.contains("치주질환") ? folderPath + "/Labelling/meta" : folderPath + "/Labelling";
-        Set<String> jsonFiles = folderFileCacheManager.computeIfAbsent(jsonPath, path -> {
-            List<ChannelSftp.LsEntry> files = SFTPClient.listFiles(channelSftp, path);
-            return files.stream()
-                    .map(ChannelSftp.LsEntry::getFilename)
-                    .filter(name -> name.endsWith(".json"))
-                    .collect(Collectors.toSet());
-        });
+        Set<String> jsonFiles = sftpService.getListing(channelSftp, jsonPath).getNames().stream()
+                .filter(name -> name.endsWith(".json"))
+                .collect(Collectors.toSet());
 
         // 현재 파일의 고유 ID 추출
         Set<String> fileImageIds = filteredData.stream()
@@ -411,16 +795,9 @@ public class AnalyzeBoardServiceImpl {
                 .filter(Objects::nonNull)
                 .collect(Collectors.toSet());
 
-        // 전체 중복 제거를 고려한 고유 ID 계산
-        Set<String> newUniqueIds = new HashSet<>();
-        synchronized (processedImageIds) {
-            for (String imageId : fileImageIds) {
-                if (!processedImageIds.contains(imageId)) {
-                    newUniqueIds.add(imageId); // 전역 Set에 없는 경우 추가
-                    processedImageIds.add(imageId); // 전역 Set 업데이트
-                }
-            }
-        }
+        // 임상 건수와 PASS는 다른 폴더와의 중복을 고려해 탐색이 끝난 뒤 반영 (여기서는 후보만 기록, 아래 "임상" 0 증가는 결과 항목 생성용)
+        boolean controlGroup = !folderPath.contains("치주질환") && !folderPath.contains("두개안면") && folderPath.contains("대조군");
+        claims.setTarget(institutionId, diseaseClass, controlGroup ? "대조군" : null, newFileName, fileImageIds);
 
         // 중복 제거를 위한 Set
         Set<String> uniqueDcmFiles = new HashSet<>();
@@ -462,78 +839,34 @@ public class AnalyzeBoardServiceImpl {
 
         // 결과 업데이트
         if (folderPath.contains("치주질환")) {
-            dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "임상", newUniqueIds.size());
+            dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "임상", 0);
             dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "영상", dcmExistsCount);
             dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "메타", metaCount);
         } else if (folderPath.contains("두개안면")) {
             dcmExistsCount = sftpService.countFilteredFoldersInPath(channelSftp, folderPath, "_");
-            dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "임상", newUniqueIds.size());
+            dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "임상", 0);
             dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "영상", dcmExistsCount);
             dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "메타", metaCount);
         }  else if (folderPath.contains("대조군")) {
 
-            dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, "대조군", "임상", newUniqueIds.size());
-            folderFileCacheManager.clearCache();
+            dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, "대조군", "임상", 0);
 
-            Set<String> subFolderNames = folderFileCacheManager.computeIfAbsent(folderPath, path -> {
-                try {
-                    // SFTP에서 파일 목록 가져오기
-                    List<ChannelSftp.LsEntry> files = SFTPClient.listFiles(channelSftp, path);
-
-                    return files.stream()
-                            .filter(entry -> {
-                                if (entry.getAttrs() == null) {
-                                    return false; // 속성이 null이면 제외
-                                }
-
-                                // 디렉토리인지 확인
-                                if (!entry.getAttrs().isDir()) {
-                                    return false;
-                                }
-
-                                String filename = entry.getFilename();
-
-                                // ".", ".." 같은 잘못된 폴더 제외
-                                if (filename == null || filename.equals(".") || filename.equals("..")) {
-                                    return false;
-                                }
-
-                                // 특정 패턴을 제외 (".json", ".xlsx" 등)
-                                return !filename.startsWith(".") && !filename.endsWith(".json") && !filename.endsWith(".xlsx");
-                            })
-                            .map(ChannelSftp.LsEntry::getFilename)
-                            .collect(Collectors.toSet());
-
-                } catch (SftpException e) {
-                    // 권한 문제나 기타 오류 처리
-                    if (e.getMessage().contains("Permission denied")) {
-                        log.error("Permission denied for path: {}", path);
-                    } else {
-                        log.error("Error accessing path: {}", path, e);
-                    }
-                    return Collections.emptySet(); // 오류 발생 시 빈 Set 반환
-                }
-            });
+            // 하위 폴더 목록 (특정 패턴 제외: ".json", ".xlsx" 등)
+            Set<String> subFolderNames = sftpService.getListing(channelSftp, folderPath).getDirectoryNames().stream()
+                    .filter(filename -> !filename.startsWith(".") && !filename.endsWith(".json") && !filename.endsWith(".xlsx"))
+                    .collect(Collectors.toSet());
 
             // 데이터 등록 건수 설정 (하위 폴더 수)
             dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, "대조군", "영상", subFolderNames.size());
             dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, "대조군", "메타", subFolderNames.size());
 
-            // 라벨링 PASS 건수 계산 (하위 폴더 이름을 IMAGE_ID와 비교)
+            // 라벨링 PASS 건수 계산 (하위 폴더 이름을 IMAGE_ID와 비교: 단어 단위 일치 또는 "NonIdentifying_" 형태)
+            ImageIdMatcher imageIdMatcher = new ImageIdMatcher(fileImageIds);
             for (String subFolderName : subFolderNames) {
-                Optional<String> matchedImageId = fileImageIds.stream()
-                        .filter(imageId ->
-                                subFolderName.matches(".*\\b" + imageId + "\\b.*") || // 정확히 매칭 (정규식)
-                                        subFolderName.contains("_" + imageId) // "NonIdentifying_" 형태로 매칭
-                        )
-                        .findFirst();
+                Optional<String> matchedImageId = imageIdMatcher.findFirstMatch(subFolderName);
 
                 if (matchedImageId.isPresent()) {
-                    if (!passIds.contains(matchedImageId.get())) {
-                        passIds.add(matchedImageId.get()); // Pass된 ID 저장
-                        dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, "대조군", "drawing", null);
-                        dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, "대조군", "라벨링pass건수", null);
-                    }
+                    claims.addPass(matchedImageId.get(), false, "drawing", "라벨링pass건수"); // Pass된 ID 후보
                 }
             }
             stopSubfolderSearch.set(true); // 대조군은 하위 폴더 탐색 중지
@@ -541,7 +874,7 @@ public class AnalyzeBoardServiceImpl {
 
             } else {
                 int filteredFoldersCount = sftpService.countFilteredFoldersInPath(channelSftp, folderPath, "_");
-            dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "임상", newUniqueIds.size());
+            dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "임상", 0);
             dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "영상", filteredFoldersCount);
             dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "메타", metaCount);
             }
@@ -576,12 +909,8 @@ public class AnalyzeBoardServiceImpl {
                 }
                 if(jsonExists) {
                     if ((dcmExists && iniExists && alveExists)) {
-                        if (!passIds.contains(imageId)) {
-                            passIds.add(imageId);
-                            processJsonFile(channelSftp, folderPath, imageId, institutionId, diseaseClass, newFileName);
-                            dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "라벨링pass건수", null);
-                            stopSubfolderSearch.set(true);  // 이 시점에서 하위 폴더 탐색을 중지
-                        }
+                        claims.addPass(imageId, true, "라벨링pass건수");
+                        stopSubfolderSearch.set(true);  // 이 시점에서 하위 폴더 탐색을 중지
                     } else {
                         dataManagementService.errorDataStatus(errorList, institutionId, diseaseClass, imageId,jsonExists,dcmExists,iniExists,alveExists);
                         stopSubfolderSearch.set(true);  // 이 시점에서 하위 폴더 탐색을 중지
@@ -596,16 +925,13 @@ public class AnalyzeBoardServiceImpl {
                 dcmExists = sftpService.checkFileExistsInSFTPForImageId(channelSftp, folderPath, imageId);
 
                 // JSON 파일 개수로 라벨링등록건수 설정
-                if (jsonExists ) {
+                if (jsonExists && dcmExists) {
                     try (InputStream jsonInputStream = SFTPClient.readFile(channelSftp, folderPath+"/Labelling", imageId + ".json")) {
-                        // JSON 데이터 처리
-                        labellingExists = processJsonInputStream(jsonInputStream);
-                        if(labellingExists && dcmExists) {
-                            if (!passIds.contains(imageId)) {  // 중복 체크
-                                passIds.add(imageId);
-                                processJsonFile(channelSftp, folderPath, imageId, institutionId, diseaseClass, newFileName);
-                                dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "라벨링pass건수", null);
-                            }
+                        // 첫 번째 Annotation_Data의 랜드마크 검사 (통과한 경우에만 파일 전체를 받아 저장에 사용)
+                        // (받은 내용은 PASS 후보에 담아 두고, PASS가 확정되면 다시 내려받지 않고 그대로 저장)
+                        byte[] jsonContent = LandmarkValidator.readIfValid(jsonInputStream);
+                        if (jsonContent != null) {
+                            claims.addPass(imageId, jsonContent, "라벨링pass건수");
                         }
                         else{
                             dataManagementService.errorDataStatus(errorList, institutionId, diseaseClass, imageId,jsonExists,dcmExists,false,false);
@@ -632,12 +958,8 @@ public class AnalyzeBoardServiceImpl {
                 if (jsonExists && dcmExists) {
                     dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "라벨링등록건수",null);
                     if ((labellingExists && iniExists)) {
-                        if (!passIds.contains(imageId)) {
-                            passIds.add(imageId);
-                            processJsonFile(channelSftp, folderPath, imageId, institutionId, diseaseClass, newFileName);
-                            dataManagementService.incrementStatus(resultList, institutionId, diseaseClass, null, "라벨링pass건수", null);
-                            stopSubfolderSearch.set(true);  // 이 시점에서 하위 폴더 탐색을 중지
-                        }
+                        claims.addPass(imageId, true, "라벨링pass건수");
+                        stopSubfolderSearch.set(true);  // 이 시점에서 하위 폴더 탐색을 중지
                     } else {
                         dataManagementService.errorDataStatus(errorList, institutionId, diseaseClass, imageId,jsonExists,dcmExists,iniExists,labellingExists);
                         stopSubfolderSearch.set(true);  // 이 시점에서 하위 폴더 탐색을 중지
@@ -653,6 +975,114 @@ public class AnalyzeBoardServiceImpl {
 
     }
 
+    /**
+     * 폴더별 결과의 IMAGE_ID 소유 후보를 폴더 경로 순서로 반영 (탐색이 끝난 뒤 호출한 스레드에서 실행)
+     *
+     * 폴더 작업은 병렬로 실행되어 끝나는 순서가 매번 다르므로, 같은 IMAGE_ID가 여러 폴더에 있을 때
+     * 먼저 끝난 폴더가 가져가면 갱신마다 대시보드 건수가 달라진다. 그래서 폴더 작업에서는 후보만 모으고
+     * 여기서 폴더 경로 순서로 반영하여 항상 경로가 앞선 폴더가 가져가게 한다.
+     * - 임상: 앞선 폴더에서 센 IMAGE_ID는 다시 세지 않음
+     * - 라벨링 PASS: 이미 등록된 IMAGE_ID(앞선 폴더, 증분 갱신에서 유지된 서브트리)는 건너뜀
+     * PASS된 JSON 레코드는 폴더 단위로 스캔 풀에서 저장하고 (두개안면은 랜드마크 검사 때 받은 내용을 그대로 사용),
+     * 건수가 확정된 폴더 결과를 analysis_result.json에 추가한다.
+     *
+     * @param channelSftp   결과 저장에 사용할 SFTP 채널
+     * @param folderResults 폴더별 결과
+     * @param passIds       PASS 된 IMAGE_ID -> 기관_질환 (유지된 서브트리의 ID가 미리 들어 있을 수 있음)
+     */
+    private void applyFolderResults(ChannelSftp channelSftp, List<FolderScanResult> folderResults,
+                                    Map<String, String> passIds) throws Exception {
+        List<FolderScanResult> ordered = new ArrayList<>(folderResults);
+        ordered.sort(Comparator.comparing(result -> result.getClaims() != null ? result.getClaims().getFolderPath() : ""));
+
+        Set<String> processedImageIds = new HashSet<>();  // 중복 처리용 전역 Set
+        List<Future<?>> recordSaves = new ArrayList<>();
+        try {
+            for (FolderScanResult result : ordered) {
+                ImageIdClaims claims = result.getClaims();
+                if (claims == null || claims.getInstitutionId() == null) {
+                    continue;
+                }
+                String institutionId = claims.getInstitutionId();
+                String diseaseClass = claims.getDiseaseClass();
+
+                // 임상: 전체 중복 제거를 고려한 고유 ID 수 (폴더 분석이 도중에 실패해 결과 항목이 없으면 ID만 처리된 것으로 기록)
+                int newUniqueIds = 0;
+                for (String imageId : claims.getClinicalIds()) {
+                    if (processedImageIds.add(imageId)) {
+                        newUniqueIds++;
+                    }
+                }
+                boolean hasRow = claims.getResults().stream().anyMatch(row -> institutionId.equals(row.get("INSTITUTION_ID"))
+                        && diseaseClass.equals(row.get("DISEASE_CLASS")));
+                if (hasRow) {
+                    dataManagementService.incrementStatus(claims.getResults(), institutionId, diseaseClass, claims.getGroupData(), "임상", newUniqueIds);
+                }
+
+                // 라벨링 PASS
+                List<PassCandidate> records = new ArrayList<>();
+                for (PassCandidate pass : claims.getPasses()) {
+                    if (passIds.putIfAbsent(pass.getImageId(), institutionId + "_" + diseaseClass) != null) {
+                        continue;
+                    }
+                    for (String status : pass.getStatuses()) {
+                        dataManagementService.incrementStatus(claims.getResults(), institutionId, diseaseClass, claims.getGroupData(), status, null);
+                    }
+                    if (pass.isSaveRecord()) {
+                        records.add(pass);
+                    }
+                }
+                if (!records.isEmpty()) {
+                    recordSaves.add(scanExecutor.submit(() -> {
+                        saveRecords(claims, records);
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> recordSave : recordSaves) {
+                recordSave.get();
+            }
+        } finally {
+            for (Future<?> recordSave : recordSaves) {
+                recordSave.cancel(true);
+            }
+        }
+
+        // 결과와 오류 항목을 한 세그먼트로 추가 (기존 결과는 다시 내려받지 않음)
+        for (FolderScanResult result : ordered) {
+            if (result.getPersistPath() != null) {
+                List<Map<String, Object>> folderRows = new ArrayList<>(result.getResults());
+                folderRows.addAll(result.getErrors());
+                log.info("Saving results for {} to: {}", result.getClaims().getFolderPath(), result.getPersistPath());
+                analysisResultStore.append(channelSftp, result.getPersistPath(), folderRows);
+            }
+        }
+    }
+
+    // PASS가 확정된 폴더의 JSON 레코드 저장 (검사 단계에서 받은 내용이 있으면 그대로, 없으면 내려받아 저장)
+    private void saveRecords(ImageIdClaims claims, List<PassCandidate> records) throws Exception {
+        List<String> downloads = new ArrayList<>();
+        for (PassCandidate pass : records) {
+            if (pass.getContent() == null) {
+                downloads.add(pass.getImageId());
+                continue;
+            }
+            try {
+                saveJsonRecord(objectMapper.readTree(pass.getContent()), claims.getInstitutionId(), claims.getDiseaseClass(), claims.getExcelFileName());
+            } catch (IOException e) {
+                log.error("Error while processing JSON file for Image ID: {}", pass.getImageId(), e);
+            }
+        }
+        if (!downloads.isEmpty()) {
+            sftpChannelPool.execute(recordChannel -> {
+                for (String imageId : downloads) {
+                    processJsonFile(recordChannel, claims.getFolderPath(), imageId, claims.getInstitutionId(), claims.getDiseaseClass(), claims.getExcelFileName());
+                }
+                return null;
+            });
+        }
+    }
+
     /**
      * JSON 파일을 처리하여 로컬에 저장
      *
@@ -675,18 +1105,107 @@ public class AnalyzeBoardServiceImpl {
             ObjectMapper objectMapper = new ObjectMapper();
             JsonNode rootNode = objectMapper.readTree(jsonFileStream);
 
-            // JSON에 엑셀 파일 이름 추가
-            ((ObjectNode) rootNode).put("excelFileName", excelFileName);
-
-            // JSON 내용을 로컬에 저장
-            String savePath = "C:/app/disease_json/"; // 로컬 저장 경로
-            String fileName = String.format("%s_%s.json", diseaseClass, institutionId);
-
-            // JSON 데이터를 로컬에 저장
-            jsonService.saveJsonToLocal(savePath, fileName, rootNode);
+            saveJsonRecord(rootNode, institutionId, diseaseClass, excelFileName);
 
         } catch (Exception e) {
             log.error("Error while processing JSON file for Image ID: {}", imageId, e);
         }
     }
+
+    // 엑셀 파일 이름을 추가하여 질환_기관별 저장소 파일 끝에 한 줄로 추가
+    private void saveJsonRecord(JsonNode rootNode, String institutionId, String diseaseClass, String excelFileName) {
+        ((ObjectNode) rootNode).put("excelFileName", excelFileName);
+        diseaseJsonStore.append(diseaseClass, institutionId, rootNode);
+    }
+
+    /**
+     * 폴더 하나의 분석 결과
+     */
+    @Getter
+    private static class FolderScanResult {
+        private final List<Map<String, Object>> results;
+        private final List<Map<String, Object>> errors;
+        // 새로 분석한 폴더의 IMAGE_ID 소유 후보 (기존 결과를 사용한 폴더는 null)
+        private final ImageIdClaims claims;
+        // 결과를 저장할 폴더 (저장하지 않으면 null)
+        private final String persistPath;
+
+        private FolderScanResult(List<Map<String, Object>> results, List<Map<String, Object>> errors) {
+            this(results, errors, null, null);
+        }
+
+        private FolderScanResult(List<Map<String, Object>> results, List<Map<String, Object>> errors,
+                                 ImageIdClaims claims, String persistPath) {
+            this.results = results;
+            this.errors = errors;
+            this.claims = claims;
+            this.persistPath = persistPath;
+        }
+
+        // 엑셀을 새로 분석한 폴더인지 (CRF 사본, JSON 레코드, 결과 파일을 새로 썼을 수 있음)
+        private boolean isRescanned() {
+            return persistPath != null || (claims != null && claims.getInstitutionId() != null);
+        }
+
+        private static FolderScanResult empty() {
+            return new FolderScanResult(Collections.emptyList(), Collections.emptyList());
+        }
+    }
+
+    /**
+     * 폴더 하나에서 나온 IMAGE_ID 소유 후보 (임상 건수, 라벨링 PASS)
+     * 폴더 작업 스레드에서만 채우고, 탐색이 끝난 뒤 applyFolderResults에서 읽는다.
+     */
+    @Getter
+    private static class ImageIdClaims {
+        private final String folderPath;
+        // 임상/PASS 건수를 반영할 폴더 결과
+        private final List<Map<String, Object>> results;
+        private String institutionId;
+        private String diseaseClass;
+        private String groupData;
+        private String excelFileName;
+        // 임상 건수 후보 (엑셀의 IMAGE_ID)
+        private final Set<String> clinicalIds = new LinkedHashSet<>();
+        private final List<PassCandidate> passes = new ArrayList<>();
+
+        private ImageIdClaims(String folderPath, List<Map<String, Object>> results) {
+            this.folderPath = folderPath;
+            this.results = results;
+        }
+
+        private void setTarget(String institutionId, String diseaseClass, String groupData, String excelFileName, Set<String> imageIds) {
+            this.institutionId = institutionId;
+            this.diseaseClass = diseaseClass;
+            this.groupData = groupData;
+            this.excelFileName = excelFileName;
+            this.clinicalIds.addAll(imageIds);
+        }
+
+        // statuses: PASS로 확정되면 1씩 늘릴 항목, saveRecord: JSON 레코드를 disease_json에 저장할지 여부
+        private void addPass(String imageId, boolean saveRecord, String... statuses) {
+            passes.add(new PassCandidate(imageId, saveRecord, null, Arrays.asList(statuses)));
+        }
+
+        // 검사 단계에서 이미 받은 JSON 내용으로 레코드를 저장하는 후보
+        private void addPass(String imageId, byte[] content, String... statuses) {
+            passes.add(new PassCandidate(imageId, true, content, Arrays.asList(statuses)));
+        }
+    }
+
+    @Getter
+    private static class PassCandidate {
+        private final String imageId;
+        private final boolean saveRecord;
+        // 검사 단계에서 받은 JSON 파일 내용 (없으면 저장할 때 내려받음)
+        private final byte[] content;
+        private final List<String> statuses;
+
+        private PassCandidate(String imageId, boolean saveRecord, byte[] content, List<String> statuses) {
+            this.imageId = imageId;
+            this.saveRecord = saveRecord;
+            this.content = content;
+            this.statuses = statuses;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package com.fas.dentistry_data_analysis.dashboard.Service;
+
+import com.fas.dentistry_data_analysis.dashboard.DTO.DashboardManifest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jcraft.jsch.ChannelSftp;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * 증분 갱신용 폴더 매니페스트 저장/비교
+ */
+@Slf4j
+@Service
+public class DashboardManifestService {
+
+    private static final String MANIFEST_DIR = "C:/app/manifest";
+    private static final String MANIFEST_FILE = "dashboard_manifest.json";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 마지막으로 성공한 갱신의 매니페스트를 로드
+     *
+     * @return 매니페스트 (없거나 읽을 수 없으면 null)
+     */
+    public DashboardManifest load() {
+        File manifestFile = new File(MANIFEST_DIR, MANIFEST_FILE);
+        if (!manifestFile.exists()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(manifestFile, DashboardManifest.class);
+        } catch (IOException e) {
+            log.warn("매니페스트 파일을 읽을 수 없습니다: {}", manifestFile.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 매니페스트 저장 (임시 파일에 쓴 뒤 교체하여 중간에 실패해도 깨진 파일이 남지 않도록 함)
+     *
+     * @param manifest 저장할 매니페스트
+     */
+    public void save(DashboardManifest manifest) throws IOException {
+        File dir = new File(MANIFEST_DIR);
+        if (!dir.exists()) {
+            dir.mkdirs(); // 디렉터리가 없으면 생성
+        }
+        File tempFile = new File(dir, MANIFEST_FILE + ".tmp");
+        objectMapper.writeValue(tempFile, manifest);
+        Files.move(tempFile.toPath(), new File(dir, MANIFEST_FILE).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Dashboard manifest saved ({} subtrees)", manifest.getSubtrees().size());
+    }
+
+    /**
+     * 매니페스트 삭제 (갱신 도중 실패하면 다음 증분 갱신이 전체 갱신으로 동작하도록 함)
+     */
+    public void delete() {
+        File manifestFile = new File(MANIFEST_DIR, MANIFEST_FILE);
+        if (manifestFile.exists() && !manifestFile.delete()) {
+            log.warn("Failed to delete manifest: {}", manifestFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * 폴더 목록으로 폴더 지문 생성
+     *
+     * @param entries 폴더의 파일 목록 (".", ".." 포함)
+     * @return 폴더 지문
+     */
+    public DashboardManifest.FolderFingerprint createFingerprint(List<ChannelSftp.LsEntry> entries) {
+        long mtime = 0;
+        long size = 0;
+        int entryCount = 0;
+        long latestEntryMtime = 0;
+
+        for (ChannelSftp.LsEntry entry : entries) {
+            String fileName = entry.getFilename();
+            if (entry.getAttrs() == null || fileName.equals("..")) {
+                continue;
+            }
+            if (fileName.equals(".")) {
+                mtime = entry.getAttrs().getMTime();
+                continue;
+            }
+            entryCount++;
+            if (!entry.getAttrs().isDir()) {
+                size += entry.getAttrs().getSize();
+            }
+            latestEntryMtime = Math.max(latestEntryMtime, entry.getAttrs().getMTime());
+        }
+        return new DashboardManifest.FolderFingerprint(mtime, size, entryCount, latestEntryMtime);
+    }
+
+    // 존재하지 않는 폴더의 지문
+    public DashboardManifest.FolderFingerprint missingFingerprint() {
+        return new DashboardManifest.FolderFingerprint(0, 0, -1, 0);
+    }
+
+    /**
+     * 이전 매니페스트와 비교하여 변경된 서브트리(기관_질환) 목록을 반환
+     * 폴더가 추가/삭제되었거나 지문이 달라진 서브트리, 새로 생기거나 사라진 서브트리가 포함된다.
+     *
+     * @param previous 이전 매니페스트
+     * @param current  현재 조사한 매니페스트
+     * @return 변경된 서브트리 키
+     */
+    public Set<String> findChangedSubtrees(DashboardManifest previous, DashboardManifest current) {
+        Set<String> keys = new HashSet<>(previous.getSubtrees().keySet());
+        keys.addAll(current.getSubtrees().keySet());
+
+        Set<String> changedKeys = new TreeSet<>();
+        for (String key : keys) {
+            DashboardManifest.SubtreeManifest before = previous.getSubtrees().get(key);
+            DashboardManifest.SubtreeManifest after = current.getSubtrees().get(key);
+            if (before == null || after == null || !before.getFolders().equals(after.getFolders())) {
+                changedKeys.add(key);
+            }
+        }
+        return changedKeys;
+    }
+}
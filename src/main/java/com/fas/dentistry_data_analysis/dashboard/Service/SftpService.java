@@ -1,24 +1,32 @@
 package com.fas.dentistry_data_analysis.dashboard.Service;
 
 import com.fas.dentistry_data_analysis.dashboard.util.FolderFileCacheManager;
+import com.fas.dentistry_data_analysis.dashboard.util.FolderListing;
 import com.fas.dentistry_data_analysis.common.util.sftp.SFTPClient;
+import com.fas.dentistry_data_analysis.common.util.sftp.SftpChannelPool;
 import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.SftpException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @Service
 public class SftpService {
     private final FolderFileCacheManager folderFileCacheManager;
+    private final SftpChannelPool sftpChannelPool;
+    private final ExecutorService prefetchExecutor;
 
-    public SftpService(FolderFileCacheManager folderFileCacheManager) {
+    public SftpService(FolderFileCacheManager folderFileCacheManager, SftpChannelPool sftpChannelPool,
+                       @Qualifier("sftpPrefetchExecutor") ExecutorService prefetchExecutor) {
         this.folderFileCacheManager = folderFileCacheManager;
+        this.sftpChannelPool = sftpChannelPool;
+        this.prefetchExecutor = prefetchExecutor;
     }
 
     /**
@@ -36,26 +44,8 @@ public class SftpService {
         // 폴더와 서브폴더 경로 결합
         String targetPath = folderPath + subFolder;
 
-        // 캐시에서 해당 폴더의 파일 목록을 가져옴
-        Set<String> cachedFiles = folderFileCacheManager.computeIfAbsent(targetPath, path -> {
-            try {
-                // SFTP에서 파일 목록 가져오기
-                List<ChannelSftp.LsEntry> files = SFTPClient.listFiles(channelSftp, path);
-
-                // 파일 이름만 추출하여 Set으로 변환
-                return files.stream()
-                        .map(ChannelSftp.LsEntry::getFilename)
-                        .collect(Collectors.toSet());
-            } catch (SftpException e) {
-                // 파일 목록 조회 실패 시 빈 Set 반환
-                log.error("Failed to list files in folder: {}", path, e);
-                return Collections.emptySet();
-            }
-        });
-
-
         // 캐시된 파일 목록에서 해당 파일이 있는지 확인
-        return cachedFiles.contains(fileName);
+        return getListing(channelSftp, targetPath).getNames().contains(fileName);
     }
 
     /**
@@ -68,25 +58,8 @@ public class SftpService {
      * @throws SftpException SFTP 작업 중 오류 발생 시 예외 처리
      */
     public boolean checkFileExistsInSFTPForImageId(ChannelSftp channelSftp, String folderPath, String imageId) throws SftpException {
-        // 주어진 경로에 대한 캐시를 초기화하거나 가져옴
-        Set<String> cachedFolders = folderFileCacheManager.computeIfAbsent(folderPath, path -> {
-            try {
-                // SFTP에서 폴더 목록 가져오기
-                List<ChannelSftp.LsEntry> entries = SFTPClient.listFiles(channelSftp, path);
-
-                return entries.stream()
-                        .filter(entry -> entry.getAttrs() != null && entry.getAttrs().isDir()) // 디렉토리만 필터링
-                        .map(ChannelSftp.LsEntry::getFilename) // 폴더 이름만 추출
-                        .collect(Collectors.toSet());
-            } catch (SftpException e) {
-                // 에러 발생 시 빈 Set 반환
-                log.error("Error accessing path: {}", path, e);
-                return Collections.emptySet();
-            }
-        });
-
-        // 폴더 이름 중 imageId를 포함하는 폴더가 있는지 확인
-        return cachedFolders.stream().anyMatch(folderName -> folderName.contains(imageId));
+        // 폴더 이름 중 imageId를 포함하는 폴더가 있는지 확인 (목록별 인덱스 사용)
+        return getListing(channelSftp, folderPath).anyDirectoryNameContains(imageId);
     }
 
     /**
@@ -99,24 +72,7 @@ public class SftpService {
      * @throws SftpException SFTP 작업 중 오류 발생 시 예외 처리
      */
     public int countFilteredFoldersInPath(ChannelSftp channelSftp, String folderPath, String keyword) throws SftpException {
-        // 주어진 경로에 대한 캐시를 초기화하거나 가져옴
-        folderFileCacheManager.clearCache();
-        Set<String> cachedFolders = folderFileCacheManager.computeIfAbsent(folderPath, path -> {
-            try {
-                // SFTP에서 디렉토리 목록 가져오기
-                List<ChannelSftp.LsEntry> entries = SFTPClient.listFiles(channelSftp, path);
-
-                return entries.stream()
-                        .filter(entry -> entry.getAttrs() != null && entry.getAttrs().isDir()) // 디렉토리만 필터링
-                        .map(ChannelSftp.LsEntry::getFilename) // 디렉토리 이름 추출
-                        .collect(Collectors.toSet());
-            } catch (SftpException e) {
-                // 에러 발생 시 로그를 남기고 빈 Set 반환
-                log.error("Failed to list folders in path: {}", path, e);
-                return Collections.emptySet();
-            }
-        });
-
+        Set<String> cachedFolders = getListing(channelSftp, folderPath).getDirectoryNames();
 
         // 필터링된 폴더 갯수 반환 (특정 키워드가 포함된 폴더만 카운트)
         return (int) cachedFolders.stream()
@@ -134,24 +90,52 @@ public class SftpService {
      * @return imageId를 포함하는 파일 존재 여부
      */
     public boolean checkLabellingFileExistsInSFTPForImageId(ChannelSftp channelSftp, String folderPath, String imageId) {
-        // 캐시에서 파일/폴더 세트를 가져오거나 초기화
-        Set<String> filesInCache = folderFileCacheManager.computeIfAbsent(folderPath, path -> {
-            try {
-                // SFTP에서 파일 목록 가져오기
-                List<ChannelSftp.LsEntry> files = SFTPClient.listFiles(channelSftp, path);
+        // 캐시된 파일/폴더 목록에서 imageId를 포함하는 이름이 있는지 확인 (목록별 인덱스 사용)
+        return getListing(channelSftp, folderPath).anyNameContains(imageId);
+    }
 
-                return files.stream()
-                        .map(ChannelSftp.LsEntry::getFilename) // 파일 이름 추출
-                        .collect(Collectors.toSet());
-            } catch (SftpException e) {
-                // 에러 발생 시 로그를 남기고 빈 Set 반환
-                log.error("Failed to list files in folder: {}", path, e);
-                return Collections.emptySet();
-            }
-        });
+    /**
+     * 캐시에서 폴더 목록을 가져오거나 없을 경우 SFTP에서 조회
+     * 파일 기준/폴더 기준 조회가 같은 목록을 공유하므로 다른 호출의 캐시를 지우지 않아도 된다.
+     *
+     * @param channelSftp SFTP 연결 채널
+     * @param folderPath  폴더 경로
+     * @return 폴더 목록 (조회 실패 시 빈 목록)
+     */
+    public FolderListing getListing(ChannelSftp channelSftp, String folderPath) {
+        return folderFileCacheManager.getListing(folderPath, path -> SFTPClient.listFiles(channelSftp, path));
+    }
 
-        // 캐시에서 imageId를 포함하는 파일/폴더 이름이 있는지 확인
-        return filesInCache.stream().anyMatch(name -> name.contains(imageId));
+    /**
+     * 여러 폴더의 목록을 풀에서 빌린 별도 채널로 동시에 조회해 캐시에 미리 채움
+     * 완료를 기다리지 않으며, 조회 중인 경로를 다른 스레드가 찾으면 캐시에서 같은 조회 결과를 기다리므로
+     * 이후의 파일 존재 확인은 순서대로 조회할 때와 같은 결과를 왕복 한 번의 시간 안에 얻는다.
+     * 미리 조회에 실패해도 해당 경로는 처음 사용할 때 다시 조회된다.
+     *
+     * @param folderPaths 미리 조회할 폴더 경로 목록
+     */
+    public void prefetchListings(List<String> folderPaths) {
+        for (String folderPath : folderPaths) {
+            if (folderFileCacheManager.isCached(folderPath)) {
+                continue; // 이미 캐시된 폴더는 채널을 빌리지 않음
+            }
+            try {
+                prefetchExecutor.execute(() -> {
+                    if (folderFileCacheManager.isCached(folderPath)) {
+                        return;
+                    }
+                    try {
+                        sftpChannelPool.execute(channelSftp -> getListing(channelSftp, folderPath));
+                    } catch (IllegalStateException e) {
+                        log.warn("Prefetch could not borrow SFTP channel for folder: {} ({})", folderPath, e.getMessage());
+                    } catch (Exception e) {
+                        log.debug("Prefetch failed for folder: {} ({})", folderPath, e.getMessage());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.debug("Prefetch skipped for folder: {} ({})", folderPath, e.getMessage());
+            }
+        }
     }
 
 }
@@ -1,7 +1,12 @@
 package com.fas.dentistry_data_analysis.dashboard.controller;
 
+import com.fas.dentistry_data_analysis.common.util.sftp.SftpChannelPool;
 import com.fas.dentistry_data_analysis.config.StorageConfig;
+import com.fas.dentistry_data_analysis.dashboard.DTO.DashboardSnapshot;
+import com.fas.dentistry_data_analysis.dashboard.DTO.RefreshJob;
 import com.fas.dentistry_data_analysis.dashboard.Service.AnalyzeBoardServiceImpl;
+import com.fas.dentistry_data_analysis.dashboard.enums.RefreshStatus;
+import com.fas.dentistry_data_analysis.dashboard.util.FolderFileCacheManager;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,22 +23,64 @@ import java.util.*;
     public class DashboardController {
         private final StorageConfig storageConfig;
         private final AnalyzeBoardServiceImpl analyzeBoardService;
+        private final FolderFileCacheManager folderFileCacheManager;
+        private final SftpChannelPool sftpChannelPool;
 
         @Autowired
-        public DashboardController(StorageConfig storageConfig, AnalyzeBoardServiceImpl analyzeBoardService) {
+        public DashboardController(StorageConfig storageConfig, AnalyzeBoardServiceImpl analyzeBoardService,
+                                   FolderFileCacheManager folderFileCacheManager, SftpChannelPool sftpChannelPool) {
             this.storageConfig = storageConfig;
             this.analyzeBoardService = analyzeBoardService;
+            this.folderFileCacheManager = folderFileCacheManager;
+            this.sftpChannelPool = sftpChannelPool;
         }
 
         @PostMapping("/dashboard")
-        public ResponseEntity<?> dashboardData(@RequestParam(value = "refresh", defaultValue = "false") boolean refresh) throws Exception {
+        public ResponseEntity<?> dashboardData(@RequestParam(value = "refresh", defaultValue = "false") boolean refresh,
+                                               @RequestParam(value = "incremental", defaultValue = "false") boolean incremental) throws Exception {
             log.info("{}",refresh);
-            if (refresh && analyzeBoardService.isRefreshInProgress()) {
-                return ResponseEntity.status(HttpStatus.CONFLICT).body("새로고침이 이미 실행 중 입니다.");
+            if (refresh) {
+                RefreshJob job;
+                try {
+                    // 갱신은 백그라운드 작업으로 실행 (incremental=true 이면 변경된 기관/질환만 다시 분석)
+                    job = analyzeBoardService.startRefresh(incremental);
+                } catch (IllegalStateException e) {
+                    return ResponseEntity.status(HttpStatus.CONFLICT).body("새로고침이 이미 실행 중 입니다.");
+                }
+                // 갱신이 끝날 때까지는 기존 스냅샷을 그대로 반환
+                Map<String, Object> body = new HashMap<>();
+                body.put("job", job);
+                DashboardSnapshot snapshot = analyzeBoardService.getCachedSnapshot();
+                if (snapshot != null) {
+                    body.put("data", snapshot.getData());
+                }
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
             }
-            // processFilesInFolder 메서드에 refresh 파라미터 전달
-            Map<String, Object> stringObjectMap = analyzeBoardService.processFilesInFolder(storageConfig.getDecodedFolderPath(), refresh);
-            return ResponseEntity.ok(Map.of("data", stringObjectMap));
+
+            DashboardSnapshot snapshot = analyzeBoardService.getSnapshot();
+            if (snapshot == null) {
+                // 최초 갱신이 아직 진행 중
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("job", analyzeBoardService.getRefreshJob()));
+            }
+            return ResponseEntity.ok(Map.of("data", snapshot.getData(), "snapshotCreatedAt", snapshot.getCreatedAt()));
+        }
+
+        @GetMapping("/dashboard/refresh-status")
+        public ResponseEntity<?> refreshStatus() {
+            RefreshJob job = analyzeBoardService.getRefreshJob();
+            if (job == null) {
+                return ResponseEntity.ok(Map.of("status", RefreshStatus.IDLE));
+            }
+            return ResponseEntity.ok(job);
+        }
+
+        // 폴더 목록 캐시/SFTP 커넥션 풀 상태 (모니터링용)
+        @GetMapping("/dashboard/cache-stats")
+        public ResponseEntity<?> cacheStats() {
+            return ResponseEntity.ok(Map.of(
+                    "folderCache", folderFileCacheManager.getStats(),
+                    "sftpPool", sftpChannelPool.getStats()
+            ));
         }
 
 
@@ -1,6 +1,8 @@
 package com.fas.dentistry_data_analysis.dashboard.enums;
 
 public enum RefreshStatus {
-    IDLE,       // 아무 작업도 진행 중이지 않은 상태
-    IN_PROGRESS // 갱신 작업이 진행 중인 상태
+    IDLE,        // 아무 작업도 진행 중이지 않은 상태
+    IN_PROGRESS, // 갱신 작업이 진행 중인 상태
+    COMPLETED,   // 갱신 작업이 완료된 상태
+    FAILED       // 갱신 작업이 실패한 상태
 }
@@ -0,0 +1,135 @@
+package com.fas.dentistry_data_analysis.dashboard.util;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * CRF 엑셀 로컬 캐시 (C:/app/dentistry)
+ *
+ * 로컬 파일명은 "질환_기관_원본파일명_경로키_버전키_.xlsx" 형식이다.
+ * - 경로키: 원격 경로로 만든 키 (같은 이름의 CRF가 여러 폴더에 있어도 폴더마다 따로 보관)
+ * - 버전키: 원격 경로 + 수정 시각 + 크기로 만든 키
+ * 원격 파일이 바뀌지 않았으면 같은 파일명이 되어 다시 받지 않고, 바뀌었으면 한 번만 받아 분석과 로컬 저장에 함께 사용한다.
+ * 사용된 파일은 수정 시각을 갱신해 두고, 갱신이 끝나면 이번에 사용되지 않은 파일을 정리한다.
+ */
+@Slf4j
+@Component
+public class CrfFileCache {
+
+    public static final String CACHE_DIR = "C:/app/dentistry";
+    private static final int TRANSFER_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * 원격 CRF 파일의 로컬 사본을 반환 (없으면 한 번 내려받음)
+     *
+     * @param channelSftp   SFTP 채널
+     * @param folderPath    원격 폴더 경로
+     * @param fileName      원격 파일명
+     * @param attrs         폴더 목록 조회 시 받은 파일 속성 (수정 시각/크기)
+     * @param diseaseClass  질환명
+     * @param institutionId 기관명
+     * @return 로컬 파일 (파일명은 disease_json의 excelFileName으로 사용)
+     */
+    public File fetch(ChannelSftp channelSftp, String folderPath, String fileName, SftpATTRS attrs,
+                      String diseaseClass, String institutionId) throws SftpException, IOException {
+        String remotePath = folderPath + "/" + fileName;
+        if (attrs == null) {
+            attrs = channelSftp.stat(remotePath);
+        }
+
+        // 같은 원격 경로의 사본만 같은 접두어를 가짐
+        String localPrefix = String.format("%s_%s_%s_%s_", diseaseClass, institutionId, fileName, cacheKey(remotePath));
+        String localName = localPrefix + cacheKey(remotePath + "|" + attrs.getMTime() + "|" + attrs.getSize()) + "_.xlsx";
+
+        File dir = new File(CACHE_DIR);
+        if (!dir.exists()) {
+            dir.mkdirs(); // 디렉터리가 없으면 생성
+        }
+        File localFile = new File(dir, localName);
+
+        if (localFile.exists() && localFile.length() == attrs.getSize()) {
+            localFile.setLastModified(System.currentTimeMillis()); // 이번 갱신에서 사용됨으로 표시
+            log.info("Excel file unchanged, using local copy: {}", localFile.getAbsolutePath());
+            return localFile;
+        }
+
+        // 임시 파일로 받은 뒤 원자적으로 이름 변경 (중간에 실패해도 잘린 파일이 남지 않도록)
+        Path tempFile = Files.createTempFile(dir.toPath(), "crf_", ".part");
+        try {
+            try (InputStream inputStream = channelSftp.get(remotePath);
+                 OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tempFile), TRANSFER_BUFFER_SIZE)) {
+                byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+                int bytesRead;
+                while ((bytesRead = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, bytesRead);
+                }
+            }
+            try {
+                Files.move(tempFile, localFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, localFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        log.info("Excel file saved to: {}", localFile.getAbsolutePath());
+
+        // 같은 원격 경로의 이전 버전 정리 (다른 폴더의 같은 이름 CRF는 건드리지 않음)
+        File[] oldVersions = dir.listFiles((d, name) -> name.startsWith(localPrefix) && name.endsWith(".xlsx") && !name.equals(localName));
+        if (oldVersions != null) {
+            for (File oldVersion : oldVersions) {
+                if (oldVersion.delete()) {
+                    log.info("Deleted previous version: {}", oldVersion.getName());
+                }
+            }
+        }
+        return localFile;
+    }
+
+    /**
+     * 이번 갱신에서 사용되지 않은 CRF 사본 삭제 (원격에서 삭제된 CRF가 분석에 남지 않도록)
+     *
+     * @param prefix 대상 파일명 접두어 (전체는 "")
+     * @param since  갱신 시작 시각 (이 시각 이전에 마지막으로 사용된 파일 삭제)
+     */
+    public void pruneUnused(String prefix, long since) {
+        File[] files = new File(CACHE_DIR).listFiles((d, name) -> name.startsWith(prefix) && name.endsWith(".xlsx"));
+        if (files == null) {
+            return;
+        }
+        long threshold = since - 2000; // 파일 시스템 수정 시각 정밀도(초 단위) 여유
+        for (File file : files) {
+            if (file.lastModified() < threshold) {
+                if (file.delete()) {
+                    log.info("Deleted unused Excel file: {}", file.getName());
+                } else {
+                    log.warn("Failed to delete file: {}", file.getName());
+                }
+            }
+        }
+    }
+
+    // 원격 경로(또는 경로 + 수정 시각 + 크기)로 만든 고정 길이 키
+    private static String cacheKey(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                key.append(String.format("%02x", hash[i]));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
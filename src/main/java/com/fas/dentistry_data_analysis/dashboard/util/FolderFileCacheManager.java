@@ -1,53 +1,262 @@
 package com.fas.dentistry_data_analysis.dashboard.util;
 
+import com.fas.dentistry_data_analysis.config.FolderCacheConfig;
 import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * SFTP 폴더 목록 캐시
+ *
+ * 항목마다 유효 시간(TTL)을 두고, 폴더 수/파일명 수 한도를 넘으면 가장 오래 사용되지 않은 항목부터 제거한다.
+ * 같은 경로를 동시에 조회하면 한 번만 SFTP 목록을 가져오며, 없는 폴더나 권한 없는 폴더도 짧은 시간 동안 캐시한다.
+ */
+@Slf4j
 @Service
 public class FolderFileCacheManager {
-    private final Map<String, Set<String>> folderFileCache = new ConcurrentHashMap<>();
-
-    // 캐시에서 데이터를 가져오거나 없을 경우 Supplier를 통해 새로 생성
-    public Set<String> computeIfAbsent(String path, FileFetcher fetcher) {
-        return folderFileCache.computeIfAbsent(path, key -> {
-            try {
-                return fetcher.fetchFiles(key);
-            } catch (Exception e) {
-                return Collections.emptySet(); // 예외 발생 시 빈 Set 반환
+
+    private final FolderCacheConfig folderCacheConfig;
+
+    private final Map<String, CacheEntry> folderFileCache = new ConcurrentHashMap<>();
+    // 같은 경로에 대한 동시 조회를 하나로 합치기 위한 진행 중 조회 목록
+    private final Map<String, CompletableFuture<FolderListing>> inFlightLoads = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalNames = new AtomicLong();
+    private final AtomicLong accessClock = new AtomicLong();
+    private final Object evictionLock = new Object();
+
+    // 통계
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong negativeHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong loadFailureCount = new AtomicLong();
+    private final AtomicLong totalLoadTimeNanos = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    public FolderFileCacheManager(FolderCacheConfig folderCacheConfig) {
+        this.folderCacheConfig = folderCacheConfig;
+    }
+
+    /**
+     * 캐시에서 폴더 목록을 가져오거나 없을 경우 loader로 새로 조회
+     * 조회에 실패하면 빈 목록을 반환한다 (없는 폴더/권한 없는 폴더는 negative 캐시).
+     *
+     * @param path   폴더 경로
+     * @param loader SFTP 목록 조회 함수
+     * @return 폴더 목록
+     */
+    public FolderListing getListing(String path, ListingLoader loader) {
+        CacheEntry entry = folderFileCache.get(path);
+        if (entry != null) {
+            if (entry.expiresAt > System.currentTimeMillis()) {
+                entry.lastAccess = accessClock.incrementAndGet();
+                if (entry.listing.isMissing()) {
+                    negativeHitCount.incrementAndGet();
+                } else {
+                    hitCount.incrementAndGet();
+                }
+                return entry.listing;
+            }
+            if (remove(path, entry)) {
+                expiredCount.incrementAndGet();
             }
-        });
+        }
+        missCount.incrementAndGet();
+
+        CompletableFuture<FolderListing> load = new CompletableFuture<>();
+        CompletableFuture<FolderListing> inFlight = inFlightLoads.putIfAbsent(path, load);
+        if (inFlight != null) {
+            return inFlight.join(); // 다른 스레드가 조회 중이면 그 결과를 함께 사용
+        }
+
+        try {
+            FolderListing listing = load(path, loader);
+            load.complete(listing);
+            return listing;
+        } catch (RuntimeException e) {
+            load.complete(FolderListing.empty());
+            throw e;
+        } finally {
+            inFlightLoads.remove(path, load);
+        }
     }
 
-    // 특정 경로에 캐시된 데이터 가져오기
-    public Set<String> getCachedFiles(String path) {
-        return folderFileCache.getOrDefault(path, Collections.emptySet());
+    /**
+     * 이미 조회한 폴더 목록으로 캐시를 갱신 (폴더 탐색 중 받은 목록을 다시 조회하지 않도록)
+     *
+     * @param path    폴더 경로
+     * @param entries 폴더의 파일 목록
+     */
+    public void putListing(String path, List<ChannelSftp.LsEntry> entries) {
+        put(path, new CacheEntry(FolderListing.of(entries),
+                System.currentTimeMillis() + folderCacheConfig.getTtlSeconds() * 1000L, accessClock.incrementAndGet()));
     }
 
-    // 캐시 초기화
-    public void clearCache() {
-        folderFileCache.clear();
+    private FolderListing load(String path, ListingLoader loader) {
+        long start = System.nanoTime();
+        FolderListing listing;
+        long ttlMillis;
+        try {
+            listing = FolderListing.of(loader.load(path));
+            ttlMillis = folderCacheConfig.getTtlSeconds() * 1000L;
+        } catch (SftpException e) {
+            loadFailureCount.incrementAndGet();
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE || e.id == ChannelSftp.SSH_FX_PERMISSION_DENIED) {
+                log.debug("Folder not accessible, caching as missing: {} ({})", path, e.getMessage());
+                listing = FolderListing.missing();
+                ttlMillis = folderCacheConfig.getNegativeTtlSeconds() * 1000L;
+            } else {
+                log.error("Failed to list files in folder: {}", path, e);
+                return FolderListing.empty(); // 일시적인 오류는 캐시하지 않음
+            }
+        } catch (Exception e) {
+            loadFailureCount.incrementAndGet();
+            log.error("Failed to list files in folder: {}", path, e);
+            return FolderListing.empty(); // 예외 발생 시 빈 목록 반환
+        } finally {
+            loadCount.incrementAndGet();
+            totalLoadTimeNanos.addAndGet(System.nanoTime() - start);
+        }
+
+        put(path, new CacheEntry(listing, System.currentTimeMillis() + ttlMillis, accessClock.incrementAndGet()));
+        return listing;
     }
 
-    private boolean isValidDirectory(ChannelSftp.LsEntry entry) {
-        if (entry.getAttrs() == null || !entry.getAttrs().isDir()) {
-            return false; // 디렉토리인지 확인
+    private void put(String path, CacheEntry entry) {
+        CacheEntry previous = folderFileCache.put(path, entry);
+        totalNames.addAndGet(entry.weight);
+        if (previous != null) {
+            totalNames.addAndGet(-previous.weight);
         }
+        if (folderFileCache.size() > folderCacheConfig.getMaxEntries() || totalNames.get() > folderCacheConfig.getMaxNames()) {
+            evict();
+        }
+    }
 
-        String filename = entry.getFilename();
-        if (filename == null || filename.equals(".") || filename.equals("..")) {
-            return false; // ".", ".." 폴더 제외
+    private boolean remove(String path, CacheEntry entry) {
+        if (folderFileCache.remove(path, entry)) {
+            totalNames.addAndGet(-entry.weight);
+            return true;
         }
+        return false;
+    }
+
+    // 한도를 넘으면 가장 오래 사용되지 않은 항목부터 한도의 90%까지 제거 (매번 정렬하지 않도록 여유를 둠)
+    private void evict() {
+        synchronized (evictionLock) {
+            long entryTarget = (long) (folderCacheConfig.getMaxEntries() * 0.9);
+            long nameTarget = (long) (folderCacheConfig.getMaxNames() * 0.9);
+            if (folderFileCache.size() <= entryTarget && totalNames.get() <= nameTarget) {
+                return;
+            }
 
-        // 추가 필터링: 특정 패턴 제외 (예: ".json", ".xlsx")
-        return !filename.startsWith(".") && !filename.endsWith(".json") && !filename.endsWith(".xlsx");
+            // 정렬 중 접근 시각이 바뀌지 않도록 먼저 복사
+            List<Map.Entry<String, CacheEntry>> candidates = new ArrayList<>(folderFileCache.entrySet());
+            Map<CacheEntry, Long> lastAccessSnapshot = new IdentityHashMap<>();
+            candidates.forEach(candidate -> lastAccessSnapshot.put(candidate.getValue(), candidate.getValue().lastAccess));
+            candidates.sort(Comparator.comparingLong(candidate -> lastAccessSnapshot.get(candidate.getValue())));
+
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, CacheEntry> candidate : candidates) {
+                if (folderFileCache.size() <= entryTarget && totalNames.get() <= nameTarget) {
+                    break;
+                }
+                if (remove(candidate.getKey(), candidate.getValue())) {
+                    if (candidate.getValue().expiresAt <= now) {
+                        expiredCount.incrementAndGet();
+                    } else {
+                        evictionCount.incrementAndGet();
+                    }
+                }
+            }
+        }
     }
 
+    /**
+     * 유효한 캐시 항목이 있는지 확인 (통계에는 반영하지 않음)
+     *
+     * @param path 폴더 경로
+     * @return 캐시 여부
+     */
+    public boolean isCached(String path) {
+        CacheEntry entry = folderFileCache.get(path);
+        return entry != null && entry.expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * 특정 폴더의 캐시 제거
+     *
+     * @param path 폴더 경로
+     */
+    public void invalidate(String path) {
+        CacheEntry entry = folderFileCache.get(path);
+        if (entry != null) {
+            remove(path, entry);
+        }
+    }
+
+    /**
+     * 경로가 prefix로 시작하는 폴더(자기 자신과 하위 폴더)의 캐시 제거
+     *
+     * @param prefix 폴더 경로
+     */
+    public void invalidatePrefix(String prefix) {
+        String childPrefix = prefix.endsWith("/") ? prefix : prefix + "/";
+        for (Map.Entry<String, CacheEntry> entry : folderFileCache.entrySet()) {
+            String path = entry.getKey();
+            if (path.equals(prefix) || path.startsWith(childPrefix)) {
+                remove(path, entry.getValue());
+            }
+        }
+    }
+
+    // 캐시 전체 초기화 (전체 갱신 시에만 사용)
+    public void clearCache() {
+        for (Map.Entry<String, CacheEntry> entry : folderFileCache.entrySet()) {
+            remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // 캐시 상태 조회 (모니터링용)
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("entries", (long) folderFileCache.size());
+        stats.put("names", totalNames.get());
+        stats.put("hits", hitCount.get());
+        stats.put("negativeHits", negativeHitCount.get());
+        stats.put("misses", missCount.get());
+        stats.put("loads", loadCount.get());
+        stats.put("loadFailures", loadFailureCount.get());
+        stats.put("averageLoadMillis", loadCount.get() == 0 ? 0 : totalLoadTimeNanos.get() / loadCount.get() / 1_000_000);
+        stats.put("evictions", evictionCount.get());
+        stats.put("expirations", expiredCount.get());
+        return stats;
+    }
 
     @FunctionalInterface
-    public interface FileFetcher {
-        Set<String> fetchFiles(String path) throws Exception;
+    public interface ListingLoader {
+        List<ChannelSftp.LsEntry> load(String path) throws Exception;
+    }
+
+    private static class CacheEntry {
+        private final FolderListing listing;
+        private final long expiresAt;
+        private final int weight;
+        private volatile long lastAccess;
+
+        private CacheEntry(FolderListing listing, long expiresAt, long lastAccess) {
+            this.listing = listing;
+            this.expiresAt = expiresAt;
+            this.weight = listing.weight();
+            this.lastAccess = lastAccess;
+        }
     }
 }
@@ -0,0 +1,114 @@
+package com.fas.dentistry_data_analysis.dashboard.util;
+
+import com.jcraft.jsch.ChannelSftp;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * SFTP 폴더 목록 (캐시 단위)
+ *
+ * 한 번의 목록 조회로 전체 이름과 하위 폴더 이름을 함께 보관하므로,
+ * 같은 경로를 파일 기준/폴더 기준으로 조회하는 호출이 서로의 캐시를 덮어쓰지 않는다.
+ */
+public class FolderListing {
+
+    private static final FolderListing EMPTY = new FolderListing(Collections.emptySet(), Collections.emptySet(), false);
+
+    private final Set<String> names;
+    private final Set<String> directoryNames;
+    // 없는 폴더이거나 권한이 없어 조회하지 못한 결과인지 여부
+    private final boolean missing;
+    // 부분 문자열 검색 인덱스 (처음 검색할 때 한 번만 생성)
+    private volatile NameIndex nameIndex;
+    private volatile NameIndex directoryNameIndex;
+
+    private FolderListing(Set<String> names, Set<String> directoryNames, boolean missing) {
+        this.names = names;
+        this.directoryNames = directoryNames;
+        this.missing = missing;
+    }
+
+    public static FolderListing of(List<ChannelSftp.LsEntry> entries) {
+        Set<String> names = new HashSet<>();
+        Set<String> directoryNames = new HashSet<>();
+        for (ChannelSftp.LsEntry entry : entries) {
+            String fileName = entry.getFilename();
+            if (fileName == null || fileName.equals(".") || fileName.equals("..")) {
+                continue;
+            }
+            names.add(fileName);
+            if (entry.getAttrs() != null && entry.getAttrs().isDir()) {
+                directoryNames.add(fileName);
+            }
+        }
+        return new FolderListing(Collections.unmodifiableSet(names), Collections.unmodifiableSet(directoryNames), false);
+    }
+
+    // 조회 실패 시 반환하는 빈 목록
+    public static FolderListing empty() {
+        return EMPTY;
+    }
+
+    // 없는 폴더/권한 없는 폴더 (짧게 캐시)
+    public static FolderListing missing() {
+        return new FolderListing(Collections.emptySet(), Collections.emptySet(), true);
+    }
+
+    // 폴더 내 전체 항목 이름 (".", ".." 제외)
+    public Set<String> getNames() {
+        return names;
+    }
+
+    // 폴더 내 하위 폴더 이름
+    public Set<String> getDirectoryNames() {
+        return directoryNames;
+    }
+
+    /**
+     * 이름에 keyword를 포함하는 항목이 있는지 확인 (names.stream().anyMatch(name -> name.contains(keyword))와 같은 결과)
+     *
+     * @param keyword 찾을 문자열 (예: imageId)
+     * @return 포함하는 항목 존재 여부
+     */
+    public boolean anyNameContains(String keyword) {
+        if (names.size() <= NameIndex.MIN_INDEXED_NAMES) {
+            return names.stream().anyMatch(name -> name.contains(keyword));
+        }
+        NameIndex index = nameIndex;
+        if (index == null) {
+            index = new NameIndex(names); // 동시에 생성되어도 결과가 같으므로 잠금 없이 교체
+            nameIndex = index;
+        }
+        return index.anyContains(keyword);
+    }
+
+    /**
+     * 이름에 keyword를 포함하는 하위 폴더가 있는지 확인
+     *
+     * @param keyword 찾을 문자열 (예: imageId)
+     * @return 포함하는 하위 폴더 존재 여부
+     */
+    public boolean anyDirectoryNameContains(String keyword) {
+        if (directoryNames.size() <= NameIndex.MIN_INDEXED_NAMES) {
+            return directoryNames.stream().anyMatch(name -> name.contains(keyword));
+        }
+        NameIndex index = directoryNameIndex;
+        if (index == null) {
+            index = new NameIndex(directoryNames);
+            directoryNameIndex = index;
+        }
+        return index.anyContains(keyword);
+    }
+
+    public boolean isMissing() {
+        return missing;
+    }
+
+    // 캐시 용량 계산용 크기
+    int weight() {
+        return names.size() + 1;
+    }
+}
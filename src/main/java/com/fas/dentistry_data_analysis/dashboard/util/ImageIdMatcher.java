@@ -0,0 +1,108 @@
+package com.fas.dentistry_data_analysis.dashboard.util;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 대조군 하위 폴더 이름과 IMAGE_ID 매칭기
+ *
+ * 기존 규칙 name.matches(".*\\b" + imageId + "\\b.*") || name.contains("_" + imageId)와 같은 결과를 내며,
+ * 여러 IMAGE_ID가 매칭되면 생성 시 전달된 순서상 가장 앞의 IMAGE_ID를 반환한다 (기존 findFirst와 동일).
+ *
+ * 영문/숫자/'_'로만 된 IMAGE_ID는 폴더 이름을 한 번 훑으며 해시로 찾는다.
+ * - 단어 경계 매칭: 단어 문자(정규식 \b 기준)가 이어진 구간 전체가 IMAGE_ID와 같은 경우
+ * - "_" + IMAGE_ID 매칭: '_' 바로 뒤에서 시작하는 IMAGE_ID 길이의 구간
+ * 그 밖의 IMAGE_ID(정규식 특수문자 등)는 정규식을 한 번만 컴파일해 기존 방식대로 확인한다.
+ */
+public class ImageIdMatcher {
+
+    private static final Pattern SIMPLE_ID = Pattern.compile("[A-Za-z0-9_]+");
+
+    // IMAGE_ID -> 전달된 순서
+    private final Map<String, Integer> simpleIds = new HashMap<>();
+    // 단순 IMAGE_ID 길이 목록 ("_" 뒤 구간 확인용)
+    private final int[] simpleIdLengths;
+    private final List<String> otherIds = new ArrayList<>();
+    private final List<Integer> otherOrders = new ArrayList<>();
+    private final List<Pattern> otherPatterns = new ArrayList<>();
+
+    public ImageIdMatcher(Collection<String> imageIds) {
+        Set<Integer> lengths = new TreeSet<>();
+        int order = 0;
+        for (String imageId : imageIds) {
+            if (SIMPLE_ID.matcher(imageId).matches()) {
+                simpleIds.putIfAbsent(imageId, order);
+                lengths.add(imageId.length());
+            } else {
+                otherIds.add(imageId);
+                otherOrders.add(order);
+                otherPatterns.add(Pattern.compile(".*\\b" + imageId + "\\b.*"));
+            }
+            order++;
+        }
+        this.simpleIdLengths = lengths.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 폴더 이름에 매칭되는 IMAGE_ID 검색
+     *
+     * @param name 하위 폴더 이름
+     * @return 매칭된 IMAGE_ID 중 가장 앞의 것
+     */
+    public Optional<String> findFirstMatch(String name) {
+        String best = null;
+        int bestOrder = Integer.MAX_VALUE;
+
+        int length = name.length();
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean word = i < length && isWordChar(name.charAt(i));
+
+            // 단어 문자 구간이 끝나면 구간 전체를 IMAGE_ID와 비교
+            if (word && runStart < 0) {
+                runStart = i;
+            } else if (!word && runStart >= 0) {
+                Integer order = simpleIds.get(name.substring(runStart, i));
+                if (order != null && order < bestOrder) {
+                    best = name.substring(runStart, i);
+                    bestOrder = order;
+                }
+                runStart = -1;
+            }
+
+            // '_' 바로 뒤에서 시작하는 IMAGE_ID
+            if (i < length && name.charAt(i) == '_') {
+                for (int idLength : simpleIdLengths) {
+                    int end = i + 1 + idLength;
+                    if (end > length) {
+                        break;
+                    }
+                    String candidate = name.substring(i + 1, end);
+                    Integer order = simpleIds.get(candidate);
+                    if (order != null && order < bestOrder) {
+                        best = candidate;
+                        bestOrder = order;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < otherIds.size(); i++) {
+            if (otherOrders.get(i) >= bestOrder) {
+                break; // 순서가 뒤인 IMAGE_ID는 확인할 필요 없음
+            }
+            String imageId = otherIds.get(i);
+            if (otherPatterns.get(i).matcher(name).matches() || name.contains("_" + imageId)) {
+                best = imageId;
+                bestOrder = otherOrders.get(i);
+                break;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    // Java 17 정규식의 \b가 단어 문자로 보는 문자 (문자/숫자/'_')
+    private static boolean isWordChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_';
+    }
+}
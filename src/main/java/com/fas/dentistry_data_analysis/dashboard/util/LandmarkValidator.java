@@ -0,0 +1,129 @@
+package com.fas.dentistry_data_analysis.dashboard.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 두개안면 라벨링 JSON의 랜드마크 검사기
+ *
+ * 첫 번째 Annotation_Data 항목에 필수 랜드마크(LM_*) 키가 모두 있는지 스트리밍으로 확인한다.
+ * 파일 전체를 트리로 만들지 않고, 첫 항목의 키를 비트 집합에 표시하다가
+ * 모든 키를 찾거나 첫 항목이 끝나면(빠진 키 확정) 바로 판단한다.
+ * 검사에 통과한 경우에만 나머지 내용을 마저 받아 파일 전체 바이트를 돌려주므로,
+ * 저장 단계에서 같은 파일을 다시 내려받지 않는다.
+ */
+public final class LandmarkValidator {
+
+    public static final List<String> REQUIRED_KEYS = List.of(
+            "LM_S", "LM_N", "LM_POR", "LM_POL", "LM_ORR", "LM_ORL",
+            "LM_ARR", "LM_ARL", "LM_ANS", "LM_PNS", "LM_A", "LM_SPR",
+            "LM_ID", "LM_B", "LM_POG", "LM_GN", "LM_ME", "LM_GOR",
+            "LM_GOL", "LM_COR", "LM_COL", "LM_U1R", "LM_U1L", "LM_U1AR",
+            "LM_U1AL", "LM_L1R", "LM_L1L", "LM_L1AR", "LM_L1AL", "LM_U3R",
+            "LM_U3L", "LM_L3R", "LM_L3L", "LM_U6R", "LM_U6L", "LM_UA6R",
+            "LM_UA6L", "LM_L6R", "LM_L6L", "LM_LA6R", "LM_LA6L", "LM_FZPR",
+            "LM_FZPL", "LM_MR", "LM_ML"
+    );
+
+    // 키 → 비트 위치 (필수 키는 64개 미만이므로 long 하나로 표시)
+    private static final Map<String, Long> KEY_BITS = new HashMap<>();
+    private static final long ALL_KEYS;
+
+    static {
+        long all = 0L;
+        for (int i = 0; i < REQUIRED_KEYS.size(); i++) {
+            KEY_BITS.put(REQUIRED_KEYS.get(i), 1L << i);
+            all |= 1L << i;
+        }
+        ALL_KEYS = all;
+    }
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES)
+            .build();
+
+    private LandmarkValidator() {
+    }
+
+    /**
+     * 필수 랜드마크가 모두 있으면 파일 전체 내용을 반환
+     * 없으면 그 시점에서 읽기를 멈추고 null을 반환한다 (스트림은 호출한 쪽에서 닫음).
+     *
+     * @param jsonInputStream 라벨링 JSON 스트림
+     * @return 파일 전체 바이트 (검사 실패 시 null)
+     */
+    public static byte[] readIfValid(InputStream jsonInputStream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        InputStream recordingStream = new FilterInputStream(jsonInputStream) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    content.write(b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                if (count > 0) {
+                    content.write(buffer, offset, count);
+                }
+                return count;
+            }
+        };
+
+        boolean valid;
+        try (JsonParser parser = JSON_FACTORY.createParser(recordingStream)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            valid = hasAllKeys(parser);
+        }
+        if (!valid) {
+            return null;
+        }
+        jsonInputStream.transferTo(content); // 파서가 읽지 않은 나머지
+        return content.toByteArray();
+    }
+
+    private static boolean hasAllKeys(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("Annotation_Data".equals(name) && token == JsonToken.START_ARRAY) {
+                // 첫 번째 항목만 검사
+                return parser.nextToken() == JsonToken.START_OBJECT && hasAllKeysInObject(parser);
+            }
+            parser.skipChildren();
+        }
+        return false; // Annotation_Data가 없음
+    }
+
+    private static boolean hasAllKeysInObject(JsonParser parser) throws IOException {
+        long found = 0L;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Long bit = KEY_BITS.get(parser.currentName());
+            if (bit != null) {
+                found |= bit;
+                if (found == ALL_KEYS) {
+                    return true; // 나머지 키와 좌표는 읽지 않음
+                }
+            }
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        return false; // 첫 항목이 끝날 때까지 찾지 못한 키가 있음
+    }
+}
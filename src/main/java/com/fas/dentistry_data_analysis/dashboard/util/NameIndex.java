@@ -0,0 +1,114 @@
+package com.fas.dentistry_data_analysis.dashboard.util;
+
+import java.util.*;
+
+/**
+ * 폴더 목록 이름에 대한 부분 문자열 검색 인덱스
+ *
+ * names.stream().anyMatch(name -> name.contains(keyword))와 항상 같은 결과를 반환한다.
+ * 1) '_', '.', '-', 공백으로 나눈 토큰(예: "NonIdentifying_12345" → "NonIdentifying", "12345")과 정확히 일치하면 바로 true
+ * 2) 아니면 3글자 조각(trigram)별 이름 목록 중 가장 짧은 목록의 후보만 contains로 확인
+ * 3) 3글자 미만 키워드는 전체 이름을 확인
+ */
+class NameIndex {
+
+    // 이 개수 이하의 목록은 인덱스 없이 전체 확인이 더 빠름
+    static final int MIN_INDEXED_NAMES = 64;
+
+    private static final int[] NO_CANDIDATES = new int[0];
+
+    private final String[] names;
+    private final Set<String> tokens = new HashSet<>();
+    private final Map<Long, int[]> trigramPostings;
+
+    NameIndex(Collection<String> names) {
+        this.names = names.toArray(new String[0]);
+
+        Map<Long, IntList> postings = new HashMap<>();
+        for (int i = 0; i < this.names.length; i++) {
+            String name = this.names[i];
+            tokens.add(name);
+            for (String token : name.split("[_.\\-\\s]+")) {
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                }
+            }
+            for (int j = 0; j + 3 <= name.length(); j++) {
+                IntList list = postings.computeIfAbsent(trigram(name, j), k -> new IntList());
+                list.addIfLast(i); // 같은 이름에서 같은 조각이 여러 번 나와도 한 번만 기록
+            }
+        }
+
+        this.trigramPostings = new HashMap<>(postings.size() * 2);
+        postings.forEach((key, list) -> trigramPostings.put(key, list.toArray()));
+    }
+
+    /**
+     * keyword를 포함하는 이름이 있는지 확인
+     *
+     * @param keyword 찾을 문자열 (예: imageId)
+     * @return 포함하는 이름 존재 여부
+     */
+    boolean anyContains(String keyword) {
+        if (names.length == 0) {
+            return false;
+        }
+        if (keyword.isEmpty() || tokens.contains(keyword)) {
+            return true;
+        }
+        if (keyword.length() < 3) {
+            return scan(keyword);
+        }
+
+        // 키워드의 모든 조각 중 후보가 가장 적은 조각 선택 (하나라도 없으면 포함하는 이름이 없음)
+        int[] candidates = null;
+        for (int j = 0; j + 3 <= keyword.length(); j++) {
+            int[] posting = trigramPostings.getOrDefault(trigram(keyword, j), NO_CANDIDATES);
+            if (posting.length == 0) {
+                return false;
+            }
+            if (candidates == null || posting.length < candidates.length) {
+                candidates = posting;
+            }
+        }
+        for (int index : candidates) {
+            if (names[index].contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean scan(String keyword) {
+        for (String name : names) {
+            if (name.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long trigram(String value, int offset) {
+        return ((long) value.charAt(offset) << 32) | ((long) value.charAt(offset + 1) << 16) | value.charAt(offset + 2);
+    }
+
+    // 박싱 없이 이름 번호를 모으기 위한 가변 int 배열
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void addIfLast(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
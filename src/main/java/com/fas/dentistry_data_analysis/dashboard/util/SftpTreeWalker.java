@@ -0,0 +1,220 @@
+package com.fas.dentistry_data_analysis.dashboard.util;
+
+import com.fas.dentistry_data_analysis.common.util.sftp.SFTPClient;
+import com.fas.dentistry_data_analysis.common.util.sftp.SftpChannelPool;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * SFTP 폴더 트리를 공유 스레드풀 위에서 병렬로 탐색하는 엔진
+ *
+ * 폴더 하나가 작업 하나가 되며, 작업은 풀에서 빌린 자신만의 채널로 목록을 조회하고 방문자(FolderVisitor)를 호출한다.
+ * 방문자가 하위 탐색을 허용하면 하위 폴더들이 큐 뒤쪽에 추가되므로 트리는 너비 우선으로 진행되고,
+ * 동시에 처리되는 폴더 수는 스캔 풀 크기로 제한된다. 폴더별 결과는 완료되는 즉시 리스너로 전달된다.
+ */
+@Slf4j
+@Component
+public class SftpTreeWalker {
+
+    private final SftpChannelPool sftpChannelPool;
+    private final ExecutorService scanExecutor;
+
+    public SftpTreeWalker(SftpChannelPool sftpChannelPool, @Qualifier("sftpScanExecutor") ExecutorService scanExecutor) {
+        this.sftpChannelPool = sftpChannelPool;
+        this.scanExecutor = scanExecutor;
+    }
+
+    /**
+     * 루트 폴더부터 트리를 탐색
+     *
+     * @param rootPath 탐색을 시작할 폴더 경로
+     * @param visitor  폴더마다 호출되는 방문자 (하위 탐색 여부와 폴더 결과를 반환)
+     * @param listener 폴더 발견/완료 시 호출되는 리스너
+     * @return 탐색 요약 (발견/완료 폴더 수)
+     * @throws Exception 권한 문제 이외의 오류로 탐색이 중단된 경우 첫 번째 오류
+     */
+    public <T> WalkSummary walk(String rootPath, FolderVisitor<T> visitor, WalkListener<T> listener) throws Exception {
+        Walk<T> walk = new Walk<>(visitor, listener);
+        walk.submit(rootPath);
+
+        try {
+            walk.done.get();
+        } catch (InterruptedException e) {
+            walk.failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        }
+
+        Exception failure = walk.failure.get();
+        if (failure != null) {
+            throw failure;
+        }
+        return new WalkSummary(walk.discovered.get(), walk.completed.get());
+    }
+
+    private class Walk<T> {
+        private final FolderVisitor<T> visitor;
+        private final WalkListener<T> listener;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger discovered = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Walk(FolderVisitor<T> visitor, WalkListener<T> listener) {
+            this.visitor = visitor;
+            this.listener = listener;
+        }
+
+        private void submit(String folderPath) {
+            if (failure.get() != null) {
+                return; // 오류 발생 후에는 새 폴더를 추가하지 않음
+            }
+            pending.incrementAndGet();
+            discovered.incrementAndGet();
+            listener.onFolderDiscovered(folderPath);
+            try {
+                scanExecutor.execute(() -> {
+                    try {
+                        visit(folderPath);
+                    } finally {
+                        finishOne();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                failure.compareAndSet(null, e);
+                finishOne();
+            }
+        }
+
+        private void finishOne() {
+            if (pending.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+
+        private void visit(String folderPath) {
+            if (failure.get() != null) {
+                return;
+            }
+            try {
+                sftpChannelPool.execute(channelSftp -> {
+                    List<ChannelSftp.LsEntry> entries;
+                    try {
+                        entries = SFTPClient.listFiles(channelSftp, folderPath);
+                    } catch (SftpException e) {
+                        if (e.getMessage() != null && e.getMessage().contains("Permission denied")) {
+                            log.warn("Permission denied for folder: {}. Skipping this folder.", folderPath);
+                            listener.onFolderSkipped(folderPath);
+                            return null; // 권한 문제가 있는 폴더는 건너뛰기
+                        }
+                        throw e;
+                    }
+
+                    FolderVisit<T> visit = visitor.visit(channelSftp, folderPath, entries);
+                    completed.incrementAndGet();
+                    listener.onFolderCompleted(folderPath, visit.getResult());
+
+                    if (visit.isDescend()) {
+                        for (ChannelSftp.LsEntry entry : entries) {
+                            if (isSubFolder(entry)) {
+                                submit(folderPath + "/" + entry.getFilename());
+                            }
+                        }
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                log.error("Error while scanning folder: {}", folderPath, e);
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    private static boolean isSubFolder(ChannelSftp.LsEntry entry) {
+        return entry.getAttrs() != null && entry.getAttrs().isDir()
+                && !entry.getFilename().equals(".") && !entry.getFilename().equals("..");
+    }
+
+    /**
+     * 폴더 방문자
+     */
+    @FunctionalInterface
+    public interface FolderVisitor<T> {
+        FolderVisit<T> visit(ChannelSftp channelSftp, String folderPath, List<ChannelSftp.LsEntry> entries) throws Exception;
+    }
+
+    /**
+     * 폴더 발견/완료/건너뜀 리스너
+     */
+    public interface WalkListener<T> {
+        default void onFolderDiscovered(String folderPath) {
+        }
+
+        default void onFolderCompleted(String folderPath, T result) {
+        }
+
+        // 권한 문제로 목록을 조회하지 못해 건너뛴 폴더
+        default void onFolderSkipped(String folderPath) {
+        }
+    }
+
+    /**
+     * 폴더 방문 결과 (하위 폴더 탐색 여부 + 폴더별 결과)
+     */
+    public static class FolderVisit<T> {
+        private final boolean descend;
+        private final T result;
+
+        private FolderVisit(boolean descend, T result) {
+            this.descend = descend;
+            this.result = result;
+        }
+
+        public static <T> FolderVisit<T> descend(T result) {
+            return new FolderVisit<>(true, result);
+        }
+
+        public static <T> FolderVisit<T> stop(T result) {
+            return new FolderVisit<>(false, result);
+        }
+
+        public boolean isDescend() {
+            return descend;
+        }
+
+        public T getResult() {
+            return result;
+        }
+    }
+
+    /**
+     * 탐색 요약
+     */
+    public static class WalkSummary {
+        private final int discoveredFolders;
+        private final int completedFolders;
+
+        public WalkSummary(int discoveredFolders, int completedFolders) {
+            this.discoveredFolders = discoveredFolders;
+            this.completedFolders = completedFolders;
+        }
+
+        public int getDiscoveredFolders() {
+            return discoveredFolders;
+        }
+
+        public int getCompletedFolders() {
+            return completedFolders;
+        }
+    }
+}
@@ -3,14 +3,20 @@ package com.fas.dentistry_data_analysis.dataAnlaysis.controller;
 import com.fas.dentistry_data_analysis.dataAnlaysis.DTO.AnalysisRequestDTO;
 import com.fas.dentistry_data_analysis.config.StorageConfig;
 import com.fas.dentistry_data_analysis.dashboard.Service.AnalyzeBoardServiceImpl;
+import com.fas.dentistry_data_analysis.dataAnlaysis.service.AnalysisResultCache;
 import com.fas.dentistry_data_analysis.dataAnlaysis.service.AnalyzeDataService;
+import com.fas.dentistry_data_analysis.dataAnlaysis.service.CrfCubeCache;
+import com.fas.dentistry_data_analysis.dataAnlaysis.service.NdjsonRowWriter;
 import com.fas.dentistry_data_analysis.dataAnlaysis.service.duplication.DuplicationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.util.*;
@@ -26,17 +32,23 @@ public class ExcelAnalyzeController {
     private final AnalyzeDataService folderService;
     private final StorageConfig  storageConfig;
     private final DuplicationService duplicationService;
+    private final AnalysisResultCache analysisResultCache;
+    private final CrfCubeCache crfCubeCache;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Autowired
     public ExcelAnalyzeController(@Qualifier("analyzeDataServiceImpl") AnalyzeDataService excelService,
                                   @Qualifier("analyzeFolderDataServiceImpl") AnalyzeDataService folderService,
                                   @Qualifier("analyzeJsonDataServiceImpl") AnalyzeDataService jsonService,
-                                  StorageConfig storageConfig, DuplicationService duplicationService ) {
+                                  StorageConfig storageConfig, DuplicationService duplicationService,
+                                  AnalysisResultCache analysisResultCache, CrfCubeCache crfCubeCache) {
         this.excelService = excelService;
         this.folderService = folderService;
         this.jsonService = jsonService;
         this.storageConfig = storageConfig;
         this.duplicationService = duplicationService;
+        this.analysisResultCache = analysisResultCache;
+        this.crfCubeCache = crfCubeCache;
     }
 
     /**
@@ -54,20 +66,30 @@ public class ExcelAnalyzeController {
             int institutionId = request.getInstitutionId();
             log.info("Analyzing data for file IDs: {}, diseaseClass: {}, institutionId: {}", fileIds, diseaseClass, institutionId);
 
+            // 같은 요청은 데이터가 바뀌기 전까지 캐시된 결과를 반환 (파일 순서대로 결과를 합치므로 파일 ID 순서는 유지)
             if (fileIds != null && fileIds.size() > 0 && !fileIds.contains("json")) { // null 및 "json" 포함 여부 체크
-                List<Map<String, Map<String, String>>> dataList = excelService.analyzeData(fileIds, diseaseClass, institutionId);
-                return ResponseEntity.ok(Map.of("data", dataList));
+                AnalysisResultCache.Key key = analysisResultCache.key("analyze:excel", fileIds, diseaseClass, institutionId);
+                return ResponseEntity.ok(analysisResultCache.get(key, () -> {
+                    List<Map<String, Map<String, String>>> dataList = excelService.analyzeData(fileIds, diseaseClass, institutionId);
+                    return Map.of("data", dataList);
+                }));
             } else if (fileIds != null && fileIds.size() == 1 && "json".equals(fileIds.get(0))) { // fileIds가 "json" 문자열 하나만 포함하는 경우 처리
-                List<Map<String, Map<String, String>>> dataList = jsonService.analyzeData(List.of("C:/app/disease_json"), diseaseClass, institutionId);
+                AnalysisResultCache.Key key = analysisResultCache.key("analyze:json", List.of("C:/app/disease_json"), diseaseClass, institutionId);
+                return ResponseEntity.ok(analysisResultCache.get(key, () -> {
+                    List<Map<String, Map<String, String>>> dataList = jsonService.analyzeData(List.of("C:/app/disease_json"), diseaseClass, institutionId);
 
-                List<Map<String, Map<String, String>>> metaData = List.of();
-                if(diseaseClass.equals("0") && institutionId == 0) {
-                    metaData = folderService.analyzeData(List.of("C:/app/dentistry"), "E", institutionId);
-                }
-                return ResponseEntity.ok(Map.of("data", dataList, "meta", metaData.size()));
+                    List<Map<String, Map<String, String>>> metaData = List.of();
+                    if(diseaseClass.equals("0") && institutionId == 0) {
+                        metaData = folderService.analyzeData(List.of("C:/app/dentistry"), "E", institutionId);
+                    }
+                    return Map.of("data", dataList, "meta", metaData.size());
+                }));
             } else { // fileIds가 null이거나 비어 있는 경우 처리
-                List<Map<String, Map<String, String>>> dataList = folderService.analyzeData(List.of("C:/app/dentistry"), diseaseClass, institutionId);
-                return ResponseEntity.ok(Map.of("data", dataList));
+                AnalysisResultCache.Key key = analysisResultCache.key("analyze:folder", List.of("C:/app/dentistry"), diseaseClass, institutionId);
+                return ResponseEntity.ok(analysisResultCache.get(key, () -> {
+                    List<Map<String, Map<String, String>>> dataList = folderService.analyzeData(List.of("C:/app/dentistry"), diseaseClass, institutionId);
+                    return Map.of("data", dataList);
+                }));
             }
 
 
@@ -79,6 +101,55 @@ public class ExcelAnalyzeController {
         }
     }
 
+    /**
+     * CRF 데이터를 분석하는 API (스트리밍)
+     *
+     * /api/analyze와 같은 요청을 받아 같은 행을 같은 순서로 NDJSON(한 줄에 한 행)으로 만들어지는 대로 보낸다.
+     * 결과 행을 모두 모으지 않으므로 결과가 커도 메모리 사용량이 늘지 않는다 (결과 캐시는 사용하지 않음).
+     * 마지막 줄은 요약 {"done": true, "count": 행 수[, "meta": 대조군 행 수]}이며,
+     * 전송 중 오류가 나면 상태 코드를 바꿀 수 없어 요약 줄 없이 연결이 끝나므로 요약 줄이 없으면 실패로 처리한다.
+     *
+     * @param request 요청 객체 (fileIds, diseaseClass, institutionId 포함)
+     * @return 분석된 데이터 행 스트림
+     */
+    @PostMapping("/analyze/stream")
+    public ResponseEntity<StreamingResponseBody> analyzeDataStream(@RequestBody AnalysisRequestDTO request) {
+        List<String> fileIds = request.getFileIds() != null ? Arrays.asList(request.getFileIds()) : new ArrayList<>();
+        String diseaseClass = request.getDiseaseClass();
+        int institutionId = request.getInstitutionId();
+        log.info("Streaming analysis for file IDs: {}, diseaseClass: {}, institutionId: {}", fileIds, diseaseClass, institutionId);
+
+        StreamingResponseBody body = outputStream -> {
+            try (NdjsonRowWriter writer = new NdjsonRowWriter(objectMapper, outputStream)) {
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("done", true);
+                if (fileIds.size() > 0 && !fileIds.contains("json")) {
+                    excelService.streamData(fileIds, diseaseClass, institutionId, writer);
+                } else if (fileIds.size() == 1 && "json".equals(fileIds.get(0))) {
+                    jsonService.streamData(List.of("C:/app/disease_json"), diseaseClass, institutionId, writer);
+
+                    // 대조군 행 수는 행을 만들지 않고 셈
+                    long metaCount = 0;
+                    if (diseaseClass.equals("0") && institutionId == 0) {
+                        metaCount = folderService.streamData(List.of("C:/app/dentistry"), "E", institutionId, row -> { });
+                    }
+                    summary.put("meta", metaCount);
+                } else {
+                    folderService.streamData(List.of("C:/app/dentistry"), diseaseClass, institutionId, writer);
+                }
+                summary.put("count", writer.getRowCount());
+                writer.writeLine(summary);
+            } catch (ExecutionException | InterruptedException e) {
+                log.error("Streaming analysis failed", e);
+                throw new RuntimeException(e);
+            } catch (IOException e) {
+                log.error("Streaming analysis failed: {}", e.getMessage());
+                throw e;
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
     /**
      * 특정 필터를 적용하여 데이터 분석을 수행하는 API
      *
@@ -106,27 +177,60 @@ public class ExcelAnalyzeController {
             // header 값 추출
             List<String> headers = (List<String>) filterRequest.get("header");
 
+            // 같은 요청은 데이터가 바뀌기 전까지 캐시된 결과를 반환 (파일별 집계를 합치므로 파일 ID는 정렬하여 비교)
+            Map<String, String> normalizedFilters = AnalysisResultCache.normalizeFilters(filters);
+
             // JSON 데이터 처리
             if (fileIdsList != null && "json".equals(fileIdsList.get(0))) {
-                List<Map<String, Object>> filteredDataList = jsonService.analyzeDataWithFilters(List.of("C:/app/disease_json"), filters, headers);
+                AnalysisResultCache.Key key = analysisResultCache.key("analyze-filters:json", List.of("C:/app/disease_json"), normalizedFilters, headers);
+                List<Map<String, Object>> filteredDataList = analysisResultCache.get(key,
+                        () -> jsonService.analyzeDataWithFilters(List.of("C:/app/disease_json"), filters, headers));
                 return ResponseEntity.ok(filteredDataList);
             }
             // 일반 데이터 처리
             if (fileIdsList != null) { // fileIds가 있을 경우
                 List<String> fileIds = List.of(fileIdsList.toArray(new String[0]));
-                List<Map<String, Object>> filteredDataList = excelService.analyzeDataWithFilters(fileIds, filters, headers);
+                List<String> sortedFileIds = new ArrayList<>(fileIds);
+                Collections.sort(sortedFileIds);
+                AnalysisResultCache.Key key = analysisResultCache.key("analyze-filters:excel", sortedFileIds, normalizedFilters, headers);
+                List<Map<String, Object>> filteredDataList = analysisResultCache.get(key,
+                        () -> excelService.analyzeDataWithFilters(fileIds, filters, headers));
                 return ResponseEntity.ok(filteredDataList);
             } else { // fileIds가 없을 경우
-                List<Map<String, Object>> filteredDataList = folderService.analyzeDataWithFilters(List.of("C:/app/dentistry"), filters, headers);
+                AnalysisResultCache.Key key = analysisResultCache.key("analyze-filters:folder", List.of("C:/app/dentistry"), normalizedFilters, headers);
+                List<Map<String, Object>> filteredDataList = analysisResultCache.get(key,
+                        () -> folderService.analyzeDataWithFilters(List.of("C:/app/dentistry"), filters, headers));
                 return ResponseEntity.ok(filteredDataList);
             }
 
         } catch (IOException e) {
             log.error("IOException occurred during data analysis", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("데이터 분석 중 오류가 발생했습니다.");
+        } catch (ExecutionException | InterruptedException e) {
+            throw new RuntimeException(e);
         }
     }
 
+    /**
+     * 분석 결과 캐시 지표 조회 API (요청 수, 적중률, 보관 중인 결과 수 등)
+     *
+     * @return 캐시 지표
+     */
+    @GetMapping("/analyze-cache/stats")
+    public ResponseEntity<?> getAnalyzeCacheStats() {
+        return ResponseEntity.ok(analysisResultCache.getStats());
+    }
+
+    /**
+     * 폴더 필터 분석 큐브 지표 조회 API (생성 수, 큐브/행 탐색 질의 수, 보관 중인 큐브)
+     *
+     * @return 큐브 지표
+     */
+    @GetMapping("/analyze-cube/stats")
+    public ResponseEntity<?> getAnalyzeCubeStats() {
+        return ResponseEntity.ok(crfCubeCache.getStats());
+    }
+
     /**
      * 데이터 중복 여부를 확인하고 오류를 분석하는 API
      *
@@ -0,0 +1,286 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.service;
+
+import com.fas.dentistry_data_analysis.common.service.DataVersion;
+import com.fas.dentistry_data_analysis.config.AnalysisCacheConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * /api/analyze, /api/analyze-filters 결과 캐시
+ *
+ * 정규화한 요청(분석 대상, 필터, 헤더)과 데이터 버전(DataVersion)을 키로 응답 본문을 보관한다.
+ * - 크기 제한: 결과 수와 결과 행 수 합계가 상한을 넘으면 가장 오래 쓰이지 않은 결과부터 제거 (LRU)
+ *   행 단위 결과(/api/analyze-filters)가 메모리 대부분을 차지하므로 행 수 상한으로 캐시 전체 크기를 제한한다.
+ * - 단일 계산: 같은 키의 요청이 동시에 들어오면 한 번만 계산하고 나머지는 그 결과를 함께 받음
+ * - 데이터 버전이 바뀌면 이전 결과를 모두 비움 (계산 중 버전이 바뀐 결과는 저장하지 않음)
+ *
+ * 캐시된 결과는 여러 요청이 공유하므로 꺼낸 쪽에서 수정하지 않는다.
+ */
+@Slf4j
+@Service
+public class AnalysisResultCache {
+
+    private final DataVersion dataVersion;
+    private final int maxEntries;
+    private final long maxRows;
+
+    // 접근 순서 LinkedHashMap (모든 접근은 this 잠금 안에서)
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedRows = 0;
+    private long cachedVersion = -1;
+    // 계산 중인 요청
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // 지표
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong sharedHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong loadMillis = new AtomicLong();
+
+    public AnalysisResultCache(DataVersion dataVersion, AnalysisCacheConfig config) {
+        this.dataVersion = dataVersion;
+        this.maxEntries = config.getMaxEntries();
+        this.maxRows = config.getMaxRows();
+    }
+
+    /**
+     * 결과를 계산하는 작업
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws IOException, ExecutionException, InterruptedException;
+    }
+
+    /**
+     * 분석 요청 키 생성
+     *
+     * @param operation 분석 종류 (예: "analyze-filters:folder")
+     * @param sources   분석 대상 (파일 ID 또는 폴더 경로)
+     * @param options   그 밖의 요청 값 (필터, 헤더, 질환, 기관 등, 순서가 결과에 영향을 주면 그 순서 그대로)
+     */
+    public Key key(String operation, List<String> sources, Object... options) {
+        return new Key(operation, Collections.unmodifiableList(new ArrayList<>(sources)), Arrays.asList(options), dataVersion.current());
+    }
+
+    /**
+     * 필터 조건 정규화 (헤더 이름순, DISEASE_CLASS=All은 조건 없음과 같으므로 제외)
+     */
+    public static SortedMap<String, String> normalizeFilters(Map<String, String> filterConditions) {
+        SortedMap<String, String> normalized = new TreeMap<>(filterConditions);
+        if ("All".equals(normalized.get("DISEASE_CLASS"))) {
+            normalized.remove("DISEASE_CLASS");
+        }
+        return normalized;
+    }
+
+    /**
+     * 캐시된 결과 조회 (없으면 계산 후 저장)
+     *
+     * @param key    key()로 만든 요청 키
+     * @param loader 결과 계산 작업
+     * @return 결과 (여러 요청이 공유하므로 수정하지 않음)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key, Loader<T> loader) throws IOException, ExecutionException, InterruptedException {
+        synchronized (this) {
+            clearIfVersionChanged();
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return (T) entry.value;
+            }
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            // 같은 요청이 계산 중이면 그 결과를 기다림
+            sharedHits.incrementAndGet();
+            return (T) await(running);
+        }
+
+        long startedAt = System.currentTimeMillis();
+        try {
+            synchronized (this) {
+                // 확인한 뒤 계산을 맡기 전 사이에 다른 요청이 결과를 저장했을 수 있음
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    hits.incrementAndGet();
+                    future.complete(entry.value);
+                    return (T) entry.value;
+                }
+            }
+            misses.incrementAndGet();
+            T value = loader.load();
+            loadMillis.addAndGet(System.currentTimeMillis() - startedAt);
+            store(key, value);
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 캐시 지표 (요청 수, 적중률 등)
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long sharedCount = sharedHits.get();
+        long missCount = misses.get();
+        long requests = hitCount + sharedCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests);
+        stats.put("hits", hitCount);
+        stats.put("sharedHits", sharedCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) (hitCount + sharedCount) / requests);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("averageLoadMillis", missCount == 0 ? 0 : loadMillis.get() / missCount);
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("rows", cachedRows);
+        }
+        stats.put("dataVersion", dataVersion.current());
+        return stats;
+    }
+
+    private synchronized void store(Key key, Object value) {
+        clearIfVersionChanged();
+        if (key.version != cachedVersion) {
+            return; // 계산 중 데이터가 바뀐 결과는 저장하지 않음
+        }
+        long rows = rowsOf(value);
+        if (rows > maxRows) {
+            return;
+        }
+
+        Entry previous = entries.put(key, new Entry(value, rows));
+        if (previous != null) {
+            cachedRows -= previous.rows;
+        }
+        cachedRows += rows;
+
+        // 가장 오래 쓰이지 않은 결과부터 제거
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || cachedRows > maxRows) && iterator.hasNext()) {
+            Map.Entry<Key, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            cachedRows -= eldest.getValue().rows;
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // 데이터 버전이 바뀌었으면 이전 결과 모두 제거 (this 잠금 안에서 호출)
+    private void clearIfVersionChanged() {
+        long current = dataVersion.current();
+        if (current != cachedVersion) {
+            if (!entries.isEmpty()) {
+                invalidations.incrementAndGet();
+                log.info("Analysis result cache cleared ({} entries, data version {} -> {})", entries.size(), cachedVersion, current);
+            }
+            entries.clear();
+            cachedRows = 0;
+            cachedVersion = current;
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws IOException, ExecutionException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    // 결과 크기 (목록은 항목 수, Map은 값 목록들의 항목 수 합)
+    private static long rowsOf(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        if (value instanceof Map<?, ?> map) {
+            long rows = 0;
+            for (Object item : map.values()) {
+                rows += item instanceof Collection<?> collection ? collection.size() : 1;
+            }
+            return Math.max(1, rows);
+        }
+        return 1;
+    }
+
+    /**
+     * 정규화된 분석 요청 + 데이터 버전
+     */
+    public static final class Key {
+        private final String operation;
+        private final List<String> sources;
+        private final List<Object> options;
+        private final long version;
+
+        private Key(String operation, List<String> sources, List<Object> options, long version) {
+            this.operation = operation;
+            this.sources = sources;
+            this.options = options;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return version == other.version && operation.equals(other.operation)
+                    && sources.equals(other.sources) && options.equals(other.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operation, sources, options, version);
+        }
+
+        @Override
+        public String toString() {
+            return operation + sources + options + "@" + version;
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long rows;
+
+        private Entry(Object value, long rows) {
+            this.value = value;
+            this.rows = rows;
+        }
+    }
+}
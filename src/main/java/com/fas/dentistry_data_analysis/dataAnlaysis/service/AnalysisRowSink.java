@@ -0,0 +1,15 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.service;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 분석 결과 행을 한 건씩 받는 곳 (스트리밍 응답 등)
+ *
+ * 행을 만든 쪽은 accept가 끝난 뒤 그 행을 다시 참조하지 않으므로, 받는 쪽은 행을 쓰고 바로 버려도 된다.
+ * accept가 늦어지면(클라이언트가 느리게 읽는 경우 등) 다음 행을 만들지 않고 기다린다.
+ */
+@FunctionalInterface
+public interface AnalysisRowSink {
+    void accept(Map<String, Map<String, String>> row) throws IOException;
+}
@@ -0,0 +1,121 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.ToIntFunction;
+
+/**
+ * 분석 작업 실행기
+ *
+ * 요청마다 스레드 풀을 만들지 않고 크기가 정해진 공용 풀(analysisExecutor) 하나에 작업을 나눠 제출한다.
+ * - invokeAll: 파일 단위 작업 (데이터셋 조회, 파일별 집계 등)
+ * - invokeChunks: 시트의 행을 연속 구간(chunk)으로 나눈 작업, 구간마다 자기 버퍼에 결과를 담아 반환
+ * 결과는 제출한 순서((시트, 구간) 순서)대로 돌려주므로 호출한 쪽에서 순서대로 합치면 결과가 항상 같다.
+ *
+ * 풀 스레드가 같은 풀의 다른 작업을 기다리면 풀이 모두 막힐 수 있으므로 작업 안에서 다시 이 실행기를 호출하지 않는다.
+ * (요청 스레드에서 단계별로 제출하고 기다림)
+ */
+@Service
+public class AnalysisTaskRunner {
+
+    private final ExecutorService executor;
+    private final int chunkRows;
+
+    public AnalysisTaskRunner(@Qualifier("analysisExecutor") ExecutorService executor,
+                              @Value("${analysis.chunk-rows:8192}") int chunkRows) {
+        this.executor = executor;
+        this.chunkRows = Math.max(1, chunkRows);
+    }
+
+    /**
+     * 시트의 연속 행 구간 [fromRow, toRow) 처리 작업
+     */
+    @FunctionalInterface
+    public interface ChunkTask<S, R> {
+        R process(S sheet, int fromRow, int toRow) throws IOException;
+    }
+
+    /**
+     * 작업을 공용 풀에서 실행하고 결과를 제출 순서대로 반환
+     * 하나라도 실패하면 남은 작업을 취소하고, 작업이 던진 IOException/RuntimeException은 원래 예외로 다시 던진다.
+     */
+    public <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException, ExecutionException, InterruptedException {
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : futures) {
+                results.add(await(future));
+            }
+            return results;
+        } finally {
+            // 실패하거나 중단된 경우 아직 실행되지 않은 작업 취소 (완료된 작업에는 영향 없음)
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 시트마다 행을 chunkRows 단위 연속 구간으로 나눠 공용 풀에서 처리
+     *
+     * @param sheets   처리할 시트 (시트별 준비 정보 포함)
+     * @param rowCount 시트의 행 수
+     * @param task     구간 처리 작업
+     * @return 시트별 구간 결과 (시트 순서, 시트 안에서는 행 순서)
+     */
+    public <S, R> List<List<R>> invokeChunks(List<S> sheets, ToIntFunction<S> rowCount, ChunkTask<S, R> task)
+            throws IOException, ExecutionException, InterruptedException {
+        List<Callable<R>> tasks = new ArrayList<>();
+        int[] chunkCounts = new int[sheets.size()];
+        for (int i = 0; i < sheets.size(); i++) {
+            S sheet = sheets.get(i);
+            int rows = rowCount.applyAsInt(sheet);
+            for (int from = 0; from < rows; from += chunkRows) {
+                int start = from;
+                int end = Math.min(rows, from + chunkRows);
+                tasks.add(() -> task.process(sheet, start, end));
+                chunkCounts[i]++;
+            }
+        }
+
+        List<R> results = invokeAll(tasks);
+
+        List<List<R>> bySheet = new ArrayList<>(sheets.size());
+        int next = 0;
+        for (int count : chunkCounts) {
+            bySheet.add(results.subList(next, next + count));
+            next += count;
+        }
+        return bySheet;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException, ExecutionException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
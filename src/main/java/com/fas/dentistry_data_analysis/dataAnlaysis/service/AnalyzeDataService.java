@@ -8,6 +8,8 @@ import java.util.concurrent.ExecutionException;
 public interface AnalyzeDataService {
     List<Map<String, Map<String, String>>> analyzeData(List<String> filePath, String diseaseClass, int institutionId) throws IOException, InterruptedException, ExecutionException;
 
+    long streamData(List<String> filePath, String diseaseClass, int institutionId, AnalysisRowSink sink) throws IOException, InterruptedException, ExecutionException;
+
     List<Map<String, Object>> analyzeDataWithFilters(List<String> filePath, Map<String, String> filterConditions, List<String> headers) throws IOException;
 }
 
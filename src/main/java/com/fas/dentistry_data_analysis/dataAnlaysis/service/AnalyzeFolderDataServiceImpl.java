@@ -1,42 +1,41 @@
 package com.fas.dentistry_data_analysis.dataAnlaysis.service;
 
-import com.fas.dentistry_data_analysis.common.service.JSONService;
-import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.ConditionMatcher;
-import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.HeaderMapping;
-import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.ValueMapping;
+import com.fas.dentistry_data_analysis.common.service.PassIdRegistry;
+import com.fas.dentistry_data_analysis.config.AnalysisCubeConfig;
+import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.CrfCube;
+import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.CrfDataset;
+import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.HeaderHistogram;
+import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.RowFilter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.function.Function;
-
-import static com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.ExcelUtils.getCellValueAsString;
 
 @Service
 @Slf4j
 public class AnalyzeFolderDataServiceImpl implements AnalyzeDataService{
 
     private final FileProcessor fileProcessor;
-    private final JSONService jsonService;
+    private final PassIdRegistry passIdRegistry;
+    private final CrfDatasetCache crfDatasetCache;
+    private final AnalysisTaskRunner analysisTaskRunner;
+    private final CrfCubeCache crfCubeCache;
+    private final AnalysisCubeConfig analysisCubeConfig;
 
     @Autowired
-    public AnalyzeFolderDataServiceImpl( FileProcessor fileProcessor,JSONService jsonService) {
+    public AnalyzeFolderDataServiceImpl( FileProcessor fileProcessor, PassIdRegistry passIdRegistry, CrfDatasetCache crfDatasetCache, AnalysisTaskRunner analysisTaskRunner,
+                                         CrfCubeCache crfCubeCache, AnalysisCubeConfig analysisCubeConfig) {
         this.fileProcessor = fileProcessor;
-        this.jsonService = jsonService;
+        this.passIdRegistry = passIdRegistry;
+        this.crfDatasetCache = crfDatasetCache;
+        this.analysisTaskRunner = analysisTaskRunner;
+        this.crfCubeCache = crfCubeCache;
+        this.analysisCubeConfig = analysisCubeConfig;
     }
 
     private static final Map<String, String> DiseaseClassMap = new HashMap<>() {{
@@ -60,7 +59,24 @@ public class AnalyzeFolderDataServiceImpl implements AnalyzeDataService{
     @Override
     public List<Map<String, Map<String, String>>> analyzeData(List<String> filePath, String diseaseClass, int institutionId)
             throws IOException, InterruptedException, ExecutionException {
+        Map<File, String> fileDiseaseClasses = selectServerFiles(filePath, diseaseClass, institutionId);
+
+        // 파일은 공용 풀에서 병렬로 읽고 행은 구간 단위로 처리 (중복 IMAGE_ID는 폴더 목록 순서상 처음 나온 행만)
+        return fileProcessor.processServerFiles(fileDiseaseClasses, institutionId, passIdRegistry.getPassIds());
+    }
 
+    /**
+     * analyzeData와 같은 행을 같은 순서로 한 건씩 sink에 전달 (행 데이터를 모두 모으지 않음)
+     */
+    @Override
+    public long streamData(List<String> filePath, String diseaseClass, int institutionId, AnalysisRowSink sink)
+            throws IOException, InterruptedException, ExecutionException {
+        Map<File, String> fileDiseaseClasses = selectServerFiles(filePath, diseaseClass, institutionId);
+        return fileProcessor.streamServerFiles(fileDiseaseClasses, institutionId, passIdRegistry.getPassIds(), sink);
+    }
+
+    // 분석할 파일 → 질환 클래스 (폴더 목록 순서)
+    private Map<File, String> selectServerFiles(List<String> filePath, String diseaseClass, int institutionId) throws IOException {
         String folderPath = filePath.get(0);
 
         if (folderPath == null || folderPath.isEmpty()) {
@@ -73,12 +89,9 @@ public class AnalyzeFolderDataServiceImpl implements AnalyzeDataService{
         }
 
         String institutionKeyword = institutionId == 0 ? "" : InstitutionMap.getOrDefault(String.valueOf(institutionId), "");
-        Set<String> passIdsSet = new HashSet<>(jsonService.loadPassIdsFromJson("C:/app/id/pass_ids.json"));
-        Set<String> IdSet = new HashSet<>();
         Set<String> processedFiles = new HashSet<>();
 
-        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        List<Future<List<Map<String, Map<String, String>>>>> futureResults = new ArrayList<>();
+        Map<File, String> fileDiseaseClasses = new LinkedHashMap<>();
         File[] files = folder.listFiles();
         if (files == null || files.length == 0) {
             throw new IOException("지정된 폴더에 파일이 없습니다.");
@@ -109,24 +122,15 @@ public class AnalyzeFolderDataServiceImpl implements AnalyzeDataService{
             }
 
             String diseaseKeyword = DiseaseClassMap.getOrDefault(determinedClass, "");
-            final String dynamicDiseaseClass = determinedClass; // 람다 표현식에서 사용 가능하도록 final 변수로 설정
 
             // 파일 이름과 institutionKeyword로 필터링
             if (!isFileMatchingCriteria(fileName, diseaseKeyword, institutionKeyword)) {
                 continue; // 필터 조건에 맞지 않으면 건너뜀
             }
 
-            futureResults.add(executor.submit(() ->
-                    fileProcessor.processServerFile(file, dynamicDiseaseClass, institutionId, passIdsSet, IdSet)
-            ));
-        }
-
-        List<Map<String, Map<String, String>>> combinedData = new ArrayList<>();
-        for (Future<List<Map<String, Map<String, String>>>> future : futureResults) {
-            combinedData.addAll(future.get());
+            fileDiseaseClasses.put(file, determinedClass);
         }
-        executor.shutdown();
-        return combinedData;
+        return fileDiseaseClasses;
     }
 
 
@@ -188,313 +192,165 @@ public class AnalyzeFolderDataServiceImpl implements AnalyzeDataService{
         }
 
         // passIdsSet 로드
-        Set<String> passIdsSet = new HashSet<>(jsonService.loadPassIdsFromJson("C:/app/id/pass_ids.json"));
-        Set<String> processedIds = new HashSet<>();
-
-        List<Map<String, Object>> responseList = new ArrayList<>();
+        Set<String> passIdsSet = passIdRegistry.getPassIds();
 
-        ExecutorService executor = Executors.newCachedThreadPool();
+        Map<String, String> fileFilterConditions = new HashMap<>(filterConditions);
+        if ("All".equals(fileFilterConditions.get("DISEASE_CLASS"))) {
+            fileFilterConditions.remove("DISEASE_CLASS");
+        }
 
         try {
-            // 비동기 파일 처리
-            List<Future<List<Map<String, String>>>> futures = new ArrayList<>();
-            for (File file : files) {
-                futures.add(executor.submit(() -> {
-                    if (folderPath == null) {
-                        throw new IOException("파일을 찾을 수 없습니다. 파일 ID: " + folderPath);
-                    }
-                    Map<String, String> fileFilterConditions = new HashMap<>(filterConditions);
-                    if ("All".equals(fileFilterConditions.get("DISEASE_CLASS"))) {
-                        fileFilterConditions.remove("DISEASE_CLASS");
-                    }
-                    List<Map<String, String>> fileData = processFolderFileWithFilters(file, fileFilterConditions, headers,passIdsSet,processedIds);
-                    return fileData;
-                }));
-            }
-
-            // 기존 헤더 기반 로직 처리
-            for (String header : headers) {
-                if ("Tooth".equals(header)) {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("headers", Arrays.asList("치아 상태", "개수"));
-                    result.put("id", "Tooth");
-                    result.put("title", "치아 상태 요약");
-
-                    // 치아 상태 빈도수 계산
-                    int implantCount = 0;
-                    int prosthesisCount = 0;
-                    int normalCount = 0;
-                    int bridgeCount = 0;
-                    int otherCount = 0;
-
-                    for (Future<List<Map<String, String>>> future : futures) {
-                        List<Map<String, String>> fileData = future.get();
-
-                        for (Map<String, String> rowData : fileData) {
-                            for (Map.Entry<String, String> entry : rowData.entrySet()) {
-                                String key = entry.getKey();
-                                String value = entry.getValue().trim();
-
-                                if (key.startsWith("Tooth_")) {
-                                    switch (value) {
-                                        case "1": normalCount++; break;
-                                        case "2": prosthesisCount++; break;
-                                        case "3": implantCount++; break;
-                                        case "4": bridgeCount++; break;
-                                        case "5": case "6": otherCount++; break;
-                                    }
-                                }
-                            }
-                        }
-                    }
-
-                    List<Map<String, Object>> rows = new ArrayList<>();
-                    rows.add(Map.of("value", "정상", "count", normalCount));
-                    rows.add(Map.of("value", "보철", "count", prosthesisCount));
-                    rows.add(Map.of("value", "임플란트", "count", implantCount));
-                    rows.add(Map.of("value", "브릿지", "count", bridgeCount));
-                    rows.add(Map.of("value", "기타", "count", otherCount));
-
-                    result.put("rows", rows);
-                    responseList.add(result);
-                } else if ("P_RES_AREA".equals(header)) {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("headers", HeaderMapping.determineHeadersBasedOnFilters(Collections.singletonList(header)));
-                    result.put("id", "P_RES_AREA");
-                    result.put("title", HeaderMapping.determineTitleBasedOnHeaders(Collections.singletonList(header)));
-
-                    Map<String, Integer> regionCounts = new HashMap<>();
-
-                    for (Future<List<Map<String, String>>> future : futures) {
-                        List<Map<String, String>> fileData = future.get();
-
-                        for (Map<String, String> rowData : fileData) {
-                            String region = rowData.getOrDefault("P_RES_AREA", "").trim();
-                            if (!region.isEmpty()) {
-                                String mappedRegion = mapRegionName(region);
-                                regionCounts.put(mappedRegion, regionCounts.getOrDefault(mappedRegion, 0) + 1);
-                            }
-                        }
-                    }
-
-                    List<Map<String, Object>> rows = new ArrayList<>();
-                    for (Map.Entry<String, Integer> entry : regionCounts.entrySet()) {
-                        rows.add(Map.of("value", entry.getKey(), "count", entry.getValue()));
-                    }
-
-                    result.put("rows", rows);
-                    responseList.add(result);
-                } else {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("id", header);
-                    result.put("title", HeaderMapping.determineTitleBasedOnHeaders(Collections.singletonList(header)));
-                    result.put("headers", HeaderMapping.determineHeadersBasedOnFilters(Collections.singletonList(header)));
-
-                    Map<String, Integer> valueCounts = new HashMap<>();
-
-                    for (Future<List<Map<String, String>>> future : futures) {
-                        List<Map<String, String>> fileData = future.get();
-
-                        for (Map<String, String> rowData : fileData) {
-                            String value = rowData.getOrDefault(header, "").trim();
-                            if (!value.isEmpty()) {
-                                String mappedValue = ValueMapping.headerMappingFunctions
-                                        .getOrDefault(header, Function.identity())
-                                        .apply(value);
-                                valueCounts.put(mappedValue, valueCounts.getOrDefault(mappedValue, 0) + 1);
-                            }
+            // 필터가 모두 큐브 차원이면 큐브 차원 헤더는 큐브에서 바로 집계하고, 나머지 헤더만 행을 훑어 집계
+            boolean cubeCandidate = analysisCubeConfig.isEnabled()
+                    && CrfCube.DIMENSIONS.containsAll(fileFilterConditions.keySet())
+                    && headers.stream().anyMatch(CrfCube.DIMENSIONS::contains);
+            if (cubeCandidate) {
+                String scope = "folder:" + Objects.toString(targetDiseaseName, "*") + "/" + Objects.toString(targetInstitutionName, "*");
+                CrfCube cube = crfCubeCache.get(scope, files, () -> buildCube(files, passIdsSet));
+                if (cube.supportsFilters(fileFilterConditions)) {
+                    crfCubeCache.recordQuery(true);
+                    HeaderHistogram histogram = cube.query(fileFilterConditions, headers);
+                    List<String> scanHeaders = new ArrayList<>();
+                    for (String header : headers) {
+                        if (!cube.supportsHeader(header)) {
+                            scanHeaders.add(header);
                         }
                     }
-
-                    List<Map<String, Object>> rows = new ArrayList<>();
-                    for (Map.Entry<String, Integer> entry : valueCounts.entrySet()) {
-                        rows.add(Map.of("value", entry.getKey(), "count", entry.getValue()));
+                    if (!scanHeaders.isEmpty()) {
+                        histogram.merge(countRows(selectFilterRows(files, fileFilterConditions, scanHeaders, passIdsSet), scanHeaders));
                     }
-
-                    result.put("rows", rows);
-                    responseList.add(result);
+                    return histogram.toResponse(headers);
                 }
             }
+
+            crfCubeCache.recordQuery(false);
+            return countRows(selectFilterRows(files, fileFilterConditions, headers, passIdsSet), headers).toResponse(headers);
         } catch (ExecutionException | InterruptedException e) {
             throw new RuntimeException("파일 처리 중 오류가 발생했습니다.", e);
-        } finally {
-            executor.shutdown();
         }
-
-        return responseList;
     }
 
-    private List<Map<String, String>> processFolderFileWithFilters(File excelFile, Map<String, String> filterConditions, List<String> headers, Set<String> passIdsSet, Set<String> processedIds) throws IOException {
-        List<Map<String, String>> filteredData = new ArrayList<>();
-
-        // 파일명에서 기관명 추출
-        String institutionName = extractInstitutionName(excelFile.getName());
-
-        try (InputStream inputStream = new FileInputStream(excelFile);
-             Workbook workbook = new XSSFWorkbook(inputStream)) {
-
-            int numberOfSheets = workbook.getNumberOfSheets();
-            String fileName = excelFile.getName();
-
-            for (int i = 0; i < numberOfSheets; i++) {
-                Sheet sheet = workbook.getSheetAt(i);
-
-                // 기존 시트 이름 필터링 로직 유지
-                if (fileName.contains("두개안면") && !(sheet.getSheetName().contains("CRF") && sheet.getSheetName().contains("두개안면기형"))) {
-                    continue;
-                } else if (fileName.contains("치주질환") && !(sheet.getSheetName().contains("CRF") && sheet.getSheetName().contains("치주질환"))) {
-                    continue;
-                } else if (fileName.contains("구강암") && !(sheet.getSheetName().contains("CRF") && sheet.getSheetName().contains("구강암"))) {
-                    continue;
-                } else if (fileName.contains("골수염") && !(sheet.getSheetName().contains("CRF") && sheet.getSheetName().contains("골수염"))) {
-                    continue;
-                } else if (!(sheet.getSheetName().contains("CRF"))) {
-                    continue; // "CRF"가 없는 시트 건너뜀
-                }
-
-                Row headerRow = sheet.getRow(3); // 4번째 행을 헤더로 가정
-                if (headerRow == null) {
-                    continue;
+    /**
+     * 필터 분석 대상 행 선택
+     *
+     * 1. 워크북은 열 단위 캐시에서 조회 (파일 단위 병렬, 파일이 바뀐 경우에만 다시 읽음)
+     * 2. 시트마다 집계 컬럼과 필터 조건을 한 번만 준비
+     * 3. 행 구간별로 Pass된 IMAGE_ID와 조건에 맞는 행을 구간 버퍼에 모음
+     * 4. 파일 → 시트 → 구간 순서대로 합치며 중복 IMAGE_ID 제거 (요청 스레드에서만 접근하므로 잠금 없음)
+     *
+     * @return 시트 목록 (selectedRows에 집계할 행 표시)
+     */
+    private List<FilterSheet> selectFilterRows(File[] files, Map<String, String> filterConditions, List<String> headers, Set<String> passIdsSet)
+            throws IOException, ExecutionException, InterruptedException {
+        boolean countInstitution = headers.contains("INSTITUTION_ID");
+
+        List<Callable<CrfDataset>> loads = new ArrayList<>();
+        for (File file : files) {
+            loads.add(() -> crfDatasetCache.get(file));
+        }
+        List<CrfDataset> datasets = analysisTaskRunner.invokeAll(loads);
+
+        // (맞는 행이 없어도 IMAGE_ID 중복 처리는 다른 파일과 공유하므로 시트를 건너뛰지 않음)
+        List<FilterSheet> sheets = new ArrayList<>();
+        for (int i = 0; i < files.length; i++) {
+            // 파일명에서 기관명 추출
+            String institutionName = extractInstitutionName(files[i].getName()).trim();
+            for (CrfDataset.Sheet sheet : datasets.get(i).getSheets()) {
+                CrfDataset.Column imageIdColumn = sheet.getColumn("IMAGE_ID");
+                if (imageIdColumn == null) {
+                    throw new IllegalArgumentException("IMAGE_ID 헤더가 누락되었습니다. 파일을 확인하세요: " + files[i].getName());
                 }
 
-                // 헤더 행의 인덱스 매핑
-                Map<String, Integer> headerIndexMap = new HashMap<>();
-                for (int cellIndex = 0; cellIndex < headerRow.getLastCellNum(); cellIndex++) {
-                    Cell cell = headerRow.getCell(cellIndex);
-                    if (cell != null) {
-                        String headerName = cell.getStringCellValue().trim();
-                        headerIndexMap.put(headerName, cellIndex);
-                    }
-                }
-                Integer imageIdIndex = headerIndexMap.get("IMAGE_ID");
-                if (imageIdIndex == null) {
-                    throw new IllegalArgumentException("IMAGE_ID 헤더가 누락되었습니다. 파일을 확인하세요: " + excelFile.getName());
+                // 집계할 컬럼 (Tooth 요청 시 Tooth_ 컬럼 전체 + 일반 헤더)
+                Map<String, CrfDataset.Column> valueColumns = selectValueColumns(sheet, headers);
+                if (countInstitution) {
+                    valueColumns.remove("INSTITUTION_ID"); // 기관은 셀 값 대신 파일명의 기관명으로 집계
                 }
+                sheets.add(new FilterSheet(sheet, imageIdColumn, RowFilter.compile(sheet, filterConditions), valueColumns, institutionName));
+            }
+        }
 
-                // 모든 데이터를 필터링
-                for (int rowIndex = 8; rowIndex <= sheet.getLastRowNum(); rowIndex++) { // 9번째 행부터 데이터 읽기
-                    Row row = sheet.getRow(rowIndex);
-                    if (row == null) {
-                        continue;
-                    }
-
-                    // IMAGE_ID 필터링
-                    String imageId = getCellValueAsString(row.getCell(imageIdIndex)).trim();
-
-                    // 중복 IMAGE_ID 처리
-                    synchronized (processedIds) {
-                        if (!passIdsSet.contains(imageId) || !processedIds.add(imageId)) {
-                            continue; // passIdsSet에 없거나 이미 처리된 IMAGE_ID는 건너뜀
-                        }
-                    }
-
-                    if (matchesConditions(row, headerIndexMap, filterConditions)) {
-                        Map<String, String> rowData = new LinkedHashMap<>();
-
-                        // Tooth 관련 필드 확인
-                        if (headers.contains("Tooth")) {
-                            for (Map.Entry<String, Integer> entry : headerIndexMap.entrySet()) {
-                                String headerName = entry.getKey();
-                                if (headerName.startsWith("Tooth_")) {
-                                    Integer cellIndex = entry.getValue();
-                                    Cell cell = row.getCell(cellIndex);
-                                    String cellValue = (cell != null) ? getCellValueAsString(cell).trim() : "";
-                                    rowData.put(headerName, cellValue);
-                                }
-                            }
-                        }
-
-                        // 일반 헤더 처리
-                        for (String header : headers) {
-                            if (!header.contains("Tooth")) {
-                                Integer cellIndex = headerIndexMap.get(header);
-                                if (cellIndex != null) {
-                                    Cell cell = row.getCell(cellIndex);
-                                    String cellValue = (cell != null) ? getCellValueAsString(cell).trim() : "";
-                                    rowData.put(header, cellValue);
-                                }
-                            }
-                        }
-
-                        // 기관명 추가
-                        if (headers.contains("INSTITUTION_ID")) {
-                            rowData.put("INSTITUTION_ID", institutionName);
-                        }
+        List<List<PassRows>> chunkResults = analysisTaskRunner.invokeChunks(sheets, filterSheet -> filterSheet.sheet.getRowCount(),
+                (filterSheet, fromRow, toRow) -> collectPassRows(filterSheet, fromRow, toRow, passIdsSet));
 
-                        if (!rowData.isEmpty()) {
-                            filteredData.add(rowData);
-                        }
+        Set<String> processedIds = new HashSet<>();
+        for (int i = 0; i < sheets.size(); i++) {
+            BitSet selectedRows = sheets.get(i).selectedRows;
+            for (PassRows chunk : chunkResults.get(i)) {
+                chunk.firstRows.forEach((imageId, row) -> {
+                    if (processedIds.add(imageId) && chunk.matchedRows.get(row)) {
+                        selectedRows.set(row);
                     }
-                }
+                });
             }
         }
-
-        return filteredData;
+        return sheets;
     }
 
-    private boolean matchesConditions(Row row, Map<String, Integer> headerIndexMap, Map<String, String> filterConditions) {
-        for (Map.Entry<String, String> condition : filterConditions.entrySet()) {
-            String header = condition.getKey();
-            String expectedValue = condition.getValue();
-            Integer cellIndex = headerIndexMap.get(header);
+    // 시트별로 선택된 행을 한 번에 집계한 뒤 합치기 (빈 값은 집계되지 않음)
+    private HeaderHistogram countRows(List<FilterSheet> sheets, List<String> headers)
+            throws IOException, ExecutionException, InterruptedException {
+        boolean countInstitution = headers.contains("INSTITUTION_ID");
+
+        List<Callable<HeaderHistogram>> counts = new ArrayList<>();
+        for (FilterSheet filterSheet : sheets) {
+            counts.add(() -> {
+                HeaderHistogram sheetHistogram = new HeaderHistogram(true);
+                sheetHistogram.addRows(filterSheet.valueColumns, filterSheet.selectedRows);
+                if (countInstitution) {
+                    sheetHistogram.add("INSTITUTION_ID", filterSheet.institutionName, filterSheet.selectedRows.cardinality());
+                }
+                return sheetHistogram;
+            });
+        }
+        HeaderHistogram histogram = new HeaderHistogram(true);
+        for (HeaderHistogram sheetHistogram : analysisTaskRunner.invokeAll(counts)) {
+            histogram.merge(sheetHistogram);
+        }
+        return histogram;
+    }
 
-            if (cellIndex != null) {
-                String cellValue = getCellValueAsString(row.getCell(cellIndex));
+    // 대상 파일의 Pass된 행(중복 IMAGE_ID 제거 후) 전체로 큐브 생성
+    private CrfCube buildCube(File[] files, Set<String> passIdsSet) throws IOException, ExecutionException, InterruptedException {
+        CrfCube.Builder builder = CrfCube.builder(analysisCubeConfig.getMaxCells());
+        for (FilterSheet filterSheet : selectFilterRows(files, Collections.emptyMap(), Collections.emptyList(), passIdsSet)) {
+            builder.addSheet(filterSheet.sheet, filterSheet.institutionName, filterSheet.selectedRows);
+        }
+        return builder.build();
+    }
 
-                // 숫자 범위 조건의 경우, 범위 값에 맞는지 확인
-                switch (header) {
-                    case "P_AGE" : {
-                        if (!ConditionMatcher.matchesAgeCondition(cellValue, expectedValue)) {
-                            return false;
-                        }
-                    }
-                    case "P_WEIGHT" : {
-                        if (!ConditionMatcher.matchesWeightCondition(cellValue, expectedValue)) {
-                            return false;
-                        }
-                    }
-                    case "P_HEIGHT" : {
-                        if (!ConditionMatcher.matchesHeightCondition(cellValue, expectedValue)) {
-                            return false;
-                        }
-                    }
-                    case "CAPTURE_TIME" : {
-                        if (!ConditionMatcher.matchesYearRangeCondition(cellValue, expectedValue)) {
-                            return false;
-                        }
-                    }
-                    default : {
-                        // 기본 문자열 비교
-                        if (!cellValue.equals(expectedValue)) {
-                            return false;
-                        }
-                    }
-                }
+    // 구간 [fromRow, toRow)에서 Pass된 IMAGE_ID의 첫 행과 그중 필터 조건에 맞는 행
+    private PassRows collectPassRows(FilterSheet filterSheet, int fromRow, int toRow, Set<String> passIdsSet) {
+        PassRows passRows = new PassRows();
+        for (int row = fromRow; row < toRow; row++) {
+            String imageId = filterSheet.imageIdColumn.get(row);
+            if (!passIdsSet.contains(imageId) || passRows.firstRows.putIfAbsent(imageId, row) != null) {
+                continue; // passIdsSet에 없거나 구간 안에서 이미 나온 IMAGE_ID는 건너뜀
+            }
+            if (filterSheet.rowFilter.matches(row)) {
+                passRows.matchedRows.set(row);
             }
         }
-        return true; // 모든 조건을 만족하면 true 반환
+        return passRows;
     }
 
-    // 지역명 매핑 함수 추가
-    private String mapRegionName(String label) {
-        if (label.contains("서울")) return "서울특별시";
-        if (label.contains("경기")) return "경기도";
-        if (label.contains("인천")) return "인천광역시";
-        if (label.contains("부산")) return "부산광역시";
-        if (label.contains("대구")) return "대구광역시";
-        if (label.contains("광주")) return "광주광역시";
-        if (label.contains("대전")) return "대전광역시";
-        if (label.contains("울산")) return "울산광역시";
-        if (label.contains("세종")) return "세종특별자치시";
-        if (label.contains("강원")) return "강원도";
-        if (label.contains("충청북도") || label.contains("충북")) return "충청북도";
-        if (label.contains("충청남도") || label.contains("충남")) return "충청남도";
-        if (label.contains("전라북도") || label.contains("전북")) return "전라북도";
-        if (label.contains("전라남도") || label.contains("전남")) return "전라남도";
-        if (label.contains("경상북도") || label.contains("경북")) return "경상북도";
-        if (label.contains("경상남도") || label.contains("경남")) return "경상남도";
-        if (label.contains("제주")) return "제주특별자치도";
-        return "기타지역"; // 매핑되지 않으면 원래 이름 반환
+    // 요청 헤더의 컬럼 (Tooth 요청 시 Tooth_로 시작하는 모든 컬럼, 그 밖에는 Tooth가 들어가지 않은 헤더)
+    private Map<String, CrfDataset.Column> selectValueColumns(CrfDataset.Sheet sheet, List<String> headers) {
+        Map<String, CrfDataset.Column> columns = new LinkedHashMap<>();
+        if (headers.contains("Tooth")) {
+            sheet.getColumns().forEach((headerName, column) -> {
+                if (headerName.startsWith("Tooth_")) {
+                    columns.put(headerName, column);
+                }
+            });
+        }
+        for (String header : headers) {
+            CrfDataset.Column column = sheet.getColumn(header);
+            if (!header.contains("Tooth") && column != null) {
+                columns.put(header, column);
+            }
+        }
+        return columns;
     }
 
     private String determineDiseaseClassFromFile(String fileName) {
@@ -540,4 +396,32 @@ public class AnalyzeFolderDataServiceImpl implements AnalyzeDataService{
         return "알 수 없는 기관"; // 기본 값
     }
 
+
+    // 필터 분석 대상 시트 (행 구간 작업이 함께 쓰는 읽기 전용 정보)
+    private static final class FilterSheet {
+        private final CrfDataset.Sheet sheet;
+        private final CrfDataset.Column imageIdColumn;
+        private final RowFilter rowFilter;
+        private final Map<String, CrfDataset.Column> valueColumns;
+        private final String institutionName;
+        // 집계할 행 (행 선택 후 요청 스레드에서만 채움)
+        private final BitSet selectedRows = new BitSet();
+
+        private FilterSheet(CrfDataset.Sheet sheet, CrfDataset.Column imageIdColumn, RowFilter rowFilter,
+                            Map<String, CrfDataset.Column> valueColumns, String institutionName) {
+            this.sheet = sheet;
+            this.imageIdColumn = imageIdColumn;
+            this.rowFilter = rowFilter;
+            this.valueColumns = valueColumns;
+            this.institutionName = institutionName;
+        }
+    }
+
+    // 행 구간 하나의 결과 버퍼
+    private static final class PassRows {
+        // Pass된 IMAGE_ID → 구간 안에서 처음 나온 행 (행 순서)
+        private final LinkedHashMap<String, Integer> firstRows = new LinkedHashMap<>();
+        // 그중 필터 조건에 맞는 행
+        private final BitSet matchedRows = new BitSet();
+    }
 }
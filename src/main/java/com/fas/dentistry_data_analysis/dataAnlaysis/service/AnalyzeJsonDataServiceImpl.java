@@ -1,34 +1,32 @@
 package com.fas.dentistry_data_analysis.dataAnlaysis.service;
 
+import com.fas.dentistry_data_analysis.common.service.DiseaseJsonStore;
 import com.fas.dentistry_data_analysis.common.service.JSONService;
-import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.HeaderMapping;
-import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.ValueMapping;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.HeaderHistogram;
+import com.fas.dentistry_data_analysis.dataAnlaysis.util.json.ColumnarDiseaseData;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.function.Function;
 
 @Service
 @Slf4j
 public class AnalyzeJsonDataServiceImpl implements AnalyzeDataService{
 
     private final JsonFileProcessor jsonFileProcessor;
+    private final DiseaseJsonColumnCache diseaseJsonColumnCache;
+    private final AnalysisTaskRunner analysisTaskRunner;
 
     @Autowired
-    public AnalyzeJsonDataServiceImpl( JsonFileProcessor jsonFileProcessor) {
+    public AnalyzeJsonDataServiceImpl( JsonFileProcessor jsonFileProcessor, DiseaseJsonColumnCache diseaseJsonColumnCache, AnalysisTaskRunner analysisTaskRunner) {
         this.jsonFileProcessor = jsonFileProcessor;
+        this.diseaseJsonColumnCache = diseaseJsonColumnCache;
+        this.analysisTaskRunner = analysisTaskRunner;
     }
 
 
@@ -53,7 +51,33 @@ public class AnalyzeJsonDataServiceImpl implements AnalyzeDataService{
 
     @Override
     public List<Map<String, Map<String, String>>> analyzeData(List<String> filePath, String diseaseClass, int institutionId) throws IOException, ExecutionException, InterruptedException {
+        // 폴더 내의 모든 파일을 공용 분석 풀에서 병렬로 처리
+        List<Callable<List<Map<String, Map<String, String>>>>> tasks = new ArrayList<>();
+        selectJsonFiles(filePath, diseaseClass, institutionId).forEach((file, dynamicDiseaseClass) ->
+                tasks.add(() -> jsonFileProcessor.processJsonFile(file, dynamicDiseaseClass, institutionId)));
 
+        // 병렬 처리 결과를 결합
+        List<Map<String, Map<String, String>>> combinedData = new ArrayList<>();
+        for (List<Map<String, Map<String, String>>> fileData : analysisTaskRunner.invokeAll(tasks)) {
+            combinedData.addAll(fileData); // 결과를 합침
+        }
+        return combinedData;
+    }
+
+    /**
+     * analyzeData와 같은 행을 같은 순서로 한 건씩 sink에 전달 (파일을 차례로 한 레코드씩 읽음)
+     */
+    @Override
+    public long streamData(List<String> filePath, String diseaseClass, int institutionId, AnalysisRowSink sink) throws IOException {
+        long count = 0;
+        for (Map.Entry<File, String> entry : selectJsonFiles(filePath, diseaseClass, institutionId).entrySet()) {
+            count += jsonFileProcessor.streamJsonFile(entry.getKey(), entry.getValue(), institutionId, sink);
+        }
+        return count;
+    }
+
+    // 분석할 파일 → 질환 클래스 (폴더 목록 순서)
+    private Map<File, String> selectJsonFiles(List<String> filePath, String diseaseClass, int institutionId) throws IOException {
        String folderPath = filePath.get(0);
 
         if (folderPath == null || folderPath.isEmpty()) {
@@ -70,9 +94,7 @@ public class AnalyzeJsonDataServiceImpl implements AnalyzeDataService{
         // 이미 처리된 파일 추적용 Set
         Set<String> processedFiles = new HashSet<>();
 
-        // 폴더 내의 모든 파일을 병렬로 처리
-        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        List<Future<List<Map<String, Map<String, String>>>>> futureResults = new ArrayList<>();
+        Map<File, String> fileDiseaseClasses = new LinkedHashMap<>();
         File[] files = folder.listFiles();
         if (files == null || files.length == 0) {
             throw new IOException("지정된 폴더에 파일이 없습니다.");
@@ -99,19 +121,9 @@ public class AnalyzeJsonDataServiceImpl implements AnalyzeDataService{
                 continue; // 필터 조건에 맞지 않으면 건너뜀
             }
 
-            // 각 파일을 처리하는 작업을 병렬로 실행
-            futureResults.add(executor.submit(() ->
-                    jsonFileProcessor.processJsonFile(file, dynamicDiseaseClass, institutionId)
-            ));
+            fileDiseaseClasses.put(file, dynamicDiseaseClass);
         }
-
-        // 병렬 처리 결과를 결합
-        List<Map<String, Map<String, String>>> combinedData = new ArrayList<>();
-        for (Future<List<Map<String, Map<String, String>>>> future : futureResults) {
-            combinedData.addAll(future.get()); // 결과를 합침
-        }
-        executor.shutdown();
-        return combinedData;
+        return fileDiseaseClasses;
     }
 
     @Override
@@ -157,7 +169,7 @@ public class AnalyzeJsonDataServiceImpl implements AnalyzeDataService{
 
         // 전체 또는 특정 질환 및 기관에 해당하는 파일 필터링
         File[] files = folder.listFiles(file -> {
-            if (file.isDirectory() || !file.getName().toLowerCase().endsWith(".json")) {
+            if (file.isDirectory() || !DiseaseJsonStore.isRecordFile(file.getName())) {
                 return false;
             }
             boolean matchesDisease = (targetDiseaseName == null) || file.getName().contains(targetDiseaseName);
@@ -170,249 +182,65 @@ public class AnalyzeJsonDataServiceImpl implements AnalyzeDataService{
             return Collections.emptyList();
         }
 
-        Set<String> processedIds = new HashSet<>();
-        List<Map<String, Object>> responseList = new ArrayList<>();
-        ExecutorService executor = Executors.newCachedThreadPool();
-
         try {
-            // 비동기 파일 처리
-            List<Future<List<Map<String, String>>>> futures = new ArrayList<>();
+            // 파일별 열 단위 캐시 조회 후 요청 헤더 전체를 파일 작업 안에서 한 번에 집계 (원본이 바뀐 파일만 다시 만듦)
+            Set<String> countedHeaders = new LinkedHashSet<>(headers);
+            List<Callable<HeaderHistogram>> tasks = new ArrayList<>();
             for (File file : files) {
-                futures.add(executor.submit(() -> {
-                    Map<String, String> fileFilterConditions = new HashMap<>(filterConditions);
-                    if ("All".equalsIgnoreCase(fileFilterConditions.get("DISEASE_CLASS"))) {
-                        fileFilterConditions.remove("DISEASE_CLASS");
-                    }
-                    return processJsonFileWithFilters(file, fileFilterConditions, headers, processedIds);
-                }));
+                tasks.add(() -> countFile(diseaseJsonColumnCache.get(file), countedHeaders, extractInstitutionName(file.getName())));
             }
 
-            // 기존 헤더 기반 로직 처리
-            for (String header : headers) {
-                if ("Tooth".equals(header)) {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("headers", Arrays.asList("치아 상태", "개수"));
-                    result.put("id", "Tooth");
-                    result.put("title", "치아 상태 요약");
-
-                    // 치아 상태 빈도수 계산
-                    int implantCount = 0;
-                    int prosthesisCount = 0;
-                    int normalCount = 0;
-                    int bridgeCount = 0;
-                    int otherCount = 0;
-
-                    for (Future<List<Map<String, String>>> future : futures) {
-                        List<Map<String, String>> fileData = future.get();
-
-                        for (Map<String, String> rowData : fileData) {
-                            for (Map.Entry<String, String> entry : rowData.entrySet()) {
-                                String key = entry.getKey();
-                                String value = entry.getValue().trim();
-
-                                if (key.startsWith("Tooth_")) {
-                                    switch (value) {
-                                        case "1": normalCount++; break;
-                                        case "2": prosthesisCount++; break;
-                                        case "3": implantCount++; break;
-                                        case "4": bridgeCount++; break;
-                                        case "5": case "6": otherCount++; break;
-                                    }
-                                }
-                            }
-                        }
-                    }
-
-                    List<Map<String, Object>> rows = new ArrayList<>();
-                    rows.add(Map.of("value", "정상", "count", normalCount));
-                    rows.add(Map.of("value", "보철", "count", prosthesisCount));
-                    rows.add(Map.of("value", "임플란트", "count", implantCount));
-                    rows.add(Map.of("value", "브릿지", "count", bridgeCount));
-                    rows.add(Map.of("value", "기타", "count", otherCount));
-
-                    result.put("rows", rows);
-                    responseList.add(result);
-                } else {
-                    // 기존 로직 처리
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("id", header);
-                    result.put("title", HeaderMapping.determineTitleBasedOnHeaders(Collections.singletonList(header)));
-                    result.put("headers", HeaderMapping.determineHeadersBasedOnFilters(Collections.singletonList(header)));
-
-                    Map<String, Integer> valueCounts = new HashMap<>();
-
-                    for (Future<List<Map<String, String>>> future : futures) {
-                        List<Map<String, String>> fileData = future.get();
-
-                        for (Map<String, String> rowData : fileData) {
-                            String value = rowData.getOrDefault(header, "").trim();
-                            if (!value.isEmpty()) {
-                                String mappedValue = ValueMapping.headerMappingFunctions
-                                        .getOrDefault(header, Function.identity())
-                                        .apply(value);
-                                valueCounts.put(mappedValue, valueCounts.getOrDefault(mappedValue, 0) + 1);
-                            }
-                        }
-                    }
-
-                    List<Map<String, Object>> rows = new ArrayList<>();
-                    for (Map.Entry<String, Integer> entry : valueCounts.entrySet()) {
-                        rows.add(Map.of("value", entry.getKey(), "count", entry.getValue()));
-                    }
-
-                    result.put("rows", rows);
-                    responseList.add(result);
-                }
+            // 파일별 집계 결과 합치기
+            HeaderHistogram histogram = new HeaderHistogram(false);
+            for (HeaderHistogram fileHistogram : analysisTaskRunner.invokeAll(tasks)) {
+                histogram.merge(fileHistogram);
             }
-        } catch (ExecutionException | InterruptedException e) {
+            return histogram.toResponse(headers);
+        } catch (IOException | ExecutionException | InterruptedException e) {
             throw new RuntimeException("파일 처리 중 오류가 발생했습니다.", e);
-        } finally {
-            executor.shutdown();
         }
-
-        return responseList;
     }
 
-
-    private List<Map<String, String>> processJsonFileWithFilters(File jsonFile, Map<String, String> filterConditions, List<String> headers, Set<String> processedIds) throws IOException {
-        List<Map<String, String>> filteredData = new ArrayList<>();
-        // 파일명에서 기관명 추출
-        String institutionName = extractInstitutionName(jsonFile.getName());
-        ObjectMapper objectMapper = new ObjectMapper();
-
-        try (InputStream inputStream = new FileInputStream(jsonFile)) {
-            // JSON 파일 파싱
-            JsonNode rootNode = objectMapper.readTree(inputStream);
-
-            // JSON이 배열인지 확인
-            if (!rootNode.isArray()) {
-                throw new IllegalArgumentException("JSON 파일이 배열 형식이어야 합니다: " + jsonFile.getName());
-            }
-
-            for (JsonNode recordNode : rootNode) {
-                // IMAGE_ID 또는 Identifier의 IMAGE_ID 값을 추출
-                String imageId = null;
-
-                // IMAGE_ID 직접 추출
-                JsonNode imageIdNode = findValueInSections(recordNode, "IMAGE_ID");
-                if (imageIdNode != null && !imageIdNode.asText().trim().isEmpty()) {
-                    imageId = imageIdNode.asText().trim();
-                }
-
-                // Identifier 추출
-                if (imageId == null) {
-                    JsonNode identifierNode = recordNode.get("Identifier");
-                    if (identifierNode != null) {
-                        if (identifierNode.isArray()) { // 배열인 경우
-                            for (JsonNode item : identifierNode) {
-                                JsonNode identifierImageIdNode = item.get("IMAGE_ID");
-                                if (identifierImageIdNode != null && !identifierImageIdNode.asText().trim().isEmpty()) {
-                                    imageId = identifierImageIdNode.asText().trim();
-                                    break;
-                                }
-                            }
-                        } else if (identifierNode.isTextual()) { // 단일 문자열인 경우
-                            imageId = identifierNode.asText().trim();
-                        }
-                    }
-                }
-
-                if (imageId == null || imageId.isEmpty()) {
-                    continue;
-                }
-
-                // 데이터 추가
-                Map<String, String> rowData = new LinkedHashMap<>();
-                rowData.put("IMAGE_ID", imageId);
-
-                // 헤더 처리
-                for (String header : headers) {
-                    // 헤더 매핑 처리 및 trim() 적용
-                    String normalizedHeader = HeaderSynonyms.getOrDefault(header.trim(), header.trim());
-
-                    if ("Tooth".equals(normalizedHeader)) {
-                        // "Annotation_Data" 섹션에서 숫자 키에 해당하는 값 추출
-                        JsonNode annotationDataNode = recordNode.get("Annotation_Data");
-                        if (annotationDataNode != null && annotationDataNode.isArray()) {
-                            for (JsonNode annotationItem : annotationDataNode) {
-                                Iterator<String> fieldNames = annotationItem.fieldNames();
-                                while (fieldNames.hasNext()) {
-                                    String fieldName = fieldNames.next().trim(); // 키값 trim()
-                                    // 숫자 키인지 확인
-                                    if (fieldName.matches("\\d+")) {
-                                        String value = annotationItem.get(fieldName).asText().trim();
-                                        rowData.put("Tooth_" + fieldName, value);
-                                    }
-                                }
-                            }
-                        }
-                    } else if ("INSTITUTION_ID".equals(normalizedHeader)) {
-                        rowData.put("INSTITUTION_ID", institutionName);
-                    } else {
-                        JsonNode valueNode = findValueInSections(recordNode, normalizedHeader);
-                        String value = (valueNode != null) ? valueNode.asText().trim() : "none";
-                        // 값이 null이거나 "none"일 경우 건너뜀
-                        if (value == null || value.equalsIgnoreCase("none")) {
-                            continue;
-                        }
-                        rowData.put(header.trim(), value); // 헤더도 trim() 적용
-                    }
-                }
-
-                // 결과 추가
-                if (!rowData.isEmpty()) {
-                    filteredData.add(rowData);
-                }
+    /**
+     * 파일 하나의 요청 헤더별 값 빈도 집계
+     */
+    private HeaderHistogram countFile(ColumnarDiseaseData data, Set<String> headers, String institutionName) {
+        HeaderHistogram histogram = new HeaderHistogram(false);
+        for (String header : headers) {
+            if ("Tooth".equals(header)) {
+                data.countToothValues().forEach(histogram::addTooth);
+            } else {
+                countHeaderValues(data, header, institutionName).forEach((value, count) -> histogram.add(header, value, count));
             }
         }
-        return filteredData;
+        return histogram;
     }
 
-    private JsonNode findValueInSections(JsonNode recordNode, String key) {
-        // 입력 키를 공백 제거
-        String sanitizedKey = key.replaceAll("\\s+", "");
-
-        // JSON 최상위에서 값 검색
-        Iterator<String> rootFieldNames = recordNode.fieldNames();
-        while (rootFieldNames.hasNext()) {
-            String fieldName = rootFieldNames.next();
-            if (fieldName.replaceAll("\\s+", "").equals(sanitizedKey)) {
-                return recordNode.get(fieldName); // 매칭된 값 반환
-            }
+    /**
+     * 파일 하나에서 헤더 값별 레코드 수 (IMAGE_ID가 있는 레코드만)
+     * INSTITUTION_ID는 파일명의 기관명, IMAGE_ID는 값이 없으면 Identifier에서 찾은 IMAGE_ID를 사용한다.
+     */
+    private Map<String, Integer> countHeaderValues(ColumnarDiseaseData data, String header, String institutionName) {
+        if (!header.equals(header.trim())) {
+            return Collections.emptyMap(); // 레코드 값은 앞뒤 공백을 제거한 헤더로만 기록됨
+        }
+        if ("INSTITUTION_ID".equals(header)) {
+            return data.getRecordCount() > 0 ? Map.of(institutionName, data.getRecordCount()) : Collections.emptyMap();
         }
 
-        // JSON 섹션에서 값 검색
-        Iterator<Map.Entry<String, JsonNode>> fields = recordNode.fields();
-        while (fields.hasNext()) {
-            Map.Entry<String, JsonNode> field = fields.next();
-            JsonNode section = field.getValue();
-
-            if (section.isArray()) { // 섹션이 배열인 경우
-                for (JsonNode item : section) {
-                    Iterator<String> itemFieldNames = item.fieldNames();
-                    while (itemFieldNames.hasNext()) {
-                        String itemFieldName = itemFieldNames.next();
-                        if (itemFieldName.replaceAll("\\s+", "").equals(sanitizedKey)) {
-                            return item.get(itemFieldName); // 매칭된 값 반환
-                        }
-                    }
-                }
-            } else if (section.isObject()) { // 섹션이 객체인 경우
-                Iterator<String> sectionFieldNames = section.fieldNames();
-                while (sectionFieldNames.hasNext()) {
-                    String sectionFieldName = sectionFieldNames.next();
-                    if (sectionFieldName.replaceAll("\\s+", "").equals(sanitizedKey)) {
-                        return section.get(sectionFieldName); // 매칭된 값 반환
-                    }
-                }
+        String normalizedHeader = HeaderSynonyms.getOrDefault(header, header);
+        ColumnarDiseaseData.StringColumn column = data.getColumn(normalizedHeader);
+        if ("IMAGE_ID".equals(header)) {
+            Map<String, Integer> valueCounts = new HashMap<>();
+            for (int record = 0; record < data.getRecordCount(); record++) {
+                String value = column != null ? column.get(record) : null;
+                valueCounts.merge(value != null ? value : data.getImageIds().get(record), 1, Integer::sum);
             }
+            return valueCounts;
         }
-
-        return null; // 값을 찾을 수 없으면 null 반환
+        return column != null ? column.countValues() : Collections.emptyMap();
     }
 
-
-
     private static final Map<String, String> HeaderSynonyms = new HashMap<>() {{
         put("MAKER_INFO", "MAKER_INFO");
         put("MAKER_INFO", "MAKER_IF"); // MAKER_IF를 MAKER_INFO로 매핑
@@ -451,7 +279,7 @@ public class AnalyzeJsonDataServiceImpl implements AnalyzeDataService{
 
     private String extractInstitutionName(String fileName) {
         // 확장자 제거
-        String cleanFileName = fileName.replace(".json", "");
+        String cleanFileName = DiseaseJsonStore.stripExtension(fileName);
 
         // 파일명 분리 및 기관명 추출
         String[] parts = cleanFileName.split("_");
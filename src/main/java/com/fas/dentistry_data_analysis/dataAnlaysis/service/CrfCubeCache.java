@@ -0,0 +1,165 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.service;
+
+import com.fas.dentistry_data_analysis.common.service.DataVersion;
+import com.fas.dentistry_data_analysis.config.AnalysisCubeConfig;
+import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.CrfCube;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 폴더 필터 분석 큐브(CrfCube) 보관소
+ *
+ * 대상 파일 범위(질환/기관 파일명 조건)마다 큐브 하나를 두고, 데이터 버전(DataVersion)이 바뀌었거나
+ * 대상 파일의 이름/크기/수정 시각이 달라졌으면 다음 질의 때 다시 만든다.
+ * 같은 범위의 큐브는 한 번만 만들고 (다른 요청은 만들어질 때까지 기다림), 보관 수를 넘으면 가장 오래 쓰이지 않은 큐브부터 제거한다.
+ */
+@Slf4j
+@Service
+public class CrfCubeCache {
+
+    private final DataVersion dataVersion;
+    private final int maxScopes;
+
+    // 접근 순서 LinkedHashMap (모든 접근은 this 잠금 안에서)
+    private final LinkedHashMap<String, Entry> cubes = new LinkedHashMap<>(16, 0.75f, true);
+    // 범위별 생성 잠금
+    private final Map<String, Object> buildLocks = new ConcurrentHashMap<>();
+
+    // 지표
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong buildMillis = new AtomicLong();
+    private final AtomicLong cubeQueries = new AtomicLong();
+    private final AtomicLong scanQueries = new AtomicLong();
+
+    public CrfCubeCache(DataVersion dataVersion, AnalysisCubeConfig config) {
+        this.dataVersion = dataVersion;
+        this.maxScopes = Math.max(1, config.getMaxScopes());
+    }
+
+    /**
+     * 큐브를 만드는 작업
+     */
+    @FunctionalInterface
+    public interface Loader {
+        CrfCube load() throws IOException, ExecutionException, InterruptedException;
+    }
+
+    /**
+     * 범위의 큐브 조회 (없거나 데이터가 바뀌었으면 만들어 보관)
+     *
+     * @param scope  대상 파일 범위 이름
+     * @param files  큐브를 만드는 파일 (목록 순서 포함)
+     * @param loader 큐브 생성 작업
+     */
+    public CrfCube get(String scope, File[] files, Loader loader) throws IOException, ExecutionException, InterruptedException {
+        List<String> stamps = stamps(files);
+        long version = dataVersion.current();
+
+        CrfCube cube = lookup(scope, version, stamps);
+        if (cube != null) {
+            hits.incrementAndGet();
+            return cube;
+        }
+
+        synchronized (buildLocks.computeIfAbsent(scope, k -> new Object())) {
+            // 기다리는 동안 다른 요청이 만들었을 수 있음
+            cube = lookup(scope, version, stamps);
+            if (cube != null) {
+                hits.incrementAndGet();
+                return cube;
+            }
+
+            long startedAt = System.currentTimeMillis();
+            cube = loader.load();
+            long elapsed = System.currentTimeMillis() - startedAt;
+            builds.incrementAndGet();
+            buildMillis.addAndGet(elapsed);
+            log.info("CRF cube built for {}: {} rows, {} cells, dimensions {} ({} ms)",
+                    scope, cube.getRowCount(), cube.getCellCount(), cube.getHeaders(), elapsed);
+
+            synchronized (this) {
+                cubes.put(scope, new Entry(cube, version, stamps));
+                Iterator<String> eldest = cubes.keySet().iterator();
+                while (cubes.size() > maxScopes && eldest.hasNext()) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+            return cube;
+        }
+    }
+
+    /**
+     * 질의 방식 기록 (큐브로 답함 / 행을 훑음)
+     */
+    public void recordQuery(boolean answeredByCube) {
+        (answeredByCube ? cubeQueries : scanQueries).incrementAndGet();
+    }
+
+    /**
+     * 큐브 지표 (생성 수, 재사용 수, 질의 방식별 수, 보관 중인 큐브)
+     */
+    public Map<String, Object> getStats() {
+        long buildCount = builds.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("builds", buildCount);
+        stats.put("averageBuildMillis", buildCount == 0 ? 0 : buildMillis.get() / buildCount);
+        stats.put("cubeQueries", cubeQueries.get());
+        stats.put("scanQueries", scanQueries.get());
+
+        List<Map<String, Object>> scopes = new ArrayList<>();
+        synchronized (this) {
+            cubes.forEach((scope, entry) -> {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("scope", scope);
+                item.put("rows", entry.cube.getRowCount());
+                item.put("cells", entry.cube.getCellCount());
+                item.put("dimensions", entry.cube.getHeaders());
+                item.put("dataVersion", entry.version);
+                scopes.add(item);
+            });
+        }
+        stats.put("cubes", scopes);
+        stats.put("dataVersion", dataVersion.current());
+        return stats;
+    }
+
+    private synchronized CrfCube lookup(String scope, long version, List<String> stamps) {
+        Entry entry = cubes.get(scope);
+        if (entry == null || entry.version != version || !entry.stamps.equals(stamps)) {
+            return null;
+        }
+        return entry.cube;
+    }
+
+    // 파일 이름, 크기, 수정 시각 (목록 순서대로)
+    private static List<String> stamps(File[] files) {
+        List<String> stamps = new ArrayList<>(files.length);
+        for (File file : files) {
+            stamps.add(file.getName() + ':' + file.length() + ':' + file.lastModified());
+        }
+        return stamps;
+    }
+
+    private static final class Entry {
+        private final CrfCube cube;
+        private final long version;
+        private final List<String> stamps;
+
+        private Entry(CrfCube cube, long version, List<String> stamps) {
+            this.cube = cube;
+            this.version = version;
+            this.stamps = stamps;
+        }
+    }
+}
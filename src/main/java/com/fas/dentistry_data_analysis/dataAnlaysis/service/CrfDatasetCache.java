@@ -0,0 +1,80 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.service;
+
+import com.fas.dentistry_data_analysis.common.util.excel.CrfStreamReader;
+import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.CrfDataset;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CRF 워크북의 열 단위 메모리 캐시
+ *
+ * 워크북마다 처음 조회할 때 한 번 스트리밍으로 읽어 CrfDataset으로 보관하고,
+ * 파일의 수정 시각/크기가 바뀌면 다음 조회 때 다시 읽는다. 사라진 파일의 데이터는 다음 로드 때 정리한다.
+ */
+@Slf4j
+@Service
+public class CrfDatasetCache {
+
+    private final Map<String, CrfDataset> cache = new ConcurrentHashMap<>();
+    // 같은 파일을 동시에 여러 번 읽지 않도록 파일별 잠금
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * 워크북의 열 단위 데이터 조회 (파일이 바뀌었으면 다시 읽음)
+     *
+     * @param excelFile CRF 엑셀 파일 (.xlsx)
+     * @return 열 단위 데이터
+     */
+    public CrfDataset get(File excelFile) throws IOException {
+        String key = excelFile.getAbsolutePath();
+        CrfDataset cached = cache.get(key);
+        if (cached != null && cached.isBuiltFrom(excelFile.lastModified(), excelFile.length())) {
+            return cached;
+        }
+
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            long modified = excelFile.lastModified();
+            long length = excelFile.length();
+            cached = cache.get(key);
+            if (cached != null && cached.isBuiltFrom(modified, length)) {
+                return cached;
+            }
+
+            long startedAt = System.currentTimeMillis();
+            String fileName = excelFile.getName();
+            CrfDataset.Builder builder = new CrfDataset.Builder(modified, length);
+            CrfStreamReader.read(excelFile, sheetName -> CrfDataset.isCrfSheet(fileName, sheetName),
+                    CrfDataset.HEADER_ROW_INDEX, CrfDataset.FIRST_DATA_ROW_INDEX, null, CrfStreamReader.FormulaFormat.CELL_STRING, builder);
+            CrfDataset dataset = builder.build();
+            log.info("Loaded CRF dataset {} in {} ms", fileName, System.currentTimeMillis() - startedAt);
+            logMalformedValues(fileName, dataset);
+
+            cache.put(key, dataset);
+            evictMissingFiles();
+            return dataset;
+        }
+    }
+
+    // 구간 필드(나이, 체중, 키, 촬영 시기)에 숫자가 아닌 값이 있으면 읽을 때 한 번만 기록 (분석 요청 중에는 구간 없음으로 집계)
+    private void logMalformedValues(String fileName, CrfDataset dataset) {
+        for (CrfDataset.Sheet sheet : dataset.getSheets()) {
+            sheet.getColumns().forEach((header, column) -> {
+                CrfDataset.BinnedColumn bins = column.getBins();
+                if (bins != null && bins.getMalformedCount() > 0) {
+                    log.warn("{} [{}] {} 컬럼에 숫자가 아닌 값이 {}건 있습니다.", fileName, sheet.getName(), header, bins.getMalformedCount());
+                }
+            });
+        }
+    }
+
+    // 삭제된 파일(갱신 시 정리된 CRF, 지워진 업로드 파일)의 데이터 제거
+    private void evictMissingFiles() {
+        cache.keySet().removeIf(path -> !new File(path).isFile());
+        locks.keySet().removeIf(path -> !new File(path).isFile());
+    }
+}
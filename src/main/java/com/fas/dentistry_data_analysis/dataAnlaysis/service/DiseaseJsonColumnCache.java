@@ -0,0 +1,122 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.service;
+
+import com.fas.dentistry_data_analysis.common.service.DiseaseJsonStore;
+import com.fas.dentistry_data_analysis.common.util.json.JsonRecordProjection;
+import com.fas.dentistry_data_analysis.dataAnlaysis.util.json.ColumnarDiseaseData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * disease_json 파일의 열 단위 캐시 (C:/app/disease_json_cache)
+ *
+ * 원본 파일마다 "원본파일명.col" 파일로 저장하며, 원본의 수정 시각/크기가 바뀌면 다음 조회 때 다시 만든다.
+ * 만든 데이터는 메모리에도 보관하여 원본이 바뀌지 않는 동안에는 파일도 다시 읽지 않는다.
+ * 캐시 파일을 쓸 수 없어도 메모리의 데이터로 조회는 계속된다.
+ */
+@Slf4j
+@Service
+public class DiseaseJsonColumnCache {
+
+    public static final String CACHE_DIR = "C:/app/disease_json_cache";
+    private static final String CACHE_FILE_SUFFIX = ".col";
+
+    private final DiseaseJsonStore diseaseJsonStore;
+    private final Map<String, ColumnarDiseaseData> cache = new ConcurrentHashMap<>();
+    // 같은 원본 파일을 동시에 여러 번 만들지 않도록 파일별 잠금
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    public DiseaseJsonColumnCache(DiseaseJsonStore diseaseJsonStore) {
+        this.diseaseJsonStore = diseaseJsonStore;
+    }
+
+    /**
+     * 원본 파일의 열 단위 데이터 조회 (원본이 바뀌었으면 다시 만듦)
+     *
+     * @param sourceFile disease_json 파일
+     * @return 열 단위 데이터
+     */
+    public ColumnarDiseaseData get(File sourceFile) throws IOException {
+        String key = sourceFile.getAbsolutePath();
+        ColumnarDiseaseData cached = cache.get(key);
+        if (cached != null && cached.isBuiltFrom(sourceFile.lastModified(), sourceFile.length())) {
+            return cached;
+        }
+
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            long modified = sourceFile.lastModified();
+            long length = sourceFile.length();
+            cached = cache.get(key);
+            if (cached != null && cached.isBuiltFrom(modified, length)) {
+                return cached;
+            }
+
+            File cacheFile = new File(CACHE_DIR, sourceFile.getName() + CACHE_FILE_SUFFIX);
+            ColumnarDiseaseData data = readCacheFile(cacheFile, modified, length);
+            if (data == null) {
+                data = build(sourceFile, modified, length);
+                writeCacheFile(cacheFile, data);
+            }
+            cache.put(key, data);
+            return data;
+        }
+    }
+
+    private ColumnarDiseaseData build(File sourceFile, long modified, long length) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        ColumnarDiseaseData.Builder builder = new ColumnarDiseaseData.Builder(modified, length);
+        try (DiseaseJsonStore.RecordIterator records = diseaseJsonStore.openRecords(sourceFile, JsonRecordProjection.structure())) {
+            while (records.hasNext()) {
+                builder.add(records.next());
+            }
+        }
+        ColumnarDiseaseData data = builder.build();
+        log.info("Built column cache for {}: {} records in {} ms", sourceFile.getName(), data.getRecordCount(), System.currentTimeMillis() - startedAt);
+        return data;
+    }
+
+    // 원본 상태가 같은 캐시 파일만 읽음 (없거나 다르면 null)
+    private ColumnarDiseaseData readCacheFile(File cacheFile, long modified, long length) {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        try (InputStream inputStream = new FileInputStream(cacheFile)) {
+            ColumnarDiseaseData data = ColumnarDiseaseData.readFrom(inputStream);
+            return data != null && data.isBuiltFrom(modified, length) ? data : null;
+        } catch (IOException e) {
+            log.warn("Failed to read column cache {}: {}", cacheFile.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCacheFile(File cacheFile, ColumnarDiseaseData data) {
+        try {
+            File dir = cacheFile.getParentFile();
+            if (!dir.exists()) {
+                dir.mkdirs(); // 디렉터리가 없으면 생성
+            }
+            Path tempFile = Files.createTempFile(dir.toPath(), cacheFile.getName(), ".tmp");
+            try {
+                try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                    data.writeTo(outputStream);
+                }
+                try {
+                    Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write column cache {}: {}", cacheFile.getName(), e.getMessage());
+        }
+    }
+}
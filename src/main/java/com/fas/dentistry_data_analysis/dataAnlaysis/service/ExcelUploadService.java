@@ -1,5 +1,6 @@
 package com.fas.dentistry_data_analysis.dataAnlaysis.service;
 
+import com.fas.dentistry_data_analysis.common.service.DataVersion;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,9 +18,11 @@ import java.util.*;
 public class ExcelUploadService{
 
    private final FileStorageService fileStorageService;
+   private final DataVersion dataVersion;
     @Autowired
-    public ExcelUploadService(FileStorageService fileStorageService) {
+    public ExcelUploadService(FileStorageService fileStorageService, DataVersion dataVersion) {
         this.fileStorageService = fileStorageService;
+        this.dataVersion = dataVersion;
     }
 
     // 파일을 서버에 저장하고 고유한 파일 ID를 반환하는 메소드
@@ -42,6 +45,7 @@ public class ExcelUploadService{
 
             // 파일 ID와 경로를 저장
             fileStorageService.storeFilePath(fileId, filePath);
+            dataVersion.bump("uploaded " + fileId); // 분석 결과 캐시 무효화
         } catch (IOException e) {
             System.err.println("파일 저장 중 오류 발생: " + e.getMessage());
             throw e;
@@ -5,10 +5,12 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 public interface FileProcessor {
     List<Map<String, Map<String, String>>> processFile(File file, String diseaseClass, int institutionId) throws IOException;
-    List<Map<String, Map<String, String>>> processServerFile(File file, String diseaseClass, int institutionId, Set<String> passIdsSet, Set<String> processedIds) throws IOException;
+    List<Map<String, Map<String, String>>> processServerFiles(Map<File, String> fileDiseaseClasses, int institutionId, Set<String> passIdsSet) throws IOException, ExecutionException, InterruptedException;
     List<Map<String, Map<String, String>>>  processExcelFile(File excelFile, String diseaseClass, int institutionId) throws IOException ;
-    List<Map<String, Map<String, String>>>  processServerExcelFile(File excelFile, String diseaseClass, int institutionId, Set<String> processedIds,Set<String> passIdsSet) throws IOException ;
+    long streamFile(File file, String diseaseClass, int institutionId, AnalysisRowSink sink) throws IOException;
+    long streamServerFiles(Map<File, String> fileDiseaseClasses, int institutionId, Set<String> passIdsSet, AnalysisRowSink sink) throws IOException, ExecutionException, InterruptedException;
 }
@@ -1,23 +1,28 @@
 package com.fas.dentistry_data_analysis.dataAnlaysis.service;
 
+import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.CrfDataset;
 import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.ExcelSheetHeaderMapping;
-import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.ExcelUtils;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 
 @Slf4j
 @Service
 public class FileProcessorServiceImpl implements FileProcessor{
 
+    private final CrfDatasetCache crfDatasetCache;
+    private final AnalysisTaskRunner analysisTaskRunner;
+
+    public FileProcessorServiceImpl(CrfDatasetCache crfDatasetCache, AnalysisTaskRunner analysisTaskRunner) {
+        this.crfDatasetCache = crfDatasetCache;
+        this.analysisTaskRunner = analysisTaskRunner;
+    }
+
     @Override
     public List<Map<String, Map<String, String>>> processFile(File file, String diseaseClass, int institutionId) throws IOException {
         String fileName = file.getName().toLowerCase();
@@ -30,310 +35,256 @@ public class FileProcessorServiceImpl implements FileProcessor{
     }
 
     @Override
-    public List<Map<String, Map<String, String>>> processServerFile(File file, String diseaseClass, int institutionId, Set<String> passIdsSet,Set<String> processedIds) throws IOException {
+    public long streamFile(File file, String diseaseClass, int institutionId, AnalysisRowSink sink) throws IOException {
         String fileName = file.getName().toLowerCase();
 
         if (fileName.endsWith(".xlsx")) {
-            return processServerExcelFile(file, diseaseClass, institutionId, processedIds,passIdsSet);
+            return streamExcelFile(file, diseaseClass, institutionId, sink);
         } else {
             throw new IllegalArgumentException("지원하지 않는 파일 형식입니다: " + fileName);
         }
     }
 
+    /**
+     * 폴더 분석용 여러 파일 처리 (Pass된 IMAGE_ID만, 같은 IMAGE_ID는 처음 나온 행 하나만)
+     *
+     * 대상 행을 고른 뒤(selectServerRows) 행 데이터도 구간별로 병렬 생성하여 (파일, 시트, 행) 순서대로 이어 붙인다.
+     *
+     * @param fileDiseaseClasses 파일 → 질환 클래스 (처리 순서대로)
+     */
     @Override
-    public List<Map<String, Map<String, String>>> processServerExcelFile(File excelFile, String diseaseClass, int institutionId, Set<String> processedIds, Set<String> passIdsSet) throws IOException {
-        List<Map<String, Map<String, String>>> dataList = new ArrayList<>();
-        List<Future<List<Map<String, Map<String, String>>>>> futureResults = new ArrayList<>();
-
-        ExecutorService executor = Executors.newFixedThreadPool(4); // 스레드풀 생성
+    public List<Map<String, Map<String, String>>> processServerFiles(Map<File, String> fileDiseaseClasses, int institutionId, Set<String> passIdsSet)
+            throws IOException, ExecutionException, InterruptedException {
+        List<ServerSheet> sheets = selectServerRows(fileDiseaseClasses, passIdsSet);
+
+        List<List<List<Map<String, Map<String, String>>>>> chunkRows =
+                analysisTaskRunner.invokeChunks(sheets, serverSheet -> serverSheet.sheet.getRowCount(), (serverSheet, fromRow, toRow) -> {
+                    List<Map<String, Map<String, String>>> rows = new ArrayList<>();
+                    for (int row = serverSheet.selectedRows.nextSetBit(fromRow); row >= 0 && row < toRow; row = serverSheet.selectedRows.nextSetBit(row + 1)) {
+                        rows.add(buildServerRow(serverSheet, row));
+                    }
+                    return rows;
+                });
 
-        try (InputStream inputStream = new FileInputStream(excelFile);
-             Workbook workbook = new XSSFWorkbook(inputStream)) {
+        List<Map<String, Map<String, String>>> dataList = new ArrayList<>();
+        for (List<List<Map<String, Map<String, String>>>> sheetChunks : chunkRows) {
+            for (List<Map<String, Map<String, String>>> chunk : sheetChunks) {
+                dataList.addAll(chunk);
+            }
+        }
+        return dataList; // 최종 데이터 반환
+    }
 
-            String fileName = excelFile.getName();
-            int numberOfSheets = workbook.getNumberOfSheets();
+    /**
+     * processServerFiles와 같은 행을 같은 순서로 한 건씩 sink에 전달
+     * 행 데이터는 sink가 받을 때마다 하나씩 만들므로 결과 크기와 관계없이 한 번에 한 행만 메모리에 둔다.
+     *
+     * @return 전달한 행 수
+     */
+    @Override
+    public long streamServerFiles(Map<File, String> fileDiseaseClasses, int institutionId, Set<String> passIdsSet, AnalysisRowSink sink)
+            throws IOException, ExecutionException, InterruptedException {
+        long count = 0;
+        for (ServerSheet serverSheet : selectServerRows(fileDiseaseClasses, passIdsSet)) {
+            for (int row = serverSheet.selectedRows.nextSetBit(0); row >= 0; row = serverSheet.selectedRows.nextSetBit(row + 1)) {
+                sink.accept(buildServerRow(serverSheet, row));
+                count++;
+            }
+        }
+        return count;
+    }
 
-            for (int i = 0; i < numberOfSheets; i++) {
-                Sheet sheet = workbook.getSheetAt(i);
+    /**
+     * 폴더 분석 대상 행 선택
+     *
+     * 1. 파일별 데이터셋 조회를 공용 풀에서 병렬로 수행
+     * 2. 시트의 행을 연속 구간으로 나눠 구간마다 Pass된 IMAGE_ID의 첫 행을 자기 버퍼에 모음 (구간 안 중복은 여기서 제거)
+     * 3. 요청 스레드에서 (파일, 시트, 구간) 순서대로 합치며 파일 간 중복 IMAGE_ID 제거
+     *
+     * @return 헤더 매핑이 있는 시트 (selectedRows에 결과에 들어갈 행 표시)
+     */
+    private List<ServerSheet> selectServerRows(Map<File, String> fileDiseaseClasses, Set<String> passIdsSet)
+            throws IOException, ExecutionException, InterruptedException {
+        List<File> files = new ArrayList<>(fileDiseaseClasses.keySet());
+        for (File file : files) {
+            String fileName = file.getName().toLowerCase();
+            if (!fileName.endsWith(".xlsx")) {
+                throw new IllegalArgumentException("지원하지 않는 파일 형식입니다: " + fileName);
+            }
+        }
 
-                // 기존 시트 이름 필터링 로직 유지
-                if (fileName.contains("두개안면") && !(sheet.getSheetName().contains("CRF") && sheet.getSheetName().contains("두개안면기형"))) {
-                    continue;
-                } else if (fileName.contains("치주질환") && !(sheet.getSheetName().contains("CRF") && sheet.getSheetName().contains("치주질환"))) {
-                    continue;
-                } else if (fileName.contains("구강암") && !(sheet.getSheetName().contains("CRF") && sheet.getSheetName().contains("구강암"))) {
-                    continue;
-                } else if (fileName.contains("골수염") && !(sheet.getSheetName().contains("CRF") && sheet.getSheetName().contains("골수염"))) {
+        // 워크북은 열 단위 캐시에서 조회 (파일이 바뀐 경우에만 다시 읽음)
+        List<Callable<CrfDataset>> loads = new ArrayList<>();
+        for (File file : files) {
+            loads.add(() -> crfDatasetCache.get(file));
+        }
+        List<CrfDataset> datasets = analysisTaskRunner.invokeAll(loads);
+
+        // 헤더 매핑이 있는 시트만 처리 대상으로 준비
+        List<ServerSheet> sheets = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            String diseaseClass = fileDiseaseClasses.get(files.get(i));
+            for (CrfDataset.Sheet sheet : datasets.get(i).getSheets()) {
+                Map<String, List<String>> headerConfig = ExcelSheetHeaderMapping.getHeadersForSheet(sheet.getName().trim());
+                if (headerConfig == null) {
                     continue;
-                } else if (!(sheet.getSheetName().contains("CRF"))) {
-                    continue; // "CRF"가 없는 시트 건너뜀
                 }
+                Map<String, CrfDataset.Column> requiredColumns = selectColumns(sheet, headerConfig.get("required"));
+                Map<String, CrfDataset.Column> optionalColumns = selectColumns(sheet, headerConfig.get("optional"));
 
-                String sheetName = sheet.getSheetName().trim();
-                Map<String, List<String>> headerConfig = ExcelSheetHeaderMapping.getHeadersForSheet(sheetName);
-
-                if (headerConfig != null) {
-                    List<String> requiredHeaders = headerConfig.get("required");
-                    List<String> optionalHeaders = headerConfig.get("optional");
-
-                    Row headerRow = sheet.getRow(3); // 4번째 행을 헤더로 설정
-                    if (headerRow == null) {
-                        throw new RuntimeException("헤더 행이 존재하지 않습니다. 파일을 확인해주세요.");
-                    }
-
-                    // 헤더 인덱스 매핑
-                    Map<String, Integer> headerIndexMap = new HashMap<>();
-                    for (int cellIndex = 0; cellIndex < headerRow.getLastCellNum(); cellIndex++) {
-                        Cell cell = headerRow.getCell(cellIndex);
-                        if (cell != null) {
-                            String headerName = cell.getStringCellValue().trim();
-                            if (requiredHeaders.contains(headerName) || optionalHeaders.contains(headerName)) {
-                                headerIndexMap.put(headerName, cellIndex);
-                            }
-                        }
-                    }
-
-                    Integer imageIdIndex = headerIndexMap.get("IMAGE_ID");
-
-                    for (int rowIndex = 8; rowIndex <= sheet.getLastRowNum(); rowIndex++) { // 9번째 행부터 데이터 읽기
-                        Row row = sheet.getRow(rowIndex);
-                        if (row != null) {
-                            Future<List<Map<String, Map<String, String>>>> future = executor.submit(() -> {
-                                List<Map<String, Map<String, String>>> rowDataList = new ArrayList<>();
-
-                                // Pass된 ID인지 확인
-                                String imageIdValue = ExcelUtils.getCellValueAsString(row.getCell(imageIdIndex)).trim();
-                                if (!passIdsSet.contains(imageIdValue)) {
-                                    return Collections.emptyList();
-                                }
-
-                                // 중복 검사
-                                synchronized (processedIds) {
-                                    if (!processedIds.add(imageIdValue)) {
-                                        return Collections.emptyList(); // 이미 처리된 경우 제외
-                                    }
-                                }
-
-                                Map<String, String> requiredData = new LinkedHashMap<>();
-                                Map<String, String> optionalData = new LinkedHashMap<>();
-
-                                // 필수 항목 처리
-                                for (String header : requiredHeaders) {
-                                    Integer cellIndex = headerIndexMap.get(header);
-                                    if (cellIndex != null) {
-                                        Cell cell = row.getCell(cellIndex);
-                                        String cellValue = (cell != null) ? ExcelUtils.getCellValueAsString(cell) : "";
-                                        requiredData.put(header, cellValue);
-                                    }
-                                }
-
-                                // 선택 항목 처리
-                                for (String header : optionalHeaders) {
-                                    Integer cellIndex = headerIndexMap.get(header);
-                                    if (cellIndex != null) {
-                                        Cell cell = row.getCell(cellIndex);
-                                        String cellValue = (cell != null) ? ExcelUtils.getCellValueAsString(cell) : "";
-                                        optionalData.put(header, cellValue);
-                                    }
-                                }
-
-                                // 필수 및 선택 항목이 모두 비어 있으면 제외
-                                if (requiredData.isEmpty() && optionalData.isEmpty()) {
-                                    return Collections.emptyList();
-                                }
-
-                                // 결과 데이터 생성
-                                Map<String, Map<String, String>> rowData = new HashMap<>();
-                                Map<String, String> combinedRequiredData = new HashMap<>();
-                                combinedRequiredData.put("disease", diseaseClass);
-                                combinedRequiredData.putAll(requiredData); // 기존 requiredData 병합
-                                rowData.put("required", combinedRequiredData);
-                                rowData.put("optional", optionalData);
-
-                                rowDataList.add(rowData);
-
-                                return rowDataList;
-                            });
-
-                            futureResults.add(future);
-                        }
-                    }
+                // 필수 및 선택 항목이 모두 없으면 제외
+                if (requiredColumns.isEmpty() && optionalColumns.isEmpty()) {
+                    continue;
                 }
+                sheets.add(new ServerSheet(sheet, diseaseClass, requiredColumns, optionalColumns));
             }
+        }
 
-            // 병렬 처리된 결과를 수집
-            for (Future<List<Map<String, Map<String, String>>>> future : futureResults) {
-                try {
-                    List<Map<String, Map<String, String>>> result = future.get();
-                    dataList.addAll(result);
-                } catch (Exception e) {
-                    log.error("병렬 처리 중 오류 발생: {}", e.getMessage());
-                }
+        // 행 구간별 처리 (구간마다 IMAGE_ID → 처음 나온 행, 행 순서)
+        List<List<LinkedHashMap<String, Integer>>> chunkResults =
+                analysisTaskRunner.invokeChunks(sheets, serverSheet -> serverSheet.sheet.getRowCount(),
+                        (serverSheet, fromRow, toRow) -> collectPassRows(serverSheet, fromRow, toRow, passIdsSet));
+
+        // 순서대로 합치며 중복 검사 (요청 스레드에서만 접근하므로 잠금 없음)
+        Set<String> processedIds = new HashSet<>();
+        for (int i = 0; i < sheets.size(); i++) {
+            BitSet selectedRows = sheets.get(i).selectedRows;
+            for (LinkedHashMap<String, Integer> chunk : chunkResults.get(i)) {
+                chunk.forEach((imageId, row) -> {
+                    if (processedIds.add(imageId)) {
+                        selectedRows.set(row);
+                    }
+                });
             }
-
-        } catch (Exception e) {
-            log.error("엑셀 파일 처리 중 오류 발생: {}", e.getMessage());
-            throw e;
-        } finally {
-            executor.shutdown();
         }
-
-        return dataList; // 최종 데이터 반환
+        return sheets;
     }
 
+    // 구간 [fromRow, toRow)에서 Pass된 IMAGE_ID의 첫 행 (구간 안에서 같은 IMAGE_ID는 처음 나온 행만)
+    private LinkedHashMap<String, Integer> collectPassRows(ServerSheet serverSheet, int fromRow, int toRow, Set<String> passIdsSet) {
+        LinkedHashMap<String, Integer> rows = new LinkedHashMap<>();
+        CrfDataset.Column imageIdColumn = serverSheet.sheet.getColumn("IMAGE_ID");
+        for (int row = fromRow; row < toRow; row++) {
+            // Pass된 ID인지 확인
+            String imageIdValue = imageIdColumn != null ? imageIdColumn.get(row) : "";
+            if (passIdsSet.contains(imageIdValue)) {
+                rows.putIfAbsent(imageIdValue, row);
+            }
+        }
+        return rows;
+    }
 
-
+    // 폴더 분석 결과 행 데이터 생성
+    private Map<String, Map<String, String>> buildServerRow(ServerSheet serverSheet, int row) {
+        Map<String, Map<String, String>> rowData = new HashMap<>();
+        Map<String, String> combinedRequiredData = new HashMap<>();
+        combinedRequiredData.put("disease", serverSheet.diseaseClass);
+        combinedRequiredData.putAll(rowValues(serverSheet.requiredColumns, row)); // 기존 requiredData 병합
+        rowData.put("required", combinedRequiredData);
+        rowData.put("optional", rowValues(serverSheet.optionalColumns, row));
+        return rowData;
+    }
 
     @Override
     public List<Map<String, Map<String, String>>> processExcelFile(File excelFile, String diseaseClass, int institutionId) throws IOException {
-
         List<Map<String, Map<String, String>>> dataList = new ArrayList<>();
-        List<Future<Map<String, Map<String, String>>>> futureResults = new ArrayList<>();
+        streamExcelFile(excelFile, diseaseClass, institutionId, dataList::add);
+        return dataList;
+    }
 
-        ExecutorService executor = Executors.newFixedThreadPool(4); // 스레드풀 생성
+    /**
+     * processExcelFile과 같은 행을 같은 순서로 한 건씩 sink에 전달
+     *
+     * @return 전달한 행 수
+     */
+    private long streamExcelFile(File excelFile, String diseaseClass, int institutionId, AnalysisRowSink sink) throws IOException {
+        long count = 0;
 
-        try (InputStream inputStream = new FileInputStream(excelFile);
-             Workbook workbook = new XSSFWorkbook(inputStream)) {
+        CrfDataset dataset = crfDatasetCache.get(excelFile);
 
-            String fileName = excelFile.getName();
-            int numberOfSheets = workbook.getNumberOfSheets();
+        for (CrfDataset.Sheet sheet : dataset.getSheets()) {
+            Map<String, List<String>> headerConfig = ExcelSheetHeaderMapping.getHeadersForSheet(sheet.getName().trim());
+            if (headerConfig == null) { // 매핑된 헤더가 있는 경우만 처리
+                continue;
+            }
+            Map<String, CrfDataset.Column> requiredColumns = selectColumns(sheet, headerConfig.get("required"));
+            Map<String, CrfDataset.Column> optionalColumns = selectColumns(sheet, headerConfig.get("optional"));
 
-            for (int i = 0; i < numberOfSheets; i++) {
-                Sheet sheet = workbook.getSheetAt(i);
+            CrfDataset.Column diseaseClassColumn = requiredColumns.get("DISEASE_CLASS");
+            CrfDataset.Column institutionIdColumn = requiredColumns.get("INSTITUTION_ID");
+            if (diseaseClassColumn == null || institutionIdColumn == null) {
+                continue;
+            }
 
-                // 시트 이름 필터링
-                if (fileName.contains("두개안면") && !(sheet.getSheetName().contains("CRF") && sheet.getSheetName().contains("두개안면기형"))) {
-                    continue;
-                } else if (fileName.contains("치주질환") && !(sheet.getSheetName().contains("CRF") && sheet.getSheetName().contains("치주질환"))) {
-                    continue;
-                } else if (fileName.contains("구강암") && !(sheet.getSheetName().contains("CRF") && sheet.getSheetName().contains("구강암"))) {
-                    continue;
-                } else if (fileName.contains("골수염") && !(sheet.getSheetName().contains("CRF") && sheet.getSheetName().contains("골수염"))) {
+            for (int row = 0; row < sheet.getRowCount(); row++) {
+                // 질환 클래스와 기관 ID 값 가져오기
+                String diseaseClassValue = diseaseClassColumn.get(row);
+                String institutionIdValueStr = institutionIdColumn.get(row);
+
+                // 질환 클래스 또는 기관 ID가 비어 있으면 제외
+                if (diseaseClassValue.isEmpty() || institutionIdValueStr.isEmpty()) {
                     continue;
-                } else if (!(sheet.getSheetName().contains("CRF"))) {
-                    continue; // "CRF"가 없는 시트 건너뜀
                 }
 
-                String sheetName = sheet.getSheetName().trim();
-                Map<String, List<String>> headerConfig = ExcelSheetHeaderMapping.getHeadersForSheet(sheetName);
-                if (headerConfig != null) { // 매핑된 헤더가 있는 경우만 처리
-                    List<String> requiredHeaders = headerConfig.get("required");
-                    List<String> optionalHeaders = headerConfig.get("optional");
-
-                    Row headerRow = sheet.getRow(3); // 4번째 행을 헤더로 설정
-                    if (headerRow == null) {
-                        throw new RuntimeException("헤더 행이 존재하지 않습니다. 파일을 확인해주세요.");
-                    }
-
-                    // 헤더 인덱스 매핑
-                    Map<String, Integer> headerIndexMap = new HashMap<>();
-                    for (int cellIndex = 0; cellIndex < headerRow.getLastCellNum(); cellIndex++) {
-                        Cell cell = headerRow.getCell(cellIndex);
-                        if (cell != null) {
-                            String headerName = cell.getStringCellValue().trim();
-                            if (requiredHeaders.contains(headerName) || optionalHeaders.contains(headerName)) {
-                                headerIndexMap.put(headerName, cellIndex);
-                            }
-                        }
-                    }
+                try {
+                    int institutionIdValue = Integer.parseInt(institutionIdValueStr);
 
-                    Integer diseaseClassIndex = headerIndexMap.get("DISEASE_CLASS");
-                    Integer institutionIdIndex = headerIndexMap.get("INSTITUTION_ID");
-                    Integer imageIdIndex = headerIndexMap.get("IMAGE_ID");
-
-                    if (diseaseClassIndex != null && institutionIdIndex != null) {
-                        for (int rowIndex = 8; rowIndex <= sheet.getLastRowNum(); rowIndex++) { // 9번째 행부터 데이터 읽기
-                            Row row = sheet.getRow(rowIndex);
-                            if (row != null) {
-                                Future<Map<String, Map<String, String>>> future = executor.submit(() -> {
-                                    Map<String, String> requiredData = new LinkedHashMap<>();
-                                    Map<String, String> optionalData = new LinkedHashMap<>();
-
-                                    // Pass된 ID인지 확인
-                                    String imageIdValue = ExcelUtils.getCellValueAsString(row.getCell(imageIdIndex));
-                                    // 질환 클래스와 기관 ID 값 가져오기
-                                    String diseaseClassValue = ExcelUtils.getCellValueAsString(row.getCell(diseaseClassIndex));
-                                    String institutionIdValueStr = ExcelUtils.getCellValueAsString(row.getCell(institutionIdIndex));
-
-
-                                    // 질환 클래스 또는 기관 ID가 비어 있으면 제외
-                                    if (diseaseClassValue == null || diseaseClassValue.isEmpty() ||
-                                            institutionIdValueStr == null || institutionIdValueStr.isEmpty()) {
-                                        return Collections.emptyMap(); // 빠르게 제외
-                                    }
-
-                                    try {
-                                        int institutionIdValue = Integer.parseInt(institutionIdValueStr);
-
-                                        // 필터 조건: 질환 클래스와 기관 ID 검사
-                                        if (!((diseaseClass.equals("0") || diseaseClass.equals(diseaseClassValue)) &&
-                                                (institutionId == 0 || institutionId == institutionIdValue)) ) {
-                                            return Collections.emptyMap(); // 조건에 맞지 않으면 제외
-                                        }
-                                    } catch (NumberFormatException e) {
-                                        System.err.println("숫자로 변환할 수 없는 institutionId 값: " + institutionIdValueStr);
-                                        return Collections.emptyMap(); // 숫자 변환 실패 시 제외
-                                    }
-
-                                    // 필수 항목 처리
-                                    for (String header : requiredHeaders) {
-                                        Integer cellIndex = headerIndexMap.get(header);
-                                        if (cellIndex != null) {
-                                            Cell cell = row.getCell(cellIndex);
-                                            String cellValue = (cell != null) ? ExcelUtils.getCellValueAsString(cell) : "";
-                                            requiredData.put(header, cellValue);
-                                        }
-                                    }
-
-                                    // 선택 항목 처리
-                                    for (String header : optionalHeaders) {
-                                        Integer cellIndex = headerIndexMap.get(header);
-                                        if (cellIndex != null) {
-                                            Cell cell = row.getCell(cellIndex);
-                                            String cellValue = (cell != null) ? ExcelUtils.getCellValueAsString(cell) : "";
-                                            optionalData.put(header, cellValue);
-                                        }
-                                    }
-
-                                    // 필수 및 선택 항목이 모두 비어 있으면 제외
-                                    if (requiredData.isEmpty() && optionalData.isEmpty()) {
-                                        return Collections.emptyMap();
-                                    }
-
-                                    // 결과 데이터 생성
-                                    Map<String, Map<String, String>> rowData = new HashMap<>();
-                                    rowData.put("required", requiredData);
-                                    rowData.put("optional", optionalData);
-                                    return rowData;
-                                });
-
-                                futureResults.add(future);
-                            }
-                        }
+                    // 필터 조건: 질환 클래스와 기관 ID 검사
+                    if (!((diseaseClass.equals("0") || diseaseClass.equals(diseaseClassValue)) &&
+                            (institutionId == 0 || institutionId == institutionIdValue))) {
+                        continue; // 조건에 맞지 않으면 제외
                     }
+                } catch (NumberFormatException e) {
+                    log.warn("숫자로 변환할 수 없는 institutionId 값: {}", institutionIdValueStr);
+                    continue; // 숫자 변환 실패 시 제외
                 }
-            }
 
-            // 병렬 처리된 결과를 수집
-            for (Future<Map<String, Map<String, String>>> future : futureResults) {
-                try {
-                    Map<String, Map<String, String>> result = future.get();
-                    if (!result.isEmpty()) {
-                        dataList.add(result);
-                    }
-                } catch (Exception e) {
-                    System.err.println("병렬 처리 중 오류 발생: " + e.getMessage());
-                }
+                // 결과 데이터 생성
+                Map<String, Map<String, String>> rowData = new HashMap<>();
+                rowData.put("required", rowValues(requiredColumns, row));
+                rowData.put("optional", rowValues(optionalColumns, row));
+                sink.accept(rowData);
+                count++;
             }
+        }
+
+        return count;
+    }
 
-        } catch (Exception e) {
-            System.err.println("엑셀 파일 처리 중 오류 발생: " + e.getMessage());
-            throw e;
-        } finally {
-            executor.shutdown();
+    // 시트에 있는 헤더의 컬럼 (헤더 목록 순서)
+    private Map<String, CrfDataset.Column> selectColumns(CrfDataset.Sheet sheet, List<String> headers) {
+        Map<String, CrfDataset.Column> columns = new LinkedHashMap<>();
+        for (String header : headers) {
+            CrfDataset.Column column = sheet.getColumn(header);
+            if (column != null) {
+                columns.put(header, column);
+            }
         }
+        return columns;
+    }
 
-        return dataList;
+    // 행의 컬럼 값 (셀이 없으면 빈 문자열)
+    private Map<String, String> rowValues(Map<String, CrfDataset.Column> columns, int row) {
+        Map<String, String> values = new LinkedHashMap<>();
+        columns.forEach((header, column) -> values.put(header, column.get(row)));
+        return values;
     }
-    // 셀 데이터를 String 변환하는 메소드
+
+    // 폴더 분석 대상 시트 (행 구간 작업이 함께 쓰는 읽기 전용 정보)
+    private static final class ServerSheet {
+        private final CrfDataset.Sheet sheet;
+        private final String diseaseClass;
+        private final Map<String, CrfDataset.Column> requiredColumns;
+        private final Map<String, CrfDataset.Column> optionalColumns;
+        // 결과에 들어갈 행 (행 선택 후 요청 스레드에서만 채움)
+        private final BitSet selectedRows = new BitSet();
+
+        private ServerSheet(CrfDataset.Sheet sheet, String diseaseClass,
+                            Map<String, CrfDataset.Column> requiredColumns, Map<String, CrfDataset.Column> optionalColumns) {
+            this.sheet = sheet;
+            this.diseaseClass = diseaseClass;
+            this.requiredColumns = requiredColumns;
+            this.optionalColumns = optionalColumns;
+        }
     }
+}
@@ -10,4 +10,5 @@ public interface JsonFileProcessor {
 
     List<Map<String, Map<String, String>>> processServerJsonFile( File jsonFile, String diseaseClass, int institutionId) throws IOException;
     public List<Map<String, Map<String, String>>> processJsonFile(File file, String diseaseClass, int institutionId) throws IOException;
+    long streamJsonFile(File file, String diseaseClass, int institutionId, AnalysisRowSink sink) throws IOException;
 }
@@ -1,22 +1,28 @@
 package com.fas.dentistry_data_analysis.dataAnlaysis.service;
 
 
+import com.fas.dentistry_data_analysis.common.service.DiseaseJsonStore;
+import com.fas.dentistry_data_analysis.common.util.json.JsonFieldLocator;
+import com.fas.dentistry_data_analysis.common.util.json.JsonRecordProjection;
 import com.fas.dentistry_data_analysis.dataAnlaysis.util.json.JsonHeaderMapping;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.*;
 
 @Slf4j
 @Service
 public class JsonFileProcessorServiceImpl implements JsonFileProcessor {
 
+    private final DiseaseJsonStore diseaseJsonStore;
+
+    public JsonFileProcessorServiceImpl(DiseaseJsonStore diseaseJsonStore) {
+        this.diseaseJsonStore = diseaseJsonStore;
+    }
+
     @Override
     // JSON 파일 처리 메소드
     public List<Map<String, Map<String, String>>> processServerJsonFile(
@@ -25,36 +31,44 @@ public class JsonFileProcessorServiceImpl implements JsonFileProcessor {
             int institutionId) throws IOException {
 
         List<Map<String, Map<String, String>>> dataList = new ArrayList<>();
-        ObjectMapper objectMapper = new ObjectMapper();
-
-        try (InputStream inputStream = new FileInputStream(jsonFile)) {
-            // JSON 파일 파싱
-            JsonNode rootNode = objectMapper.readTree(inputStream);
-
-            // JSON 배열인지 확인
-            if (!rootNode.isArray()) {
-                throw new IllegalArgumentException("JSON 파일이 배열 형식이어야 합니다.");
-            }
+        streamServerJsonFile(jsonFile, diseaseClass, dataList::add);
+        return dataList; // 최종 데이터 반환
+    }
 
-            for (JsonNode recordNode : rootNode) {
-                // JSON 데이터의 DISEASE_CLASS 추출
-                String diseaseClassValue = diseaseClass;
+    /**
+     * processServerJsonFile과 같은 행을 레코드 순서대로 한 건씩 sink에 전달 (레코드는 한 건씩 읽어 바로 넘김)
+     *
+     * @return 전달한 행 수
+     */
+    private long streamServerJsonFile(File jsonFile, String diseaseClass, AnalysisRowSink sink) throws IOException {
+        long count = 0;
+
+        // 헤더 매핑 가져오기 (파일의 모든 레코드에 같은 매핑 사용)
+        Map<String, List<String>> headers = JsonHeaderMapping.getHeadersForJson(diseaseClass);
+        if (headers == null) {
+            log.warn("헤더 매핑을 찾을 수 없습니다: " + diseaseClass);
+            return count;
+        }
 
-                // 헤더 매핑 가져오기
-                Map<String, List<String>> headers = JsonHeaderMapping.getHeadersForJson(diseaseClassValue);
-                if (headers == null) {
-                    log.warn("헤더 매핑을 찾을 수 없습니다: " + diseaseClassValue);
-                    continue;
-                }
+        List<String> requiredHeaders = headers.get("required");
+        List<String> optionalHeaders = headers.get("optional");
 
-                List<String> requiredHeaders = headers.get("required");
-                List<String> optionalHeaders = headers.get("optional");
+        // 필수/선택 헤더 값만 남기고 나머지 하위 구조는 읽지 않음
+        List<String> projectedKeys = new ArrayList<>(requiredHeaders);
+        projectedKeys.addAll(optionalHeaders);
+        JsonRecordProjection projection = JsonRecordProjection.of(projectedKeys);
+        // 같은 파일의 레코드는 구조가 같으므로 탐색기 하나를 재사용
+        JsonFieldLocator fieldLocator = JsonFieldLocator.ignoringWhitespace();
 
+        // 저장소 파일의 레코드를 한 건씩 읽음 (JSON Lines / 이전 형식 JSON 배열)
+        try (DiseaseJsonStore.RecordIterator records = diseaseJsonStore.openRecords(jsonFile, projection)) {
+            while (records.hasNext()) {
+                JsonNode recordNode = records.next();
 
                 // 필수 데이터 추출
                 Map<String, String> requiredData = new LinkedHashMap<>();
                 for (String header : requiredHeaders) {
-                    JsonNode valueNode = findValueInSections(recordNode, header);
+                    JsonNode valueNode = fieldLocator.find(recordNode, header);
                     if (valueNode == null || valueNode.isNull()) {
                         log.warn("필수 헤더가 누락되었습니다: " + header);
                         requiredData.put(header, "N/A"); // 누락된 필수 값은 기본값 처리
@@ -66,7 +80,7 @@ public class JsonFileProcessorServiceImpl implements JsonFileProcessor {
                 // 선택 데이터 추출
                 Map<String, String> optionalData = new LinkedHashMap<>();
                 for (String header : optionalHeaders) {
-                    JsonNode valueNode = findValueInSections(recordNode, header);
+                    JsonNode valueNode = fieldLocator.find(recordNode, header);
                     if (valueNode != null && !valueNode.isNull()) {
                         optionalData.put(header, valueNode.asText());
                     }
@@ -79,74 +93,36 @@ public class JsonFileProcessorServiceImpl implements JsonFileProcessor {
                 combinedRequiredData.putAll(requiredData); // 기존 requiredData 병합
                 rowData.put("required", combinedRequiredData);
                 rowData.put("optional", optionalData);
-                dataList.add(rowData);
+                sink.accept(rowData);
+                count++;
             }
         } catch (IOException e) {
             log.error("JSON 파일 처리 중 오류 발생: {}", e.getMessage());
             throw e;
         }
 
-        return dataList; // 최종 데이터 반환
+        return count;
     }
 
-    /**
-     * JSON의 여러 섹션에서 특정 키를 찾아 값을 반환.
-     * @param recordNode JSON 데이터 레코드 노드
-     * @param key 찾을 키
-     * @return 값 (없으면 null)
-     */
 
-    private JsonNode findValueInSections(JsonNode recordNode, String key) {
-        // 공백 제거된 key 생성
-        String sanitizedKey = key.replaceAll("\\s+", "");
 
-        // JSON 최상위에서 값 검색
-        Iterator<String> rootFieldNames = recordNode.fieldNames();
-        while (rootFieldNames.hasNext()) {
-            String fieldName = rootFieldNames.next();
-            if (fieldName.replaceAll("\\s+", "").equals(sanitizedKey)) {
-                return recordNode.get(fieldName);
-            }
-        }
+    @Override
+    public List<Map<String, Map<String, String>>> processJsonFile(File file, String diseaseClass, int institutionId) throws IOException {
+        String fileName = file.getName().toLowerCase();
 
-        // JSON 섹션에서 값 검색
-        Iterator<Map.Entry<String, JsonNode>> fields = recordNode.fields();
-        while (fields.hasNext()) {
-            Map.Entry<String, JsonNode> field = fields.next();
-            JsonNode section = field.getValue();
-
-            if (section.isArray()) {
-                for (JsonNode item : section) {
-                    Iterator<String> itemFieldNames = item.fieldNames();
-                    while (itemFieldNames.hasNext()) {
-                        String itemFieldName = itemFieldNames.next();
-                        if (itemFieldName.replaceAll("\\s+", "").equals(sanitizedKey)) {
-                            return item.get(itemFieldName);
-                        }
-                    }
-                }
-            } else {
-                Iterator<String> sectionFieldNames = section.fieldNames();
-                while (sectionFieldNames.hasNext()) {
-                    String sectionFieldName = sectionFieldNames.next();
-                    if (sectionFieldName.replaceAll("\\s+", "").equals(sanitizedKey)) {
-                        return section.get(sectionFieldName);
-                    }
-                }
-            }
+        if (DiseaseJsonStore.isRecordFile(fileName)) {
+            return processServerJsonFile(file, diseaseClass, institutionId);
+        } else {
+            throw new IllegalArgumentException("지원하지 않는 파일 형식입니다: " + fileName);
         }
-
-        // 값을 찾을 수 없으면 null 반환
-        return null;
     }
 
-
     @Override
-    public List<Map<String, Map<String, String>>> processJsonFile(File file, String diseaseClass, int institutionId) throws IOException {
+    public long streamJsonFile(File file, String diseaseClass, int institutionId, AnalysisRowSink sink) throws IOException {
         String fileName = file.getName().toLowerCase();
 
-        if (fileName.endsWith(".json")) {
-            return processServerJsonFile(file, diseaseClass, institutionId);
+        if (DiseaseJsonStore.isRecordFile(fileName)) {
+            return streamServerJsonFile(file, diseaseClass, sink);
         } else {
             throw new IllegalArgumentException("지원하지 않는 파일 형식입니다: " + fileName);
         }
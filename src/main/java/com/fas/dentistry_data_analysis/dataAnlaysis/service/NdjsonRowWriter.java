@@ -0,0 +1,65 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * 분석 결과 행을 NDJSON(한 줄에 JSON 객체 하나)으로 바로 쓰는 sink
+ *
+ * 행은 받는 즉시 직렬화하여 생성기 버퍼(수 KB)를 거쳐 출력 스트림으로 내보내므로 쌓이지 않는다.
+ * 클라이언트가 느리게 읽으면 출력 스트림 쓰기가 막히고, 그동안 다음 행도 만들어지지 않는다.
+ * FLUSH_EVERY_ROWS 행마다 비워 클라이언트가 결과를 나눠 받을 수 있게 한다.
+ *
+ * close는 생성기만 닫고 출력 스트림은 닫지 않는다 (서블릿 응답이 관리).
+ */
+public class NdjsonRowWriter implements AnalysisRowSink, Closeable {
+
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+    private long rowCount = 0;
+
+    public NdjsonRowWriter(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(outputStream);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null); // 줄 구분은 직접 씀
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    public void accept(Map<String, Map<String, String>> row) throws IOException {
+        writeLine(row);
+        rowCount++;
+        if (rowCount % FLUSH_EVERY_ROWS == 0) {
+            generator.flush();
+        }
+    }
+
+    /**
+     * 행이 아닌 줄(마지막 요약 등) 쓰기
+     */
+    public void writeLine(Object value) throws IOException {
+        writer.writeValue(generator, value);
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * 지금까지 쓴 행 수 (writeLine으로 쓴 줄은 제외)
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
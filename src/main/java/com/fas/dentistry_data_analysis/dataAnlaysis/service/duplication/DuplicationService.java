@@ -1,6 +1,10 @@
 package com.fas.dentistry_data_analysis.dataAnlaysis.service.duplication;
 
-import com.fas.dentistry_data_analysis.common.service.JSONService;
+import com.fas.dentistry_data_analysis.common.service.DiseaseJsonStore;
+import com.fas.dentistry_data_analysis.common.service.PassIdRegistry;
+import com.fas.dentistry_data_analysis.common.util.json.JsonFieldLocator;
+import com.fas.dentistry_data_analysis.common.util.json.JsonRecordProjection;
+import com.fas.dentistry_data_analysis.dataAnlaysis.service.AnalysisTaskRunner;
 import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.ExcelUtils;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -23,10 +27,18 @@ import java.util.stream.Stream;
 @Service
 public class DuplicationService {
 
-    private final JSONService jsonService;
+    private final PassIdRegistry passIdRegistry;
+    private final DiseaseJsonStore diseaseJsonStore;
+    private final AnalysisTaskRunner analysisTaskRunner;
 
-    public DuplicationService(JSONService jsonService) {
-        this.jsonService = jsonService;
+    // extractSpecificFieldsFromJson에서 읽는 키 (나머지 하위 구조는 읽지 않음)
+    private static final JsonRecordProjection SPECIFIC_FIELDS = JsonRecordProjection.of(List.of(
+            "excelFileName", "INSTITUTION_ID", "DISEASE_CLASS", "CAPTURE_TIME", "Identifier", "Image_id", "P_GENDER", "P_AGE"));
+
+    public DuplicationService(PassIdRegistry passIdRegistry, DiseaseJsonStore diseaseJsonStore, AnalysisTaskRunner analysisTaskRunner) {
+        this.passIdRegistry = passIdRegistry;
+        this.diseaseJsonStore = diseaseJsonStore;
+        this.analysisTaskRunner = analysisTaskRunner;
     }
 
     private static final Map<String, String> DiseaseClassMap = new HashMap<>() {{
@@ -62,7 +74,7 @@ public class DuplicationService {
         String diseaseKeyword = DiseaseClassMap.getOrDefault(diseaseClass, "");
         String institutionKeyword = institutionId == 0 ? "" : InstitutionMap.getOrDefault(String.valueOf(institutionId), "");
 
-        Set<String> passIdsSet = new HashSet<>(jsonService.loadPassIdsFromJson("C:/app/id/pass_ids.json"));
+        Set<String> passIdsSet = passIdRegistry.getPassIds();
 
         // 글로벌 중복 확인 맵
         Map<String, List<String>> combinationMap = new HashMap<>();
@@ -74,9 +86,8 @@ public class DuplicationService {
         // 처리된 파일 추적
         Set<String> processedFiles = new HashSet<>();
 
-        // 병렬 처리
-        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        List<Future<Void>> futureResults = new ArrayList<>();
+        // 공용 분석 풀에서 병렬 처리
+        List<Callable<Void>> tasks = new ArrayList<>();
         File[] files = folder.listFiles();
         if (files == null || files.length == 0) {
             throw new IOException("지정된 폴더에 파일이 없습니다.");
@@ -93,17 +104,13 @@ public class DuplicationService {
                 continue; // 필터 조건에 맞지 않으면 건너뜀
             }
 
-            futureResults.add(executor.submit(() -> {
+            tasks.add(() -> {
                 processServerFile(file, diseaseClass, institutionId, passIdsSet, combinationMap, duplicateDetailsMap, extractedDataList);
                 return null;
-            }));
-        }
-
-        for (Future<Void> future : futureResults) {
-            future.get(); // 각 작업 완료 대기
+            });
         }
 
-        executor.shutdown();
+        analysisTaskRunner.invokeAll(tasks); // 각 작업 완료 대기
 
         // 중복 데이터를 정리
         Map<String, List<String>> cleanedDuplicateDetails = cleanDuplicateData(duplicateDetailsMap);
@@ -291,13 +298,12 @@ public class DuplicationService {
         String institutionKeyword = institutionId == 0 ? "" : InstitutionMap.getOrDefault(String.valueOf(institutionId), "");
 
         List<Map<String, String>> extractedDataList = new ArrayList<>();
-        ObjectMapper objectMapper = new ObjectMapper();
 
         // JSON 파일 필터링
         File[] jsonFiles = folder.listFiles((dir, name) -> {
             boolean matchesDisease = diseaseKeyword.isEmpty() || name.contains(diseaseKeyword);
             boolean matchesInstitution = institutionKeyword.isEmpty() || name.contains(institutionKeyword);
-            return name.endsWith(".json") && matchesDisease && matchesInstitution;
+            return DiseaseJsonStore.isRecordFile(name) && matchesDisease && matchesInstitution;
         });
 
         if (jsonFiles == null || jsonFiles.length == 0) {
@@ -307,30 +313,25 @@ public class DuplicationService {
 
         // JSON 파일 읽기 및 필드 추출
         for (File jsonFile : jsonFiles) {
-            try (InputStream inputStream = new FileInputStream(jsonFile)) {
-                JsonNode rootNode = objectMapper.readTree(inputStream);
-
-                // JSON 배열인지 확인
-                if (!rootNode.isArray()) {
-                    log.warn("JSON 파일이 배열 형식이어야 합니다: {}", jsonFile.getName());
-                    continue;
-                }
-
-                for (JsonNode recordNode : rootNode) {
+            JsonFieldLocator fieldLocator = JsonFieldLocator.exact();
+            // 저장소 파일의 레코드를 한 건씩 읽음 (JSON Lines / 이전 형식 JSON 배열)
+            try (DiseaseJsonStore.RecordIterator records = diseaseJsonStore.openRecords(jsonFile, SPECIFIC_FIELDS)) {
+                while (records.hasNext()) {
+                    JsonNode recordNode = records.next();
                     Map<String, String> extractedFields = new LinkedHashMap<>();
 
                     // 필수 필드 추출
-                    extractedFields.put("excelFileName", Optional.ofNullable(findValueInSections(recordNode, "excelFileName"))
+                    extractedFields.put("excelFileName", Optional.ofNullable(fieldLocator.find(recordNode, "excelFileName"))
                             .map(JsonNode::asText).orElse("N/A"));
 
-                    extractedFields.put("INSTITUTION_ID", Optional.ofNullable(findValueInSections(recordNode, "INSTITUTION_ID"))
+                    extractedFields.put("INSTITUTION_ID", Optional.ofNullable(fieldLocator.find(recordNode, "INSTITUTION_ID"))
                             .map(JsonNode::asText).orElse("N/A"));
 
-                    extractedFields.put("DISEASE_CLASS", Optional.ofNullable(findValueInSections(recordNode, "DISEASE_CLASS"))
+                    extractedFields.put("DISEASE_CLASS", Optional.ofNullable(fieldLocator.find(recordNode, "DISEASE_CLASS"))
                             .map(JsonNode::asText).orElse("N/A"));
 
                     // CAPTURE_TIME 추출 (Image_info 배열의 첫 번째 요소 탐색)
-                    extractedFields.put("CAPTURE_TIME", Optional.ofNullable(findValueInSections(recordNode, "CAPTURE_TIME"))
+                    extractedFields.put("CAPTURE_TIME", Optional.ofNullable(fieldLocator.find(recordNode, "CAPTURE_TIME"))
                             .map(JsonNode::asText).orElse("N/A"));
 
 // Identifier 또는 Image_id 처리
@@ -364,9 +365,9 @@ public class DuplicationService {
 
 
                     // Patient_info에서 P_GENDER 및 P_AGE 추출
-                    extractedFields.put("P_GENDER", Optional.ofNullable(findValueInSections(recordNode, "P_GENDER"))
+                    extractedFields.put("P_GENDER", Optional.ofNullable(fieldLocator.find(recordNode, "P_GENDER"))
                             .map(JsonNode::asText).orElse("N/A"));
-                    extractedFields.put("P_AGE", Optional.ofNullable(findValueInSections(recordNode, "P_AGE"))
+                    extractedFields.put("P_AGE", Optional.ofNullable(fieldLocator.find(recordNode, "P_AGE"))
                             .map(JsonNode::asText).orElse("N/A"));
 
 
@@ -444,32 +445,6 @@ public class DuplicationService {
     }
 
 
-    private JsonNode findValueInSections(JsonNode recordNode, String key) {
-        // 최상위에서 값 검색
-        if (recordNode.has(key)) {
-            return recordNode.get(key);
-        }
-
-        // JSON 섹션에서 값 검색
-        Iterator<Map.Entry<String, JsonNode>> fields = recordNode.fields();
-        while (fields.hasNext()) {
-            Map.Entry<String, JsonNode> field = fields.next();
-            JsonNode section = field.getValue();
-
-            if (section.isArray()) {
-                for (JsonNode item : section) {
-                    if (item.has(key)) {
-                        return item.get(key);
-                    }
-                }
-            } else if (section.has(key)) {
-                return section.get(key);
-            }
-        }
-
-        // 값을 찾을 수 없으면 null 반환
-        return null;
-    }
 
     public Map<String, List<String>> cleanDuplicateData(Map<String, List<String>> duplicateDetailsMap) {
         Map<String, List<String>> cleanedData = new HashMap<>();
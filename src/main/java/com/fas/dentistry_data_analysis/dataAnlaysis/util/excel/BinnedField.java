@@ -0,0 +1,152 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.util.excel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 구간으로 집계하는 숫자 필드 (나이, 체중, 키, 촬영 시기)
+ *
+ * 셀 문자열을 정수로 한 번 바꾸고, ValueMapping의 구간 이름에 맞는 구간 번호를 정한다.
+ * - 구간 번호 0: 숫자이지만 어느 구간에도 속하지 않음 (촬영 시기만 해당, 이름은 빈 문자열)
+ * - 구간 번호 1 이상: getLabels()의 (번호 - 1)번째 이름
+ *
+ * 촬영 시기(CAPTURE_TIME)는 YYMM 형식 정수(예: 1201 = 2012년 1월)로 다루며,
+ * 날짜 셀이 Date.toString() 형식("Tue Jan 01 00:00:00 KST 2019")으로 들어온 경우에도 같은 YYMM 값으로 바꾼다.
+ */
+public enum BinnedField {
+
+    AGE("P_AGE", List.of("0-9", "10-20", "21-30", "31-40", "41-50", "51-60", "61-70", "71-80", "81-90", "90+")) {
+        @Override
+        public int bucketOf(int age) {
+            if (age < 10) return 1;
+            if (age > 90) return 10;
+            if (age <= 20) return 2;
+            return (age - 1) / 10 + 1; // 21-30 → 3, ..., 81-90 → 9
+        }
+    },
+    WEIGHT("P_WEIGHT", List.of("40 미만", "40-50", "51-60", "61-70", "71-80", "81-90", "91+")) {
+        @Override
+        public int bucketOf(int weight) {
+            if (weight < 40) return 1;
+            if (weight > 90) return 7;
+            if (weight <= 50) return 2;
+            return (weight - 1) / 10 - 2; // 51-60 → 3, ..., 81-90 → 6
+        }
+    },
+    HEIGHT("P_HEIGHT", List.of("140 미만", "140-150", "151-160", "161-170", "171-180", "181-190", "190+")) {
+        @Override
+        public int bucketOf(int height) {
+            if (height < 140) return 1;
+            if (height > 190) return 7;
+            if (height <= 150) return 2;
+            return (height - 1) / 10 - 12; // 151-160 → 3, ..., 181-190 → 6
+        }
+    },
+    CAPTURE_TIME("CAPTURE_TIME", List.of("07년 이하", "08년", "09년", "10년", "11년", "12년", "13년", "14년", "15년",
+            "16년", "17년", "18년", "19년", "20년", "21년", "22년", "23년", "24년")) {
+        @Override
+        public int bucketOf(int yearMonth) {
+            if (yearMonth <= 712) return 1;
+            int year = yearMonth / 100;
+            int month = yearMonth % 100;
+            if (year < 8 || year > 24 || month < 1 || month > 12) return 0;
+            return year - 6; // 08년 → 2, ..., 24년 → 18
+        }
+
+        @Override
+        public Integer parse(String value) {
+            Integer yearMonth = super.parse(value);
+            return yearMonth != null ? yearMonth : parseDateString(value);
+        }
+    };
+
+    private static final Pattern DATE_STRING = Pattern.compile("^[A-Z][a-z]{2} ([A-Z][a-z]{2}) \\d{2} \\d{2}:\\d{2}:\\d{2} \\S+ (\\d{4})$");
+    private static final Map<String, Integer> MONTHS = Map.ofEntries(
+            Map.entry("Jan", 1), Map.entry("Feb", 2), Map.entry("Mar", 3), Map.entry("Apr", 4),
+            Map.entry("May", 5), Map.entry("Jun", 6), Map.entry("Jul", 7), Map.entry("Aug", 8),
+            Map.entry("Sep", 9), Map.entry("Oct", 10), Map.entry("Nov", 11), Map.entry("Dec", 12));
+
+    private final String header;
+    private final List<String> labels;
+
+    BinnedField(String header, List<String> labels) {
+        this.header = header;
+        this.labels = labels;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * 정수 값의 구간 번호
+     */
+    public abstract int bucketOf(int value);
+
+    /**
+     * 셀 문자열을 정수로 변환 (앞뒤 공백 무시, int 범위를 넘으면 경계값으로 맞춤)
+     *
+     * @return 숫자가 아니면 null
+     */
+    public Integer parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, parsed));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 구간 번호의 이름 (구간 없음은 빈 문자열)
+     */
+    public String labelOf(int bucket) {
+        return bucket > 0 ? labels.get(bucket - 1) : "";
+    }
+
+    /**
+     * 셀 문자열의 구간 이름 (숫자가 아니면 빈 문자열)
+     */
+    public String labelOf(String value) {
+        Integer parsed = parse(value);
+        return parsed != null ? labelOf(bucketOf(parsed)) : "";
+    }
+
+    /**
+     * 헤더의 구간 필드 (구간 필드가 아니면 null)
+     */
+    public static BinnedField forHeader(String header) {
+        for (BinnedField field : values()) {
+            if (field.header.equals(header)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    // Date.toString() 형식 → YYMM (2000년 이전은 음수가 되어 07년 이하 구간에 속함)
+    private static Integer parseDateString(String value) {
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = DATE_STRING.matcher(value.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        Integer month = MONTHS.get(matcher.group(1));
+        if (month == null) {
+            return null;
+        }
+        int year = Integer.parseInt(matcher.group(2));
+        return (year - 2000) * 100 + month;
+    }
+}
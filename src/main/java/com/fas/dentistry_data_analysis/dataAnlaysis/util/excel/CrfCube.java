@@ -0,0 +1,371 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.util.excel;
+
+import java.util.*;
+
+/**
+ * CRF 행 수를 차원 코드 조합별로 미리 세어 둔 큐브 (폴더 필터 분석용)
+ *
+ * 값 종류가 적은 헤더(기관, 질환, 성별, 나이 구간, 흡연, 음주, 당뇨, 촬영 연도, 영상 종류)를 차원으로 두고,
+ * 차원 코드 조합마다 행 수를 하나의 int 배열(차원별 stride로 위치 계산)에 기록한다.
+ * 질의는 필터가 허용하는 코드 조합만 훑어 요청 헤더별 빈도를 HeaderHistogram으로 돌려주므로
+ * 행 수와 관계없이 칸 수에만 비례한다.
+ *
+ * 차원 코드
+ * - 0: 시트에 컬럼 없음 (RowFilter처럼 그 헤더의 조건은 맞는 것으로 보고, 집계하지 않음)
+ * - 값 차원: 1 이상이 셀 값 (빈 값 포함, 빈 값은 집계하지 않음)
+ * - 구간 차원(P_AGE, CAPTURE_TIME): 1 빈 값, 2 숫자가 아닌 값, 3 이상이 BinnedField 구간 번호 + 3
+ *   (두 헤더는 ConditionMatcher의 필터 구간이 구간 번호 하나와 정확히 같으므로 구간 코드만으로 범위 조건을 판단할 수 있음)
+ * - 기관 차원(INSTITUTION_ID): (파일명의 기관명, INSTITUTION_ID 셀 값) 쌍. 필터는 셀 값으로, 집계는 기관명으로
+ *
+ * 칸 수가 maxCells를 넘으면 값 종류가 가장 많은 차원부터 큐브에서 빼며, 빠진 헤더는 행을 훑어 집계해야 한다.
+ * 큐브는 만든 뒤 바뀌지 않으므로 여러 요청이 함께 읽어도 된다.
+ */
+public final class CrfCube {
+
+    public static final List<String> DIMENSIONS = List.of(
+            "INSTITUTION_ID", "DISEASE_CLASS", "P_GENDER", "P_AGE", "LS_SMOKE", "LS_ALCHOLE", "MH_DIABETES", "CAPTURE_TIME", "IMAGE_SRC");
+
+    private static final int MISSING = 0;
+    private static final int BIN_EMPTY = 1;
+    private static final int BIN_MALFORMED = 2;
+    private static final int BIN_OFFSET = 3;
+
+    private final Dimension[] dimensions;
+    private final Map<String, Dimension> byHeader = new LinkedHashMap<>();
+    private final int[] counts;
+    private final long rowCount;
+
+    private CrfCube(Dimension[] dimensions, int[] counts, long rowCount) {
+        this.dimensions = dimensions;
+        this.counts = counts;
+        this.rowCount = rowCount;
+        for (Dimension dimension : dimensions) {
+            byHeader.put(dimension.header, dimension);
+        }
+    }
+
+    public static Builder builder(int maxCells) {
+        return new Builder(maxCells);
+    }
+
+    /**
+     * 큐브로 집계할 수 있는 헤더인지 확인
+     */
+    public boolean supportsHeader(String header) {
+        return byHeader.containsKey(header);
+    }
+
+    /**
+     * 모든 필터 조건이 큐브 차원에 대한 것인지 확인 (하나라도 아니면 행을 훑어야 함)
+     */
+    public boolean supportsFilters(Map<String, String> filterConditions) {
+        return byHeader.keySet().containsAll(filterConditions.keySet());
+    }
+
+    /**
+     * 필터 조건에 맞는 행의 요청 헤더별 빈도
+     *
+     * @param filterConditions 헤더 → 요청 값 (supportsFilters가 true인 조건)
+     * @param headers          집계할 헤더 (큐브 차원이 아닌 헤더는 무시)
+     * @return 빈도 (analyzeDataWithFilters의 행 집계와 같은 값)
+     */
+    public HeaderHistogram query(Map<String, String> filterConditions, List<String> headers) {
+        HeaderHistogram histogram = new HeaderHistogram(true);
+
+        // 차원별로 훑을 코드 (필터가 없으면 모든 코드)
+        int[][] allowed = new int[dimensions.length][];
+        for (int d = 0; d < dimensions.length; d++) {
+            String expectedValue = filterConditions.get(dimensions[d].header);
+            allowed[d] = expectedValue != null ? dimensions[d].matchingCodes(expectedValue) : dimensions[d].allCodes();
+            if (allowed[d].length == 0) {
+                return histogram; // 조건에 맞는 행이 없음
+            }
+        }
+
+        // 집계할 차원 (요청 순서, 중복 제외)
+        List<Integer> countedList = new ArrayList<>();
+        for (String header : new LinkedHashSet<>(headers)) {
+            Dimension dimension = byHeader.get(header);
+            if (dimension != null) {
+                countedList.add(dimension.index);
+            }
+        }
+        int[] counted = countedList.stream().mapToInt(Integer::intValue).toArray();
+        long[][] totals = new long[dimensions.length][];
+        for (int d : counted) {
+            totals[d] = new long[dimensions[d].size()];
+        }
+
+        // 허용된 코드 조합을 자리올림 방식으로 차례로 방문
+        int[] position = new int[dimensions.length];
+        int[] code = new int[dimensions.length];
+        int cell = 0;
+        for (int d = 0; d < dimensions.length; d++) {
+            code[d] = allowed[d][0];
+            cell += code[d] * dimensions[d].stride;
+        }
+        while (true) {
+            int count = counts[cell];
+            if (count != 0) {
+                for (int d : counted) {
+                    totals[d][code[d]] += count;
+                }
+            }
+
+            int d = dimensions.length - 1;
+            while (d >= 0 && position[d] == allowed[d].length - 1) {
+                cell -= (code[d] - allowed[d][0]) * dimensions[d].stride;
+                position[d] = 0;
+                code[d] = allowed[d][0];
+                d--;
+            }
+            if (d < 0) {
+                break;
+            }
+            position[d]++;
+            cell += (allowed[d][position[d]] - code[d]) * dimensions[d].stride;
+            code[d] = allowed[d][position[d]];
+        }
+
+        for (int d : counted) {
+            for (int c = 0; c < totals[d].length; c++) {
+                if (totals[d][c] > 0) {
+                    dimensions[d].addTo(histogram, c, (int) totals[d][c]);
+                }
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * 큐브에 들어 있는 차원 헤더
+     */
+    public List<String> getHeaders() {
+        return new ArrayList<>(byHeader.keySet());
+    }
+
+    /**
+     * 칸 수
+     */
+    public int getCellCount() {
+        return counts.length;
+    }
+
+    /**
+     * 큐브에 센 행 수
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+    // 차원
+
+    private enum Kind { VALUE, BINNED, INSTITUTION }
+
+    private static final class Dimension {
+        private final String header;
+        private final Kind kind;
+        private final BinnedField field;
+        // 값 차원: 코드 → 셀 값, 기관 차원: 코드 → 셀 값 (컬럼이 없으면 null)
+        private final List<String> values = new ArrayList<>();
+        // 기관 차원: 코드 → 파일명의 기관명
+        private final List<String> institutionNames = new ArrayList<>();
+        private final Map<String, Integer> codeByKey = new HashMap<>();
+        private int index;
+        private int stride;
+
+        private Dimension(String header) {
+            this.header = header;
+            this.field = BinnedField.forHeader(header);
+            this.kind = "INSTITUTION_ID".equals(header) ? Kind.INSTITUTION : field != null ? Kind.BINNED : Kind.VALUE;
+            if (kind != Kind.BINNED) {
+                values.add(null); // 코드 0: 컬럼 없음
+                institutionNames.add(null);
+            }
+        }
+
+        int size() {
+            return kind == Kind.BINNED ? BIN_OFFSET + field.getLabels().size() + 1 : values.size();
+        }
+
+        // 셀 값(기관 차원은 기관명과 함께)의 코드, 처음 보는 값이면 새 코드
+        int intern(String institutionName, String value) {
+            String key = kind == Kind.INSTITUTION ? institutionName + '\u0000' + value : value;
+            Integer code = codeByKey.get(key);
+            if (code == null) {
+                code = values.size();
+                codeByKey.put(key, code);
+                values.add(value);
+                institutionNames.add(institutionName);
+            }
+            return code;
+        }
+
+        int[] allCodes() {
+            int[] codes = new int[size()];
+            for (int c = 0; c < codes.length; c++) {
+                codes[c] = c;
+            }
+            return codes;
+        }
+
+        // 필터 조건에 맞는 코드 (컬럼이 없는 코드 0은 항상 포함)
+        int[] matchingCodes(String expectedValue) {
+            List<Integer> codes = new ArrayList<>();
+            if (kind == Kind.BINNED) {
+                int[] range = "P_AGE".equals(header) ? ConditionMatcher.ageRange(expectedValue) : ConditionMatcher.yearRange(expectedValue);
+                codes.add(MISSING);
+                if (range == null) {
+                    // 알 수 없는 구간 코드: 컬럼이 있는 시트는 맞는 행이 없고, 컬럼이 없는 시트는 RowFilter처럼 조건을 무시
+                    return new int[]{MISSING};
+                }
+                // 필터 구간과 같은 구간 번호 (열린 쪽이 아닌 끝 값의 구간)
+                codes.add(BIN_OFFSET + field.bucketOf(range[1] != Integer.MAX_VALUE ? range[1] : range[0]));
+            } else {
+                codes.add(MISSING);
+                for (int c = 1; c < values.size(); c++) {
+                    if (values.get(c) == null || values.get(c).equals(expectedValue)) {
+                        codes.add(c);
+                    }
+                }
+            }
+            return codes.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        void addTo(HeaderHistogram histogram, int code, int count) {
+            switch (kind) {
+                case VALUE -> {
+                    if (code != MISSING) {
+                        histogram.add(header, values.get(code), count);
+                    }
+                }
+                case BINNED -> {
+                    if (code == BIN_MALFORMED) {
+                        histogram.addLabel(header, field.labelOf(0), count);
+                    } else if (code >= BIN_OFFSET) {
+                        histogram.addLabel(header, field.labelOf(code - BIN_OFFSET), count);
+                    }
+                }
+                case INSTITUTION -> histogram.add(header, institutionNames.get(code), count);
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+    // 생성
+
+    /**
+     * 시트별 선택된 행을 받아 큐브 생성
+     * 시트를 받을 때 시트 값 코드 → 큐브 코드 변환표만 만들고, build에서 행을 한 번 훑어 센다.
+     */
+    public static final class Builder {
+        private final int maxCells;
+        private final Dimension[] dimensions;
+        private final List<SheetPart> parts = new ArrayList<>();
+
+        private Builder(int maxCells) {
+            this.maxCells = maxCells;
+            this.dimensions = new Dimension[DIMENSIONS.size()];
+            for (int d = 0; d < dimensions.length; d++) {
+                dimensions[d] = new Dimension(DIMENSIONS.get(d));
+            }
+        }
+
+        /**
+         * @param sheet           시트
+         * @param institutionName 파일명의 기관명
+         * @param rows            큐브에 셀 행 (Pass된 IMAGE_ID, 중복 제거 후)
+         */
+        public Builder addSheet(CrfDataset.Sheet sheet, String institutionName, BitSet rows) {
+            CrfDataset.Column[] columns = new CrfDataset.Column[dimensions.length];
+            int[][] codeMaps = new int[dimensions.length][];
+            for (int d = 0; d < dimensions.length; d++) {
+                Dimension dimension = dimensions[d];
+                CrfDataset.Column column = sheet.getColumn(dimension.header);
+                if (dimension.kind == Kind.INSTITUTION && column == null) {
+                    codeMaps[d] = new int[]{dimension.intern(institutionName, null)};
+                } else if (column != null && dimension.kind != Kind.BINNED) {
+                    codeMaps[d] = new int[column.getDictionarySize()];
+                    for (int code = 0; code < codeMaps[d].length; code++) {
+                        codeMaps[d][code] = dimension.intern(institutionName, column.valueOf(code));
+                    }
+                }
+                columns[d] = column;
+            }
+            parts.add(new SheetPart(columns, codeMaps, rows));
+            return this;
+        }
+
+        public CrfCube build() {
+            // 칸 수가 상한 안에 들어올 때까지 값 종류가 많은 차원부터 제외
+            List<Dimension> kept = new ArrayList<>(Arrays.asList(dimensions));
+            while (cellCount(kept) > maxCells && !kept.isEmpty()) {
+                kept.remove(Collections.max(kept, Comparator.comparingInt(Dimension::size)));
+            }
+            Dimension[] selected = kept.toArray(new Dimension[0]);
+            int[] source = new int[selected.length];
+            int stride = 1;
+            for (int i = selected.length - 1; i >= 0; i--) {
+                selected[i].index = i;
+                selected[i].stride = stride;
+                stride *= selected[i].size();
+                source[i] = Arrays.asList(dimensions).indexOf(selected[i]);
+            }
+
+            int[] counts = new int[(int) cellCount(kept)];
+            long rowCount = 0;
+            for (SheetPart part : parts) {
+                for (int row = part.rows.nextSetBit(0); row >= 0; row = part.rows.nextSetBit(row + 1)) {
+                    int cell = 0;
+                    for (int i = 0; i < selected.length; i++) {
+                        cell += part.code(source[i], selected[i], row) * selected[i].stride;
+                    }
+                    counts[cell]++;
+                    rowCount++;
+                }
+            }
+            return new CrfCube(selected, counts, rowCount);
+        }
+
+        private static long cellCount(List<Dimension> dimensions) {
+            long cells = 1;
+            for (Dimension dimension : dimensions) {
+                cells *= dimension.size();
+                if (cells > Integer.MAX_VALUE) {
+                    return Long.MAX_VALUE;
+                }
+            }
+            return cells;
+        }
+    }
+
+    // 시트 하나의 컬럼과 코드 변환표
+    private static final class SheetPart {
+        private final CrfDataset.Column[] columns;
+        private final int[][] codeMaps;
+        private final BitSet rows;
+
+        private SheetPart(CrfDataset.Column[] columns, int[][] codeMaps, BitSet rows) {
+            this.columns = columns;
+            this.codeMaps = codeMaps;
+            this.rows = rows;
+        }
+
+        int code(int d, Dimension dimension, int row) {
+            CrfDataset.Column column = columns[d];
+            if (dimension.kind == Kind.BINNED) {
+                if (column == null) {
+                    return MISSING;
+                }
+                byte bucket = column.getBins().getBucket(row);
+                return bucket == CrfDataset.BinnedColumn.EMPTY ? BIN_EMPTY
+                        : bucket == CrfDataset.BinnedColumn.MALFORMED ? BIN_MALFORMED : BIN_OFFSET + bucket;
+            }
+            if (column == null) {
+                return dimension.kind == Kind.INSTITUTION ? codeMaps[d][0] : MISSING;
+            }
+            return codeMaps[d][column.getCode(row)];
+        }
+    }
+}
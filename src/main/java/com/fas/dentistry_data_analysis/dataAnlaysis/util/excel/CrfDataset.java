@@ -0,0 +1,345 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.util.excel;
+
+import com.fas.dentistry_data_analysis.common.util.excel.CrfStreamReader;
+
+import java.util.*;
+
+/**
+ * CRF 워크북 하나의 열(column) 단위 메모리 데이터
+ *
+ * CRF 시트마다 헤더(4번째 행)의 모든 컬럼을 사전(dictionary) + 행별 코드로 보관한다.
+ * 셀 값은 ExcelUtils.getCellValueAsString과 같은 문자열(앞뒤 공백 제거)이며, 코드 0은 항상 빈 값이다.
+ * 컬럼마다 값이 있는 행의 비트맵을 함께 두어 빈 셀을 바로 건너뛸 수 있다.
+ * 나이/체중/키/촬영 시기 컬럼은 읽을 때 한 번 정수와 구간 번호로 바꿔 둔다 (BinnedColumn).
+ *
+ * 원본 파일의 수정 시각/크기를 기록하여 파일이 바뀌었는지 판단한다.
+ */
+public class CrfDataset {
+
+    // CRF 시트 구조: 4번째 행이 헤더, 9번째 행부터 데이터
+    public static final int HEADER_ROW_INDEX = 3;
+    public static final int FIRST_DATA_ROW_INDEX = 8;
+
+    private final long sourceModified;
+    private final long sourceLength;
+    private final List<Sheet> sheets;
+
+    private CrfDataset(long sourceModified, long sourceLength, List<Sheet> sheets) {
+        this.sourceModified = sourceModified;
+        this.sourceLength = sourceLength;
+        this.sheets = sheets;
+    }
+
+    /**
+     * 원본 파일 상태와 같은지 확인
+     */
+    public boolean isBuiltFrom(long modified, long length) {
+        return sourceModified == modified && sourceLength == length;
+    }
+
+    /**
+     * 분석 대상 CRF 시트 (시트 순서대로)
+     */
+    public List<Sheet> getSheets() {
+        return sheets;
+    }
+
+    /**
+     * 분석 대상 CRF 시트인지 확인 (파일명의 질환과 같은 질환의 CRF 시트, 질환이 없으면 모든 CRF 시트)
+     */
+    public static boolean isCrfSheet(String fileName, String sheetName) {
+        if (fileName.contains("두개안면")) {
+            return sheetName.contains("CRF") && sheetName.contains("두개안면기형");
+        } else if (fileName.contains("치주질환")) {
+            return sheetName.contains("CRF") && sheetName.contains("치주질환");
+        } else if (fileName.contains("구강암")) {
+            return sheetName.contains("CRF") && sheetName.contains("구강암");
+        } else if (fileName.contains("골수염")) {
+            return sheetName.contains("CRF") && sheetName.contains("골수염");
+        }
+        return sheetName.contains("CRF");
+    }
+
+    /**
+     * 시트 하나의 컬럼 데이터
+     */
+    public static class Sheet {
+        private final String name;
+        private final int rowCount;
+        // 헤더명(앞뒤 공백 제거) → 컬럼 (헤더 순서)
+        private final Map<String, Column> columns;
+
+        private Sheet(String name, int rowCount, Map<String, Column> columns) {
+            this.name = name;
+            this.rowCount = rowCount;
+            this.columns = columns;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * 헤더명의 컬럼 (헤더에 없으면 null)
+         */
+        public Column getColumn(String header) {
+            return columns.get(header);
+        }
+
+        public Map<String, Column> getColumns() {
+            return columns;
+        }
+    }
+
+    /**
+     * 사전 인코딩된 컬럼
+     */
+    public static class Column {
+        private final String[] dictionary;
+        private final int[] codes;
+        private final BitSet present;
+        private final BinnedColumn bins;
+
+        private Column(String[] dictionary, int[] codes, BitSet present, BinnedField field) {
+            this.dictionary = dictionary;
+            this.codes = codes;
+            this.present = present;
+            this.bins = field != null ? new BinnedColumn(field, dictionary, codes) : null;
+        }
+
+        /**
+         * 행의 값 (셀이 없거나 비어 있으면 빈 문자열)
+         */
+        public String get(int row) {
+            return dictionary[codes[row]];
+        }
+
+        /**
+         * 행의 값 코드 (0은 빈 값)
+         */
+        public int getCode(int row) {
+            return codes[row];
+        }
+
+        /**
+         * 코드의 값
+         */
+        public String valueOf(int code) {
+            return dictionary[code];
+        }
+
+        /**
+         * 서로 다른 값의 수 (빈 값 포함)
+         */
+        public int getDictionarySize() {
+            return dictionary.length;
+        }
+
+        /**
+         * 값이 있는 행인지 확인
+         */
+        public boolean isPresent(int row) {
+            return present.get(row);
+        }
+
+        /**
+         * 값이 있는 행의 비트맵 (읽기 전용으로 사용)
+         */
+        public BitSet getPresentRows() {
+            return present;
+        }
+
+        /**
+         * 정수/구간 번호로 바꿔 둔 값 (구간 필드가 아니면 null)
+         */
+        public BinnedColumn getBins() {
+            return bins;
+        }
+    }
+
+    /**
+     * 구간 필드(BinnedField) 컬럼의 행별 정수 값과 구간 번호
+     *
+     * 구간 번호는 BinnedField의 번호(0: 구간 없음, 1 이상: 구간)에 더해
+     * EMPTY(빈 셀)와 MALFORMED(숫자가 아닌 값)를 쓴다. 숫자가 아닌 값의 수는 읽을 때 한 번만 센다.
+     */
+    public static class BinnedColumn {
+        public static final byte EMPTY = -1;
+        public static final byte MALFORMED = -2;
+
+        private final BinnedField field;
+        private final int[] values;
+        private final byte[] buckets;
+        private final int malformedCount;
+        // 숫자 값의 최소/최대 (숫자 값이 없으면 min > max)
+        private final int min;
+        private final int max;
+
+        private BinnedColumn(BinnedField field, String[] dictionary, int[] codes) {
+            // 서로 다른 값마다 한 번 변환
+            int[] valueByCode = new int[dictionary.length];
+            byte[] bucketByCode = new byte[dictionary.length];
+            bucketByCode[0] = EMPTY;
+            for (int code = 1; code < dictionary.length; code++) {
+                Integer parsed = field.parse(dictionary[code]);
+                if (parsed == null) {
+                    bucketByCode[code] = MALFORMED;
+                } else {
+                    valueByCode[code] = parsed;
+                    bucketByCode[code] = (byte) field.bucketOf(parsed);
+                }
+            }
+
+            int[] values = new int[codes.length];
+            byte[] buckets = new byte[codes.length];
+            int malformedCount = 0;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int row = 0; row < codes.length; row++) {
+                int code = codes[row];
+                values[row] = valueByCode[code];
+                buckets[row] = bucketByCode[code];
+                if (buckets[row] == MALFORMED) {
+                    malformedCount++;
+                } else if (buckets[row] != EMPTY) {
+                    min = Math.min(min, values[row]);
+                    max = Math.max(max, values[row]);
+                }
+            }
+
+            this.field = field;
+            this.values = values;
+            this.buckets = buckets;
+            this.malformedCount = malformedCount;
+            this.min = min;
+            this.max = max;
+        }
+
+        public BinnedField getField() {
+            return field;
+        }
+
+        /**
+         * 행의 정수 값 (hasValue가 false면 의미 없음)
+         */
+        public int getValue(int row) {
+            return values[row];
+        }
+
+        /**
+         * 행의 구간 번호 (EMPTY, MALFORMED, 0: 구간 없음, 1 이상: 구간)
+         */
+        public byte getBucket(int row) {
+            return buckets[row];
+        }
+
+        /**
+         * 행에 숫자 값이 있는지 확인
+         */
+        public boolean hasValue(int row) {
+            return buckets[row] >= 0;
+        }
+
+        /**
+         * 숫자 값 중 [min, max] 구간과 겹치는 값이 있는지 확인
+         */
+        public boolean mayContain(int min, int max) {
+            return this.min <= this.max && min <= this.max && max >= this.min;
+        }
+
+        /**
+         * 숫자가 아닌 값이 들어 있는 행 수
+         */
+        public int getMalformedCount() {
+            return malformedCount;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+    // 생성
+
+    /**
+     * CrfStreamReader의 행을 받아 데이터를 만드는 빌더
+     * CrfStreamReader.read(..., FormulaFormat.CELL_STRING, builder)로 모든 컬럼을 읽어 사용한다.
+     */
+    public static class Builder implements CrfStreamReader.RowHandler {
+        private final long sourceModified;
+        private final long sourceLength;
+        private final Map<String, SheetBuilder> sheets = new LinkedHashMap<>();
+
+        public Builder(long sourceModified, long sourceLength) {
+            this.sourceModified = sourceModified;
+            this.sourceLength = sourceLength;
+        }
+
+        @Override
+        public void onRow(String sheetName, int rowIndex, Map<String, String> values) {
+            sheets.computeIfAbsent(sheetName, SheetBuilder::new).add(values);
+        }
+
+        public CrfDataset build() {
+            List<Sheet> builtSheets = new ArrayList<>();
+            for (SheetBuilder sheet : sheets.values()) {
+                builtSheets.add(sheet.build());
+            }
+            return new CrfDataset(sourceModified, sourceLength, Collections.unmodifiableList(builtSheets));
+        }
+    }
+
+    private static class SheetBuilder {
+        private final String name;
+        private final Map<String, ColumnBuilder> columns = new LinkedHashMap<>();
+        private int rowCount = 0;
+
+        private SheetBuilder(String name) {
+            this.name = name;
+        }
+
+        private void add(Map<String, String> values) {
+            int row = rowCount++;
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                String value = entry.getValue().trim();
+                if (!value.isEmpty()) {
+                    columns.computeIfAbsent(entry.getKey(), k -> new ColumnBuilder()).set(row, value);
+                } else {
+                    columns.computeIfAbsent(entry.getKey(), k -> new ColumnBuilder()); // 값이 모두 비어 있어도 헤더는 유지
+                }
+            }
+        }
+
+        private Sheet build() {
+            Map<String, Column> builtColumns = new LinkedHashMap<>();
+            columns.forEach((header, column) -> builtColumns.put(header, column.build(rowCount, BinnedField.forHeader(header))));
+            return new Sheet(name, rowCount, Collections.unmodifiableMap(builtColumns));
+        }
+    }
+
+    private static class ColumnBuilder {
+        private final Map<String, Integer> codeByValue = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>(List.of(""));
+        private final BitSet present = new BitSet();
+        private int[] codes = new int[16];
+
+        private void set(int row, String value) {
+            if (row >= codes.length) {
+                codes = Arrays.copyOf(codes, Math.max(codes.length * 2, row + 1));
+            }
+            Integer code = codeByValue.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                codeByValue.put(value, code);
+                dictionary.add(value);
+            }
+            codes[row] = code;
+            present.set(row);
+        }
+
+        private Column build(int rowCount, BinnedField field) {
+            return new Column(dictionary.toArray(new String[0]), Arrays.copyOf(codes, rowCount), present, field);
+        }
+    }
+}
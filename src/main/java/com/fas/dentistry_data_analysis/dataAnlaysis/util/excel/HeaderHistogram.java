@@ -0,0 +1,203 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.util.excel;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 필터 분석 결과(헤더별 값 빈도) 집계기
+ *
+ * 파일 작업마다 자기 집계기를 하나 두고, 필터를 통과한 행을 한 번만 훑으며 요청된 모든 헤더의 빈도를
+ * 값 코드별 int 배열로 센 뒤 원본 값 기준으로 모아 둔다. 작업이 끝나면 호출한 쪽에서 merge로 합쳐 응답을 만든다.
+ * 집계기는 스레드 간에 공유하지 않는다 (합치기는 결과를 모으는 스레드에서만 수행).
+ *
+ * 매핑 함수(기관명, 지역명 등)는 응답을 만들 때 서로 다른 원본 값마다 한 번만 적용한다.
+ * 구간 필드(나이, 체중, 키, 촬영 시기) 컬럼은 읽을 때 정해 둔 구간 번호로 세어 구간 이름으로 바로 기록한다.
+ */
+public class HeaderHistogram {
+
+    private static final List<String> TOOTH_STATES = List.of("정상", "보철", "임플란트", "브릿지", "기타");
+
+    // P_RES_AREA를 시/도 단위로 묶을지 여부 (엑셀 분석만 해당)
+    private final boolean summarizeRegions;
+    // 헤더 → (원본 값 → 건수)
+    private final Map<String, Map<String, int[]>> valueCounts = new HashMap<>();
+    // 헤더 → (매핑된 값 → 건수), 구간 번호로 센 값
+    private final Map<String, Map<String, int[]>> labelCounts = new HashMap<>();
+    // 치아 상태별 건수 (TOOTH_STATES 순서)
+    private final int[] toothCounts = new int[TOOTH_STATES.size()];
+
+    /**
+     * @param summarizeRegions true면 P_RES_AREA 값을 시/도 이름(ValueMapping.getRegionName)으로 묶어 집계
+     */
+    public HeaderHistogram(boolean summarizeRegions) {
+        this.summarizeRegions = summarizeRegions;
+    }
+
+    /**
+     * 선택된 행들의 컬럼 값 빈도를 한 번에 집계
+     * Tooth_로 시작하는 컬럼의 값은 치아 상태 요약에도 더한다.
+     *
+     * @param columns 헤더명 → 컬럼
+     * @param rows    집계할 행 (필터를 통과한 행)
+     */
+    public void addRows(Map<String, CrfDataset.Column> columns, BitSet rows) {
+        if (columns.isEmpty() || rows.isEmpty()) {
+            return;
+        }
+        String[] names = columns.keySet().toArray(new String[0]);
+        CrfDataset.Column[] selected = columns.values().toArray(new CrfDataset.Column[0]);
+        CrfDataset.BinnedColumn[] bins = new CrfDataset.BinnedColumn[selected.length];
+        int[][] counts = new int[selected.length][];
+        for (int i = 0; i < selected.length; i++) {
+            bins[i] = selected[i].getBins();
+            // 구간 필드는 구간 번호별(0: 구간 없음/숫자가 아닌 값), 그 밖에는 값 코드별
+            counts[i] = new int[bins[i] != null ? bins[i].getField().getLabels().size() + 1 : selected[i].getDictionarySize()];
+        }
+
+        // 행 단위 한 번의 순회로 모든 컬럼의 코드/구간 빈도 기록
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            for (int i = 0; i < selected.length; i++) {
+                if (bins[i] == null) {
+                    counts[i][selected[i].getCode(row)]++;
+                } else {
+                    byte bucket = bins[i].getBucket(row);
+                    if (bucket != CrfDataset.BinnedColumn.EMPTY) {
+                        counts[i][Math.max(bucket, 0)]++;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < selected.length; i++) {
+            if (bins[i] != null) {
+                for (int bucket = 0; bucket < counts[i].length; bucket++) {
+                    addLabel(names[i], bins[i].getField().labelOf(bucket), counts[i][bucket]);
+                }
+                continue;
+            }
+            boolean tooth = names[i].startsWith("Tooth_");
+            for (int code = 1; code < counts[i].length; code++) { // 코드 0(빈 값)은 집계하지 않음
+                int count = counts[i][code];
+                if (count == 0) {
+                    continue;
+                }
+                String value = selected[i].valueOf(code);
+                add(names[i], value, count);
+                if (tooth) {
+                    addTooth(value, count);
+                }
+            }
+        }
+    }
+
+    /**
+     * 헤더 값의 건수 추가 (빈 값은 무시)
+     */
+    public void add(String header, String value, int count) {
+        if (count <= 0 || value.isEmpty()) {
+            return;
+        }
+        valueCounts.computeIfAbsent(header, k -> new HashMap<>()).computeIfAbsent(value, k -> new int[1])[0] += count;
+    }
+
+    /**
+     * 이미 매핑된 값(응답에 그대로 쓰는 값)의 건수 추가
+     */
+    public void addLabel(String header, String label, int count) {
+        if (count <= 0) {
+            return;
+        }
+        labelCounts.computeIfAbsent(header, k -> new HashMap<>()).computeIfAbsent(label, k -> new int[1])[0] += count;
+    }
+
+    /**
+     * 치아 상태 값(1~6)의 건수 추가 (그 밖의 값은 무시)
+     */
+    public void addTooth(String value, int count) {
+        int state = toothState(value);
+        if (state >= 0) {
+            toothCounts[state] += count;
+        }
+    }
+
+    /**
+     * 다른 작업의 집계 결과를 합침
+     */
+    public void merge(HeaderHistogram other) {
+        mergeCounts(valueCounts, other.valueCounts);
+        mergeCounts(labelCounts, other.labelCounts);
+        for (int i = 0; i < toothCounts.length; i++) {
+            toothCounts[i] += other.toothCounts[i];
+        }
+    }
+
+    /**
+     * 요청 헤더 순서대로 응답 생성 (id, title, headers, rows)
+     */
+    public List<Map<String, Object>> toResponse(List<String> headers) {
+        List<Map<String, Object>> responseList = new ArrayList<>();
+        for (String header : headers) {
+            if ("Tooth".equals(header)) {
+                Map<String, Object> result = new HashMap<>();
+                result.put("headers", Arrays.asList("치아 상태", "개수"));
+                result.put("id", "Tooth");
+                result.put("title", "치아 상태 요약");
+
+                List<Map<String, Object>> rows = new ArrayList<>();
+                for (int i = 0; i < TOOTH_STATES.size(); i++) {
+                    rows.add(Map.of("value", TOOTH_STATES.get(i), "count", toothCounts[i]));
+                }
+                result.put("rows", rows);
+                responseList.add(result);
+                continue;
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("id", header);
+            result.put("title", HeaderMapping.determineTitleBasedOnHeaders(Collections.singletonList(header)));
+            result.put("headers", HeaderMapping.determineHeadersBasedOnFilters(Collections.singletonList(header)));
+
+            // 서로 다른 원본 값마다 한 번만 매핑하여 합산
+            Function<String, String> mappingFunction = mappingFunction(header);
+            Map<String, Integer> mappedCounts = new HashMap<>();
+            valueCounts.getOrDefault(header, Collections.emptyMap()).forEach((value, count) ->
+                    mappedCounts.merge(mappingFunction.apply(value), count[0], Integer::sum));
+            labelCounts.getOrDefault(header, Collections.emptyMap()).forEach((label, count) ->
+                    mappedCounts.merge(label, count[0], Integer::sum));
+
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : mappedCounts.entrySet()) {
+                rows.add(Map.of("value", entry.getKey(), "count", entry.getValue()));
+            }
+            result.put("rows", rows);
+            responseList.add(result);
+        }
+        return responseList;
+    }
+
+    private static void mergeCounts(Map<String, Map<String, int[]>> target, Map<String, Map<String, int[]>> source) {
+        source.forEach((header, counts) -> {
+            Map<String, int[]> targetCounts = target.computeIfAbsent(header, k -> new HashMap<>());
+            counts.forEach((value, count) -> targetCounts.computeIfAbsent(value, k -> new int[1])[0] += count[0]);
+        });
+    }
+
+    private Function<String, String> mappingFunction(String header) {
+        if (summarizeRegions && "P_RES_AREA".equals(header)) {
+            return ValueMapping::getRegionName;
+        }
+        return ValueMapping.headerMappingFunctions.getOrDefault(header, Function.identity());
+    }
+
+    // 치아 상태 코드 → TOOTH_STATES 위치 (1 정상, 2 보철, 3 임플란트, 4 브릿지, 5/6 기타)
+    private static int toothState(String value) {
+        switch (value) {
+            case "1": return 0;
+            case "2": return 1;
+            case "3": return 2;
+            case "4": return 3;
+            case "5": case "6": return 4;
+            default: return -1;
+        }
+    }
+}
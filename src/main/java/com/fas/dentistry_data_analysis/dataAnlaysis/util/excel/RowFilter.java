@@ -0,0 +1,185 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.util.excel;
+
+import java.util.*;
+
+/**
+ * 시트 하나에 대해 미리 컴파일된 필터 조건
+ *
+ * 요청의 filterConditions를 시트마다 한 번 컬럼에 묶어 두고, 행마다 값 코드만 비교한다.
+ * - P_AGE, P_WEIGHT, P_HEIGHT: 정수 구간 (ConditionMatcher의 구간)
+ * - CAPTURE_TIME: 연도 구간 (YY01 ~ YY12)
+ * - 그 밖의 헤더: 문자열 일치 (컬럼 사전의 값 코드로 변환하여 비교)
+ * 구간 조건은 CrfDataset이 읽을 때 정수로 바꿔 둔 값(BinnedColumn)과 비교하며, 숫자가 아닌 값은 조건에 맞지 않는 것으로 본다.
+ *
+ * 조건은 비용이 적은 것부터(값 코드 일치 → 정수 구간) 평가하며 하나라도 맞지 않으면 바로 멈춘다.
+ * 시트에 없는 헤더의 조건은 무시한다.
+ */
+public final class RowFilter {
+
+    private static final RowFilter NONE = new RowFilter(new Condition[0], false);
+
+    private final Condition[] conditions;
+    // 시트 안에서 만족할 수 있는 행이 없는 조건이 있음 (사전에 없는 값, 알 수 없는 구간 코드 등)
+    private final boolean matchesNothing;
+
+    private RowFilter(Condition[] conditions, boolean matchesNothing) {
+        this.conditions = conditions;
+        this.matchesNothing = matchesNothing;
+    }
+
+    /**
+     * 필터 조건을 시트의 컬럼에 묶어 컴파일
+     *
+     * @param sheet            대상 시트
+     * @param filterConditions 헤더 → 요청 값
+     * @return 컴파일된 필터
+     */
+    public static RowFilter compile(CrfDataset.Sheet sheet, Map<String, String> filterConditions) {
+        if (filterConditions.isEmpty()) {
+            return NONE;
+        }
+
+        List<Condition> compiled = new ArrayList<>();
+        for (Map.Entry<String, String> condition : filterConditions.entrySet()) {
+            CrfDataset.Column column = sheet.getColumn(condition.getKey());
+            if (column == null) {
+                continue; // 시트에 없는 헤더는 조건에서 제외
+            }
+
+            Condition bound = bind(condition.getKey(), condition.getValue(), column);
+            if (bound.matchesNothing()) {
+                return new RowFilter(new Condition[0], true);
+            }
+            compiled.add(bound);
+        }
+
+        // 비용이 적은 조건부터 평가
+        compiled.sort(Comparator.comparingInt(Condition::cost));
+        return new RowFilter(compiled.toArray(new Condition[0]), false);
+    }
+
+    /**
+     * 시트의 어떤 행도 조건에 맞지 않는지 확인 (시트 전체를 건너뛸 때 사용)
+     */
+    public boolean matchesNothing() {
+        return matchesNothing;
+    }
+
+    /**
+     * 행이 모든 조건을 만족하는지 확인
+     */
+    public boolean matches(int row) {
+        if (matchesNothing) {
+            return false;
+        }
+        for (Condition condition : conditions) {
+            if (!condition.matches(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Condition bind(String header, String expectedValue, CrfDataset.Column column) {
+        return switch (header) {
+            case "P_AGE" -> RangeCondition.of(column, ConditionMatcher.ageRange(expectedValue));
+            case "P_WEIGHT" -> RangeCondition.of(column, ConditionMatcher.weightRange(expectedValue));
+            case "P_HEIGHT" -> RangeCondition.of(column, ConditionMatcher.heightRange(expectedValue));
+            case "CAPTURE_TIME" -> RangeCondition.of(column, ConditionMatcher.yearRange(expectedValue));
+            default -> EqualsCondition.of(column, expectedValue);
+        };
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+    // 조건
+
+    private interface Condition {
+        boolean matches(int row);
+
+        boolean matchesNothing();
+
+        // 평가 비용 등급 (작을수록 먼저 평가)
+        int cost();
+    }
+
+    /**
+     * 문자열 일치 조건 (요청 값의 사전 코드와 비교)
+     */
+    private static final class EqualsCondition implements Condition {
+        private final CrfDataset.Column column;
+        private final int code; // 사전에 없는 값이면 -1
+
+        private EqualsCondition(CrfDataset.Column column, int code) {
+            this.column = column;
+            this.code = code;
+        }
+
+        static EqualsCondition of(CrfDataset.Column column, String expectedValue) {
+            for (int code = 0; code < column.getDictionarySize(); code++) {
+                if (column.valueOf(code).equals(expectedValue)) {
+                    return new EqualsCondition(column, code);
+                }
+            }
+            return new EqualsCondition(column, -1);
+        }
+
+        @Override
+        public boolean matches(int row) {
+            return column.getCode(row) == code;
+        }
+
+        @Override
+        public boolean matchesNothing() {
+            return code < 0;
+        }
+
+        @Override
+        public int cost() {
+            return 0;
+        }
+    }
+
+    /**
+     * 정수 구간 조건 (읽을 때 변환해 둔 행별 정수 값과 비교)
+     */
+    private static final class RangeCondition implements Condition {
+        private final CrfDataset.BinnedColumn bins;
+        private final int min;
+        private final int max;
+        private final boolean matchesNothing;
+
+        private RangeCondition(CrfDataset.BinnedColumn bins, int min, int max, boolean matchesNothing) {
+            this.bins = bins;
+            this.min = min;
+            this.max = max;
+            this.matchesNothing = matchesNothing;
+        }
+
+        static RangeCondition of(CrfDataset.Column column, int[] range) {
+            CrfDataset.BinnedColumn bins = column.getBins();
+            if (range == null) {
+                return new RangeCondition(bins, 0, -1, true); // 알 수 없는 구간 코드
+            }
+            return new RangeCondition(bins, range[0], range[1], !bins.mayContain(range[0], range[1]));
+        }
+
+        @Override
+        public boolean matches(int row) {
+            if (!bins.hasValue(row)) {
+                return false; // 빈 값, 숫자가 아닌 값
+            }
+            int value = bins.getValue(row);
+            return value >= min && value <= max;
+        }
+
+        @Override
+        public boolean matchesNothing() {
+            return matchesNothing;
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+    }
+}
@@ -224,137 +224,23 @@ public class ValueMapping {
     }};
 
 
+    // 나이/체중/키/촬영 시기 구간 (구간 계산은 BinnedField, 숫자가 아니면 빈 문자열)
     private static String getAgeRange(String value) {
-        if (!isNumeric(value)) {
-            return ""; // 숫자가 아닌 경우 제외
-        }
-
-        int age = Integer.parseInt(value);
-        if (age < 10) {
-            return "0-9";
-        } else if (age >= 10 && age <= 20) {
-            return "10-20";
-        } else if (age >= 21 && age <= 30) {
-            return "21-30";
-        } else if (age >= 31 && age <= 40) {
-            return "31-40";
-        } else if (age >= 41 && age <= 50) {
-            return "41-50";
-        } else if (age >= 51 && age <= 60) {
-            return "51-60";
-        } else if (age >= 61 && age <= 70) {
-            return "61-70";
-        } else if (age >= 71 && age <= 80) {
-            return "71-80";
-        } else if (age >= 81 && age <= 90) {
-            return "81-90";
-        } else {
-            return "90+";
-        }
+        return BinnedField.AGE.labelOf(value);
     }
 
-
-    // 체중 필터링 구간 설정
     private static String getWeightRange(String value) {
-        if (!isNumeric(value)) {
-            return ""; // 숫자가 아닌 경우 제외
-        }
-
-        long weight = Long.parseLong(value);
-        if (weight < 40) {
-            return "40 미만";
-        } else if (weight >= 40 && weight <= 50) {
-            return "40-50";
-        } else if (weight >= 51 && weight <= 60) {
-            return "51-60";
-        } else if (weight >= 61 && weight <= 70) {
-            return "61-70";
-        } else if (weight >= 71 && weight <= 80) {
-            return "71-80";
-        } else if (weight >= 81 && weight <= 90) {
-            return "81-90";
-        } else {
-            return "91+";
-        }
+        return BinnedField.WEIGHT.labelOf(value);
     }
 
-
-    // 키 필터링 구간 설정
     private static String getHeightRange(String value) {
-        if (!isNumeric(value)) {
-            return ""; // 숫자가 아닌 경우 제외
-        }
-
-        int height = Integer.parseInt(value.trim());
-        if (height < 140) {
-            return "140 미만";
-        } else if (height >= 140 && height <= 150) {
-            return "140-150";
-        } else if (height >= 151 && height <= 160) {
-            return "151-160";
-        } else if (height >= 161 && height <= 170) {
-            return "161-170";
-        } else if (height >= 171 && height <= 180) {
-            return "171-180";
-        } else if (height >= 181 && height <= 190) {
-            return "181-190";
-        } else {
-            return "190+";
-        }
+        return BinnedField.HEIGHT.labelOf(value);
     }
 
-
     private static String getYearRange(String value) {
-        if (!isNumeric(value)) {
-            return ""; // 숫자가 아닌 경우 제외
-        }
-
-        int year = Integer.parseInt(value.trim());
-        if (year >= 1201 && year <= 1212) {
-            return "12년";
-        }  else if (year >= 1101 && year <= 1112) {
-            return "11년";
-        }   else if (year >= 1001 && year <= 1012) {
-            return "10년";
-        }   else if (year >= 901 && year <= 912) {
-            return "09년";
-        } else if (year >= 801 && year <= 812) {
-            return "08년";
-        }  else if (year <= 712) {
-            return "07년 이하";
-        } else if (year >= 1301 && year <= 1312) {
-            return "13년";
-        } else if (year >= 1401 && year <= 1412) {
-            return "14년";
-        } else if (year >= 1501 && year <= 1512) {
-            return "15년";
-        } else if (year >= 1601 && year <= 1612) {
-            return "16년";
-        } else if (year >= 1701 && year <= 1712) {
-            return "17년";
-        } else if (year >= 1801 && year <= 1812) {
-            return "18년";
-        } else if (year >= 1901 && year <= 1912) {
-            return "19년";
-        } else if (year >= 2001 && year <= 2012) {
-            return "20년";
-        } else if (year >= 2101 && year <= 2112) {
-            return "21년";
-        } else if (year >= 2201 && year <= 2212) {
-            return "22년";
-        } else if (year >= 2301 && year <= 2312) {
-            return "23년";
-        } else if (year >= 2401 && year <= 2412) {
-            return "24년";
-        } else {
-            return "";
-        }
+        return BinnedField.CAPTURE_TIME.labelOf(value);
     }
 
-
-
-
-
     // 특정 매핑을 가져오는 메소드
     public static String getInstitutionDescription(String value) {
         return institutionMap.getOrDefault(value, "");
@@ -426,6 +312,28 @@ public class ValueMapping {
     public static String getDataTimeDescription(String value) {
         return dataTimeMap.getOrDefault(value, "");
     }
+    // 거주 지역(P_RES_AREA) 시/도 매핑 메소드
+    public static String getRegionName(String label) {
+        if (label.contains("서울")) return "서울특별시";
+        if (label.contains("경기")) return "경기도";
+        if (label.contains("인천")) return "인천광역시";
+        if (label.contains("부산")) return "부산광역시";
+        if (label.contains("대구")) return "대구광역시";
+        if (label.contains("광주")) return "광주광역시";
+        if (label.contains("대전")) return "대전광역시";
+        if (label.contains("울산")) return "울산광역시";
+        if (label.contains("세종")) return "세종특별자치시";
+        if (label.contains("강원")) return "강원도";
+        if (label.contains("충청북도") || label.contains("충북")) return "충청북도";
+        if (label.contains("충청남도") || label.contains("충남")) return "충청남도";
+        if (label.contains("전라북도") || label.contains("전북")) return "전라북도";
+        if (label.contains("전라남도") || label.contains("전남")) return "전라남도";
+        if (label.contains("경상북도") || label.contains("경북")) return "경상북도";
+        if (label.contains("경상남도") || label.contains("경남")) return "경상남도";
+        if (label.contains("제주")) return "제주특별자치도";
+        return "기타지역"; // 매핑되지 않으면 기타지역
+    }
+
     // 진단명(DI_NAME) 매핑 메소드
     public static String getDiagnosisNameDescription(String value) {
         return diagnosisNameMap.getOrDefault(value, "");
@@ -449,17 +357,4 @@ public class ValueMapping {
         return details.toString();
     }
 
-
-    private static boolean isNumeric(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            return false; // null 또는 빈 문자열은 숫자가 아님
-        }
-        try {
-            Long.parseLong(value.trim());
-            return true; // 숫자로 변환 가능하면 true
-        } catch (NumberFormatException e) {
-            return false; // 변환 불가능하면 false
-        }
-    }
-
 }
@@ -0,0 +1,352 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.util.json;
+
+import com.fas.dentistry_data_analysis.common.util.json.JsonFieldLocator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * disease_json 파일 하나의 열(column) 단위 요약 (analyze-filters 조회용)
+ *
+ * IMAGE_ID가 있는 레코드만 담으며, 레코드별로 다음 값을 보관한다.
+ * - 키별 값: 공백을 제거한 키마다 사전(dictionary) + 레코드별 코드(int, 없으면 -1)
+ *   값은 JsonFieldLocator와 같은 규칙으로 찾은 값의 텍스트(trim)이며, "none"은 없는 값으로 저장
+ * - IMAGE_ID: IMAGE_ID 또는 Identifier에서 찾은 값
+ * - 치아 상태: Annotation_Data의 숫자 키(치아 번호)와 값 (레코드별 구간)
+ *
+ * 파일로 저장할 때는 원본 파일의 수정 시각/크기를 머리말에 기록하여 원본이 바뀌었는지 판단한다.
+ */
+public class ColumnarDiseaseData {
+
+    private static final int MAGIC = 0x444A4331; // "DJC1"
+    private static final int VERSION = 1;
+    private static final Pattern NUMERIC_KEY = Pattern.compile("\\d+");
+
+    private final long sourceModified;
+    private final long sourceLength;
+    private final int recordCount;
+    private final StringColumn imageIds;
+    private final Map<String, StringColumn> columns;
+    // 레코드 i의 치아 항목은 toothOffsets[i] ~ toothOffsets[i + 1] - 1
+    private final int[] toothOffsets;
+    private final StringColumn toothKeys;
+    private final StringColumn toothValues;
+
+    private ColumnarDiseaseData(long sourceModified, long sourceLength, int recordCount, StringColumn imageIds,
+                                Map<String, StringColumn> columns, int[] toothOffsets, StringColumn toothKeys, StringColumn toothValues) {
+        this.sourceModified = sourceModified;
+        this.sourceLength = sourceLength;
+        this.recordCount = recordCount;
+        this.imageIds = imageIds;
+        this.columns = columns;
+        this.toothOffsets = toothOffsets;
+        this.toothKeys = toothKeys;
+        this.toothValues = toothValues;
+    }
+
+    /**
+     * 원본 파일 상태와 같은지 확인
+     */
+    public boolean isBuiltFrom(long modified, long length) {
+        return sourceModified == modified && sourceLength == length;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public StringColumn getImageIds() {
+        return imageIds;
+    }
+
+    /**
+     * 키의 열 (공백을 제거한 키, 없으면 null)
+     */
+    public StringColumn getColumn(String key) {
+        return columns.get(JsonFieldLocator.stripWhitespace(key));
+    }
+
+    /**
+     * 치아 상태 값별 개수 (모든 레코드의 치아 항목)
+     */
+    public Map<String, Integer> countToothValues() {
+        return toothValues.countValues();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+    // 생성
+
+    /**
+     * 레코드를 한 건씩 추가하여 만드는 빌더
+     */
+    public static class Builder {
+        private final long sourceModified;
+        private final long sourceLength;
+        private final JsonFieldLocator fieldLocator = JsonFieldLocator.ignoringWhitespace();
+        private final StringColumnBuilder imageIds = new StringColumnBuilder();
+        private final Map<String, StringColumnBuilder> columns = new HashMap<>();
+        private final StringColumnBuilder toothKeys = new StringColumnBuilder();
+        private final StringColumnBuilder toothValues = new StringColumnBuilder();
+        private int[] toothOffsets = new int[64];
+        private int recordCount = 0;
+
+        public Builder(long sourceModified, long sourceLength) {
+            this.sourceModified = sourceModified;
+            this.sourceLength = sourceLength;
+        }
+
+        /**
+         * 레코드 추가 (IMAGE_ID가 없는 레코드는 건너뜀)
+         *
+         * @param recordNode JSON 데이터 레코드 (JsonRecordProjection.structure()로 읽은 레코드도 가능)
+         */
+        public void add(JsonNode recordNode) {
+            String imageId = extractImageId(recordNode);
+            if (imageId == null || imageId.isEmpty()) {
+                return;
+            }
+            int record = recordCount++;
+            imageIds.set(record, imageId);
+
+            for (Map.Entry<String, JsonNode> entry : fieldLocator.findAll(recordNode).entrySet()) {
+                String value = entry.getValue().asText().trim();
+                if (!value.equalsIgnoreCase("none")) {
+                    columns.computeIfAbsent(entry.getKey(), k -> new StringColumnBuilder()).set(record, value);
+                }
+            }
+
+            // 치아 번호별 값 (같은 번호가 여러 번 나오면 마지막 값)
+            Map<String, String> teeth = new LinkedHashMap<>();
+            JsonNode annotationDataNode = recordNode.get("Annotation_Data");
+            if (annotationDataNode != null && annotationDataNode.isArray()) {
+                for (JsonNode annotationItem : annotationDataNode) {
+                    Iterator<String> fieldNames = annotationItem.fieldNames();
+                    while (fieldNames.hasNext()) {
+                        String fieldName = fieldNames.next().trim();
+                        JsonNode toothNode = annotationItem.get(fieldName);
+                        if (NUMERIC_KEY.matcher(fieldName).matches() && toothNode != null) {
+                            teeth.put(fieldName, toothNode.asText().trim());
+                        }
+                    }
+                }
+            }
+            if (recordCount + 1 > toothOffsets.length) {
+                toothOffsets = Arrays.copyOf(toothOffsets, toothOffsets.length * 2);
+            }
+            int entryIndex = toothOffsets[record];
+            for (Map.Entry<String, String> tooth : teeth.entrySet()) {
+                toothKeys.set(entryIndex, tooth.getKey());
+                toothValues.set(entryIndex, tooth.getValue());
+                entryIndex++;
+            }
+            toothOffsets[record + 1] = entryIndex;
+        }
+
+        public ColumnarDiseaseData build() {
+            Map<String, StringColumn> builtColumns = new HashMap<>();
+            columns.forEach((key, column) -> builtColumns.put(key, column.build(recordCount)));
+            int toothCount = toothOffsets[recordCount];
+            return new ColumnarDiseaseData(sourceModified, sourceLength, recordCount, imageIds.build(recordCount), builtColumns,
+                    Arrays.copyOf(toothOffsets, recordCount + 1), toothKeys.build(toothCount), toothValues.build(toothCount));
+        }
+
+        // IMAGE_ID 직접 값, 없으면 Identifier(배열의 첫 IMAGE_ID 또는 문자열)
+        private String extractImageId(JsonNode recordNode) {
+            JsonNode imageIdNode = fieldLocator.find(recordNode, "IMAGE_ID");
+            if (imageIdNode != null && !imageIdNode.asText().trim().isEmpty()) {
+                return imageIdNode.asText().trim();
+            }
+            JsonNode identifierNode = recordNode.get("Identifier");
+            if (identifierNode != null) {
+                if (identifierNode.isArray()) {
+                    for (JsonNode item : identifierNode) {
+                        JsonNode identifierImageIdNode = item.get("IMAGE_ID");
+                        if (identifierImageIdNode != null && !identifierImageIdNode.asText().trim().isEmpty()) {
+                            return identifierImageIdNode.asText().trim();
+                        }
+                    }
+                } else if (identifierNode.isTextual()) {
+                    return identifierNode.asText().trim();
+                }
+            }
+            return null;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+    // 저장 형식: 머리말(MAGIC, VERSION, 원본 수정 시각/크기, 레코드 수) → IMAGE_ID 열 → 키별 열 → 치아 구간/키/값
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(sourceModified);
+        out.writeLong(sourceLength);
+        out.writeInt(recordCount);
+        imageIds.writeTo(out);
+        out.writeInt(columns.size());
+        for (Map.Entry<String, StringColumn> column : columns.entrySet()) {
+            writeString(out, column.getKey());
+            column.getValue().writeTo(out);
+        }
+        for (int offset : toothOffsets) {
+            out.writeInt(offset);
+        }
+        toothKeys.writeTo(out);
+        toothValues.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * 저장된 파일 읽기
+     *
+     * @return 읽은 데이터 (형식이 다르면 null)
+     */
+    public static ColumnarDiseaseData readFrom(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream, 64 * 1024));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return null;
+        }
+        long sourceModified = in.readLong();
+        long sourceLength = in.readLong();
+        int recordCount = in.readInt();
+        StringColumn imageIds = StringColumn.readFrom(in);
+        int columnCount = in.readInt();
+        Map<String, StringColumn> columns = new HashMap<>(columnCount * 2);
+        for (int i = 0; i < columnCount; i++) {
+            String key = readString(in);
+            columns.put(key, StringColumn.readFrom(in));
+        }
+        int[] toothOffsets = new int[recordCount + 1];
+        for (int i = 0; i <= recordCount; i++) {
+            toothOffsets[i] = in.readInt();
+        }
+        StringColumn toothKeys = StringColumn.readFrom(in);
+        StringColumn toothValues = StringColumn.readFrom(in);
+        return new ColumnarDiseaseData(sourceModified, sourceLength, recordCount, imageIds, columns, toothOffsets, toothKeys, toothValues);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * 사전 인코딩된 문자열 열
+     */
+    public static class StringColumn {
+        private final String[] dictionary;
+        private final int[] codes; // 값이 없으면 -1
+
+        private StringColumn(String[] dictionary, int[] codes) {
+            this.dictionary = dictionary;
+            this.codes = codes;
+        }
+
+        /**
+         * 레코드의 값 (없으면 null)
+         */
+        public String get(int record) {
+            int code = codes[record];
+            return code < 0 ? null : dictionary[code];
+        }
+
+        /**
+         * 값별 개수 (없는 값 제외)
+         */
+        public Map<String, Integer> countValues() {
+            int[] counts = new int[dictionary.length];
+            for (int code : codes) {
+                if (code >= 0) {
+                    counts[code]++;
+                }
+            }
+            Map<String, Integer> valueCounts = new HashMap<>();
+            for (int code = 0; code < counts.length; code++) {
+                if (counts[code] > 0) {
+                    valueCounts.put(dictionary[code], counts[code]);
+                }
+            }
+            return valueCounts;
+        }
+
+        // 코드 폭은 사전 크기에 맞춰 1/2/4바이트 (가장 큰 값은 "없음")
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(dictionary.length);
+            for (String value : dictionary) {
+                writeString(out, value);
+            }
+            int width = dictionary.length < 0xFF ? 1 : dictionary.length < 0xFFFF ? 2 : 4;
+            out.writeByte(width);
+            out.writeInt(codes.length);
+            for (int code : codes) {
+                if (width == 1) {
+                    out.writeByte(code < 0 ? 0xFF : code);
+                } else if (width == 2) {
+                    out.writeShort(code < 0 ? 0xFFFF : code);
+                } else {
+                    out.writeInt(code);
+                }
+            }
+        }
+
+        private static StringColumn readFrom(DataInputStream in) throws IOException {
+            String[] dictionary = new String[in.readInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(in);
+            }
+            int width = in.readByte();
+            int[] codes = new int[in.readInt()];
+            for (int i = 0; i < codes.length; i++) {
+                if (width == 1) {
+                    int code = in.readUnsignedByte();
+                    codes[i] = code == 0xFF ? -1 : code;
+                } else if (width == 2) {
+                    int code = in.readUnsignedShort();
+                    codes[i] = code == 0xFFFF ? -1 : code;
+                } else {
+                    codes[i] = in.readInt();
+                }
+            }
+            return new StringColumn(dictionary, codes);
+        }
+    }
+
+    private static class StringColumnBuilder {
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private int[] codes = new int[0];
+
+        private void set(int index, String value) {
+            if (index >= codes.length) {
+                int previousLength = codes.length;
+                codes = Arrays.copyOf(codes, Math.max(64, Math.max(index + 1, previousLength * 2)));
+                Arrays.fill(codes, previousLength, codes.length, -1);
+            }
+            codes[index] = dictionary.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        private StringColumn build(int size) {
+            int[] built = Arrays.copyOf(codes, size);
+            if (size > codes.length) {
+                Arrays.fill(built, codes.length, size, -1);
+            }
+            return new StringColumn(values.toArray(new String[0]), built);
+        }
+    }
+}
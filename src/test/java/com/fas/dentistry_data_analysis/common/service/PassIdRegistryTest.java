@@ -0,0 +1,55 @@
+package com.fas.dentistry_data_analysis.common.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PassIdRegistryTest {
+
+    @Test
+    void roundTripsPrefixCompressedIds() throws IOException {
+        Random random = new Random(16);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            ids.add(String.format("A%02d_%05d_%s", random.nextInt(20), random.nextInt(100000), random.nextBoolean() ? "L" : "R"));
+        }
+        // 접두어가 통째로 겹치는 ID, 빈 ID, 한글/서로게이트 문자 (접두어 경계가 서로게이트 쌍 가운데에 올 수 있음)
+        ids.addAll(Arrays.asList("", "A", "AB", "ABC", "ABC", "ABCD", "치주_001", "치주_002", "치아🦷", "치아🦷_1", "치아🦸"));
+        ids.add("X".repeat(20000));
+        ids.add("X".repeat(20000) + "Y");
+
+        PassIdRegistry.PassIdSet original = PassIdRegistry.PassIdSet.of(ids);
+        PassIdRegistry.PassIdSet restored = roundTrip(original);
+
+        assertEquals(new TreeSet<>(ids).size(), restored.size());
+        assertEquals(new ArrayList<>(new TreeSet<>(ids)), new ArrayList<>(restored)); // 정렬 + 중복 제거 순서
+        for (String id : ids) {
+            assertTrue(restored.contains(id), id);
+        }
+        assertFalse(restored.contains("ABCDE"));
+        assertFalse(restored.contains("치아\uD83E"));
+        assertFalse(restored.contains(1));
+    }
+
+    @Test
+    void roundTripsEmptySet() throws IOException {
+        assertTrue(roundTrip(PassIdRegistry.PassIdSet.of(Collections.emptyList())).isEmpty());
+    }
+
+    @Test
+    void rejectsOtherFormats() {
+        byte[] json = "[\"A0001\"]".getBytes();
+        assertThrows(IOException.class, () -> PassIdRegistry.PassIdSet.readFrom(new DataInputStream(new ByteArrayInputStream(json))));
+    }
+
+    private static PassIdRegistry.PassIdSet roundTrip(PassIdRegistry.PassIdSet set) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream outputStream = new DataOutputStream(bytes)) {
+            set.writeTo(outputStream);
+        }
+        return PassIdRegistry.PassIdSet.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
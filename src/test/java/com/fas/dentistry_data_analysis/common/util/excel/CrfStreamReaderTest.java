@@ -0,0 +1,127 @@
+package com.fas.dentistry_data_analysis.common.util.excel;
+
+import com.fas.dentistry_data_analysis.dataAnlaysis.util.excel.ExcelUtils;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CrfStreamReaderTest {
+
+    private static final int HEADER_ROW_INDEX = 3;
+    private static final int FIRST_DATA_ROW_INDEX = 8;
+    private static final List<String> HEADERS = Arrays.asList(
+            "STR", "INT", "DEC", "DATE", "F_INT", "F_DEC", "F_STR", "F_DATE", "F_BOOL", "F_ERR", "BOOL", "BLANK");
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void cellStringMatchesGetCellValueAsString() throws IOException {
+        File file = new File(tempDir, "crf.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            fillSheet(workbook, workbook.createSheet("CRF_치주질환"), 40, true);
+            workbook.createSheet("기타").createRow(HEADER_ROW_INDEX).createCell(0).setCellValue("STR");
+            workbook.getCreationHelper().createFormulaEvaluator().evaluateAll(); // 수식 결과값 캐싱
+            try (OutputStream outputStream = new FileOutputStream(file)) {
+                workbook.write(outputStream);
+            }
+        }
+
+        assertSameAsDom(file);
+    }
+
+    @Test
+    void inlineStringsMatchGetCellValueAsString() throws IOException {
+        File file = new File(tempDir, "crf_inline.xlsx");
+        // SXSSF는 문자열을 공유 문자열 대신 inlineStr 셀로 기록
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook()) {
+            fillSheet(workbook, workbook.createSheet("CRF_치주질환"), 40, false);
+            try (OutputStream outputStream = new FileOutputStream(file)) {
+                workbook.write(outputStream);
+            }
+            workbook.dispose();
+        }
+
+        assertSameAsDom(file);
+    }
+
+    private void fillSheet(Workbook workbook, Sheet sheet, int rows, boolean formulas) {
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+        Row headerRow = sheet.createRow(HEADER_ROW_INDEX);
+        for (int i = 0; i < HEADERS.size(); i++) {
+            headerRow.createCell(i).setCellValue(HEADERS.get(i));
+        }
+        sheet.createRow(HEADER_ROW_INDEX + 1).createCell(0).setCellValue("설명 행 (데이터 아님)");
+
+        Random random = new Random(3);
+        for (int r = 0; r < rows; r++) {
+            int excelRow = FIRST_DATA_ROW_INDEX + r + 1;
+            Row row = sheet.createRow(FIRST_DATA_ROW_INDEX + r);
+            row.createCell(0).setCellValue(r % 5 == 0 ? "  A" + r + " " : "ID_" + random.nextInt(100000));
+            row.createCell(1).setCellValue(random.nextInt(2000) - 1000);
+            row.createCell(2).setCellValue(random.nextInt(100000) / 7.0);
+            Cell dateCell = row.createCell(3);
+            dateCell.setCellValue(40000 + random.nextInt(10000) + (r % 2 == 0 ? 0 : 0.25));
+            dateCell.setCellStyle(dateStyle);
+            if (formulas) {
+                row.createCell(4).setCellFormula("B" + excelRow + "*2");
+                row.createCell(5).setCellFormula("B" + excelRow + "/4");
+                row.createCell(6).setCellFormula("CONCATENATE(\" x\",B" + excelRow + ",\" \")");
+                Cell dateFormula = row.createCell(7);
+                dateFormula.setCellFormula("D" + excelRow + "+1");
+                dateFormula.setCellStyle(dateStyle);
+                row.createCell(8).setCellFormula("B" + excelRow + ">0");
+                row.createCell(9).setCellFormula("1/0");
+            }
+            if (r % 3 != 0) {
+                row.createCell(10).setCellValue(r % 2 == 0);
+            }
+            if (r % 4 == 0) {
+                row.createCell(11).setBlank();
+            }
+        }
+    }
+
+    // 스트리밍 결과(앞뒤 공백 제거)와 DOM 방식 getCellValueAsString 결과 비교
+    private void assertSameAsDom(File file) throws IOException {
+        List<Map<String, String>> streamed = new ArrayList<>();
+        CrfStreamReader.read(file, sheetName -> sheetName.contains("CRF"), HEADER_ROW_INDEX, FIRST_DATA_ROW_INDEX,
+                null, CrfStreamReader.FormulaFormat.CELL_STRING, (sheetName, rowIndex, values) -> streamed.add(values));
+
+        List<Map<String, String>> expected = new ArrayList<>();
+        try (InputStream inputStream = new FileInputStream(file); Workbook workbook = WorkbookFactory.create(inputStream)) {
+            Sheet sheet = workbook.getSheet("CRF_치주질환");
+            Row headerRow = sheet.getRow(HEADER_ROW_INDEX);
+            for (int r = FIRST_DATA_ROW_INDEX; r <= sheet.getLastRowNum(); r++) {
+                Row row = sheet.getRow(r);
+                Map<String, String> values = new HashMap<>();
+                for (int c = 0; c < headerRow.getLastCellNum(); c++) {
+                    String header = headerRow.getCell(c).getStringCellValue().trim();
+                    values.put(header, ExcelUtils.getCellValueAsString(row.getCell(c)));
+                }
+                expected.add(values);
+            }
+        }
+
+        assertEquals(expected.size(), streamed.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Map<String, String> actual = new HashMap<>();
+            streamed.get(i).forEach((header, value) -> actual.put(header, value.trim()));
+            assertEquals(expected.get(i), actual, "row " + i); // 셀이 없는 컬럼은 양쪽 모두 빈 문자열
+        }
+    }
+}
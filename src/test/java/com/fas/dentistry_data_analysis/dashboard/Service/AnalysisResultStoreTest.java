@@ -0,0 +1,198 @@
+package com.fas.dentistry_data_analysis.dashboard.Service;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AnalysisResultStoreTest {
+
+    private static final String FOLDER = "/data/기관A/치주질환";
+
+    // 메모리 SFTP 서버 (경로 -> 파일 내용)
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final AtomicBoolean failNextRename = new AtomicBoolean(false);
+    private ChannelSftp channelSftp;
+
+    @BeforeEach
+    void setUp() throws SftpException {
+        channelSftp = mock(ChannelSftp.class);
+        doAnswer(invocation -> {
+            byte[] content = files.get(invocation.<String>getArgument(0));
+            if (content == null) {
+                throw noSuchFile(invocation.getArgument(0));
+            }
+            return new ByteArrayInputStream(content);
+        }).when(channelSftp).get(anyString());
+        doAnswer(invocation -> {
+            files.put(invocation.getArgument(1), invocation.<InputStream>getArgument(0).readAllBytes());
+            return null;
+        }).when(channelSftp).put(any(InputStream.class), anyString());
+        doAnswer(invocation -> {
+            if (files.remove(invocation.<String>getArgument(0)) == null) {
+                throw noSuchFile(invocation.getArgument(0));
+            }
+            return null;
+        }).when(channelSftp).rm(anyString());
+        doAnswer(invocation -> {
+            String from = invocation.getArgument(0);
+            String to = invocation.getArgument(1);
+            if (failNextRename.getAndSet(false) || files.containsKey(to) || !files.containsKey(from)) {
+                throw new SftpException(ChannelSftp.SSH_FX_FAILURE, "rename failed: " + from);
+            }
+            files.put(to, files.remove(from));
+            return null;
+        }).when(channelSftp).rename(anyString(), anyString());
+        doAnswer(invocation -> {
+            if (!files.containsKey(invocation.<String>getArgument(0))) {
+                throw noSuchFile(invocation.getArgument(0));
+            }
+            return null;
+        }).when(channelSftp).stat(anyString());
+        doAnswer(invocation -> {
+            String prefix = invocation.<String>getArgument(0) + "/";
+            Vector<ChannelSftp.LsEntry> entries = new Vector<>();
+            for (String path : files.keySet()) {
+                if (path.startsWith(prefix) && path.indexOf('/', prefix.length()) < 0) {
+                    ChannelSftp.LsEntry entry = mock(ChannelSftp.LsEntry.class);
+                    when(entry.getFilename()).thenReturn(path.substring(prefix.length()));
+                    entries.add(entry);
+                }
+            }
+            return entries;
+        }).when(channelSftp).ls(anyString());
+    }
+
+    @Test
+    void appendsAndCompactionKeepEveryRowInOrder() throws Exception {
+        AnalysisResultStore store = new AnalysisResultStore();
+        List<Map<String, Object>> expected = new ArrayList<>();
+
+        // 세그먼트 자동 압축(32개)을 두 번 넘기도록 추가, 빈 결과도 섞음
+        for (int i = 0; i < 70; i++) {
+            List<Map<String, Object>> rows = rows(i, i % 7 == 0 ? 0 : 1 + i % 3);
+            store.append(channelSftp, FOLDER, rows);
+            expected.addAll(rows);
+            assertEquals(expected, store.load(channelSftp, FOLDER), "after append " + i);
+        }
+
+        store.compactAll(channelSftp);
+
+        assertEquals(expected, store.load(channelSftp, FOLDER));
+        assertEquals(expected, new AnalysisResultStore().load(channelSftp, FOLDER)); // 재시작 후에도 같은 결과
+        assertEquals(Set.of(FOLDER + "/" + AnalysisResultStore.RESULT_FILE_NAME), files.keySet());
+    }
+
+    @Test
+    void failedCompactionStillReadsEveryRow() throws Exception {
+        AnalysisResultStore store = new AnalysisResultStore();
+        List<Map<String, Object>> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            List<Map<String, Object>> rows = rows(i, 2);
+            store.append(channelSftp, FOLDER, rows);
+            expected.addAll(rows);
+        }
+
+        failNextRename.set(true); // 임시 기준 파일을 올리고 목록에 기록한 뒤 이름 변경 단계에서 실패
+        store.compactAll(channelSftp);
+
+        assertEquals(expected, store.load(channelSftp, FOLDER));
+        assertEquals(expected, new AnalysisResultStore().load(channelSftp, FOLDER));
+
+        // 이후 추가와 압축도 이어서 동작하고 남은 임시 파일은 정리됨
+        List<Map<String, Object>> more = rows(99, 3);
+        store.append(channelSftp, FOLDER, more);
+        expected.addAll(more);
+        store.compactAll(channelSftp);
+
+        assertEquals(expected, new AnalysisResultStore().load(channelSftp, FOLDER));
+        assertEquals(Set.of(FOLDER + "/" + AnalysisResultStore.RESULT_FILE_NAME), files.keySet());
+    }
+
+    @Test
+    void replaceThenAppendKeepsBoth() throws Exception {
+        AnalysisResultStore store = new AnalysisResultStore();
+        store.append(channelSftp, FOLDER, rows(1, 2));
+
+        List<Map<String, Object>> expected = new ArrayList<>(rows(2, 4));
+        store.replace(channelSftp, FOLDER, expected);
+        List<Map<String, Object>> appended = rows(3, 1);
+        store.append(channelSftp, FOLDER, appended);
+        expected.addAll(appended);
+
+        assertEquals(expected, new AnalysisResultStore().load(channelSftp, FOLDER));
+    }
+
+    @Test
+    void concurrentAppendsLoseNoRows() throws Exception {
+        AnalysisResultStore store = new AnalysisResultStore();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                List<Map<String, Object>> rows = rows(i, 2);
+                futures.add(executor.submit(() -> {
+                    store.append(channelSftp, FOLDER, rows);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        store.compactAll(channelSftp);
+
+        List<String> ids = new AnalysisResultStore().load(channelSftp, FOLDER).stream()
+                .map(row -> (String) row.get("IMAGE_ID"))
+                .sorted()
+                .collect(Collectors.toList());
+        List<String> expectedIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows(i, 2).forEach(row -> expectedIds.add((String) row.get("IMAGE_ID")));
+        }
+        Collections.sort(expectedIds);
+        assertEquals(expectedIds, ids);
+    }
+
+    @Test
+    void deleteRemovesAllResultFiles() throws Exception {
+        AnalysisResultStore store = new AnalysisResultStore();
+        store.append(channelSftp, FOLDER, rows(1, 2));
+        files.put(FOLDER + "/CRF.xlsx", new byte[0]);
+
+        store.delete(channelSftp, FOLDER);
+
+        assertEquals(Set.of(FOLDER + "/CRF.xlsx"), files.keySet());
+        assertThrows(java.io.FileNotFoundException.class, () -> store.load(channelSftp, FOLDER));
+    }
+
+    private static List<Map<String, Object>> rows(int batch, int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("IMAGE_ID", "B" + batch + "_" + i);
+            row.put("INSTITUTION_ID", "기관A");
+            row.put("임상", batch * 10 + i);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static SftpException noSuchFile(String path) {
+        return new SftpException(ChannelSftp.SSH_FX_NO_SUCH_FILE, "No such file: " + path);
+    }
+}
@@ -0,0 +1,82 @@
+package com.fas.dentistry_data_analysis.dashboard.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ImageIdMatcherTest {
+
+    // 기존 방식: IMAGE_ID 순서대로 정규식/"_" 포함 여부를 확인해 처음 매칭된 IMAGE_ID
+    private static Optional<String> regexFirstMatch(List<String> imageIds, String name) {
+        return imageIds.stream()
+                .filter(imageId -> name.matches(".*\\b" + imageId + "\\b.*") || name.contains("_" + imageId))
+                .findFirst();
+    }
+
+    @Test
+    void matchesRegexRuleForFixedCases() {
+        List<String> imageIds = Arrays.asList("A0012", "0012", "12", "B_7", "C.1", "D-2", "가나");
+        ImageIdMatcher matcher = new ImageIdMatcher(imageIds);
+
+        for (String name : Arrays.asList("A0012", "A0012_CBCT", "X_0012", "X0012", "0012", "12", "x12", "x_12",
+                "A00123", "B_7", "AB_7", "B_77", "C.1", "Cx1", "D-2", "xD-2", "가나", "다가나", "_가나", "가나다",
+                "A0012 0012", "12 A0012", "", "___", "A0012-1", "x_A0012", "x_0012_A0012")) {
+            assertEquals(regexFirstMatch(imageIds, name), matcher.findFirstMatch(name), "name: " + name);
+        }
+    }
+
+    @Test
+    void returnsEarliestImageIdWhenSeveralMatch() {
+        List<String> imageIds = Arrays.asList("0012", "A0012");
+        ImageIdMatcher matcher = new ImageIdMatcher(imageIds);
+
+        assertEquals(Optional.of("0012"), matcher.findFirstMatch("A0012 0012"));
+        assertEquals(Optional.of("A0012"), new ImageIdMatcher(Arrays.asList("A0012", "0012")).findFirstMatch("A0012 0012"));
+        // '_'는 단어 문자이므로 "A0012_0012"의 A0012는 단어 경계 매칭이 아님
+        assertEquals(Optional.of("0012"), new ImageIdMatcher(Arrays.asList("A0012", "0012")).findFirstMatch("A0012_0012"));
+    }
+
+    @Test
+    void matchesRegexRuleForRandomNames() {
+        Random random = new Random(11);
+        String idAlphabet = "0123AB_";
+        String separators = "_-. 가";
+        for (int round = 0; round < 30; round++) {
+            List<String> imageIds = new ArrayList<>();
+            int idCount = 1 + random.nextInt(20);
+            for (int i = 0; i < idCount; i++) {
+                String imageId = randomString(random, idAlphabet, 1 + random.nextInt(5));
+                if (random.nextInt(10) == 0) {
+                    imageId = imageId + ".";  // 정규식 특수문자가 있는 IMAGE_ID
+                }
+                imageIds.add(imageId);
+            }
+            ImageIdMatcher matcher = new ImageIdMatcher(imageIds);
+
+            for (int i = 0; i < 200; i++) {
+                StringBuilder name = new StringBuilder();
+                int parts = 1 + random.nextInt(4);
+                for (int p = 0; p < parts; p++) {
+                    if (p > 0 || random.nextBoolean()) {
+                        name.append(separators.charAt(random.nextInt(separators.length())));
+                    }
+                    name.append(random.nextBoolean()
+                            ? imageIds.get(random.nextInt(imageIds.size()))
+                            : randomString(random, idAlphabet, 1 + random.nextInt(5)));
+                }
+                assertEquals(regexFirstMatch(imageIds, name.toString()), matcher.findFirstMatch(name.toString()),
+                        "ids: " + imageIds + ", name: " + name);
+            }
+        }
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package com.fas.dentistry_data_analysis.dashboard.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NameIndexTest {
+
+    // 기존 방식: 전체 이름을 contains로 확인
+    private static boolean scan(Collection<String> names, String keyword) {
+        return names.stream().anyMatch(name -> name.contains(keyword));
+    }
+
+    @Test
+    void matchesContainsScanForFixedCases() {
+        List<String> names = Arrays.asList(
+                "NonIdentifying_12345", "12345.dcm", "A0012_2023-01-05", "aaaa", "ab", "x",
+                "치주질환_A0012", "CBCT 0012 draw.ini", "___", "a-b.c_d");
+        NameIndex index = new NameIndex(names);
+
+        for (String keyword : Arrays.asList("", "1", "12", "123", "12345", "2345", "NonIdentifying", "Identifying_1",
+                "aaa", "aaaa", "aaaaa", "ab", "abc", "x", "xy", "0012", "A0012", "치주", "치주질환", "질환_A", "draw",
+                " 0012 ", "__", "___", "____", "-b.", "d", "zzz", "2023-01-05", ".dcm")) {
+            assertEquals(scan(names, keyword), index.anyContains(keyword), "keyword: " + keyword);
+        }
+    }
+
+    @Test
+    void emptyListingContainsNothing() {
+        NameIndex index = new NameIndex(Collections.emptyList());
+
+        assertEquals(false, index.anyContains(""));
+        assertEquals(false, index.anyContains("12345"));
+    }
+
+    @Test
+    void matchesContainsScanForRandomNames() {
+        Random random = new Random(7);
+        String alphabet = "0123456789AB_.-가";
+        for (int round = 0; round < 20; round++) {
+            List<String> names = new ArrayList<>();
+            int count = NameIndex.MIN_INDEXED_NAMES + random.nextInt(200);
+            for (int i = 0; i < count; i++) {
+                names.add(randomString(random, alphabet, 1 + random.nextInt(12)));
+            }
+            NameIndex index = new NameIndex(names);
+
+            for (int i = 0; i < 300; i++) {
+                String keyword = random.nextBoolean()
+                        ? randomString(random, alphabet, random.nextInt(7))
+                        : substringOf(random, names.get(random.nextInt(names.size())));
+                assertEquals(scan(names, keyword), index.anyContains(keyword), "keyword: " + keyword);
+            }
+        }
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    private static String substringOf(Random random, String name) {
+        int start = random.nextInt(name.length());
+        int end = start + random.nextInt(name.length() - start + 1);
+        return name.substring(start, end);
+    }
+}
@@ -0,0 +1,125 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.util.excel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BinnedFieldTest {
+
+    // 기존 ValueMapping 구간 이름 규칙 (숫자가 아니면 빈 문자열)
+    private static String legacyAgeRange(String value) {
+        if (!isNumeric(value)) return "";
+        int age = Integer.parseInt(value);
+        if (age < 10) return "0-9";
+        if (age <= 20) return "10-20";
+        if (age <= 30) return "21-30";
+        if (age <= 40) return "31-40";
+        if (age <= 50) return "41-50";
+        if (age <= 60) return "51-60";
+        if (age <= 70) return "61-70";
+        if (age <= 80) return "71-80";
+        if (age <= 90) return "81-90";
+        return "90+";
+    }
+
+    private static String legacyWeightRange(String value) {
+        if (!isNumeric(value)) return "";
+        long weight = Long.parseLong(value);
+        if (weight < 40) return "40 미만";
+        if (weight <= 50) return "40-50";
+        if (weight <= 60) return "51-60";
+        if (weight <= 70) return "61-70";
+        if (weight <= 80) return "71-80";
+        if (weight <= 90) return "81-90";
+        return "91+";
+    }
+
+    private static String legacyHeightRange(String value) {
+        if (!isNumeric(value)) return "";
+        int height = Integer.parseInt(value.trim());
+        if (height < 140) return "140 미만";
+        if (height <= 150) return "140-150";
+        if (height <= 160) return "151-160";
+        if (height <= 170) return "161-170";
+        if (height <= 180) return "171-180";
+        if (height <= 190) return "181-190";
+        return "190+";
+    }
+
+    private static String legacyYearRange(String value) {
+        if (!isNumeric(value)) return "";
+        int year = Integer.parseInt(value.trim());
+        if (year <= 712) return "07년 이하";
+        for (int yy = 8; yy <= 24; yy++) {
+            if (year >= yy * 100 + 1 && year <= yy * 100 + 12) {
+                return String.format("%02d년", yy);
+            }
+        }
+        return "";
+    }
+
+    private static boolean isNumeric(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return false;
+        }
+        try {
+            Long.parseLong(value.trim());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @Test
+    void labelsMatchLegacyValueMapping() {
+        for (String value : sampleValues()) {
+            assertEquals(legacyAgeRange(value), BinnedField.AGE.labelOf(value), "P_AGE " + value);
+            assertEquals(legacyWeightRange(value), BinnedField.WEIGHT.labelOf(value), "P_WEIGHT " + value);
+            assertEquals(legacyHeightRange(value), BinnedField.HEIGHT.labelOf(value), "P_HEIGHT " + value);
+            assertEquals(legacyYearRange(value), BinnedField.CAPTURE_TIME.labelOf(value), "CAPTURE_TIME " + value);
+        }
+    }
+
+    @Test
+    void valueMappingUsesBinnedFieldLabels() {
+        for (String value : sampleValues()) {
+            assertEquals(legacyAgeRange(value), ValueMapping.headerMappingFunctions.get("P_AGE").apply(value), "P_AGE " + value);
+            assertEquals(legacyWeightRange(value), ValueMapping.headerMappingFunctions.get("P_WEIGHT").apply(value), "P_WEIGHT " + value);
+            assertEquals(legacyHeightRange(value), ValueMapping.headerMappingFunctions.get("P_HEIGHT").apply(value), "P_HEIGHT " + value);
+            assertEquals(legacyYearRange(value), ValueMapping.headerMappingFunctions.get("CAPTURE_TIME").apply(value), "CAPTURE_TIME " + value);
+        }
+    }
+
+    @Test
+    void captureTimeReadsDateCellText() {
+        // 날짜 서식 셀은 Date.toString() 형식으로 들어오므로 같은 YYMM 구간으로 변환
+        assertEquals("19년", BinnedField.CAPTURE_TIME.labelOf("Tue Jan 01 00:00:00 KST 2019"));
+        assertEquals("08년", BinnedField.CAPTURE_TIME.labelOf("Mon Dec 01 09:30:00 UTC 2008"));
+        assertEquals("07년 이하", BinnedField.CAPTURE_TIME.labelOf("Fri Jun 15 00:00:00 KST 1990"));
+        assertEquals("", BinnedField.CAPTURE_TIME.labelOf("Sun Mar 01 00:00:00 KST 2030"));
+        assertEquals("", BinnedField.CAPTURE_TIME.labelOf("2019-01-01"));
+    }
+
+    @Test
+    void forHeaderFindsBinnedFields() {
+        assertEquals(BinnedField.AGE, BinnedField.forHeader("P_AGE"));
+        assertEquals(BinnedField.CAPTURE_TIME, BinnedField.forHeader("CAPTURE_TIME"));
+        assertEquals(null, BinnedField.forHeader("P_GENDER"));
+    }
+
+    // 모든 구간 경계 앞뒤 값과 숫자가 아닌 값
+    private static List<String> sampleValues() {
+        List<String> values = new ArrayList<>();
+        for (int value = -20; value <= 2600; value++) {
+            values.add(String.valueOf(value));
+        }
+        values.addAll(Arrays.asList(String.valueOf(Integer.MAX_VALUE), String.valueOf(Integer.MIN_VALUE),
+                "", " ", "abc", "12.5", "1e3", "-", "１２"));
+        values.add(null);
+        return values;
+    }
+}
@@ -0,0 +1,205 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.util.excel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrfCubeTest {
+
+    // 기관명, 시트에서 뺄 컬럼 (컬럼이 없는 시트도 섞음)
+    private static final String[][] SHEETS = {
+            {"기관A"}, {"기관A", "LS_SMOKE"}, {"기관B", "INSTITUTION_ID", "CAPTURE_TIME"}, {"기관C", "P_AGE", "IMAGE_SRC"}};
+
+    @Test
+    void queryMatchesRowScanForRandomFilters() {
+        Random random = new Random(25);
+        List<TestSheet> sheets = randomSheets(random);
+        CrfCube cube = buildCube(sheets, Integer.MAX_VALUE);
+        assertEquals(CrfCube.DIMENSIONS, cube.getHeaders());
+
+        for (int i = 0; i < 500; i++) {
+            Map<String, String> filterConditions = randomFilters(random);
+            List<String> headers = randomHeaders(random);
+            assertTrue(cube.supportsFilters(filterConditions));
+            assertEquals(rowScan(sheets, filterConditions, headers), normalize(cube.query(filterConditions, headers), headers),
+                    "filter " + filterConditions + ", headers " + headers);
+        }
+    }
+
+    @Test
+    void boundedCubeMatchesRowScanForSupportedHeaders() {
+        Random random = new Random(26);
+        List<TestSheet> sheets = randomSheets(random);
+        CrfCube cube = buildCube(sheets, 2000);
+        assertTrue(cube.getCellCount() <= 2000);
+        assertTrue(cube.getHeaders().size() < CrfCube.DIMENSIONS.size());
+
+        int compared = 0;
+        for (int i = 0; i < 500; i++) {
+            Map<String, String> filterConditions = randomFilters(random);
+            if (!cube.supportsFilters(filterConditions)) {
+                continue; // 빠진 차원의 필터는 행을 훑어야 함
+            }
+            List<String> headers = new ArrayList<>(randomHeaders(random));
+            headers.removeIf(header -> !cube.supportsHeader(header));
+            assertEquals(rowScan(sheets, filterConditions, headers), normalize(cube.query(filterConditions, headers), headers),
+                    "filter " + filterConditions + ", headers " + headers);
+            compared++;
+        }
+        assertTrue(compared > 0);
+    }
+
+    @Test
+    void countsOnlySelectedRows() {
+        Random random = new Random(27);
+        List<TestSheet> sheets = randomSheets(random);
+        long selected = 0;
+        for (TestSheet testSheet : sheets) {
+            testSheet.rows.clear();
+            for (int row = 0; row < testSheet.sheet.getRowCount(); row += 3) {
+                testSheet.rows.set(row); // Pass되지 않았거나 중복된 IMAGE_ID 행은 큐브에 넣지 않음
+            }
+            selected += testSheet.rows.cardinality();
+        }
+        CrfCube cube = buildCube(sheets, Integer.MAX_VALUE);
+        assertEquals(selected, cube.getRowCount());
+
+        for (int i = 0; i < 100; i++) {
+            Map<String, String> filterConditions = randomFilters(random);
+            assertEquals(rowScan(sheets, filterConditions, CrfCube.DIMENSIONS),
+                    normalize(cube.query(filterConditions, CrfCube.DIMENSIONS), CrfCube.DIMENSIONS), "filter " + filterConditions);
+        }
+    }
+
+    // 시트 하나와 큐브에 넣을 행
+    private static final class TestSheet {
+        private final CrfDataset.Sheet sheet;
+        private final String institutionName;
+        private final BitSet rows = new BitSet();
+
+        private TestSheet(CrfDataset.Sheet sheet, String institutionName) {
+            this.sheet = sheet;
+            this.institutionName = institutionName;
+            rows.set(0, sheet.getRowCount());
+        }
+    }
+
+    private static List<TestSheet> randomSheets(Random random) {
+        List<TestSheet> sheets = new ArrayList<>();
+        for (String[] spec : SHEETS) {
+            List<String> headers = new ArrayList<>(CrfCube.DIMENSIONS);
+            headers.add("IMAGE_ID");
+            headers.removeAll(Arrays.asList(spec).subList(1, spec.length));
+
+            CrfDataset.Builder builder = new CrfDataset.Builder(0L, 0L);
+            int rowCount = 300 + random.nextInt(300);
+            for (int i = 0; i < rowCount; i++) {
+                Map<String, String> values = new LinkedHashMap<>();
+                for (String header : headers) {
+                    values.put(header, randomValue(random, header, i));
+                }
+                builder.onRow("CRF", i, values);
+            }
+            sheets.add(new TestSheet(builder.build().getSheets().get(0), spec[0]));
+        }
+        return sheets;
+    }
+
+    // 빈 값과 숫자가 아닌 값을 섞은 셀 값
+    private static String randomValue(Random random, String header, int row) {
+        if (random.nextInt(15) == 0) {
+            return "";
+        }
+        return switch (header) {
+            case "IMAGE_ID" -> "ID" + row;
+            case "INSTITUTION_ID" -> String.valueOf(1 + random.nextInt(3));
+            case "DISEASE_CLASS" -> String.valueOf((char) ('A' + random.nextInt(3)));
+            case "P_GENDER" -> String.valueOf(1 + random.nextInt(2));
+            case "P_AGE" -> random.nextInt(30) == 0 ? "모름" : String.valueOf(random.nextInt(110) - 5);
+            case "CAPTURE_TIME" -> random.nextInt(30) == 0 ? "abc" : String.valueOf((5 + random.nextInt(22)) * 100 + random.nextInt(14));
+            case "IMAGE_SRC" -> "SRC" + random.nextInt(4);
+            default -> String.valueOf(random.nextInt(3));
+        };
+    }
+
+    // 알 수 없는 코드와 시트에 없는 값도 섞은 필터
+    private static Map<String, String> randomFilters(Random random) {
+        Map<String, String> filterConditions = new HashMap<>();
+        for (String header : CrfCube.DIMENSIONS) {
+            if (random.nextInt(3) != 0) {
+                continue;
+            }
+            String expectedValue = switch (header) {
+                case "P_AGE" -> String.valueOf(random.nextInt(11));
+                case "CAPTURE_TIME" -> String.valueOf(10 + random.nextInt(16));
+                case "DISEASE_CLASS" -> String.valueOf((char) ('A' + random.nextInt(4)));
+                case "IMAGE_SRC" -> "SRC" + random.nextInt(5);
+                default -> String.valueOf(random.nextInt(4));
+            };
+            filterConditions.put(header, expectedValue);
+        }
+        return filterConditions;
+    }
+
+    private static List<String> randomHeaders(Random random) {
+        List<String> headers = new ArrayList<>();
+        for (String header : CrfCube.DIMENSIONS) {
+            if (random.nextBoolean()) {
+                headers.add(header);
+            }
+        }
+        Collections.shuffle(headers, random);
+        return headers;
+    }
+
+    private static CrfCube buildCube(List<TestSheet> sheets, int maxCells) {
+        CrfCube.Builder builder = CrfCube.builder(maxCells);
+        for (TestSheet testSheet : sheets) {
+            builder.addSheet(testSheet.sheet, testSheet.institutionName, testSheet.rows);
+        }
+        return builder.build();
+    }
+
+    // AnalyzeFolderDataServiceImpl의 행 집계 (RowFilter로 행 선택, 기관은 파일명의 기관명으로 집계)
+    private static Map<String, Map<Object, Object>> rowScan(List<TestSheet> sheets, Map<String, String> filterConditions, List<String> headers) {
+        HeaderHistogram histogram = new HeaderHistogram(true);
+        for (TestSheet testSheet : sheets) {
+            RowFilter rowFilter = RowFilter.compile(testSheet.sheet, filterConditions);
+            BitSet selectedRows = new BitSet();
+            for (int row = testSheet.rows.nextSetBit(0); row >= 0; row = testSheet.rows.nextSetBit(row + 1)) {
+                if (rowFilter.matches(row)) {
+                    selectedRows.set(row);
+                }
+            }
+            Map<String, CrfDataset.Column> valueColumns = new LinkedHashMap<>();
+            for (String header : headers) {
+                CrfDataset.Column column = testSheet.sheet.getColumn(header);
+                if (column != null && !"INSTITUTION_ID".equals(header)) {
+                    valueColumns.put(header, column);
+                }
+            }
+            histogram.addRows(valueColumns, selectedRows);
+            if (headers.contains("INSTITUTION_ID")) {
+                histogram.add("INSTITUTION_ID", testSheet.institutionName, selectedRows.cardinality());
+            }
+        }
+        return normalize(histogram, headers);
+    }
+
+    // 응답의 행 순서는 정해져 있지 않으므로 헤더 → (값 → 건수)로 비교
+    private static Map<String, Map<Object, Object>> normalize(HeaderHistogram histogram, List<String> headers) {
+        Map<String, Map<Object, Object>> counts = new TreeMap<>();
+        for (Map<String, Object> result : histogram.toResponse(headers)) {
+            Map<Object, Object> values = new HashMap<>();
+            for (Object row : (List<?>) result.get("rows")) {
+                Map<?, ?> valueCount = (Map<?, ?>) row;
+                values.put(valueCount.get("value"), valueCount.get("count"));
+            }
+            counts.put((String) result.get("id"), values);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,159 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.util.excel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowFilterTest {
+
+    private static final String[] HEADERS = {"P_AGE", "P_WEIGHT", "P_HEIGHT", "CAPTURE_TIME", "P_GENDER"};
+
+    // 기존 행 단위 조건 검사 (ConditionMatcher의 값별 검사 + 그 밖의 헤더는 문자열 일치, 숫자가 아닌 값은 불일치)
+    private static boolean legacyMatches(Map<String, String> row, Map<String, String> filterConditions) {
+        for (Map.Entry<String, String> condition : filterConditions.entrySet()) {
+            String header = condition.getKey();
+            if (!Arrays.asList(HEADERS).contains(header)) {
+                continue; // 시트에 없는 헤더
+            }
+            String cellValue = row.getOrDefault(header, "");
+            String expected = condition.getValue();
+            boolean matches = switch (header) {
+                case "P_AGE" -> legacyRange(cellValue, switch (expected) {
+                    case "0" -> new long[]{Long.MIN_VALUE, 9};
+                    case "9" -> new long[]{91, Long.MAX_VALUE};
+                    case "1" -> new long[]{10, 20};
+                    case "2", "3", "4", "5", "6", "7", "8" -> {
+                        int code = Integer.parseInt(expected);
+                        yield new long[]{code * 10 + 1L, code * 10 + 10L};
+                    }
+                    default -> null;
+                });
+                case "P_WEIGHT" -> legacyRange(cellValue, switch (expected) {
+                    case "0" -> new long[]{Long.MIN_VALUE, 39};
+                    case "1" -> new long[]{40, 50};
+                    case "2", "3", "4", "5" -> {
+                        int code = Integer.parseInt(expected);
+                        yield new long[]{code * 10 + 31L, code * 10 + 40L};
+                    }
+                    case "6" -> new long[]{91, Long.MAX_VALUE};
+                    default -> null;
+                });
+                case "P_HEIGHT" -> legacyRange(cellValue, switch (expected) {
+                    case "0" -> new long[]{Long.MIN_VALUE, 139};
+                    case "1" -> new long[]{141, 150}; // 기존 조건은 140을 어느 구간에도 넣지 않음
+                    case "2", "3", "4", "5" -> {
+                        int code = Integer.parseInt(expected);
+                        yield new long[]{code * 10 + 131L, code * 10 + 140L};
+                    }
+                    case "6" -> new long[]{191, Long.MAX_VALUE};
+                    default -> null;
+                });
+                case "CAPTURE_TIME" -> {
+                    if (!expected.matches("1[2-9]|2[0-3]")) {
+                        yield false;
+                    }
+                    long year = Long.parseLong(expected) * 100;
+                    yield legacyRange(cellValue, new long[]{year + 1, year + 12});
+                }
+                default -> cellValue.equals(expected);
+            };
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean legacyRange(String cellValue, long[] range) {
+        if (range == null) {
+            return false;
+        }
+        try {
+            long value = Integer.parseInt(cellValue);
+            return value >= range[0] && value <= range[1];
+        } catch (NumberFormatException e) {
+            return false; // 빈 값, 숫자가 아닌 값
+        }
+    }
+
+    @Test
+    void matchesLegacyConditionsAtBoundaries() {
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (int value : new int[]{-1, 0, 9, 10, 20, 21, 30, 31, 39, 40, 41, 50, 51, 60, 61, 70, 71, 80, 81, 90, 91,
+                139, 140, 141, 150, 151, 160, 161, 170, 171, 180, 181, 190, 191, 1200, 1201, 1212, 1213, 2301, 2312, 2401}) {
+            Map<String, String> row = new HashMap<>();
+            for (String header : new String[]{"P_AGE", "P_WEIGHT", "P_HEIGHT", "CAPTURE_TIME"}) {
+                row.put(header, String.valueOf(value));
+            }
+            row.put("P_GENDER", value % 2 == 0 ? "1" : "2");
+            rows.add(row);
+        }
+        rows.add(new HashMap<>(Map.of("P_AGE", "abc", "P_GENDER", "1")));
+        rows.add(new HashMap<>());
+        CrfDataset.Sheet sheet = sheetOf(rows);
+
+        List<String> codes = Arrays.asList("0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "23", "24", "x");
+        for (String header : HEADERS) {
+            for (String code : codes) {
+                assertSameAsLegacy(sheet, rows, Map.of(header, code));
+            }
+        }
+        assertSameAsLegacy(sheet, rows, Map.of("P_GENDER", ""));
+        assertSameAsLegacy(sheet, rows, Map.of("NOT_IN_SHEET", "1"));
+        assertSameAsLegacy(sheet, rows, Map.of());
+    }
+
+    @Test
+    void matchesLegacyConditionsForRandomFilters() {
+        Random random = new Random(21);
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Map<String, String> row = new HashMap<>();
+            if (random.nextInt(20) != 0) row.put("P_AGE", String.valueOf(random.nextInt(110) - 5));
+            if (random.nextInt(20) != 0) row.put("P_WEIGHT", random.nextInt(50) == 0 ? "모름" : String.valueOf(30 + random.nextInt(80)));
+            if (random.nextInt(20) != 0) row.put("P_HEIGHT", String.valueOf(130 + random.nextInt(70)));
+            if (random.nextInt(20) != 0) row.put("CAPTURE_TIME", String.valueOf((5 + random.nextInt(22)) * 100 + random.nextInt(14)));
+            row.put("P_GENDER", String.valueOf(1 + random.nextInt(2)));
+            rows.add(row);
+        }
+        CrfDataset.Sheet sheet = sheetOf(rows);
+
+        for (int i = 0; i < 500; i++) {
+            Map<String, String> filterConditions = new HashMap<>();
+            if (random.nextBoolean()) filterConditions.put("P_AGE", String.valueOf(random.nextInt(11)));
+            if (random.nextBoolean()) filterConditions.put("P_WEIGHT", String.valueOf(random.nextInt(8)));
+            if (random.nextBoolean()) filterConditions.put("P_HEIGHT", String.valueOf(random.nextInt(8)));
+            if (random.nextBoolean()) filterConditions.put("CAPTURE_TIME", String.valueOf(10 + random.nextInt(16)));
+            if (random.nextBoolean()) filterConditions.put("P_GENDER", String.valueOf(1 + random.nextInt(3)));
+            assertSameAsLegacy(sheet, rows, filterConditions);
+        }
+    }
+
+    private static void assertSameAsLegacy(CrfDataset.Sheet sheet, List<Map<String, String>> rows, Map<String, String> filterConditions) {
+        RowFilter filter = RowFilter.compile(sheet, filterConditions);
+        boolean anyMatch = false;
+        for (int row = 0; row < rows.size(); row++) {
+            boolean expected = legacyMatches(rows.get(row), filterConditions);
+            anyMatch |= expected;
+            assertEquals(expected, filter.matches(row), "filter " + filterConditions + ", row " + rows.get(row));
+        }
+        if (filter.matchesNothing()) {
+            assertTrue(!anyMatch, "matchesNothing with matching rows: " + filterConditions);
+        }
+    }
+
+    private static CrfDataset.Sheet sheetOf(List<Map<String, String>> rows) {
+        CrfDataset.Builder builder = new CrfDataset.Builder(0L, 0L);
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String header : HEADERS) {
+                values.put(header, rows.get(i).getOrDefault(header, "")); // CrfStreamReader는 셀이 없는 컬럼을 빈 문자열로 전달
+            }
+            builder.onRow("CRF", i, values);
+        }
+        return builder.build().getSheets().get(0);
+    }
+}
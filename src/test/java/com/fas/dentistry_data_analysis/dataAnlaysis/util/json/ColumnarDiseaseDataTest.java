@@ -0,0 +1,104 @@
+package com.fas.dentistry_data_analysis.dataAnlaysis.util.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarDiseaseDataTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void roundTripsOneByteCodes() throws IOException {
+        assertRoundTrip(300, 254); // 사전 254개: 1바이트 코드
+    }
+
+    @Test
+    void roundTripsTwoByteCodes() throws IOException {
+        assertRoundTrip(300, 255);     // 1바이트 경계를 넘는 사전
+        assertRoundTrip(70000, 65534); // 2바이트 코드의 가장 큰 사전
+    }
+
+    @Test
+    void roundTripsFourByteCodes() throws IOException {
+        assertRoundTrip(70000, 65535);
+    }
+
+    @Test
+    void rejectsOtherFormats() throws IOException {
+        assertNull(ColumnarDiseaseData.readFrom(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})));
+    }
+
+    // 값 종류가 distinctValues개인 열 V와 레코드마다 다른 IMAGE_ID, 치아 상태를 저장했다가 다시 읽어 비교
+    private void assertRoundTrip(int recordCount, int distinctValues) throws IOException {
+        ColumnarDiseaseData.Builder builder = new ColumnarDiseaseData.Builder(1234L, 5678L);
+        for (int i = 0; i < recordCount; i++) {
+            builder.add(record(i, distinctValues));
+        }
+        builder.add(objectMapper.createObjectNode().put("V", "IMAGE_ID 없는 레코드")); // 건너뜀
+        ColumnarDiseaseData original = builder.build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        original.writeTo(outputStream);
+        ColumnarDiseaseData restored = ColumnarDiseaseData.readFrom(new ByteArrayInputStream(outputStream.toByteArray()));
+
+        assertNotNull(restored);
+        assertTrue(restored.isBuiltFrom(1234L, 5678L));
+        assertFalse(restored.isBuiltFrom(1234L, 5679L));
+        assertEquals(recordCount, restored.getRecordCount());
+        for (int i = 0; i < recordCount; i++) {
+            assertEquals("ID" + i, restored.getImageIds().get(i));
+            assertEquals(expectedValue(i, distinctValues), restored.getColumn("V").get(i), "record " + i);
+            assertEquals(original.getColumn("V").get(i), restored.getColumn("V").get(i));
+            assertEquals(original.getColumn("INSTITUTION_ID").get(i), restored.getColumn("INSTITUTION_ID").get(i));
+        }
+        assertNull(restored.getColumn("NOT_A_KEY"));
+        assertEquals(original.getColumn("V").countValues(), restored.getColumn("V").countValues());
+        assertEquals(expectedToothCounts(recordCount), restored.countToothValues());
+    }
+
+    private ObjectNode record(int i, int distinctValues) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("IMAGE_ID", "ID" + i);
+        node.put("INSTITUTION_ID", "기관" + (i % 3));
+        String value = expectedValue(i, distinctValues);
+        if (value != null) {
+            node.put("V", value);
+        } else if (i % 2 == 0) {
+            node.put("V", "none");
+        }
+        ObjectNode teeth = node.putArray("Annotation_Data").addObject();
+        teeth.put("11", i % 2 == 0 ? "C" : "M");
+        if (i % 3 == 0) {
+            teeth.put("12", "I");
+        }
+        return node;
+    }
+
+    // 사전 크기가 정확히 distinctValues가 되도록 앞쪽 레코드는 모두 값을 갖고, 그 뒤로 7번째마다 값 없음 ("none" 또는 키 없음)
+    private static String expectedValue(int i, int distinctValues) {
+        if (i >= distinctValues && i % 7 == 3) {
+            return null;
+        }
+        return "값" + (i % distinctValues);
+    }
+
+    private static Map<String, Integer> expectedToothCounts(int recordCount) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < recordCount; i++) {
+            counts.merge(i % 2 == 0 ? "C" : "M", 1, Integer::sum);
+            if (i % 3 == 0) {
+                counts.merge("I", 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+}